@@ -0,0 +1,14 @@
+package travelbooking;
+
+// Interface for Bookable items
+interface Bookable {
+    void book();
+    void cancel();
+    boolean tryReserve(int quantity);
+    boolean release(int quantity);
+    int getAvailableCount();
+    int getCapacity();
+    double calculatePrice();
+    boolean isAvailable();
+    String getType();
+}
@@ -0,0 +1,52 @@
+package travelbooking;
+
+import java.time.LocalDate;
+
+// A single confirmed booking, immutable once created
+class Booking {
+    private final String reference;
+    private final String itemId;
+    private final Bookable item;
+    private final int quantity;
+    private final double price;
+    private final long timestamp;
+    // Dated bookings hold the item from startDate (inclusive) to endDate (exclusive); both null otherwise
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+    public Booking(String reference, String itemId, Bookable item, int quantity, double price, long timestamp) {
+        this(reference, itemId, item, quantity, price, timestamp, null, null);
+    }
+
+    public Booking(String reference, String itemId, Bookable item, int quantity, double price, long timestamp,
+                   LocalDate startDate, LocalDate endDate) {
+        this.reference = reference;
+        this.itemId = itemId;
+        this.item = item;
+        this.quantity = quantity;
+        this.price = price;
+        this.timestamp = timestamp;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public String getReference() { return reference; }
+    public String getItemId() { return itemId; }
+    public Bookable getItem() { return item; }
+    public int getQuantity() { return quantity; }
+    // Total price charged when the booking was made (unit price x quantity, summed over the dates if dated)
+    public double getPrice() { return price; }
+    public long getTimestamp() { return timestamp; }
+    public LocalDate getStartDate() { return startDate; }
+    public LocalDate getEndDate() { return endDate; }
+
+    public boolean isDated() {
+        return startDate != null;
+    }
+
+    @Override
+    public String toString() {
+        String dates = isDated() ? ", " + startDate + " to " + endDate : "";
+        return reference + " [" + itemId + " x" + quantity + dates + String.format(", $%.2f]", price);
+    }
+}
@@ -0,0 +1,419 @@
+package travelbooking;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Revenue and occupancy aggregates kept up to date on every booking and cancellation, so they can
+ * be read at any moment without going over the bookings: totals per item type, city, airline and
+ * flight route, per hotel, and per hour. Revenue is the price each booking was charged when it was
+ * made, not the item's current price.
+ *
+ * Each item's aggregates are resolved once, when the item is registered (which is also when its
+ * capacity is added to them), so recording a booking is one map lookup and a handful of adder
+ * increments. Reads sum the adders without stopping writers, so a row read mid-booking may have
+ * the booking's count but not yet its revenue.
+ *
+ * A flight counts toward its destination city, a hotel toward its location; car rentals have no
+ * city. Occupancy is measured against the inventory calendar's window, as the calendar charges it:
+ * an open-dated booking holds its units on every day of the window, a dated one only on its own
+ * nights, so dated bookings add quantity x nights unit-nights rather than units. Load factor is the
+ * share of the window's unit-nights (capacity x window days) held by both kinds. A stay keeps
+ * counting after its nights are over, like a flight that has departed, until it is cancelled.
+ * Hour buckets hold bookings (and their revenue) by when they were made and cancellations by when
+ * they happened; the last HOUR_BUCKETS hours are kept. After a restart the aggregates start from the
+ * bookings the journal recovers: cancellations from before it are not replayed.
+ */
+class BookingAnalytics {
+    enum Dimension { TYPE, CITY, AIRLINE, ROUTE, HOTEL, HOUR }
+
+    public static final int HOUR_BUCKETS = 24 * 31;
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int REPORT_ROWS = 10;
+    private static final DateTimeFormatter HOUR_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00").withZone(ZoneId.systemDefault());
+
+    private final Map<Dimension, ConcurrentMap<String, Aggregate>> byKey = new LinkedHashMap<>();
+    private final NavigableMap<Long, Aggregate> byHour = new ConcurrentSkipListMap<>(); // by bucket start
+    private final ConcurrentMap<String, ItemAggregates> items = new ConcurrentHashMap<>();
+    private volatile Map.Entry<Long, Aggregate> currentHour; // the bucket nearly every booking lands in
+    private final int windowDays;
+
+    // windowDays is the inventory calendar's window, which dated bookings' nights are measured against
+    public BookingAnalytics(int windowDays) {
+        if (windowDays <= 0) {
+            throw new IllegalArgumentException("Window must be at least one day");
+        }
+        this.windowDays = windowDays;
+        for (Dimension dimension : Dimension.values()) {
+            if (dimension != Dimension.HOUR) {
+                byKey.put(dimension, new ConcurrentHashMap<>());
+            }
+        }
+    }
+
+    // Adds the entities' capacity to their aggregates; called once per entity, at registration
+    public void itemsAdded(List<? extends Displayable> entities) {
+        for (Displayable entity : entities) {
+            if (!(entity instanceof Bookable) || !(entity instanceof TravelEntity)) {
+                continue;
+            }
+            Bookable item = (Bookable) entity;
+            String id = ((TravelEntity) entity).getId();
+            String type = item.getType();
+            List<Aggregate> rows = new ArrayList<>(4);
+            rows.add(aggregate(Dimension.TYPE, type));
+            if (entity instanceof Flight) {
+                Flight flight = (Flight) entity;
+                rows.add(aggregate(Dimension.AIRLINE, flight.getCategory()));
+                rows.add(aggregate(Dimension.ROUTE, flight.getSource() + " to " + flight.getDestination()));
+                rows.add(aggregate(Dimension.CITY, flight.getDestination()));
+            } else if ("Hotel".equals(type)) {
+                rows.add(aggregate(Dimension.CITY, ((TravelEntity) entity).getCategory()));
+            }
+            ItemAggregates aggregates = new ItemAggregates(item.getCapacity(), rows, "Hotel".equals(type) ? id : null);
+            for (Aggregate aggregate : rows) {
+                aggregate.capacity.add(aggregates.capacity);
+            }
+            items.put(id, aggregates);
+        }
+    }
+
+    private Aggregate aggregate(Dimension dimension, String key) {
+        return byKey.get(dimension).computeIfAbsent(key == null ? "" : key, k -> new Aggregate());
+    }
+
+    public void bookingAdded(Booking booking) {
+        ItemAggregates aggregates = items.get(booking.getItemId());
+        int units = booking.isDated() ? 0 : booking.getQuantity();
+        long nights = nights(booking);
+        hour(booking.getTimestamp()).booked(units, nights, booking.getPrice());
+        if (aggregates == null) {
+            return; // booked through an item that was never registered here
+        }
+        for (Aggregate aggregate : aggregates.rows) {
+            aggregate.booked(units, nights, booking.getPrice());
+        }
+        if (aggregates.hotel != null) {
+            hotel(aggregates).booked(units, nights, booking.getPrice());
+        }
+    }
+
+    // bookingAdded for many bookings at once, e.g. those recovered from the journal: each item's and
+    // hour's rows are updated once with the sums of its bookings
+    public void bookingsAdded(Collection<Booking> added) {
+        Map<String, Sums> byItem = new HashMap<>();
+        Map<Long, Sums> byBucket = new HashMap<>();
+        for (Booking booking : added) {
+            int units = booking.isDated() ? 0 : booking.getQuantity();
+            long nights = nights(booking);
+            long timestamp = booking.getTimestamp();
+            byItem.computeIfAbsent(booking.getItemId(), id -> new Sums()).add(units, nights, booking.getPrice());
+            byBucket.computeIfAbsent(timestamp - Math.floorMod(timestamp, HOUR_MILLIS), b -> new Sums())
+                    .add(units, nights, booking.getPrice());
+        }
+        for (Map.Entry<Long, Sums> bucket : byBucket.entrySet()) {
+            bucket.getValue().applyTo(hour(bucket.getKey()));
+        }
+        for (Map.Entry<String, Sums> item : byItem.entrySet()) {
+            ItemAggregates aggregates = items.get(item.getKey());
+            if (aggregates == null) {
+                continue;
+            }
+            for (Aggregate aggregate : aggregates.rows) {
+                item.getValue().applyTo(aggregate);
+            }
+            if (aggregates.hotel != null) {
+                item.getValue().applyTo(hotel(aggregates));
+            }
+        }
+    }
+
+    public void bookingRemoved(Booking booking) {
+        ItemAggregates aggregates = items.get(booking.getItemId());
+        int units = booking.isDated() ? 0 : booking.getQuantity();
+        long nights = nights(booking);
+        hour(System.currentTimeMillis()).cancelled(units, nights, booking.getPrice());
+        if (aggregates == null) {
+            return;
+        }
+        for (Aggregate aggregate : aggregates.rows) {
+            aggregate.cancelled(units, nights, booking.getPrice());
+        }
+        if (aggregates.hotel != null) {
+            hotel(aggregates).cancelled(units, nights, booking.getPrice());
+        }
+    }
+
+    // Unit-nights a dated booking holds; 0 for open-dated ones
+    private static long nights(Booking booking) {
+        if (!booking.isDated()) {
+            return 0;
+        }
+        return (long) booking.getQuantity() * (booking.getEndDate().toEpochDay() - booking.getStartDate().toEpochDay());
+    }
+
+    // Hotels get their row on their first booking: most of a large catalog is never booked
+    private Aggregate hotel(ItemAggregates aggregates) {
+        Aggregate hotel = aggregates.hotelRow;
+        if (hotel == null) {
+            hotel = byKey.get(Dimension.HOTEL).computeIfAbsent(aggregates.hotel, id -> {
+                Aggregate aggregate = new Aggregate();
+                aggregate.capacity.add(aggregates.capacity);
+                return aggregate;
+            });
+            aggregates.hotelRow = hotel;
+        }
+        return hotel;
+    }
+
+    private Aggregate hour(long timestamp) {
+        long bucket = timestamp - Math.floorMod(timestamp, HOUR_MILLIS);
+        Map.Entry<Long, Aggregate> current = currentHour;
+        if (current != null && current.getKey() == bucket) {
+            return current.getValue();
+        }
+        Aggregate aggregate = byHour.get(bucket);
+        if (aggregate == null) {
+            aggregate = byHour.computeIfAbsent(bucket, b -> new Aggregate());
+            while (byHour.size() > HOUR_BUCKETS) {
+                byHour.pollFirstEntry();
+            }
+        }
+        if (current == null || bucket > current.getKey()) {
+            currentHour = new AbstractMap.SimpleImmutableEntry<>(bucket, aggregate);
+        }
+        return aggregate;
+    }
+
+    // Summed over the item types, which every registered item counts toward exactly once
+    public Totals getTotal() {
+        Totals total = new Totals(0, 0, 0, 0, 0, 0, 0, windowDays);
+        for (Aggregate type : byKey.get(Dimension.TYPE).values()) {
+            total = total.plus(type.totals(windowDays));
+        }
+        return total;
+    }
+
+    // Totals for one key (e.g. TYPE "Hotel", ROUTE "Delhi to Goa", HOTEL "H1"), or null if there are none
+    public Totals get(Dimension dimension, String key) {
+        Aggregate aggregate = dimension == Dimension.HOUR ? byHour.get(Long.parseLong(key))
+                : byKey.get(dimension).get(key);
+        return aggregate == null ? null : aggregate.totals(windowDays);
+    }
+
+    /**
+     * Every row of a dimension, highest net revenue first; HOUR rows are keyed by the bucket's start
+     * (epoch millis) and come newest first.
+     */
+    public Map<String, Totals> breakdown(Dimension dimension) {
+        List<Map.Entry<String, Totals>> rows = new ArrayList<>();
+        if (dimension == Dimension.HOUR) {
+            for (Map.Entry<Long, Aggregate> entry : byHour.descendingMap().entrySet()) {
+                rows.add(new AbstractMap.SimpleImmutableEntry<>(String.valueOf(entry.getKey()),
+                        entry.getValue().totals(windowDays)));
+            }
+        } else {
+            for (Map.Entry<String, Aggregate> entry : byKey.get(dimension).entrySet()) {
+                rows.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().totals(windowDays)));
+            }
+            rows.sort((a, b) -> Double.compare(b.getValue().getNetRevenue(), a.getValue().getNetRevenue()));
+        }
+        Map<String, Totals> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Totals> row : rows) {
+            result.put(row.getKey(), row.getValue());
+        }
+        return result;
+    }
+
+    // Compact text report: overall totals, then the top REPORT_ROWS rows of every dimension
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        String header = "%-28s %9s %9s %9s %9s %9s %7s %14s %14s%n";
+        String row = "%-28s %9d %9d %9d %9d %9d %6.1f%% %14.2f %14.2f%n";
+        Totals all = getTotal();
+        out.append(String.format(header, "total", "booked", "cancelled", "units", "nights", "capacity", "load",
+                "net revenue", "cancelled rev"));
+        out.append(String.format(row, "", all.getBookings(), all.getCancellations(), all.getUnits(), all.getNights(),
+                all.getCapacity(), all.getLoadFactor() * 100, all.getNetRevenue(), all.getCancelledRevenue()));
+        for (Dimension dimension : Dimension.values()) {
+            Map<String, Totals> rows = breakdown(dimension);
+            if (rows.isEmpty()) {
+                continue;
+            }
+            out.append("by ").append(dimension.name().toLowerCase(Locale.ROOT)).append(System.lineSeparator());
+            int shown = 0;
+            for (Map.Entry<String, Totals> entry : rows.entrySet()) {
+                if (shown++ == REPORT_ROWS) {
+                    out.append("  ... ").append(rows.size() - REPORT_ROWS).append(" more").append(System.lineSeparator());
+                    break;
+                }
+                Totals t = entry.getValue();
+                String key = dimension == Dimension.HOUR
+                        ? HOUR_FORMAT.format(Instant.ofEpochMilli(Long.parseLong(entry.getKey())))
+                        : entry.getKey();
+                out.append(String.format(row, "  " + key, t.getBookings(), t.getCancellations(), t.getUnits(),
+                        t.getNights(), t.getCapacity(), t.getLoadFactor() * 100, t.getNetRevenue(),
+                        t.getCancelledRevenue()));
+            }
+        }
+        return out.toString();
+    }
+
+    // Every row of every dimension as CSV, for export to a spreadsheet or warehouse; numbers always
+    // use a decimal point, whatever the default locale
+    public String toCsv() {
+        StringBuilder out = new StringBuilder(
+                "dimension,key,bookings,cancellations,units,nights,capacity,loadFactor,revenue,cancelledRevenue,netRevenue\n");
+        appendCsv(out, "total", "", getTotal());
+        for (Dimension dimension : Dimension.values()) {
+            for (Map.Entry<String, Totals> entry : breakdown(dimension).entrySet()) {
+                appendCsv(out, dimension.name().toLowerCase(Locale.ROOT), entry.getKey(), entry.getValue());
+            }
+        }
+        return out.toString();
+    }
+
+    private static void appendCsv(StringBuilder out, String dimension, String key, Totals t) {
+        String quoted = key.indexOf(',') >= 0 || key.indexOf('"') >= 0 ? '"' + key.replace("\"", "\"\"") + '"' : key;
+        out.append(dimension).append(',').append(quoted).append(',').append(t.getBookings()).append(',')
+                .append(t.getCancellations()).append(',').append(t.getUnits()).append(',').append(t.getNights())
+                .append(',').append(t.getCapacity())
+                .append(',').append(String.format(Locale.ROOT, "%.4f", t.getLoadFactor()))
+                .append(',').append(String.format(Locale.ROOT, "%.2f", t.getRevenue()))
+                .append(',').append(String.format(Locale.ROOT, "%.2f", t.getCancelledRevenue()))
+                .append(',').append(String.format(Locale.ROOT, "%.2f", t.getNetRevenue())).append('\n');
+    }
+
+    // Running sums for one row; units is the open-dated units currently booked, nights the dated
+    // bookings' unit-nights
+    private static final class Aggregate {
+        final LongAdder bookings = new LongAdder();
+        final LongAdder cancellations = new LongAdder();
+        final LongAdder units = new LongAdder();
+        final LongAdder nights = new LongAdder();
+        final LongAdder capacity = new LongAdder();
+        final DoubleAdder revenue = new DoubleAdder();
+        final DoubleAdder cancelledRevenue = new DoubleAdder();
+
+        void booked(int quantity, long unitNights, double price) {
+            bookings.increment();
+            units.add(quantity);
+            nights.add(unitNights);
+            revenue.add(price);
+        }
+
+        void cancelled(int quantity, long unitNights, double price) {
+            cancellations.increment();
+            units.add(-quantity);
+            nights.add(-unitNights);
+            cancelledRevenue.add(price);
+        }
+
+        Totals totals(int windowDays) {
+            return new Totals(bookings.sum(), cancellations.sum(), units.sum(), nights.sum(), capacity.sum(),
+                    revenue.sum(), cancelledRevenue.sum(), windowDays);
+        }
+    }
+
+    // Bookings summed ahead of being added to a row in one go
+    private static final class Sums {
+        long bookings;
+        long units;
+        long nights;
+        double revenue;
+
+        void add(int quantity, long unitNights, double price) {
+            bookings++;
+            units += quantity;
+            nights += unitNights;
+            revenue += price;
+        }
+
+        void applyTo(Aggregate aggregate) {
+            aggregate.bookings.add(bookings);
+            aggregate.units.add(units);
+            aggregate.nights.add(nights);
+            aggregate.revenue.add(revenue);
+        }
+    }
+
+    // The rows one registered item contributes to; hotel is the item's id when it is a hotel, else null
+    private static final class ItemAggregates {
+        final int capacity;
+        final Aggregate[] rows;
+        final String hotel;
+        volatile Aggregate hotelRow; // created on the hotel's first booking
+
+        ItemAggregates(int capacity, List<Aggregate> rows, String hotel) {
+            this.capacity = capacity;
+            this.rows = rows.toArray(new Aggregate[0]);
+            this.hotel = hotel;
+        }
+    }
+
+    // One row as read at a moment; revenue is everything booked, net revenue what is still booked
+    static final class Totals {
+        private final long bookings;
+        private final long cancellations;
+        private final long units;
+        private final long nights;
+        private final long capacity;
+        private final double revenue;
+        private final double cancelledRevenue;
+        private final int windowDays;
+
+        Totals(long bookings, long cancellations, long units, long nights, long capacity, double revenue,
+               double cancelledRevenue, int windowDays) {
+            this.bookings = bookings;
+            this.cancellations = cancellations;
+            this.units = units;
+            this.nights = nights;
+            this.capacity = capacity;
+            this.revenue = revenue;
+            this.cancelledRevenue = cancelledRevenue;
+            this.windowDays = windowDays;
+        }
+
+        public long getBookings() { return bookings; }
+        public long getCancellations() { return cancellations; }
+        public long getUnits() { return units; }
+        // Unit-nights held by dated bookings
+        public long getNights() { return nights; }
+        public long getCapacity() { return capacity; }
+        public double getRevenue() { return revenue; }
+        public double getCancelledRevenue() { return cancelledRevenue; }
+
+        Totals plus(Totals other) {
+            return new Totals(bookings + other.bookings, cancellations + other.cancellations, units + other.units,
+                    nights + other.nights, capacity + other.capacity, revenue + other.revenue,
+                    cancelledRevenue + other.cancelledRevenue, windowDays);
+        }
+
+        public double getNetRevenue() {
+            return revenue - cancelledRevenue;
+        }
+
+        // Share of the window's unit-nights held, open-dated units counting every night; 0 when there
+        // is no capacity (HOUR rows)
+        public double getLoadFactor() {
+            return capacity == 0 ? 0 : (units + (double) nights / windowDays) / capacity;
+        }
+    }
+}
@@ -0,0 +1,622 @@
+package travelbooking;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Durable, append-only journal of catalog additions, bookings and cancellations.
+// Records are [length][crc32][payload] in numbered segment files. A single writer thread drains
+// every record queued while the previous fsync was running and syncs them together (group commit).
+// A snapshot N holds the state produced by segments before N, so recovery loads the newest
+// snapshot and replays only the segments from N on. Replay stops at the first torn record; any
+// later segments are renamed with TORN_SUFFIX so no later recovery replays them either; both are
+// listed in getRecoveryProblems for the caller to report.
+// A failed write stops the journal: the bookings and cancellations still waiting to be written are
+// undone in memory, newest first, their futures fail, and every later change is refused before it
+// is applied. Catalog additions are not undone.
+class BookingJournal implements Closeable {
+    private static final byte ADD = 1;
+    private static final byte BOOK = 2;
+    private static final byte CANCEL = 3;
+    private static final byte BOOK_DATED = 4;
+    // Version 2 snapshots carry booking dates; version 1 files are still read
+    private static final int SNAPSHOT_MAGIC_V1 = 0x54425331;
+    private static final int SNAPSHOT_MAGIC = 0x54425332;
+    private static final int MAX_BATCH = 4096;
+    // Appended to segments found after a torn one, which recovery must not replay
+    static final String TORN_SUFFIX = ".torn";
+
+    private final Path directory;
+    private final BookingManager manager;
+    private final boolean waitForSync;
+    private final BlockingQueue<Pending> queue;
+    private final ReadWriteLock snapshotLock;
+    private final Thread writer;
+    private FileChannel channel; // owned by the writer thread once it has started
+    private long syncedLength;   // bytes of the open segment known to be on disk; writer thread
+    private long nextSegment;    // guarded by the snapshot write lock
+    private long recoveredEvents;
+    private final List<String> recoveryProblems = new ArrayList<>();
+    private volatile IOException failure;
+    private ScheduledExecutorService snapshotScheduler;
+
+    private BookingJournal(Path directory, BookingManager manager, boolean waitForSync) {
+        this.directory = directory;
+        this.manager = manager;
+        this.waitForSync = waitForSync;
+        this.queue = new LinkedBlockingQueue<>();
+        this.snapshotLock = new ReentrantReadWriteLock();
+        this.writer = new Thread(this::writeLoop, "booking-journal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Restores the manager from the directory (latest snapshot plus journal tail), then attaches
+     * a journal that records every further change. The manager should be empty.
+     * With waitForSync, book/cancel/add return only after their record has been fsynced.
+     */
+    public static BookingJournal open(Path directory, BookingManager manager, boolean waitForSync) throws IOException {
+        Files.createDirectories(directory);
+        BookingJournal journal = new BookingJournal(directory, manager, waitForSync);
+        journal.recover();
+        journal.writer.start();
+        manager.setJournal(journal);
+        return journal;
+    }
+
+    public long getRecoveredEvents() {
+        return recoveredEvents;
+    }
+
+    // What recovery had to leave out: torn tails cut off, segments set aside, bookings not restored
+    public List<String> getRecoveryProblems() {
+        return Collections.unmodifiableList(recoveryProblems);
+    }
+
+    // The write failure that stopped the journal, with any undo that failed too suppressed in it;
+    // null while the journal is working
+    public IOException getFailure() {
+        return failure;
+    }
+
+    // ---- recording, called by BookingManager ----
+
+    // Held (shared) while a change is applied and queued, so a snapshot never sees half of one.
+    // Throws UncheckedIOException, before anything is applied, once a write has failed.
+    void beginOperation() {
+        snapshotLock.readLock().lock();
+        IOException failure = this.failure;
+        if (failure != null) {
+            snapshotLock.readLock().unlock();
+            throw new UncheckedIOException("Journal is unusable after a failed write", failure);
+        }
+    }
+
+    void endOperation() {
+        snapshotLock.readLock().unlock();
+    }
+
+    CompletableFuture<Void> logAdd(Displayable entity) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(ADD);
+            EntityCodec.write(out, entity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return append(bytes.toByteArray(), null);
+    }
+
+    // undo reverts the booking in memory if its record cannot be written
+    CompletableFuture<Void> logBook(Booking booking, Runnable undo) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(booking.isDated() ? BOOK_DATED : BOOK);
+            writeBooking(out, booking);
+            if (booking.isDated()) {
+                writeDates(out, booking);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return append(bytes.toByteArray(), undo);
+    }
+
+    CompletableFuture<Void> logCancel(Booking booking, Runnable undo) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(24);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(CANCEL);
+            out.writeUTF(booking.getReference());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return append(bytes.toByteArray(), undo);
+    }
+
+    // Blocks until the record is on disk, if this journal was opened with waitForSync
+    void awaitDurable(CompletableFuture<Void> written) {
+        if (written != null && waitForSync) {
+            written.join();
+        }
+    }
+
+    // What a caller has to wait on before reporting the record as done: the write itself with
+    // waitForSync, otherwise nothing (null)
+    CompletableFuture<Void> durability(CompletableFuture<Void> written) {
+        return waitForSync ? written : null;
+    }
+
+    private CompletableFuture<Void> append(byte[] payload, Runnable undo) {
+        Pending pending = new Pending(payload, -1, undo);
+        queue.add(pending);
+        return pending.done;
+    }
+
+    // ---- snapshots ----
+
+    // Writes a snapshot of the current state and drops the journal segments it covers
+    public synchronized void snapshot() throws IOException {
+        long segment;
+        InventorySnapshot state;
+        Pending rotate;
+        snapshotLock.writeLock().lock();
+        try {
+            segment = ++nextSegment;
+            rotate = new Pending(null, segment, null);
+            queue.add(rotate);
+            // No journaled operation is in flight, so this version holds exactly what the old
+            // segments record; it is immutable, so it is written out after the lock is released
+            state = manager.publishSnapshot();
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        try {
+            rotate.done.join();
+        } catch (CompletionException e) {
+            throw new IOException("Journal rotation failed", e.getCause());
+        }
+
+        Path tmp = directory.resolve(snapshotName(segment) + ".tmp");
+        CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16), new CRC32());
+        try (DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(segment);
+            out.writeInt(state.size());
+            for (Displayable entity : state.getEntities()) {
+                EntityCodec.write(out, entity);
+            }
+            out.writeInt(state.getBookingCount());
+            for (Booking booking : state.getBookings()) {
+                writeBooking(out, booking);
+                out.writeBoolean(booking.isDated());
+                if (booking.isDated()) {
+                    writeDates(out, booking);
+                }
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            try (FileChannel file = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                file.force(true);
+            }
+        }
+        Files.move(tmp, directory.resolve(snapshotName(segment)),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (Path file : listFiles()) {
+            long number = fileNumber(file);
+            if (number >= 0 && number < segment) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public synchronized void scheduleSnapshots(long period, TimeUnit unit) {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "booking-journal-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                manager.getMetrics().snapshotFailed(); // the segments are kept, so nothing is lost
+            }
+        }, period, period, unit);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (snapshotScheduler != null) {
+                snapshotScheduler.shutdownNow();
+            }
+        }
+        manager.setJournal(null);
+        Pending stop = new Pending(null, 0, null);
+        queue.add(stop);
+        try {
+            stop.done.join();
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (CompletionException e) {
+            throw new IOException("Journal close failed", e.getCause());
+        }
+    }
+
+    // ---- writer thread ----
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        CRC32 crc = new CRC32();
+        boolean running = true;
+        while (running) {
+            batch.clear();
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            IOException failure = this.failure;
+            if (failure != null) {
+                running = failBatch(batch, failure);
+                continue;
+            }
+            try {
+                for (Pending pending : batch) {
+                    if (pending.payload != null) {
+                        buffer = ensureCapacity(buffer, 8 + pending.payload.length);
+                        crc.reset();
+                        crc.update(pending.payload, 0, pending.payload.length);
+                        buffer.putInt(pending.payload.length);
+                        buffer.putInt((int) crc.getValue());
+                        buffer.put(pending.payload);
+                    } else if (pending.rotateTo > 0) {
+                        flush(buffer);
+                        channel.force(false);
+                        channel.close();
+                        channel = openSegment(pending.rotateTo, 0);
+                        syncedLength = 0;
+                    } else {
+                        running = false;
+                    }
+                }
+                flush(buffer);
+                channel.force(false);
+                syncedLength = channel.position();
+                if (!running) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                running = fail(batch, e);
+                continue;
+            }
+            for (Pending pending : batch) {
+                pending.done.complete(null);
+            }
+        }
+    }
+
+    // Stops the journal after a failed write. Waits until no change is half applied, so the batch
+    // plus whatever is queued now is everything that was applied but not written; undoes it all,
+    // newest first, then fails its futures. Returns false if a close was among them.
+    private boolean fail(List<Pending> batch, IOException e) {
+        snapshotLock.writeLock().lock();
+        try {
+            failure = e;
+            queue.drainTo(batch);
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        int undone = 0;
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            Runnable undo = batch.get(i).undo;
+            if (undo != null) {
+                try {
+                    undo.run();
+                    undone++;
+                } catch (RuntimeException undoFailure) {
+                    e.addSuppressed(undoFailure);
+                }
+            }
+        }
+        manager.getMetrics().journalUndone(undone);
+        // Best effort: cut off records that may have reached the file, so a restart does not bring
+        // back what was just undone
+        try {
+            channel.truncate(syncedLength);
+            channel.force(false);
+        } catch (IOException ignored) {
+            // recovery still stops at the first torn record
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // already failing
+        }
+        return failBatch(batch, e);
+    }
+
+    // Records reaching the writer after a failure were refused before being applied (a snapshot
+    // rotation or a close), so there is nothing to undo
+    private boolean failBatch(List<Pending> batch, IOException e) {
+        boolean running = true;
+        for (Pending pending : batch) {
+            if (pending.payload == null && pending.rotateTo <= 0) {
+                running = false;
+            }
+            pending.done.completeExceptionally(e);
+        }
+        return running;
+    }
+
+    private ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        flush(buffer);
+        return buffer.capacity() >= needed ? buffer : ByteBuffer.allocate(needed);
+    }
+
+    private void flush(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private FileChannel openSegment(long segment, long validLength) throws IOException {
+        FileChannel file = FileChannel.open(directory.resolve(segmentName(segment)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        file.truncate(validLength);
+        file.position(validLength);
+        return file;
+    }
+
+    // ---- recovery ----
+
+    private void recover() throws IOException {
+        long snapshotSegment = 0;
+        Map<String, Booking> active = new LinkedHashMap<>();
+        List<Path> snapshots = new ArrayList<>();
+        List<Path> segments = new ArrayList<>();
+        for (Path file : listFiles()) {
+            String name = file.getFileName().toString();
+            if (name.startsWith("snapshot-") && name.endsWith(".bin")) {
+                snapshots.add(file);
+            } else if (name.startsWith("journal-") && name.endsWith(".log")) {
+                segments.add(file);
+            }
+        }
+        if (!snapshots.isEmpty()) {
+            Path latest = snapshots.get(snapshots.size() - 1);
+            snapshotSegment = fileNumber(latest);
+            loadSnapshot(latest, active);
+        }
+
+        // Catalog additions from the segments are registered together once they are all read
+        List<Displayable> added = new ArrayList<>();
+
+        Set<String> cancelledEarly = new HashSet<>();
+        long lastSegment = snapshotSegment;
+        long validLength = 0;
+        boolean torn = false;
+        for (Path file : segments) {
+            long number = fileNumber(file);
+            if (number < snapshotSegment) {
+                continue;
+            }
+            if (torn) {
+                // Written after records that are now lost, so never replayed; kept aside for inspection
+                Path aside = file.resolveSibling(file.getFileName() + TORN_SUFFIX);
+                Files.move(file, aside, StandardCopyOption.REPLACE_EXISTING);
+                recoveryProblems.add(file.getFileName() + " follows a torn segment; moved to " + aside.getFileName());
+                continue;
+            }
+            lastSegment = number;
+            validLength = replaySegment(file, added, active, cancelledEarly);
+            if (validLength < Files.size(file)) {
+                recoveryProblems.add(file.getFileName() + " has a torn tail after byte " + validLength + "; truncated");
+                torn = true;
+            }
+        }
+        manager.addTravelEntities(added);
+        for (Booking booking : manager.restoreBookings(active.values())) {
+            recoveryProblems.add("booking " + booking.getReference() + " for " + booking.getItemId()
+                    + " could not be restored");
+        }
+        nextSegment = lastSegment;
+        channel = openSegment(lastSegment, validLength);
+        syncedLength = validLength;
+    }
+
+    private void loadSnapshot(Path file, Map<String, Booking> active) throws IOException {
+        CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16), new CRC32());
+        try (DataInputStream in = new DataInputStream(checked)) {
+            int magic = in.readInt();
+            if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_V1) {
+                throw new IOException("Not a booking snapshot: " + file);
+            }
+            in.readLong();
+            int entityCount = in.readInt();
+            List<Displayable> entities = new ArrayList<>(entityCount);
+            for (int i = 0; i < entityCount; i++) {
+                entities.add(EntityCodec.read(in));
+            }
+            manager.addTravelEntities(entities);
+            int bookingCount = in.readInt();
+            for (int i = 0; i < bookingCount; i++) {
+                Booking booking = readBooking(in);
+                if (magic == SNAPSHOT_MAGIC && in.readBoolean()) {
+                    booking = readDates(in, booking);
+                }
+                active.put(booking.getReference(), booking);
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+        }
+        recoveredEvents += active.size();
+    }
+
+    // Applies every intact record; returns the length of the valid prefix of the file
+    private long replaySegment(Path file, List<Displayable> added, Map<String, Booking> active,
+                               Set<String> cancelledEarly) throws IOException {
+        long valid = 0;
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > (1 << 24)) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(payload, added, active, cancelledEarly);
+                valid += 8 + length;
+                recoveredEvents++;
+            }
+        }
+        return valid;
+    }
+
+    private void apply(byte[] payload, List<Displayable> added, Map<String, Booking> active,
+                       Set<String> cancelledEarly) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte kind = in.readByte();
+        if (kind == ADD) {
+            added.add(EntityCodec.read(in));
+        } else if (kind == BOOK || kind == BOOK_DATED) {
+            Booking booking = readBooking(in);
+            if (kind == BOOK_DATED) {
+                booking = readDates(in, booking);
+            }
+            // A cancel can be queued just ahead of its own booking when both race; honour it
+            if (!cancelledEarly.remove(booking.getReference())) {
+                active.put(booking.getReference(), booking);
+            }
+        } else if (kind == CANCEL) {
+            String reference = in.readUTF();
+            if (active.remove(reference) == null) {
+                cancelledEarly.add(reference);
+            }
+        } else {
+            throw new IOException("Unknown journal record type: " + kind);
+        }
+    }
+
+    // ---- helpers ----
+
+    private static void writeBooking(DataOutput out, Booking booking) throws IOException {
+        out.writeUTF(booking.getReference());
+        out.writeUTF(booking.getItemId());
+        out.writeInt(booking.getQuantity());
+        out.writeDouble(booking.getPrice());
+        out.writeLong(booking.getTimestamp());
+    }
+
+    // The item is resolved later by BookingManager.restoreBooking
+    private static Booking readBooking(DataInput in) throws IOException {
+        String reference = in.readUTF();
+        String itemId = in.readUTF();
+        int quantity = in.readInt();
+        double price = in.readDouble();
+        long timestamp = in.readLong();
+        return new Booking(reference, itemId, null, quantity, price, timestamp);
+    }
+
+    private static void writeDates(DataOutput out, Booking booking) throws IOException {
+        out.writeLong(booking.getStartDate().toEpochDay());
+        out.writeLong(booking.getEndDate().toEpochDay());
+    }
+
+    private static Booking readDates(DataInput in, Booking booking) throws IOException {
+        LocalDate start = LocalDate.ofEpochDay(in.readLong());
+        LocalDate end = LocalDate.ofEpochDay(in.readLong());
+        return new Booking(booking.getReference(), booking.getItemId(), null, booking.getQuantity(),
+                booking.getPrice(), booking.getTimestamp(), start, end);
+    }
+
+    private List<Path> listFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (fileNumber(file) >= 0) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(BookingJournal::fileNumber));
+        return files;
+    }
+
+    private static String segmentName(long segment) {
+        return String.format("journal-%012d.log", segment);
+    }
+
+    private static String snapshotName(long segment) {
+        return String.format("snapshot-%012d.bin", segment);
+    }
+
+    // Number embedded in a journal or snapshot file name, or -1 for anything else
+    private static long fileNumber(Path file) {
+        String name = file.getFileName().toString();
+        boolean journal = name.startsWith("journal-") && name.endsWith(".log");
+        boolean snapshot = name.startsWith("snapshot-") && name.endsWith(".bin");
+        if (!journal && !snapshot) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(name.indexOf('-') + 1, name.lastIndexOf('.')));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // A queued record, or a control message when payload is null (rotate if rotateTo > 0, else stop)
+    private static class Pending {
+        final byte[] payload;
+        final long rotateTo;
+        final Runnable undo;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(byte[] payload, long rotateTo, Runnable undo) {
+            this.payload = payload;
+            this.rotateTo = rotateTo;
+            this.undo = undo;
+        }
+    }
+}
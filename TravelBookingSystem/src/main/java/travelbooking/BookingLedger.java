@@ -0,0 +1,108 @@
+package travelbooking;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Ledger of active bookings, indexed by reference and by item
+class BookingLedger {
+    private final Map<String, Booking> byReference;
+    private final Map<String, Set<Booking>> byItem;
+    private final AtomicLong sequence;
+
+    public BookingLedger() {
+        byReference = new ConcurrentHashMap<>();
+        byItem = new ConcurrentHashMap<>();
+        sequence = new AtomicLong();
+    }
+
+    public Booking record(String itemId, Bookable item, int quantity, double price) {
+        return record(itemId, item, quantity, price, null, null);
+    }
+
+    public Booking record(String itemId, Bookable item, int quantity, double price, LocalDate startDate, LocalDate endDate) {
+        String reference = String.format(Locale.ROOT, "BK%08d", sequence.incrementAndGet());
+        Booking booking = new Booking(reference, itemId, item, quantity, price, System.currentTimeMillis(),
+                startDate, endDate);
+        byItem.computeIfAbsent(itemId, k -> ConcurrentHashMap.newKeySet()).add(booking);
+        byReference.put(reference, booking);
+        return booking;
+    }
+
+    // Re-inserts a booking with its original reference; later references continue after it
+    public void restore(Booking booking) {
+        sequence.accumulateAndGet(referenceNumber(booking), Math::max);
+        byItem.computeIfAbsent(booking.getItemId(), k -> ConcurrentHashMap.newKeySet()).add(booking);
+        byReference.put(booking.getReference(), booking);
+    }
+
+    // restore for many bookings: the sequence moves once, and each item's set is looked up once
+    public void restoreAll(Collection<Booking> restored) {
+        long highest = 0;
+        Set<Booking> forItem = null;
+        String itemId = null;
+        for (Booking booking : restored) {
+            highest = Math.max(highest, referenceNumber(booking));
+            if (!booking.getItemId().equals(itemId)) {
+                itemId = booking.getItemId();
+                forItem = byItem.computeIfAbsent(itemId, k -> ConcurrentHashMap.newKeySet());
+            }
+            forItem.add(booking);
+            byReference.put(booking.getReference(), booking);
+        }
+        sequence.accumulateAndGet(highest, Math::max);
+    }
+
+    // The number in a BKnnnnnnnn reference; 0 for a foreign format, which cannot collide with ours
+    private static long referenceNumber(Booking booking) {
+        String reference = booking.getReference();
+        if (reference.startsWith("BK")) {
+            try {
+                return Long.parseLong(reference.substring(2));
+            } catch (NumberFormatException e) {
+                // foreign reference format
+            }
+        }
+        return 0;
+    }
+
+    // Returns the removed booking, or null if it was already gone; only one caller can win
+    public Booking remove(String reference) {
+        Booking booking = byReference.remove(reference);
+        if (booking != null) {
+            Set<Booking> forItem = byItem.get(booking.getItemId());
+            if (forItem != null) {
+                forItem.remove(booking);
+            }
+        }
+        return booking;
+    }
+
+    public Booking find(String reference) {
+        return byReference.get(reference);
+    }
+
+    // Any one active booking for the item, or null if there is none
+    public Booking anyForItem(String itemId) {
+        Set<Booking> forItem = byItem.get(itemId);
+        if (forItem == null) {
+            return null;
+        }
+        Iterator<Booking> it = forItem.iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    public Collection<Booking> forItem(String itemId) {
+        Set<Booking> forItem = byItem.get(itemId);
+        return forItem == null ? Collections.emptySet() : Collections.unmodifiableSet(forItem);
+    }
+
+    public Collection<Booking> all() {
+        return Collections.unmodifiableCollection(byReference.values());
+    }
+
+    public int size() {
+        return byReference.size();
+    }
+}
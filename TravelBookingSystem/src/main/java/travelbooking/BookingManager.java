@@ -0,0 +1,1092 @@
+package travelbooking;
+
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Booking Manager Class
+// Safe for concurrent callers: capacity is claimed with CAS on each item, so there is no global lock.
+// Close it to stop its background threads.
+class BookingManager implements AutoCloseable {
+    // Hold expiry runs to within 100ms; one turn of the wheel covers 51.2s
+    private static final long HOLD_TICK_MILLIS = 100;
+    private static final int HOLD_WHEEL_BUCKETS = 512;
+    // How often the calendar checks whether the date has changed
+    private static final long CALENDAR_ROLL_CHECK_MINUTES = 1;
+
+    private final BookingLedger bookings;
+    private final Catalog catalog;
+    private final SearchIndex searchIndex;
+    private final CatalogIndex catalogIndex;
+    private final RankIndex rankIndex;
+    private final SuggestIndex suggestIndex;
+    private final InventoryCalendar calendar;
+    private final AtomicBoolean calendarRolling;
+    private volatile ScheduledExecutorService calendarRoller;
+    private volatile boolean closed;
+    private final Map<String, Hold> holds;
+    private final AtomicLong holdSequence;
+    private final TimerWheel<Hold> holdWheel;
+    private final Waitlist waitlist;
+    private final InventoryEventPublisher events;
+    private final InventoryVersions versions;
+    private final BookingAnalytics analytics;
+    private final BookingMetrics metrics;
+    private final AtomicLong flightsVersion;
+    private final AtomicReference<StampedGraph> routeGraph;
+    private volatile BookingJournal journal;
+
+    // How the catalog holds the registered entities
+    enum Storage {
+        // The entities as given, so findBookableById returns the very object that was added
+        OBJECTS,
+        // Primitive columns read through flyweights, for catalogs too large for an object per
+        // item; flights, hotels and car rentals only (see ColumnarCatalog)
+        COLUMNAR
+    }
+
+    public BookingManager() {
+        this(Storage.OBJECTS);
+    }
+
+    public BookingManager(Storage storage) {
+        bookings = new BookingLedger();
+        catalog = storage == Storage.COLUMNAR ? new ColumnarCatalog() : new ObjectCatalog();
+        searchIndex = new SearchIndex();
+        catalogIndex = new CatalogIndex();
+        rankIndex = new RankIndex(catalog);
+        suggestIndex = new SuggestIndex(catalog);
+        calendar = new InventoryCalendar(TravelClock.today(), InventoryCalendar.DEFAULT_HORIZON_DAYS);
+        calendarRolling = new AtomicBoolean();
+        holds = new ConcurrentHashMap<>();
+        holdSequence = new AtomicLong();
+        flightsVersion = new AtomicLong();
+        routeGraph = new AtomicReference<>();
+        holdWheel = new TimerWheel<>(HOLD_TICK_MILLIS, TimeUnit.MILLISECONDS, HOLD_WHEEL_BUCKETS,
+                "hold-expiry", this::expireHold);
+        waitlist = new Waitlist(this::promote);
+        events = new InventoryEventPublisher(InventoryEventPublisher.DEFAULT_BATCH_MILLIS);
+        versions = new InventoryVersions(catalog);
+        analytics = new BookingAnalytics(calendar.getDays());
+        metrics = new BookingMetrics();
+    }
+
+    public BookingMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Revenue and occupancy totals, kept current on every booking and cancellation
+    public BookingAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    // Subscribes to coalesced batches of capacity changes from book, cancel and package operations
+    public void addInventoryListener(InventoryEvent.Listener listener) {
+        events.addListener(listener);
+    }
+
+    public void removeInventoryListener(InventoryEvent.Listener listener) {
+        events.removeListener(listener);
+    }
+
+    // Attached by BookingJournal.open; null when running purely in memory
+    void setJournal(BookingJournal journal) {
+        this.journal = journal;
+    }
+
+    public void addTravelEntity(Displayable entity) {
+        addTravelEntities(Collections.singletonList(entity));
+    }
+
+    // Registers many entities with one catalog lock and one index update
+    public void addTravelEntities(List<? extends Displayable> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        BookingJournal journal = this.journal;
+        CompletableFuture<Void> written = null;
+        if (journal != null) {
+            journal.beginOperation();
+        }
+        versions.beginWrite();
+        try {
+            register(entities);
+            if (journal != null) {
+                for (Displayable entity : entities) {
+                    written = journal.logAdd(entity);
+                }
+            }
+        } finally {
+            versions.endWrite();
+            if (journal != null) {
+                journal.endOperation();
+            }
+        }
+        if (journal != null) {
+            // Records are synced in order, so the last one being durable covers the rest
+            journal.awaitDurable(written);
+        }
+    }
+
+    private void register(List<? extends Displayable> entities) {
+        int firstOrdinal;
+        synchronized (catalog) {
+            firstOrdinal = catalog.append(entities);
+            searchIndex.addAll(firstOrdinal, entities);
+            catalogIndex.addAll(firstOrdinal, entities);
+            rankIndex.addAll(firstOrdinal, entities);
+        }
+        // Before the items become bookable below, so no booking misses its aggregates
+        analytics.itemsAdded(entities);
+        catalog.indexIds(firstOrdinal, entities.size());
+        boolean flightsAdded = false;
+        for (Displayable entity : entities) {
+            flightsAdded |= entity instanceof Flight;
+        }
+        if (flightsAdded) {
+            flightsVersion.incrementAndGet(); // the graph is rebuilt on the next route query
+        }
+    }
+
+    public boolean bookItem(String id) {
+        return book(id, 1) != null;
+    }
+
+    // Reserves quantity units of an item; returns the new booking, or null if it could not be booked
+    // (short, or others are on the item's waitlist)
+    public Booking book(String id, int quantity) {
+        long start = System.nanoTime();
+        Bookable item = catalog.findBookable(id);
+        if (item == null) {
+            metrics.bookUnknownItem(start);
+            return null;
+        }
+        Booking booking = book(id, item, quantity, null, null);
+        metrics.bookCompleted(item, start, booking != null);
+        return booking;
+    }
+
+    /**
+     * Reserves quantity units on every date from startDate (inclusive) to endDate (exclusive): the
+     * nights of a hotel stay, the days of a car hire, or a flight's departure date (endDate the day
+     * after). Returns null if some date is short. Throws IllegalArgumentException for a quantity
+     * below one, an empty range, or dates outside the calendar horizon (today onwards).
+     */
+    public Booking book(String id, int quantity, LocalDate startDate, LocalDate endDate) {
+        long start = System.nanoTime();
+        Bookable item = catalog.findBookable(id);
+        if (item == null) {
+            metrics.bookUnknownItem(start);
+            return null;
+        }
+        Booking booking = book(id, item, quantity, startDate, endDate);
+        metrics.bookCompleted(item, start, booking != null);
+        return booking;
+    }
+
+    // Fewest units of the item free on any date from startDate (inclusive) to endDate (exclusive)
+    public int getAvailableCount(String id, LocalDate startDate, LocalDate endDate) {
+        Bookable item = catalog.findBookable(id);
+        return item == null ? 0 : calendar.available(id, item, startDate, endDate);
+    }
+
+    public InventoryCalendar getCalendar() {
+        return calendar;
+    }
+
+    // Dates are both null for an open-dated booking
+    private Booking book(String id, Bookable item, int quantity, LocalDate startDate, LocalDate endDate) {
+        return applyBook(id, item, quantity, startDate, endDate, false).await();
+    }
+
+    // bypassWaitlist is true only for the waitlist's own promotions, which take the units it was waiting for
+    private Applied applyBook(String id, Bookable item, int quantity, LocalDate startDate, LocalDate endDate,
+                              boolean bypassWaitlist) {
+        // Before the journal and the write gate: hasWaiting takes the waitlist's lock, and the
+        // promotion thread enters the gate after letting go of it, never while holding it
+        boolean waitlisted = !bypassWaitlist && waitlist.hasWaiting(id);
+        if (waitlisted && startDate == null) {
+            return new Applied(null, null);
+        }
+        BookingJournal journal = this.journal;
+        CompletableFuture<Void> written = null;
+        Booking booking = null;
+        if (journal != null) {
+            journal.beginOperation();
+        }
+        versions.beginWrite();
+        try {
+            // Quote before reserving, so the booking pays the price that was on offer
+            double unitPrice = quote(id, item, startDate, endDate);
+            int taken = reserve(id, item, quantity, startDate, endDate, waitlisted);
+            if (taken >= 0) {
+                inventoryChanged(id, item, -taken);
+                booking = bookings.record(id, item, quantity, unitPrice * quantity, startDate, endDate);
+                versions.bookingAdded(booking);
+                analytics.bookingAdded(booking);
+                if (journal != null) {
+                    Booking logged = booking;
+                    written = journal.logBook(booking, () -> rollbackBook(logged));
+                }
+            }
+        } finally {
+            versions.endWrite();
+            if (journal != null) {
+                journal.endOperation();
+            }
+        }
+        return new Applied(booking, written == null ? null : journal.durability(written));
+    }
+
+    // Unit price now, or summed over the dates for a dated booking, each date priced with the units
+    // the calendar has free on it
+    private double quote(String id, Bookable item, LocalDate startDate, LocalDate endDate) {
+        if (startDate == null) {
+            return item.calculatePrice();
+        } else if (item instanceof Priceable) {
+            int[] available = calendar.availableByDay(id, item, startDate, endDate);
+            return PricingEngine.getActive().priceRange((Priceable) item, startDate, endDate, available);
+        }
+        return item.calculatePrice() * (endDate.toEpochDay() - startDate.toEpochDay());
+    }
+
+    // Takes quantity units for the dates (both null for open-dated); returns the units taken from the
+    // item's counter, or -1 if short. Check and decrement happen in one CAS (or under the item's
+    // calendar lock for dated bookings), so two callers can never take the last unit. When the item
+    // is waitlisted, the counter's units are promised to the line: callers refuse open-dated
+    // requests before getting here, and dated ones may only use nights under the existing peak,
+    // which take nothing from the counter. So one sold-out night does not close the other dates.
+    private int reserve(String id, Bookable item, int quantity, LocalDate startDate, LocalDate endDate,
+                        boolean waitlisted) {
+        if (startDate == null) {
+            return item.tryReserve(quantity) ? quantity : -1;
+        }
+        startCalendarRolling();
+        return waitlisted ? calendar.reserveWithinPeak(id, item, startDate, endDate, quantity)
+                : calendar.reserve(id, item, startDate, endDate, quantity);
+    }
+
+    // Once there are dated bookings, a daemon thread moves the calendar window to today each time
+    // the date changes
+    private void startCalendarRolling() {
+        if (calendarRolling.get() || !calendarRolling.compareAndSet(false, true)) {
+            return;
+        }
+        ScheduledExecutorService roller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "calendar-roll");
+            t.setDaemon(true);
+            return t;
+        });
+        roller.scheduleWithFixedDelay(() -> rollCalendar(TravelClock.today()),
+                CALENDAR_ROLL_CHECK_MINUTES, CALENDAR_ROLL_CHECK_MINUTES, TimeUnit.MINUTES);
+        calendarRoller = roller;
+        if (closed) {
+            roller.shutdownNow(); // close ran while this was starting
+        }
+    }
+
+    /**
+     * Moves the calendar window to start at today. Nights before today no longer count against any
+     * item, so units held only by the busiest of those nights go back to the items' counters.
+     * Bookings themselves stay in the ledger.
+     */
+    void rollCalendar(LocalDate today) {
+        if (!calendar.advanceTo(today)) {
+            return;
+        }
+        for (String id : calendar.trackedIds()) {
+            Bookable item = catalog.findBookable(id);
+            if (item == null) {
+                continue;
+            }
+            versions.beginWrite();
+            try {
+                int freed = calendar.roll(id, item);
+                if (freed > 0) {
+                    inventoryChanged(id, item, freed);
+                }
+            } finally {
+                versions.endWrite();
+            }
+        }
+    }
+
+    // Gives back what reserve took; returns the units handed back to the item's counter
+    private int unreserve(String id, Bookable item, int quantity, LocalDate startDate, LocalDate endDate) {
+        if (startDate == null) {
+            item.release(quantity);
+            return quantity;
+        }
+        return calendar.release(id, item, startDate, endDate, quantity);
+    }
+
+    /**
+     * Sets quantity units aside for ttl at today's price, for a customer still checking out. The
+     * hold becomes a booking with confirmHold, or gives its units back on releaseHold or when the
+     * ttl runs out, whichever happens first. Holds are not journaled: after a restart, unconfirmed
+     * holds are gone and their units are free again. Returns null if the item is short.
+     */
+    public Hold hold(String id, int quantity, long ttl, TimeUnit unit) {
+        return hold(id, quantity, null, null, ttl, unit);
+    }
+
+    // Dated variant of hold, with the same date rules as the dated book
+    public Hold hold(String id, int quantity, LocalDate startDate, LocalDate endDate, long ttl, TimeUnit unit) {
+        Bookable item = catalog.findBookable(id);
+        if (item == null) {
+            return null;
+        }
+        boolean waitlisted = waitlist.hasWaiting(id); // outside the write gate, as in applyBook
+        if (waitlisted && startDate == null) {
+            return null;
+        }
+        double unitPrice = quote(id, item, startDate, endDate);
+        versions.beginWrite();
+        try {
+            int taken = reserve(id, item, quantity, startDate, endDate, waitlisted);
+            if (taken < 0) {
+                return null;
+            }
+            inventoryChanged(id, item, -taken);
+        } finally {
+            versions.endWrite();
+        }
+        Hold hold = new Hold(String.format("HD%08d", holdSequence.incrementAndGet()), id, item, quantity,
+                unitPrice * quantity, startDate, endDate, System.currentTimeMillis() + unit.toMillis(ttl));
+        holds.put(hold.getReference(), hold);
+        holdWheel.schedule(hold, ttl, unit);
+        metrics.holdPlaced();
+        return hold;
+    }
+
+    // Turns an active hold into a booking at the held price; null if it expired, was released or is unknown
+    public Booking confirmHold(String reference) {
+        BookingJournal journal = this.journal;
+        CompletableFuture<Void> written = null;
+        Booking booking;
+        // Before the hold is touched, so a journal that refuses changes leaves it active
+        if (journal != null) {
+            journal.beginOperation();
+        }
+        try {
+            Hold hold = holds.get(reference);
+            if (hold == null || !hold.finish(Hold.CONFIRMED)) {
+                return null;
+            }
+            holds.remove(reference);
+            holdWheel.cancel(hold);
+            versions.beginWrite();
+            try {
+                // The units were taken when the hold was placed; only the record is new
+                booking = bookings.record(hold.getItemId(), hold.getItem(), hold.getQuantity(), hold.getPrice(),
+                        hold.getStartDate(), hold.getEndDate());
+                versions.bookingAdded(booking);
+                analytics.bookingAdded(booking);
+                if (journal != null) {
+                    Booking logged = booking;
+                    written = journal.logBook(booking, () -> rollbackBook(logged));
+                }
+            } finally {
+                versions.endWrite();
+            }
+        } finally {
+            if (journal != null) {
+                journal.endOperation();
+            }
+        }
+        if (journal != null) {
+            journal.awaitDurable(written);
+        }
+        metrics.holdConfirmed();
+        return booking;
+    }
+
+    // Gives an active hold's units back before it expires
+    public boolean releaseHold(String reference) {
+        Hold hold = holds.get(reference);
+        if (hold == null || !hold.finish(Hold.RELEASED)) {
+            return false;
+        }
+        holdWheel.cancel(hold);
+        freeHold(hold);
+        metrics.holdReleased();
+        return true;
+    }
+
+    // Runs on the hold wheel's thread when a hold's ttl is up
+    private void expireHold(Hold hold) {
+        if (hold.finish(Hold.EXPIRED)) {
+            freeHold(hold);
+            metrics.holdExpired();
+        }
+    }
+
+    private void freeHold(Hold hold) {
+        holds.remove(hold.getReference());
+        versions.beginWrite();
+        try {
+            int freed = unreserve(hold.getItemId(), hold.getItem(), hold.getQuantity(), hold.getStartDate(),
+                    hold.getEndDate());
+            inventoryChanged(hold.getItemId(), hold.getItem(), freed);
+        } finally {
+            versions.endWrite();
+        }
+    }
+
+    public Hold findHold(String reference) {
+        return holds.get(reference);
+    }
+
+    public int getActiveHoldCount() {
+        return holds.size();
+    }
+
+    /**
+     * Puts a request for quantity units of the item on its waitlist, typically after book failed
+     * because it was sold out. When cancellations, released or expired holds free units, waiting
+     * entries are booked at the price of the day, higher priority first (e.g. a fare class or
+     * loyalty tier), then first come, first served; see Waitlist for how promotions are batched.
+     * While an item has waiting entries, open-dated book and hold calls and bookPackage treat it as
+     * sold out, and dated ones only get nights that take no units from it, so freed units cannot be
+     * taken ahead of the line. Waitlists are not journaled: like holds, they are gone after a
+     * restart. Returns null for an unknown item; throws IllegalArgumentException for a quantity
+     * below one or above the item's capacity, which could never be promoted and would block the
+     * item for good.
+     */
+    public WaitlistEntry joinWaitlist(String id, int quantity, int priority) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        Bookable item = catalog.findBookable(id);
+        if (item == null) {
+            return null;
+        }
+        if (quantity > item.getCapacity()) {
+            throw new IllegalArgumentException("Quantity " + quantity + " exceeds the capacity of " + id
+                    + " (" + item.getCapacity() + ")");
+        }
+        WaitlistEntry entry = waitlist.join(id, item, quantity, priority);
+        metrics.waitlistJoined();
+        return entry;
+    }
+
+    // Takes a waiting entry off its waitlist; false if it was already promoted, withdrawn or is unknown
+    public boolean leaveWaitlist(String reference) {
+        if (!waitlist.withdraw(reference)) {
+            return false;
+        }
+        metrics.waitlistWithdrawn();
+        return true;
+    }
+
+    // A waiting entry; null once it was promoted or withdrawn
+    public WaitlistEntry findWaitlistEntry(String reference) {
+        return waitlist.find(reference);
+    }
+
+    // 1 when the entry is next in line; 0 once it is no longer waiting
+    public int getWaitlistPosition(WaitlistEntry entry) {
+        return waitlist.position(entry);
+    }
+
+    // Waiting entries for the item, in promotion order
+    public List<WaitlistEntry> getWaitlist(String id) {
+        return waitlist.entriesFor(id);
+    }
+
+    public int getWaitlistSize() {
+        return waitlist.size();
+    }
+
+    // Runs on the waitlist's promotion thread; returns null while the item is still short
+    private CompletableFuture<Booking> promote(WaitlistEntry entry) {
+        Applied applied = applyBook(entry.getItemId(), entry.getItem(), entry.getQuantity(), null, null, true);
+        if (applied.booking == null) {
+            return null;
+        }
+        metrics.waitlistPromoted();
+        return applied.whenDurable();
+    }
+
+    /**
+     * Books several items as one trip: either every item is reserved and a booking is returned for
+     * each, or nothing is reserved and null is returned. Items are claimed in id order and claims
+     * already made are handed back if a later item is short, so no locks are held and no partial
+     * reservation outlives the call.
+     */
+    public List<Booking> bookPackage(List<String> ids, int[] quantities) {
+        if (ids.isEmpty() || ids.size() != quantities.length) {
+            throw new IllegalArgumentException("Need one quantity per item");
+        }
+        long start = System.nanoTime();
+        List<Booking> result = reservePackage(ids, quantities);
+        metrics.packageCompleted(start, result != null);
+        return result;
+    }
+
+    private List<Booking> reservePackage(List<String> ids, int[] quantities) {
+        // The same item twice becomes one claim for the combined quantity
+        SortedMap<String, Integer> claims = new TreeMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (quantities[i] <= 0 || catalog.findBookable(ids.get(i)) == null) {
+                return null;
+            }
+            claims.merge(ids.get(i), quantities[i], Integer::sum);
+        }
+        // Outside the write gate, as in applyBook; package claims are open-dated
+        for (String id : claims.keySet()) {
+            if (waitlist.hasWaiting(id)) {
+                return null;
+            }
+        }
+
+        BookingJournal journal = this.journal;
+        CompletableFuture<Void> written = null;
+        List<Booking> result = null;
+        if (journal != null) {
+            journal.beginOperation();
+        }
+        versions.beginWrite();
+        try {
+            Map<String, Double> unitPrices = new HashMap<>();
+            List<Map.Entry<String, Integer>> reserved = new ArrayList<>();
+            try {
+                for (Map.Entry<String, Integer> claim : claims.entrySet()) {
+                    Bookable item = catalog.findBookable(claim.getKey());
+                    unitPrices.put(claim.getKey(), item.calculatePrice());
+                    if (!item.tryReserve(claim.getValue())) {
+                        break;
+                    }
+                    reserved.add(claim);
+                }
+            } finally {
+                if (reserved.size() != claims.size()) {
+                    for (int i = reserved.size() - 1; i >= 0; i--) {
+                        String id = reserved.get(i).getKey();
+                        Bookable item = catalog.findBookable(id);
+                        item.release(reserved.get(i).getValue());
+                        // A concurrent refresh may have seen the claim take the item to zero
+                        inventoryChanged(id, item, 0);
+                    }
+                }
+            }
+            if (reserved.size() == claims.size()) {
+                result = new ArrayList<>(ids.size());
+                for (int i = 0; i < ids.size(); i++) {
+                    String id = ids.get(i);
+                    Bookable item = catalog.findBookable(id);
+                    Booking booking = bookings.record(id, item, quantities[i], unitPrices.get(id) * quantities[i]);
+                    inventoryChanged(id, item, -quantities[i]);
+                    versions.bookingAdded(booking);
+                    analytics.bookingAdded(booking);
+                    result.add(booking);
+                    if (journal != null) {
+                        written = journal.logBook(booking, () -> rollbackBook(booking));
+                    }
+                }
+            }
+        } finally {
+            versions.endWrite();
+            if (journal != null) {
+                journal.endOperation();
+            }
+        }
+        if (journal != null) {
+            journal.awaitDurable(written);
+        }
+        return result;
+    }
+
+    // Cancels one active booking of the item
+    public boolean cancelBooking(String id) {
+        long start = System.nanoTime();
+        Booking booking;
+        while ((booking = bookings.anyForItem(id)) != null) {
+            if (cancel(booking.getReference()) != null) {
+                metrics.cancelCompleted(booking.getItem(), start, true);
+                return true;
+            }
+            // Another caller cancelled that booking first; try the next one
+        }
+        metrics.cancelCompleted(catalog.findBookable(id), start, false);
+        return false;
+    }
+
+    public boolean cancelByReference(String reference) {
+        long start = System.nanoTime();
+        Booking booking = cancel(reference);
+        metrics.cancelCompleted(booking != null ? booking.getItem() : null, start, booking != null);
+        return booking != null;
+    }
+
+    // Removes the booking and returns its capacity; null if it was not (or no longer) active
+    private Booking cancel(String reference) {
+        return applyCancel(reference).await();
+    }
+
+    private Applied applyCancel(String reference) {
+        BookingJournal journal = this.journal;
+        CompletableFuture<Void> written = null;
+        Booking booking;
+        if (journal != null) {
+            journal.beginOperation();
+        }
+        versions.beginWrite();
+        try {
+            // Only the caller that actually removes the booking gives the capacity back
+            booking = bookings.remove(reference);
+            if (booking != null) {
+                int freed = unreserve(booking.getItemId(), booking.getItem(), booking.getQuantity(),
+                        booking.getStartDate(), booking.getEndDate());
+                inventoryChanged(booking.getItemId(), booking.getItem(), freed);
+                versions.bookingRemoved(booking);
+                analytics.bookingRemoved(booking);
+                if (journal != null) {
+                    Booking logged = booking;
+                    written = journal.logCancel(booking, () -> restoreBooking(logged));
+                }
+            }
+        } finally {
+            versions.endWrite();
+            if (journal != null) {
+                journal.endOperation();
+            }
+        }
+        return new Applied(booking, written == null ? null : journal.durability(written));
+    }
+
+    /*
+     * Entry points for ShardedBookingPipeline. They apply the change on the calling (shard) thread
+     * exactly as book and cancel do, but return as soon as the journal record is queued, so a shard
+     * never blocks on fsync. The future completes once the record is durable, at once when there is
+     * no journal or it does not wait for sync. Metrics time the in-memory part only.
+     */
+
+    CompletableFuture<Booking> bookDeferred(String id, int quantity, LocalDate startDate, LocalDate endDate) {
+        long start = System.nanoTime();
+        Bookable item = catalog.findBookable(id);
+        if (item == null) {
+            metrics.bookUnknownItem(start);
+            return CompletableFuture.completedFuture(null);
+        }
+        Applied applied = applyBook(id, item, quantity, startDate, endDate, false);
+        metrics.bookCompleted(item, start, applied.booking != null);
+        return applied.whenDurable();
+    }
+
+    CompletableFuture<Booking> cancelDeferred(String reference) {
+        long start = System.nanoTime();
+        Applied applied = applyCancel(reference);
+        Booking booking = applied.booking;
+        metrics.cancelCompleted(booking != null ? booking.getItem() : null, start, booking != null);
+        return applied.whenDurable();
+    }
+
+    // Cancels any one booking of the item, like cancelBooking
+    CompletableFuture<Booking> cancelItemDeferred(String id) {
+        long start = System.nanoTime();
+        Booking booking;
+        while ((booking = bookings.anyForItem(id)) != null) {
+            Applied applied = applyCancel(booking.getReference());
+            if (applied.booking != null) {
+                metrics.cancelCompleted(booking.getItem(), start, true);
+                return applied.whenDurable();
+            }
+        }
+        metrics.cancelCompleted(catalog.findBookable(id), start, false);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Takes back a booking whose journal record could not be written; it may already be cancelled
+    private void rollbackBook(Booking booking) {
+        versions.beginWrite();
+        try {
+            if (bookings.remove(booking.getReference()) != null) {
+                int freed = unreserve(booking.getItemId(), booking.getItem(), booking.getQuantity(),
+                        booking.getStartDate(), booking.getEndDate());
+                inventoryChanged(booking.getItemId(), booking.getItem(), freed);
+                versions.bookingRemoved(booking);
+                analytics.bookingRemoved(booking);
+            }
+        } finally {
+            versions.endWrite();
+        }
+    }
+
+    // Re-applies a booking read back from the journal, or one whose cancellation could not be
+    // written, keeping its original reference. Nights of a dated booking that are already past
+    // are not charged again, but the booking is kept. Returns false, and counts it in the metrics,
+    // if the item is gone or short.
+    boolean restoreBooking(Booking saved) {
+        Bookable item = catalog.findBookable(saved.getItemId());
+        versions.beginWrite();
+        try {
+            int taken = item == null ? -1 : restoreUnits(saved, item);
+            if (taken < 0) {
+                metrics.restoreSkipped();
+                return false;
+            }
+            if (taken > 0) {
+                inventoryChanged(saved.getItemId(), item, -taken);
+            }
+            Booking booking = restored(saved, item);
+            bookings.restore(booking);
+            versions.bookingAdded(booking);
+            analytics.bookingAdded(booking);
+            return true;
+        } finally {
+            versions.endWrite();
+        }
+    }
+
+    /**
+     * restoreBooking for every active booking recovered from the journal, in one write. Open-dated
+     * bookings claim each item's units once for their combined quantity (one by one, in order, only
+     * if the total does not fit), and the ledger, analytics and indexes take the bookings in bulk,
+     * hearing about each item once. Returns the bookings that could not be restored.
+     */
+    List<Booking> restoreBookings(Collection<Booking> saved) {
+        Map<String, Integer> openQuantities = new HashMap<>();
+        for (Booking booking : saved) {
+            if (!booking.isDated()) {
+                openQuantities.merge(booking.getItemId(), booking.getQuantity(), Integer::sum);
+            }
+        }
+        List<Booking> restored = new ArrayList<>(saved.size());
+        List<Booking> skipped = new ArrayList<>();
+        Map<String, Integer> taken = new HashMap<>();
+        versions.beginWrite();
+        try {
+            for (Map.Entry<String, Integer> open : openQuantities.entrySet()) {
+                Bookable item = catalog.findBookable(open.getKey());
+                if (item != null && item.tryReserve(open.getValue())) {
+                    taken.put(open.getKey(), open.getValue());
+                } else {
+                    open.setValue(-1); // claimed booking by booking below
+                }
+            }
+            for (Booking booking : saved) {
+                Bookable item = catalog.findBookable(booking.getItemId());
+                int units = 0;
+                if (item == null) {
+                    units = -1;
+                } else if (booking.isDated() || openQuantities.get(booking.getItemId()) < 0) {
+                    units = restoreUnits(booking, item);
+                }
+                if (units < 0) {
+                    skipped.add(booking);
+                    metrics.restoreSkipped();
+                    continue;
+                }
+                if (units > 0) {
+                    taken.merge(booking.getItemId(), units, Integer::sum);
+                }
+                restored.add(restored(booking, item));
+            }
+            for (Map.Entry<String, Integer> item : taken.entrySet()) {
+                inventoryChanged(item.getKey(), catalog.findBookable(item.getKey()), -item.getValue());
+            }
+            bookings.restoreAll(restored);
+            for (Booking booking : restored) {
+                versions.bookingAdded(booking);
+            }
+            analytics.bookingsAdded(restored);
+        } finally {
+            versions.endWrite();
+        }
+        return skipped;
+    }
+
+    // Takes the units a saved booking holds; returns those taken from the item's counter, or -1
+    private int restoreUnits(Booking saved, Bookable item) {
+        if (!saved.isDated()) {
+            // Already booked before anyone now waiting joined, so it goes ahead of the line
+            return reserve(saved.getItemId(), item, saved.getQuantity(), null, null, false);
+        }
+        startCalendarRolling();
+        try {
+            return calendar.restore(saved.getItemId(), item, saved.getStartDate(), saved.getEndDate(),
+                    saved.getQuantity());
+        } catch (IllegalArgumentException e) {
+            return -1; // ends past the horizon, e.g. the clock moved back since it was booked
+        }
+    }
+
+    private static Booking restored(Booking saved, Bookable item) {
+        return new Booking(saved.getReference(), saved.getItemId(), item, saved.getQuantity(),
+                saved.getPrice(), saved.getTimestamp(), saved.getStartDate(), saved.getEndDate());
+    }
+
+    // delta is the change just made to the item's count (negative for bookings), 0 if it was undone
+    private void inventoryChanged(String id, Bookable item, int delta) {
+        int ordinal = catalog.ordinalOf(id);
+        if (ordinal >= 0) {
+            catalogIndex.refresh(ordinal, item);
+            rankIndex.markDirty(ordinal);
+            versions.itemChanged(ordinal);
+            events.changed(id, ordinal, item, delta);
+        }
+        if (delta > 0) {
+            waitlist.capacityFreed(id);
+        }
+    }
+
+    // Entities whose descriptive cells (id, name, type, details, route or rating, time) contain
+    // every search term, in catalog order; availability and price are filters, not text. A query
+    // that finds nothing is retried with misspelled words corrected (see correctQuery).
+    // The result is a view over the matching ordinals, not a copy of the entities.
+    public List<Displayable> search(String query) {
+        if (query.trim().isEmpty()) {
+            return getEntityView();
+        }
+        long start = System.nanoTime();
+        int[] matches = searchIndex.search(query);
+        if (matches.length == 0) {
+            String corrected = correctQuery(query);
+            if (corrected != null) {
+                matches = searchIndex.search(corrected);
+            }
+        }
+        metrics.record(BookingMetrics.Operation.SEARCH, start);
+        return ordinalView(matches);
+    }
+
+    // Search narrowed to one item type (a Bookable.getType() value, any case; null for all types)
+    // and optionally to items with capacity left. The filters are answered from the bitset indexes.
+    public List<Displayable> search(String query, String type, boolean availableOnly) {
+        if (type == null && !availableOnly) {
+            return search(query);
+        }
+        long start = System.nanoTime();
+        int[] matches;
+        if (query.trim().isEmpty()) {
+            matches = catalogIndex.select(catalog.size(), type, availableOnly);
+        } else {
+            int[] textMatches = searchIndex.search(query);
+            if (textMatches.length == 0) {
+                String corrected = correctQuery(query);
+                if (corrected != null) {
+                    textMatches = searchIndex.search(corrected);
+                }
+            }
+            matches = catalogIndex.retain(textMatches, type, availableOnly);
+        }
+        metrics.record(BookingMetrics.Operation.SEARCH, start);
+        return ordinalView(matches);
+    }
+
+    /**
+     * Completions for a half-typed search: city, airline, hotel and entity names starting with
+     * what was typed, most used first, then near misses within an edit or two ("Mumbia" offers
+     * "Mumbai"). Answered from a sorted term dictionary in well under a millisecond.
+     */
+    public List<String> suggest(String typed, int limit) {
+        long start = System.nanoTime();
+        List<String> suggestions = suggestIndex.suggest(typed, limit);
+        metrics.record(BookingMetrics.Operation.SUGGEST, start);
+        return suggestions;
+    }
+
+    // The query with each word that matches nothing replaced by the closest known term, or null
+    // if every word already matches or some unmatched word has no close enough term
+    public String correctQuery(String query) {
+        StringBuilder corrected = new StringBuilder();
+        boolean changed = false;
+        for (String token : query.trim().split("\\s+")) {
+            String word = token;
+            if (searchIndex.search(token).length == 0) {
+                List<String> closest = suggestIndex.corrections(token, 1);
+                if (closest.isEmpty()) {
+                    return null;
+                }
+                word = closest.get(0);
+                changed = true;
+            }
+            corrected.append(corrected.length() == 0 ? "" : " ").append(word);
+        }
+        return changed ? corrected.toString() : null;
+    }
+
+    /**
+     * Best matches for a ranked query, best first: e.g. the 20 cheapest 4-star hotels in Mumbai,
+     * or every car under $50. Answered from sorted price, rating and location indexes, so it only
+     * reads the part of the catalog that can make the cut.
+     */
+    public List<Displayable> findRanked(RankedQuery query) {
+        long start = System.nanoTime();
+        int[] textMatches = query.getText() == null ? null : searchIndex.search(query.getText());
+        int[] ranked = rankIndex.query(query, textMatches);
+        metrics.record(BookingMetrics.Operation.RANKED, start);
+        return new OrdinalView(catalog, ranked, false);
+    }
+
+    private List<Displayable> ordinalView(int[] ordinals) {
+        return new OrdinalView(catalog, ordinals);
+    }
+
+    // Best itinerary from one city to another over flights that still have seats, or null if none
+    public Itinerary findItinerary(String from, String to, RouteGraph.Objective objective,
+                                   int maxConnections, int minLayoverMinutes, int earliestDepartureMinute) {
+        StampedGraph stamped = routeGraph.get();
+        long version = flightsVersion.get();
+        if (stamped == null || stamped.version != version) {
+            // Built from a catalog that has at least every flight counted by the version read first;
+            // installed only if no flights were added meanwhile and nothing newer got there first
+            StampedGraph built = new StampedGraph(RouteGraph.build(getAllEntities()), version);
+            if (flightsVersion.get() == version && (stamped == null || stamped.version < version)) {
+                routeGraph.compareAndSet(stamped, built);
+            }
+            stamped = built;
+        }
+        return stamped.graph.find(from, to, objective, maxConnections, minLayoverMinutes, earliestDepartureMinute);
+    }
+
+    // Live read-only view of the catalog, without copying it
+    public List<Displayable> getEntityView() {
+        return ordinalView(null);
+    }
+
+    /**
+     * The latest published version of the inventory: catalog, counts and active bookings from one
+     * instant between write operations, immutable, and O(1) to get. It trails the live state by up
+     * to InventoryVersions.PUBLISH_MILLIS; use publishSnapshot to include every write finished so far.
+     */
+    public InventorySnapshot snapshot() {
+        return versions.current();
+    }
+
+    // Publishes a version now; waits only for the write operations already under way
+    public InventorySnapshot publishSnapshot() {
+        return versions.publish();
+    }
+
+    // The catalog as of every write finished so far: an unmodifiable view of a published version,
+    // so it costs no copy and later additions never show up in it
+    public List<Displayable> getAllEntities() {
+        return versions.latest().getEntities();
+    }
+
+    // Bookable entities with capacity left, in catalog order, as a view over the availability index
+    public List<Displayable> getAvailableEntities() {
+        long start = System.nanoTime();
+        int[] available = catalogIndex.select(catalog.size(), null, true);
+        metrics.record(BookingMetrics.Operation.AVAILABLE, start);
+        return ordinalView(available);
+    }
+
+    // The item of each active booking, oldest booking first; like getAllEntities, a view of a
+    // published version
+    public Collection<Bookable> getBookings() {
+        Collection<Booking> active = versions.latest().getBookings();
+        return new AbstractCollection<Bookable>() {
+            @Override
+            public Iterator<Bookable> iterator() {
+                Iterator<Booking> it = active.iterator();
+                return new Iterator<Bookable>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Bookable next() {
+                        return it.next().getItem();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return active.size();
+            }
+        };
+    }
+
+    public Collection<Booking> getBookingRecords() {
+        return bookings.all();
+    }
+
+    public Collection<Booking> getBookingsForItem(String id) {
+        return bookings.forItem(id);
+    }
+
+    public Booking findBooking(String reference) {
+        return bookings.find(reference);
+    }
+
+    public Bookable findBookableById(String id) {
+        return catalog.findBookable(id);
+    }
+
+    /**
+     * Stops the background threads: hold expiry, waitlist promotion, event delivery, snapshot
+     * publishing, the calendar roll and any metrics dump, and drops the object store's attribute
+     * dictionary. The manager still answers queries and takes bookings afterwards, but holds no
+     * longer expire, waiting entries are no longer promoted, listeners hear nothing more and
+     * snapshots only move on publishSnapshot. An attached journal is not closed here; close it first.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        holdWheel.stop();
+        waitlist.close();
+        events.close();
+        versions.close();
+        metrics.stopDump();
+        catalog.close();
+        ScheduledExecutorService roller = calendarRoller;
+        if (roller != null) {
+            roller.shutdownNow();
+        }
+    }
+
+    // A route graph and the flights version it was built at
+    private static final class StampedGraph {
+        final RouteGraph graph;
+        final long version;
+
+        StampedGraph(RouteGraph graph, long version) {
+            this.graph = graph;
+            this.version = version;
+        }
+    }
+
+    // A booking or cancellation applied in memory, and the journal write to wait for before
+    // reporting it (null when there is nothing to wait for)
+    private static final class Applied {
+        final Booking booking;
+        final CompletableFuture<Void> durable;
+
+        Applied(Booking booking, CompletableFuture<Void> durable) {
+            this.booking = booking;
+            this.durable = durable;
+        }
+
+        Booking await() {
+            if (durable != null) {
+                durable.join();
+            }
+            return booking;
+        }
+
+        CompletableFuture<Booking> whenDurable() {
+            return durable == null ? CompletableFuture.completedFuture(booking) : durable.thenApply(v -> booking);
+        }
+    }
+}
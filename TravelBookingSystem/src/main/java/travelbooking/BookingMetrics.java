@@ -0,0 +1,348 @@
+package travelbooking;
+
+import javax.management.*;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and outcome counters for a BookingManager's operations. Each operation gets a
+ * LatencyHistogram; booking and cancelling also get one per item type. The recording path only
+ * touches atomics, so instrumentation is always on.
+ *
+ * Read it through JMX (attributes such as BookP99Micros or BookFlightP999Micros, plus reset and
+ * report operations) or from a periodic text dump that shows the interval since the last dump.
+ */
+class BookingMetrics implements DynamicMBean {
+    enum Operation {
+        BOOK("Book"), CANCEL("Cancel"), PACKAGE("Package"), SEARCH("Search"), AVAILABLE("Available"), RANKED("Ranked"), SUGGEST("Suggest");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final String[] STATS = {"Count", "MeanMicros", "P50Micros", "P99Micros", "P999Micros", "MaxMicros"};
+
+    private final LatencyHistogram[] byOperation = new LatencyHistogram[Operation.values().length];
+    // Keyed by Bookable.getType(); created on first use of a type
+    private final ConcurrentMap<String, TypeHistograms> byType = new ConcurrentHashMap<>();
+
+    private final LongAdder booked = new LongAdder();
+    private final LongAdder soldOut = new LongAdder();
+    private final LongAdder unknownItem = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder cancelMissed = new LongAdder();
+    private final LongAdder packagesBooked = new LongAdder();
+    private final LongAdder packagesRejected = new LongAdder();
+    private final LongAdder holdsPlaced = new LongAdder();
+    private final LongAdder holdsConfirmed = new LongAdder();
+    private final LongAdder holdsReleased = new LongAdder();
+    private final LongAdder holdsExpired = new LongAdder();
+    private final LongAdder waitlistJoined = new LongAdder();
+    private final LongAdder waitlistPromoted = new LongAdder();
+    private final LongAdder waitlistWithdrawn = new LongAdder();
+    private final LongAdder restoresSkipped = new LongAdder();
+    private final LongAdder journalUndone = new LongAdder();
+    private final LongAdder snapshotsFailed = new LongAdder();
+
+    private ScheduledExecutorService dumpScheduler;
+    private Map<String, LatencyHistogram.Snapshot> lastDumped = Collections.emptyMap();
+
+    public BookingMetrics() {
+        for (int i = 0; i < byOperation.length; i++) {
+            byOperation[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(Operation operation, long startNanos) {
+        byOperation[operation.ordinal()].recordSince(startNanos);
+    }
+
+    public void bookCompleted(Bookable item, long startNanos, boolean succeeded) {
+        long elapsed = System.nanoTime() - startNanos;
+        byOperation[Operation.BOOK.ordinal()].record(elapsed);
+        typeHistograms(item).book.record(elapsed);
+        (succeeded ? booked : soldOut).increment();
+    }
+
+    public void bookUnknownItem(long startNanos) {
+        record(Operation.BOOK, startNanos);
+        unknownItem.increment();
+    }
+
+    // item is null when nothing matched the id or reference
+    public void cancelCompleted(Bookable item, long startNanos, boolean succeeded) {
+        long elapsed = System.nanoTime() - startNanos;
+        byOperation[Operation.CANCEL.ordinal()].record(elapsed);
+        if (item != null) {
+            typeHistograms(item).cancel.record(elapsed);
+        }
+        (succeeded ? cancelled : cancelMissed).increment();
+    }
+
+    public void packageCompleted(long startNanos, boolean succeeded) {
+        record(Operation.PACKAGE, startNanos);
+        (succeeded ? packagesBooked : packagesRejected).increment();
+    }
+
+    public void holdPlaced() { holdsPlaced.increment(); }
+    public void holdConfirmed() { holdsConfirmed.increment(); }
+    public void holdReleased() { holdsReleased.increment(); }
+    public void holdExpired() { holdsExpired.increment(); }
+    public void waitlistJoined() { waitlistJoined.increment(); }
+    public void waitlistPromoted() { waitlistPromoted.increment(); }
+    public void waitlistWithdrawn() { waitlistWithdrawn.increment(); }
+    // A saved or undone booking whose item is gone or no longer has the units
+    public void restoreSkipped() { restoresSkipped.increment(); }
+    // Changes undone because the journal could not write them
+    public void journalUndone(int changes) { journalUndone.add(changes); }
+    public void snapshotFailed() { snapshotsFailed.increment(); }
+
+    private TypeHistograms typeHistograms(Bookable item) {
+        // get first: Java 8's computeIfAbsent locks the bin even when the key is present
+        TypeHistograms histograms = byType.get(item.getType());
+        return histograms != null ? histograms : byType.computeIfAbsent(item.getType(), type -> new TypeHistograms());
+    }
+
+    public long getBooked() { return booked.sum(); }
+    public long getSoldOut() { return soldOut.sum(); }
+    public long getUnknownItem() { return unknownItem.sum(); }
+    public long getCancelled() { return cancelled.sum(); }
+    public long getCancelMissed() { return cancelMissed.sum(); }
+    public long getPackagesBooked() { return packagesBooked.sum(); }
+    public long getPackagesRejected() { return packagesRejected.sum(); }
+    public long getHoldsExpired() { return holdsExpired.sum(); }
+    public long getWaitlistPromoted() { return waitlistPromoted.sum(); }
+    public long getRestoresSkipped() { return restoresSkipped.sum(); }
+    public long getJournalUndone() { return journalUndone.sum(); }
+    public long getSnapshotsFailed() { return snapshotsFailed.sum(); }
+
+    public LatencyHistogram.Snapshot snapshot(Operation operation) {
+        return byOperation[operation.ordinal()].snapshot();
+    }
+
+    public synchronized void reset() {
+        for (LatencyHistogram histogram : histograms().values()) {
+            histogram.reset();
+        }
+        for (LongAdder counter : counters().values()) {
+            counter.reset();
+        }
+        lastDumped = Collections.emptyMap();
+    }
+
+    // Histograms by report name: "Book", "Search", ..., then "BookFlight", "CancelHotel", ...
+    private Map<String, LatencyHistogram> histograms() {
+        Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation.label, byOperation[operation.ordinal()]);
+        }
+        for (Map.Entry<String, TypeHistograms> entry : new TreeMap<>(byType).entrySet()) {
+            String type = entry.getKey().replaceAll("[^A-Za-z0-9]", "");
+            histograms.put(Operation.BOOK.label + type, entry.getValue().book);
+            histograms.put(Operation.CANCEL.label + type, entry.getValue().cancel);
+        }
+        return histograms;
+    }
+
+    private Map<String, LongAdder> counters() {
+        Map<String, LongAdder> counters = new LinkedHashMap<>();
+        counters.put("Booked", booked);
+        counters.put("SoldOut", soldOut);
+        counters.put("UnknownItem", unknownItem);
+        counters.put("Cancelled", cancelled);
+        counters.put("CancelMissed", cancelMissed);
+        counters.put("PackagesBooked", packagesBooked);
+        counters.put("PackagesRejected", packagesRejected);
+        counters.put("HoldsPlaced", holdsPlaced);
+        counters.put("HoldsConfirmed", holdsConfirmed);
+        counters.put("HoldsReleased", holdsReleased);
+        counters.put("HoldsExpired", holdsExpired);
+        counters.put("WaitlistJoined", waitlistJoined);
+        counters.put("WaitlistPromoted", waitlistPromoted);
+        counters.put("WaitlistWithdrawn", waitlistWithdrawn);
+        counters.put("RestoresSkipped", restoresSkipped);
+        counters.put("JournalUndone", journalUndone);
+        counters.put("SnapshotsFailed", snapshotsFailed);
+        return counters;
+    }
+
+    // Cumulative table of every histogram and counter
+    public String report() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms().entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return format(snapshots);
+    }
+
+    // Table of what was recorded since the previous dump; counters stay cumulative
+    public synchronized String intervalReport() {
+        Map<String, LatencyHistogram.Snapshot> current = new LinkedHashMap<>();
+        Map<String, LatencyHistogram.Snapshot> interval = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms().entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot();
+            LatencyHistogram.Snapshot previous = lastDumped.get(entry.getKey());
+            current.put(entry.getKey(), snapshot);
+            interval.put(entry.getKey(), previous == null ? snapshot : snapshot.since(previous));
+        }
+        lastDumped = current;
+        return format(interval);
+    }
+
+    private String format(Map<String, LatencyHistogram.Snapshot> snapshots) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-18s %10s %10s %10s %10s %10s %10s%n",
+                "operation (us)", "count", "mean", "p50", "p99", "p99.9", "max"));
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : snapshots.entrySet()) {
+            LatencyHistogram.Snapshot s = entry.getValue();
+            if (s.getCount() == 0) {
+                continue;
+            }
+            out.append(String.format("%-18s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", entry.getKey(), s.getCount(),
+                    s.getMeanNanos() / 1000.0, micros(s.getValueAtPercentile(0.5)), micros(s.getValueAtPercentile(0.99)),
+                    micros(s.getValueAtPercentile(0.999)), micros(s.getMaxNanos())));
+        }
+        StringJoiner counts = new StringJoiner(" ");
+        for (Map.Entry<String, LongAdder> entry : counters().entrySet()) {
+            counts.add(entry.getKey() + "=" + entry.getValue().sum());
+        }
+        return out.append(counts).append(System.lineSeparator()).toString();
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    public synchronized void scheduleDump(long period, TimeUnit unit, PrintStream out) {
+        if (dumpScheduler != null) {
+            dumpScheduler.shutdownNow();
+        }
+        dumpScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "booking-metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumpScheduler.scheduleAtFixedRate(() -> out.print(intervalReport()), period, period, unit);
+    }
+
+    public synchronized void stopDump() {
+        if (dumpScheduler != null) {
+            dumpScheduler.shutdownNow();
+            dumpScheduler = null;
+        }
+    }
+
+    // Publishes these metrics on the platform MBean server, replacing any earlier registration of the
+    // name; returns the name they are published under. Throws JMException if the server refuses them,
+    // for the caller to report: the metrics keep recording either way.
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("travelbooking:type=BookingMetrics,name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    // DynamicMBean: attributes are <histogram><stat> and the counters; the set grows as item types appear
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        LongAdder counter = counters().get(attribute);
+        if (counter != null) {
+            return counter.sum();
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : histograms().entrySet()) {
+            if (!attribute.startsWith(entry.getKey())) {
+                continue;
+            }
+            String stat = attribute.substring(entry.getKey().length());
+            LatencyHistogram.Snapshot s = entry.getValue().snapshot();
+            switch (stat) {
+                case "Count": return s.getCount();
+                case "MeanMicros": return s.getMeanNanos() / 1000.0;
+                case "P50Micros": return micros(s.getValueAtPercentile(0.5));
+                case "P99Micros": return micros(s.getValueAtPercentile(0.99));
+                case "P999Micros": return micros(s.getValueAtPercentile(0.999));
+                case "MaxMicros": return micros(s.getMaxNanos());
+                default: break; // "Book" is a prefix of "BookFlight..."; keep looking
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Left out of the list, as the DynamicMBean contract allows
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Booking metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        switch (actionName) {
+            case "reset":
+                reset();
+                return null;
+            case "report":
+                return report();
+            default:
+                throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String histogram : histograms().keySet()) {
+            for (String stat : STATS) {
+                String type = stat.equals("Count") ? "long" : "double";
+                attributes.add(new MBeanAttributeInfo(histogram + stat, type,
+                        histogram + " latency " + stat, true, false, false));
+            }
+        }
+        for (String counter : counters().keySet()) {
+            attributes.add(new MBeanAttributeInfo(counter, "long", counter + " count", true, false, false));
+        }
+        MBeanOperationInfo[] operations = {
+                new MBeanOperationInfo("reset", "Clears all histograms and counters",
+                        new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION),
+                new MBeanOperationInfo("report", "Cumulative latency table as text",
+                        new MBeanParameterInfo[0], "java.lang.String", MBeanOperationInfo.INFO)
+        };
+        return new MBeanInfo(getClass().getName(), "Booking operation latencies and outcomes",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+    }
+
+    private static class TypeHistograms {
+        final LatencyHistogram book = new LatencyHistogram();
+        final LatencyHistogram cancel = new LatencyHistogram();
+    }
+}
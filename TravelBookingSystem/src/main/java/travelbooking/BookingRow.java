@@ -0,0 +1,41 @@
+package travelbooking;
+
+// One row of the bookings view: shows the booking's own reference, quantity, dates and price,
+// and falls back to the booked item for the remaining columns
+class BookingRow implements Displayable {
+    private final Booking booking;
+
+    BookingRow(Booking booking) {
+        this.booking = booking;
+    }
+
+    Booking getBooking() {
+        return booking;
+    }
+
+    @Override
+    public String[] getDisplayData() {
+        String[] data = new String[10];
+        for (int column = 0; column < data.length; column++) {
+            data[column] = getDisplayValue(column);
+        }
+        return data;
+    }
+
+    @Override
+    public String getDisplayValue(int column) {
+        switch (column) {
+            case 0: return booking.getReference();
+            case 3: return itemValue(3) + " (" + booking.getItemId() + " x" + booking.getQuantity()
+                    + (booking.isDated() ? ", " + booking.getStartDate() + " to " + booking.getEndDate() : "") + ")";
+            case 8: return String.format("$%.2f", booking.getPrice());
+            case 9: return "Booked";
+            default: return itemValue(column);
+        }
+    }
+
+    private String itemValue(int column) {
+        Bookable item = booking.getItem();
+        return item instanceof Displayable ? ((Displayable) item).getDisplayValue(column) : "";
+    }
+}
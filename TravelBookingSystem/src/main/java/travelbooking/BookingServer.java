@@ -0,0 +1,623 @@
+package travelbooking;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Headless JSON front end for a BookingManager, on the JDK's built-in HTTP server.
+//   GET  /search?q=&type=&available=&limit=[&date=]
+//                                             matching entities (type: Flight, Hotel, Car Rental),
+//                                             priced for date (default today) with the units
+//                                             free that night
+//   GET  /suggest?q=[&limit=]                 autocomplete: names, cities and airlines starting with
+//                                             q, most used first, then near misses
+//   GET  /top?order=&type=&location=&minPrice=&maxPrice=&minRating=&maxRating=&q=&available=&limit=
+//                                             best matches first; order: cheapest (default),
+//                                             expensive or rating; prices are today's
+//   GET  /availability?id=[&from=&to=]        remaining capacity and current price of one item
+//   GET  /route?from=&to=[&objective=&maxConnections=&minLayover=&after=]
+//                                             best connecting flights with seats left, or 404;
+//                                             objective: cheapest (default) or fastest, at most
+//                                             2 connections and 60 layover minutes by default,
+//                                             after a time of day like 09:30 or 9:30 AM
+//   POST /book?id=&quantity=[&from=&to=]      new booking, or 409 when sold out
+//                                             from/to (ISO dates, to exclusive) book a date range
+//   POST /cancel?reference=  or  ?id=         cancels one booking
+//   POST /hold?id=&quantity=&ttl=[&from=&to=] sets units aside for ttl seconds (default 600)
+//   POST /confirm?reference=                  turns a hold into a booking, or 410 once it lapsed
+//   POST /release?reference=                  gives a hold's units back early
+//   POST /waitlist?id=&quantity=[&priority=]  queues for a sold-out item; booked automatically
+//                                             when units free up, higher priority first; 400 when
+//                                             quantity exceeds the item's capacity
+//   GET  /waitlisted?reference=               a waiting entry and its position, or 404 once
+//                                             it was promoted or withdrawn
+//   POST /withdraw?reference=                 leaves the waitlist
+//   GET  /bookings[?id=]                      active bookings, optionally for one item
+//   GET  /analytics?by=[&limit=]              revenue and load factor totals, overall and per
+//                                             type (default), city, airline, route, hotel or hour
+// Each request runs on its own virtual thread when the JDK has them (21+), else on a cached pool.
+// Given a ShardedBookingPipeline, /book and /cancel go through its shards instead of calling the
+// manager directly.
+class BookingServer {
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 10000;
+    private static final int DEFAULT_HOLD_SECONDS = 600;
+    private static final int DEFAULT_CONNECTIONS = 2;
+    private static final int DEFAULT_LAYOVER_MINUTES = 60;
+
+    private final BookingManager manager;
+    private final ShardedBookingPipeline pipeline;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public BookingServer(BookingManager manager, int port) throws IOException {
+        this(manager, null, port);
+    }
+
+    // pipeline may be null
+    public BookingServer(BookingManager manager, ShardedBookingPipeline pipeline, int port) throws IOException {
+        this.manager = manager;
+        this.pipeline = pipeline;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/search", handler("GET", this::search));
+        server.createContext("/top", handler("GET", this::top));
+        server.createContext("/suggest", handler("GET", this::suggest));
+        server.createContext("/availability", handler("GET", this::availability));
+        server.createContext("/route", handler("GET", this::route));
+        server.createContext("/book", handler("POST", this::book));
+        server.createContext("/cancel", handler("POST", this::cancel));
+        server.createContext("/bookings", handler("GET", this::bookings));
+        server.createContext("/hold", handler("POST", this::hold));
+        server.createContext("/confirm", handler("POST", this::confirm));
+        server.createContext("/release", handler("POST", this::release));
+        server.createContext("/waitlist", handler("POST", this::waitlist));
+        server.createContext("/waitlisted", handler("GET", this::waitlisted));
+        server.createContext("/withdraw", handler("POST", this::withdraw));
+        server.createContext("/analytics", handler("GET", this::analytics));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Virtual-thread-per-task executor on JDK 21+, looked up reflectively so older JDKs still run
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    // ---- endpoints ----
+
+    private Response search(Map<String, String> params) {
+        String type = params.get("type");
+        boolean availableOnly = "true".equalsIgnoreCase(params.get("available"));
+        int limit = Math.min(MAX_LIMIT, positiveIntParam(params, "limit", DEFAULT_LIMIT));
+        LocalDate date = dateParam(params, "date");
+        List<TravelEntity> page = new ArrayList<>();
+        for (Displayable entity : manager.search(params.getOrDefault("q", ""), type, availableOnly)) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (entity instanceof Bookable && entity instanceof TravelEntity) {
+                page.add((TravelEntity) entity);
+            }
+        }
+        if (date == null) {
+            return Response.ok(entityArray(page, TravelClock.today(), null));
+        }
+        // A dated search is priced with what the calendar has free that night
+        int[] available = new int[page.size()];
+        for (int i = 0; i < available.length; i++) {
+            available[i] = manager.getAvailableCount(page.get(i).getId(), date, date.plusDays(1));
+        }
+        return Response.ok(entityArray(page, date, available));
+    }
+
+    private Response suggest(Map<String, String> params) {
+        int limit = Math.min(MAX_LIMIT, positiveIntParam(params, "limit", SuggestIndex.DEFAULT_LIMIT));
+        StringBuilder json = new StringBuilder("[");
+        for (String suggestion : manager.suggest(params.getOrDefault("q", ""), limit)) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(quote(suggestion));
+        }
+        return Response.ok(json.append(']').toString());
+    }
+
+    private Response top(Map<String, String> params) {
+        RankedQuery.Order order;
+        switch (params.getOrDefault("order", "cheapest")) {
+            case "cheapest": order = RankedQuery.Order.CHEAPEST; break;
+            case "expensive": order = RankedQuery.Order.MOST_EXPENSIVE; break;
+            case "rating": order = RankedQuery.Order.BEST_RATED; break;
+            default: return Response.error(400, "order must be cheapest, expensive or rating");
+        }
+        int limit = Math.min(MAX_LIMIT, positiveIntParam(params, "limit", DEFAULT_LIMIT));
+        RankedQuery query = new RankedQuery(order, limit)
+                .type(params.get("type"))
+                .location(params.get("location"))
+                .text(params.get("q"));
+        if (params.containsKey("minPrice")) {
+            query.minPrice(priceParam(params, "minPrice"));
+        }
+        if (params.containsKey("maxPrice")) {
+            query.maxPrice(priceParam(params, "maxPrice"));
+        }
+        if (params.containsKey("minRating")) {
+            query.minRating(intParam(params, "minRating", 0));
+        }
+        if (params.containsKey("maxRating")) {
+            query.maxRating(intParam(params, "maxRating", 0));
+        }
+        if ("true".equalsIgnoreCase(params.get("available"))) {
+            query.availableOnly();
+        }
+        List<TravelEntity> page = new ArrayList<>();
+        for (Displayable entity : manager.findRanked(query)) {
+            if (entity instanceof TravelEntity) {
+                page.add((TravelEntity) entity);
+            }
+        }
+        return Response.ok(entityArray(page, TravelClock.today(), null));
+    }
+
+    private Response availability(Map<String, String> params) {
+        String id = params.get("id");
+        Bookable item = id == null ? null : manager.findBookableById(id);
+        if (item == null) {
+            return Response.error(404, "Unknown item " + id);
+        }
+        LocalDate from = dateParam(params, "from");
+        LocalDate to = dateParam(params, "to");
+        if ((from == null) != (to == null)) {
+            return Response.error(400, "Give both from and to, or neither");
+        }
+        int available = from == null ? item.getAvailableCount() : manager.getAvailableCount(id, from, to);
+        return Response.ok("{\"id\":" + quote(id)
+                + ",\"available\":" + available
+                + ",\"capacity\":" + item.getCapacity()
+                + ",\"price\":" + item.calculatePrice() + "}");
+    }
+
+    private Response route(Map<String, String> params) {
+        String from = params.get("from");
+        String to = params.get("to");
+        if (from == null || to == null) {
+            return Response.error(400, "Give both from and to");
+        }
+        RouteGraph.Objective objective;
+        switch (params.getOrDefault("objective", "cheapest")) {
+            case "cheapest": objective = RouteGraph.Objective.CHEAPEST; break;
+            case "fastest": objective = RouteGraph.Objective.FASTEST; break;
+            default: return Response.error(400, "objective must be cheapest or fastest");
+        }
+        int maxConnections = intParam(params, "maxConnections", DEFAULT_CONNECTIONS);
+        int minLayover = intParam(params, "minLayover", DEFAULT_LAYOVER_MINUTES);
+        if (maxConnections < 0 || minLayover < 0) {
+            return Response.error(400, "maxConnections and minLayover must not be negative");
+        }
+        int after = params.containsKey("after") ? Flight.parseMinuteOfDay(params.get("after")) : 0;
+        if (after < 0) {
+            return Response.error(400, "after must be a time like 09:30 or 9:30 AM");
+        }
+        Itinerary itinerary = manager.findItinerary(from, to, objective, maxConnections, minLayover, after);
+        if (itinerary == null) {
+            return Response.error(404, "No route from " + from + " to " + to);
+        }
+        PricingEngine engine = PricingEngine.getActive();
+        StringBuilder json = new StringBuilder("{\"connections\":").append(itinerary.getConnections())
+                .append(",\"price\":").append(itinerary.getTotalPrice())
+                .append(",\"departureMinute\":").append(itinerary.getDepartureMinute())
+                .append(",\"arrivalMinute\":").append(itinerary.getArrivalMinute())
+                .append(",\"legs\":[");
+        for (Flight leg : itinerary.getLegs()) {
+            if (json.charAt(json.length() - 1) != '[') {
+                json.append(',');
+            }
+            appendEntity(json, leg, engine.price(leg));
+        }
+        return Response.ok(json.append("]}").toString());
+    }
+
+    private Response book(Map<String, String> params) {
+        String id = params.get("id");
+        int quantity = positiveIntParam(params, "quantity", 1);
+        if (id == null || manager.findBookableById(id) == null) {
+            return Response.error(404, "Unknown item " + id);
+        }
+        LocalDate from = dateParam(params, "from");
+        LocalDate to = dateParam(params, "to");
+        if ((from == null) != (to == null)) {
+            return Response.error(400, "Give both from and to, or neither");
+        }
+        Booking booking;
+        if (pipeline != null) {
+            booking = join(pipeline.book(id, quantity, from, to));
+        } else {
+            booking = from == null ? manager.book(id, quantity) : manager.book(id, quantity, from, to);
+        }
+        if (booking == null) {
+            return Response.error(409, "Not enough availability for " + id);
+        }
+        StringBuilder json = new StringBuilder();
+        appendBooking(json, booking);
+        return new Response(201, json.toString());
+    }
+
+    private Response hold(Map<String, String> params) {
+        String id = params.get("id");
+        int quantity = positiveIntParam(params, "quantity", 1);
+        int ttlSeconds = positiveIntParam(params, "ttl", DEFAULT_HOLD_SECONDS);
+        if (id == null || manager.findBookableById(id) == null) {
+            return Response.error(404, "Unknown item " + id);
+        }
+        LocalDate from = dateParam(params, "from");
+        LocalDate to = dateParam(params, "to");
+        if ((from == null) != (to == null)) {
+            return Response.error(400, "Give both from and to, or neither");
+        }
+        Hold hold = manager.hold(id, quantity, from, to, ttlSeconds, TimeUnit.SECONDS);
+        if (hold == null) {
+            return Response.error(409, "Not enough availability for " + id);
+        }
+        return new Response(201, "{\"reference\":" + quote(hold.getReference())
+                + ",\"itemId\":" + quote(hold.getItemId())
+                + ",\"quantity\":" + hold.getQuantity()
+                + ",\"price\":" + hold.getPrice()
+                + ",\"expiresAt\":" + hold.getExpiresAt() + "}");
+    }
+
+    private Response confirm(Map<String, String> params) {
+        String reference = params.get("reference");
+        if (reference == null) {
+            return Response.error(400, "Give a hold reference");
+        }
+        Booking booking = manager.confirmHold(reference);
+        if (booking == null) {
+            return Response.error(410, "Hold " + reference + " has expired or was released");
+        }
+        StringBuilder json = new StringBuilder();
+        appendBooking(json, booking);
+        return new Response(201, json.toString());
+    }
+
+    private Response release(Map<String, String> params) {
+        String reference = params.get("reference");
+        if (reference == null) {
+            return Response.error(400, "Give a hold reference");
+        }
+        return manager.releaseHold(reference) ? Response.ok("{\"released\":true}") : Response.error(404, "Hold not active");
+    }
+
+    private Response waitlist(Map<String, String> params) {
+        String id = params.get("id");
+        int quantity = positiveIntParam(params, "quantity", 1);
+        int priority = intParam(params, "priority", 0);
+        WaitlistEntry entry = id == null ? null : manager.joinWaitlist(id, quantity, priority);
+        if (entry == null) {
+            return Response.error(404, "Unknown item " + id);
+        }
+        return new Response(201, waitlistJson(entry));
+    }
+
+    private Response waitlisted(Map<String, String> params) {
+        String reference = params.get("reference");
+        if (reference == null) {
+            return Response.error(400, "Give a waitlist reference");
+        }
+        WaitlistEntry entry = manager.findWaitlistEntry(reference);
+        if (entry == null) {
+            return Response.error(404, "Not waiting: " + reference + " was promoted, withdrawn or is unknown");
+        }
+        return Response.ok(waitlistJson(entry));
+    }
+
+    private Response withdraw(Map<String, String> params) {
+        String reference = params.get("reference");
+        if (reference == null) {
+            return Response.error(400, "Give a waitlist reference");
+        }
+        return manager.leaveWaitlist(reference) ? Response.ok("{\"withdrawn\":true}") : Response.error(404, "Not waiting");
+    }
+
+    private String waitlistJson(WaitlistEntry entry) {
+        return "{\"reference\":" + quote(entry.getReference())
+                + ",\"itemId\":" + quote(entry.getItemId())
+                + ",\"quantity\":" + entry.getQuantity()
+                + ",\"priority\":" + entry.getPriority()
+                + ",\"position\":" + manager.getWaitlistPosition(entry) + "}";
+    }
+
+    private Response cancel(Map<String, String> params) {
+        String reference = params.get("reference");
+        String id = params.get("id");
+        boolean cancelled;
+        if (reference != null) {
+            cancelled = pipeline != null ? join(pipeline.cancelByReference(reference)) != null
+                    : manager.cancelByReference(reference);
+        } else if (id != null) {
+            cancelled = pipeline != null ? join(pipeline.cancelBooking(id)) != null : manager.cancelBooking(id);
+        } else {
+            return Response.error(400, "Give a reference or an id");
+        }
+        return cancelled ? Response.ok("{\"cancelled\":true}") : Response.error(404, "Booking not found");
+    }
+
+    private Response bookings(Map<String, String> params) {
+        String id = params.get("id");
+        Collection<Booking> records = id == null ? manager.getBookingRecords() : manager.getBookingsForItem(id);
+        int limit = Math.min(MAX_LIMIT, positiveIntParam(params, "limit", MAX_LIMIT));
+        StringBuilder json = new StringBuilder("[");
+        int count = 0;
+        for (Booking booking : records) {
+            if (count == limit) {
+                break;
+            }
+            if (count++ > 0) {
+                json.append(',');
+            }
+            appendBooking(json, booking);
+        }
+        return Response.ok(json.append(']').toString());
+    }
+
+    private Response analytics(Map<String, String> params) {
+        BookingAnalytics.Dimension dimension;
+        try {
+            dimension = BookingAnalytics.Dimension.valueOf(params.getOrDefault("by", "type").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Response.error(400, "by must be type, city, airline, route, hotel or hour");
+        }
+        int limit = Math.min(MAX_LIMIT, positiveIntParam(params, "limit", DEFAULT_LIMIT));
+        BookingAnalytics analytics = manager.getAnalytics();
+        StringBuilder json = new StringBuilder("{\"total\":{");
+        appendTotals(json, analytics.getTotal());
+        json.append("},\"by\":").append(quote(dimension.name().toLowerCase(Locale.ROOT))).append(",\"rows\":[");
+        int count = 0;
+        for (Map.Entry<String, BookingAnalytics.Totals> row : analytics.breakdown(dimension).entrySet()) {
+            if (count == limit) {
+                break;
+            }
+            if (count++ > 0) {
+                json.append(',');
+            }
+            json.append("{\"key\":").append(quote(row.getKey())).append(',');
+            appendTotals(json, row.getValue());
+            json.append('}');
+        }
+        return Response.ok(json.append("]}").toString());
+    }
+
+    // ---- plumbing ----
+
+    interface Endpoint {
+        Response handle(Map<String, String> params);
+    }
+
+    private HttpHandler handler(String method, Endpoint endpoint) {
+        return exchange -> {
+            Response response;
+            try {
+                if (!method.equals(exchange.getRequestMethod())) {
+                    response = Response.error(405, method + " only");
+                } else {
+                    response = endpoint.handle(parseQuery(exchange.getRequestURI().getRawQuery()));
+                }
+            } catch (IllegalArgumentException e) {
+                response = Response.error(400, e.getMessage());
+            } catch (RuntimeException e) {
+                response = Response.error(500, String.valueOf(e));
+            }
+            send(exchange, response);
+        };
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(decode(key), decode(value));
+        }
+        return params;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Waits for a pipeline result, rethrowing what the shard threw so the handler maps it as usual
+    private static Booking join(CompletableFuture<Booking> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static LocalDate dateParam(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be a date like 2025-03-14");
+        }
+    }
+
+    private static double priceParam(Map<String, String> params, String name) {
+        try {
+            return Double.parseDouble(params.get(name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    // Counts and sizes: limit, quantity, ttl
+    private static int positiveIntParam(Map<String, String> params, String name, int defaultValue) {
+        int value = intParam(params, name, defaultValue);
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        return value;
+    }
+
+    // Any integer; rating bounds and priorities may be zero or negative
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    // One page of results, priced together for the given day; available is null to price with the
+    // open-dated counts
+    private static String entityArray(List<TravelEntity> page, LocalDate date, int[] available) {
+        double[] prices = PricingEngine.getActive().quote(page, date, available);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < prices.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendEntity(json, page.get(i), prices[i]);
+        }
+        return json.append(']').toString();
+    }
+
+    private static void appendEntity(StringBuilder json, TravelEntity entity, double price) {
+        Bookable item = (Bookable) entity;
+        json.append("{\"id\":").append(quote(entity.getDisplayValue(0)))
+                .append(",\"name\":").append(quote(entity.getDisplayValue(1)))
+                .append(",\"type\":").append(quote(item.getType()))
+                .append(",\"details\":").append(quote(entity.getDisplayValue(3)))
+                .append(",\"routeOrRating\":").append(quote(entity.getDisplayValue(4)))
+                .append(",\"time\":").append(quote(entity.getDisplayValue(5)))
+                .append(",\"available\":").append(item.getAvailableCount())
+                .append(",\"price\":").append(price)
+                .append('}');
+    }
+
+    private static void appendBooking(StringBuilder json, Booking booking) {
+        json.append("{\"reference\":").append(quote(booking.getReference()))
+                .append(",\"itemId\":").append(quote(booking.getItemId()))
+                .append(",\"quantity\":").append(booking.getQuantity())
+                .append(",\"price\":").append(booking.getPrice())
+                .append(",\"timestamp\":").append(booking.getTimestamp());
+        if (booking.isDated()) {
+            json.append(",\"from\":").append(quote(booking.getStartDate().toString()))
+                    .append(",\"to\":").append(quote(booking.getEndDate().toString()));
+        }
+        json.append('}');
+    }
+
+    // The fields of one analytics row, without the enclosing braces
+    private static void appendTotals(StringBuilder json, BookingAnalytics.Totals totals) {
+        json.append("\"bookings\":").append(totals.getBookings())
+                .append(",\"cancellations\":").append(totals.getCancellations())
+                .append(",\"units\":").append(totals.getUnits())
+                .append(",\"nights\":").append(totals.getNights())
+                .append(",\"capacity\":").append(totals.getCapacity())
+                .append(",\"loadFactor\":").append(totals.getLoadFactor())
+                .append(",\"revenue\":").append(totals.getRevenue())
+                .append(",\"cancelledRevenue\":").append(totals.getCancelledRevenue())
+                .append(",\"netRevenue\":").append(totals.getNetRevenue());
+    }
+
+    static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    static class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response ok(String body) {
+            return new Response(200, body);
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, "{\"error\":" + quote(message) + "}");
+        }
+    }
+}
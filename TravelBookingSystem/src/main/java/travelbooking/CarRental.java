@@ -0,0 +1,90 @@
+package travelbooking;
+
+// Car Rental Class
+class CarRental extends TravelEntity implements Bookable {
+    private String carType;
+    private final InventoryCounter availableCars;
+
+    public CarRental(String id, String name, double basePrice, String carType, int availableCars) {
+        this(id, name, basePrice, carType, new InventoryCounter(availableCars));
+    }
+
+    // Cars counted by the given counter; ColumnarCatalog's flyweights count in a column slot
+    CarRental(String id, String name, double basePrice, String carType, InventoryCounter availableCars) {
+        super(id, name, basePrice);
+        this.carType = carType;
+        this.availableCars = availableCars;
+    }
+
+    @Override
+    void shareValues(CatalogDictionary dictionary) {
+        carType = dictionary.encode(carType);
+    }
+
+    public String getCarType() { return carType; }
+
+    @Override
+    public String getCategory() { return carType; }
+
+    @Override
+    public void book() {
+        tryReserve(1);
+    }
+
+    @Override
+    public void cancel() {
+        release(1);
+    }
+
+    @Override
+    public boolean tryReserve(int quantity) {
+        return availableCars.tryAcquire(quantity);
+    }
+
+    @Override
+    public boolean release(int quantity) {
+        return availableCars.release(quantity);
+    }
+
+    @Override
+    public int getAvailableCount() {
+        return availableCars.get();
+    }
+
+    @Override
+    public int getCapacity() {
+        return availableCars.getCapacity();
+    }
+
+    @Override
+    public double calculatePrice() {
+        return PricingEngine.getActive().price(this);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return availableCars.get() > 0;
+    }
+
+    @Override
+    public String getType() {
+        return "Car Rental";
+    }
+
+    @Override
+    public String getDisplayValue(int column) {
+        switch (column) {
+            case 0: return id;
+            case 1: return name;
+            case 2: return "Car Rental";
+            case 3: return carType;
+            case 4: return "-";
+            case 5: return "-";
+            case 6: return String.valueOf(availableCars.get());
+            case 7: return String.format("$%.2f", basePrice);
+            case 8: return String.format("$%.2f", calculatePrice());
+            case 9: return isAvailable() ? "Yes" : "No";
+            default: return "";
+        }
+    }
+}
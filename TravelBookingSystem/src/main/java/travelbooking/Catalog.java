@@ -0,0 +1,38 @@
+package travelbooking;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Everything a BookingManager has registered, in ordinal order. The list only grows and an entry
+ * never changes once added, so any thread may read below size() without a lock; appends come
+ * from one registration at a time, which holds the catalog's monitor.
+ *
+ * ObjectCatalog keeps the entities as given. ColumnarCatalog copies them into primitive columns
+ * and hands out flyweights, for catalogs too large to keep an object per item.
+ */
+abstract class Catalog extends AbstractList<Displayable> {
+    // Adds the entities after the last ordinal and returns the first one they were given. They
+    // can be read by ordinal from here on, but are only found by id after indexIds.
+    abstract int append(List<? extends Displayable> entities);
+
+    // Makes count appended entities, from firstOrdinal on, findable by id
+    abstract void indexIds(int firstOrdinal, int count);
+
+    // Ordinal of the entity with this id, or -1; the later one if the id was registered twice
+    abstract int ordinalOf(String id);
+
+    // The bookable item with this id, or null
+    Bookable findBookable(String id) {
+        int ordinal = ordinalOf(id);
+        if (ordinal < 0) {
+            return null;
+        }
+        Displayable entity = get(ordinal);
+        return entity instanceof Bookable ? (Bookable) entity : null;
+    }
+
+    // Drops what is only needed while entities are still being added
+    void close() {
+    }
+}
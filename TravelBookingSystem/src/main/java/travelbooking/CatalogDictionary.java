@@ -0,0 +1,78 @@
+package travelbooking;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dictionary encoding for the catalog's repeated attribute values: airlines, cities, car types and
+// departure times. Each catalog owns one. ObjectCatalog swaps the values of the entities it
+// registers for the one shared instance of each, so a large import holds a few hundred attribute
+// strings rather than several per row; ColumnarCatalog stores just the 16-bit code of each value.
+// Ids and names are unique per item and are not encoded.
+final class CatalogDictionary {
+    // Codes fit in 16 bits, code 0 standing for null; past this many distinct values a column is
+    // not repetitive enough to be worth sharing
+    static final int MAX_VALUES = 1 << 16;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    // Code -> value. A value is stored before its code is handed out, so whoever has a code can
+    // read it here without a lock.
+    private volatile String[] values = new String[16];
+    private int size = 1; // codes handed out, including null's; guarded by this
+
+    // The shared instance equal to value, or value itself once the dictionary is full
+    public String encode(String value) {
+        int code = code(value);
+        if (code <= 0) {
+            return value;
+        }
+        // A clear() racing with this call may have reset the codes; never hand back another value
+        String shared = values[code];
+        return value.equals(shared) ? shared : value;
+    }
+
+    // The value's code, giving a new value the next one; 0 for null and -1 once the dictionary is full
+    public int code(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (size == MAX_VALUES) {
+                return -1;
+            }
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[size] = value;
+            values = current;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    // The value a code was given for
+    public String value(int code) {
+        return values[code];
+    }
+
+    // Distinct values, not counting null
+    public int size() {
+        return codes.size();
+    }
+
+    // Entities keep the instances they already share; later ones start a fresh dictionary.
+    // Codes handed out before are meaningless afterwards.
+    public synchronized void clear() {
+        codes.clear();
+        values = new String[16];
+        size = 1;
+    }
+}
@@ -0,0 +1,87 @@
+package travelbooking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bitset indexes over catalog ordinals: one set per item type, plus the set of items with
+ * capacity left. Type bits are written once at registration. An availability bit is only
+ * rewritten when a book or cancel takes its item to or from zero. Combined filters such as
+ * "available hotels" are then a word-by-word AND instead of a scan of every entity.
+ */
+class CatalogIndex {
+    private final OrdinalBitSet available = new OrdinalBitSet();
+    // Keyed by lower-cased Bookable.getType()
+    private final Map<String, OrdinalBitSet> byType = new ConcurrentHashMap<>();
+
+    // Called under the catalog lock with the ordinal each entity was given
+    public void addAll(int firstOrdinal, List<? extends Displayable> entities) {
+        int size = firstOrdinal + entities.size();
+        available.ensureCapacity(size);
+        for (OrdinalBitSet set : byType.values()) {
+            set.ensureCapacity(size);
+        }
+        for (int i = 0; i < entities.size(); i++) {
+            Displayable entity = entities.get(i);
+            if (!(entity instanceof Bookable)) {
+                continue;
+            }
+            Bookable item = (Bookable) entity;
+            int ordinal = firstOrdinal + i;
+            typeSet(item.getType(), size).set(ordinal, true);
+            available.set(ordinal, item.isAvailable());
+        }
+    }
+
+    private OrdinalBitSet typeSet(String type, int size) {
+        return byType.computeIfAbsent(type.toLowerCase(Locale.ROOT), key -> {
+            OrdinalBitSet set = new OrdinalBitSet();
+            set.ensureCapacity(size);
+            return set;
+        });
+    }
+
+    /**
+     * Brings the item's availability bit in line with its counter. Called after every successful
+     * reserve or release; it writes only when the bit is wrong, i.e. when the count crossed zero.
+     * Re-reading after each write means a racing book and cancel cannot leave a stale bit behind:
+     * whoever writes last sees the final count.
+     */
+    public void refresh(int ordinal, Bookable item) {
+        boolean isAvailable;
+        while (available.get(ordinal) != (isAvailable = item.isAvailable())) {
+            available.set(ordinal, isAvailable);
+        }
+    }
+
+    // Ordinals below size matching the filters; type is a Bookable.getType() value (any case) or null for all
+    public int[] select(int size, String type, boolean availableOnly) {
+        OrdinalBitSet[] sets = filterSets(type, availableOnly);
+        return sets == null ? new int[0] : OrdinalBitSet.intersect(size, sets);
+    }
+
+    // The candidate ordinals, in their original order, that match the filters
+    public int[] retain(int[] ordinals, String type, boolean availableOnly) {
+        OrdinalBitSet[] sets = filterSets(type, availableOnly);
+        return sets == null ? new int[0] : OrdinalBitSet.retain(ordinals, sets);
+    }
+
+    // Null when the type is unknown, so nothing can match; no sets at all when nothing is filtered
+    private OrdinalBitSet[] filterSets(String type, boolean availableOnly) {
+        List<OrdinalBitSet> sets = new ArrayList<>(2);
+        if (type != null) {
+            OrdinalBitSet typeSet = byType.get(type.toLowerCase(Locale.ROOT));
+            if (typeSet == null) {
+                return null;
+            }
+            sets.add(typeSet);
+        }
+        if (availableOnly) {
+            sets.add(available);
+        }
+        return sets.toArray(new OrdinalBitSet[0]);
+    }
+}
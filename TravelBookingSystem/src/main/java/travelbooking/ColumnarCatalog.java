@@ -0,0 +1,344 @@
+package travelbooking;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Catalog that keeps no object per item. Each registered Flight, Hotel or CarRental is copied into
+// primitive columns, 4096 rows to a segment: id and name as UTF-8 bytes, the price, capacity and
+// free count, and the repeated attributes as 16-bit codes of the catalog's CatalogDictionary.
+// get() builds a fresh flyweight entity over the row, so two reads of one ordinal give equal but
+// not identical objects; booking through either still takes the row's free count by CAS, exactly
+// as the entity's own InventoryCounter would. Ids are found through an open-addressing table of
+// ordinals rather than a map of boxed keys.
+//
+// Only the three built-in entity types can be stored, and each dictionary-encoded attribute may
+// take at most 65535 distinct values across the catalog.
+final class ColumnarCatalog extends Catalog {
+    private static final int SEGMENT_BITS = 12;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    private static final byte FLIGHT = 0;
+    private static final byte HOTEL = 1;
+    private static final byte CAR_RENTAL = 2;
+
+    private final CatalogDictionary dictionary = new CatalogDictionary();
+    private volatile Segment[] segments = new Segment[0];
+    // Written after the rows below it, so reading it first makes them visible
+    private volatile int size;
+
+    // Ordinal + 1 of each indexed id, 0 for an empty slot; probed linearly from the id's hash.
+    // Written only under the catalog's monitor and republished after every change.
+    private volatile int[] idSlots = new int[64];
+    private int indexedIds; // guarded by this
+
+    @Override
+    public Displayable get(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("Ordinal " + ordinal + " of " + size);
+        }
+        Segment segment = segments[ordinal >>> SEGMENT_BITS];
+        int row = ordinal & (SEGMENT_SIZE - 1);
+        byte[] text = segment.text;
+        int start = segment.textStart(row);
+        int idLength = segment.idLength[row];
+        String id = new String(text, start, idLength, StandardCharsets.UTF_8);
+        String name = new String(text, start + idLength, segment.textEnd[row] - start - idLength,
+                StandardCharsets.UTF_8);
+        double price = segment.basePrice[row];
+        InventoryCounter counter = new Slot(segment.available, row, segment.capacity[row]);
+        long codes = segment.codes[row];
+        switch (segment.kind[row]) {
+            case FLIGHT:
+                return new Flight(id, name, price, value(codes, 0), value(codes, 1), value(codes, 2),
+                        value(codes, 3), segment.number[row], counter);
+            case HOTEL:
+                return new Hotel(id, name, price, value(codes, 0), counter, segment.number[row]);
+            default:
+                return new CarRental(id, name, price, value(codes, 0), counter);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Checks and encodes the whole batch before writing any of it, so a rejected batch leaves the
+    // catalog as it was (apart from dictionary values no row refers to)
+    @Override
+    synchronized int append(List<? extends Displayable> entities) {
+        int count = entities.size();
+        byte[][] ids = new byte[count][];
+        byte[][] names = new byte[count][];
+        long[] codes = new long[count];
+        for (int i = 0; i < count; i++) {
+            Displayable entity = entities.get(i);
+            if (!(entity instanceof Flight || entity instanceof Hotel || entity instanceof CarRental)) {
+                throw new IllegalArgumentException("The columnar store only holds flights, hotels and car rentals, not "
+                        + entity);
+            }
+            TravelEntity travel = (TravelEntity) entity;
+            if (travel.getId() == null || travel.getName() == null) {
+                throw new IllegalArgumentException("The columnar store needs an id and a name for every item");
+            }
+            ids[i] = travel.getId().getBytes(StandardCharsets.UTF_8);
+            if (ids[i].length > Character.MAX_VALUE) {
+                throw new IllegalArgumentException("Id too long for the columnar store: " + travel.getId());
+            }
+            names[i] = travel.getName().getBytes(StandardCharsets.UTF_8);
+            if (entity instanceof Flight) {
+                Flight flight = (Flight) entity;
+                codes[i] = code(flight.getAirline(), 0) | code(flight.getSource(), 1)
+                        | code(flight.getDestination(), 2) | code(flight.getDepartureTime(), 3);
+            } else if (entity instanceof Hotel) {
+                codes[i] = code(((Hotel) entity).getLocation(), 0);
+            } else {
+                codes[i] = code(((CarRental) entity).getCarType(), 0);
+            }
+        }
+
+        int first = size;
+        int end = first + count;
+        Segment[] current = segments;
+        int needed = (end + SEGMENT_SIZE - 1) >>> SEGMENT_BITS;
+        if (needed > current.length) {
+            current = Arrays.copyOf(current, Math.max(needed, current.length * 2));
+            segments = current;
+        }
+        for (int i = 0; i < count; i++) {
+            int ordinal = first + i;
+            int segmentIndex = ordinal >>> SEGMENT_BITS;
+            if (current[segmentIndex] == null) {
+                current[segmentIndex] = new Segment();
+            }
+            Segment segment = current[segmentIndex];
+            int row = ordinal & (SEGMENT_SIZE - 1);
+            Displayable entity = entities.get(i);
+            Bookable bookable = (Bookable) entity;
+            segment.addText(row, ids[i], names[i]);
+            segment.basePrice[row] = ((TravelEntity) entity).getBasePrice();
+            segment.capacity[row] = bookable.getCapacity();
+            segment.available.set(row, bookable.getAvailableCount());
+            segment.codes[row] = codes[i];
+            if (entity instanceof Flight) {
+                segment.kind[row] = FLIGHT;
+                segment.number[row] = ((Flight) entity).getDurationMinutes();
+            } else if (entity instanceof Hotel) {
+                segment.kind[row] = HOTEL;
+                segment.number[row] = ((Hotel) entity).getRating();
+            } else {
+                segment.kind[row] = CAR_RENTAL;
+            }
+            if (row == SEGMENT_SIZE - 1) {
+                segment.trimText();
+            }
+        }
+        size = end;
+        return first;
+    }
+
+    @Override
+    synchronized void indexIds(int firstOrdinal, int count) {
+        int[] slots = idSlots;
+        for (int ordinal = firstOrdinal; ordinal < firstOrdinal + count; ordinal++) {
+            if ((indexedIds + 1) * 3 > slots.length * 2) {
+                slots = rehash(slots);
+            }
+            if (put(slots, idAt(ordinal), ordinal)) {
+                indexedIds++;
+            }
+        }
+        idSlots = slots;
+    }
+
+    @Override
+    int ordinalOf(String id) {
+        if (id == null) {
+            return -1;
+        }
+        int[] slots = idSlots;
+        int mask = slots.length - 1;
+        for (int slot = mix(id.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (idEquals(entry - 1, id)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    // Stores the ordinal under its id, replacing an earlier one; true if the id is new
+    private boolean put(int[] slots, String id, int ordinal) {
+        int mask = slots.length - 1;
+        for (int slot = mix(id.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                slots[slot] = ordinal + 1;
+                return true;
+            }
+            if (idEquals(entry - 1, id)) {
+                slots[slot] = ordinal + 1;
+                return false;
+            }
+        }
+    }
+
+    // A doubled table holding the same entries; readers keep probing the old one until it is published
+    private int[] rehash(int[] slots) {
+        int[] grown = new int[slots.length * 2];
+        for (int entry : slots) {
+            if (entry != 0) {
+                put(grown, idAt(entry - 1), entry - 1);
+            }
+        }
+        return grown;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private String idAt(int ordinal) {
+        Segment segment = segments[ordinal >>> SEGMENT_BITS];
+        int row = ordinal & (SEGMENT_SIZE - 1);
+        return new String(segment.text, segment.textStart(row), segment.idLength[row], StandardCharsets.UTF_8);
+    }
+
+    // Compares without decoding the stored id: char by char while it is ASCII, by UTF-8 bytes otherwise
+    private boolean idEquals(int ordinal, String id) {
+        Segment segment = segments[ordinal >>> SEGMENT_BITS];
+        int row = ordinal & (SEGMENT_SIZE - 1);
+        byte[] text = segment.text;
+        int start = segment.textStart(row);
+        int length = segment.idLength[row];
+        if (length < id.length()) {
+            return false; // UTF-8 never takes fewer bytes than chars
+        }
+        if (length == id.length()) {
+            int i = 0;
+            while (i < length && id.charAt(i) < 0x80 && text[start + i] == id.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return true;
+            }
+            if (id.charAt(i) < 0x80) {
+                return false; // the bytes so far were one per char, so this one had to match
+            }
+        }
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text[start + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The value's dictionary code, shifted into its 16-bit field of the row's codes
+    private long code(String value, int field) {
+        int code = dictionary.code(value);
+        if (code < 0) {
+            throw new IllegalArgumentException("More than " + (CatalogDictionary.MAX_VALUES - 1)
+                    + " distinct attribute values for the columnar store, at " + value);
+        }
+        return (long) code << (field * 16);
+    }
+
+    private String value(long codes, int field) {
+        return dictionary.value((int) (codes >>> (field * 16)) & 0xFFFF);
+    }
+
+    // One block of rows. Every array but text is sized for the whole segment up front.
+    private static final class Segment {
+        final byte[] kind = new byte[SEGMENT_SIZE];
+        final double[] basePrice = new double[SEGMENT_SIZE];
+        final int[] capacity = new int[SEGMENT_SIZE];
+        final AtomicIntegerArray available = new AtomicIntegerArray(SEGMENT_SIZE);
+        final long[] codes = new long[SEGMENT_SIZE];
+        final int[] number = new int[SEGMENT_SIZE]; // flight duration or hotel rating
+        // Row's id bytes then name bytes; a row's text ends where the next one's starts
+        final int[] textEnd = new int[SEGMENT_SIZE];
+        final char[] idLength = new char[SEGMENT_SIZE];
+        // Replaced, never shrunk under a reader, when it grows or is trimmed
+        volatile byte[] text = new byte[1024];
+
+        int textStart(int row) {
+            return row == 0 ? 0 : textEnd[row - 1];
+        }
+
+        void addText(int row, byte[] id, byte[] name) {
+            int start = textStart(row);
+            int end = start + id.length + name.length;
+            byte[] current = text;
+            if (end > current.length) {
+                current = Arrays.copyOf(current, Math.max(end, current.length * 2));
+            }
+            System.arraycopy(id, 0, current, start, id.length);
+            System.arraycopy(name, 0, current, start + id.length, name.length);
+            idLength[row] = (char) id.length;
+            textEnd[row] = end;
+            text = current;
+        }
+
+        void trimText() {
+            text = Arrays.copyOf(text, textEnd[SEGMENT_SIZE - 1]);
+        }
+    }
+
+    // A row's free count, claimed with the same CAS loops as the InventoryCounter it stands in for
+    private static final class Slot extends InventoryCounter {
+        private final AtomicIntegerArray available;
+        private final int row;
+
+        Slot(AtomicIntegerArray available, int row, int capacity) {
+            super(capacity);
+            this.available = available;
+            this.row = row;
+        }
+
+        @Override
+        public boolean tryAcquire(int quantity) {
+            if (quantity <= 0) {
+                return false;
+            }
+            while (true) {
+                int current = available.get(row);
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(row, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public boolean release(int quantity) {
+            if (quantity <= 0) {
+                return false;
+            }
+            while (true) {
+                int current = available.get(row);
+                if (current + quantity > getCapacity()) {
+                    return false;
+                }
+                if (available.compareAndSet(row, current, current + quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public int get() {
+            return available.get(row);
+        }
+    }
+}
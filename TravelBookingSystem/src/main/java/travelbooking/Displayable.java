@@ -0,0 +1,11 @@
+package travelbooking;
+
+// Interface for Displayable items
+interface Displayable {
+    String[] getDisplayData();
+
+    // Formats a single cell, so table views only pay for the cells they actually paint
+    default String getDisplayValue(int column) {
+        return getDisplayData()[column];
+    }
+}
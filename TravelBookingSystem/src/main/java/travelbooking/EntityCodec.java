@@ -0,0 +1,81 @@
+package travelbooking;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Compact binary form of the catalog entities, shared by the journal and snapshots.
+// Stores the original capacity only; remaining capacity is rebuilt from the active bookings.
+class EntityCodec {
+    static final byte FLIGHT = 'F';
+    static final byte HOTEL = 'H';
+    static final byte CAR_RENTAL = 'C';
+
+    private EntityCodec() {}
+
+    public static void write(DataOutput out, Displayable entity) throws IOException {
+        if (entity instanceof Flight) {
+            Flight flight = (Flight) entity;
+            out.writeByte(FLIGHT);
+            writeCommon(out, flight);
+            out.writeUTF(flight.getAirline());
+            out.writeUTF(flight.getSource());
+            out.writeUTF(flight.getDestination());
+            out.writeUTF(flight.getDepartureTime());
+            out.writeInt(flight.getDurationMinutes());
+            out.writeInt(flight.getCapacity());
+        } else if (entity instanceof Hotel) {
+            Hotel hotel = (Hotel) entity;
+            out.writeByte(HOTEL);
+            writeCommon(out, hotel);
+            out.writeUTF(hotel.getLocation());
+            out.writeInt(hotel.getCapacity());
+            out.writeInt(hotel.getRating());
+        } else if (entity instanceof CarRental) {
+            CarRental car = (CarRental) entity;
+            out.writeByte(CAR_RENTAL);
+            writeCommon(out, car);
+            out.writeUTF(car.getCarType());
+            out.writeInt(car.getCapacity());
+        } else {
+            throw new IOException("Cannot encode entity of type " + entity.getClass().getName());
+        }
+    }
+
+    public static Displayable read(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        String id = in.readUTF();
+        String name = in.readUTF();
+        double basePrice = in.readDouble();
+        switch (kind) {
+            case FLIGHT: {
+                String airline = in.readUTF();
+                String source = in.readUTF();
+                String destination = in.readUTF();
+                String departureTime = in.readUTF();
+                int duration = in.readInt();
+                int seats = in.readInt();
+                return new Flight(id, name, basePrice, airline, source, destination, departureTime, duration, seats);
+            }
+            case HOTEL: {
+                String location = in.readUTF();
+                int rooms = in.readInt();
+                int rating = in.readInt();
+                return new Hotel(id, name, basePrice, location, rooms, rating);
+            }
+            case CAR_RENTAL: {
+                String carType = in.readUTF();
+                int cars = in.readInt();
+                return new CarRental(id, name, basePrice, carType, cars);
+            }
+            default:
+                throw new IOException("Unknown entity kind: " + kind);
+        }
+    }
+
+    private static void writeCommon(DataOutput out, TravelEntity entity) throws IOException {
+        out.writeUTF(entity.getId());
+        out.writeUTF(entity.getName());
+        out.writeDouble(entity.getBasePrice());
+    }
+}
@@ -0,0 +1,114 @@
+package travelbooking;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Collections;
+import java.util.List;
+
+// Read-only table model that reads straight from a list of entities.
+// Nothing is copied: cells are formatted on demand, so only the visible rows are ever formatted.
+// With a snapshot set, the Available and Status cells of catalog rows come from it, so every row
+// on screen shows the same instant even while bookings land.
+class EntityTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static final int AVAILABLE_COLUMN = 6;
+    private static final int STATUS_COLUMN = 9;
+
+    private final String[] columnNames;
+    private List<? extends Displayable> rows;
+    // Rows of the list shown so far; a query result is revealed chunk by chunk
+    private int shownRows;
+    private InventorySnapshot snapshot;
+
+    public EntityTableModel(String[] columnNames) {
+        this.columnNames = columnNames;
+        this.rows = Collections.emptyList();
+    }
+
+    public void setRows(List<? extends Displayable> rows) {
+        setRows(rows, rows.size());
+    }
+
+    public void setRows(List<? extends Displayable> rows, InventorySnapshot snapshot) {
+        this.snapshot = snapshot;
+        setRows(rows);
+    }
+
+    // Shows only the first shownRows entries of the list; showRows reveals the rest
+    public void setRows(List<? extends Displayable> rows, InventorySnapshot snapshot, int shownRows) {
+        this.snapshot = snapshot;
+        setRows(rows, shownRows);
+    }
+
+    private void setRows(List<? extends Displayable> rows, int shownRows) {
+        this.rows = rows;
+        this.shownRows = Math.min(shownRows, rows.size());
+        fireTableDataChanged();
+    }
+
+    // Extends the shown prefix of the current list to count rows
+    public void showRows(int count) {
+        int first = shownRows;
+        int last = Math.min(count, rows.size());
+        if (last <= first) {
+            return;
+        }
+        shownRows = last;
+        fireTableRowsInserted(first, last - 1);
+    }
+
+    // Counts for the rows already on screen; call rowsChanged to repaint them
+    public void setSnapshot(InventorySnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    // Repaints just the rows whose items changed; other rows are left alone
+    public void rowsChanged(List<InventoryEvent> events) {
+        if (!(rows instanceof OrdinalView)) {
+            if (shownRows > 0) {
+                fireTableRowsUpdated(0, shownRows - 1);
+            }
+            return;
+        }
+        OrdinalView view = (OrdinalView) rows;
+        for (InventoryEvent event : events) {
+            int row = view.indexOfOrdinal(event.getOrdinal());
+            if (row >= 0 && row < shownRows) {
+                fireTableRowsUpdated(row, row);
+            }
+        }
+    }
+
+    public Displayable getEntityAt(int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return shownRows;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Displayable entity = rows.get(row);
+        if ((column == AVAILABLE_COLUMN || column == STATUS_COLUMN) && snapshot != null
+                && entity instanceof Bookable && rows instanceof OrdinalView) {
+            int ordinal = ((OrdinalView) rows).ordinalAt(row);
+            if (ordinal < snapshot.size()) {
+                int available = snapshot.getAvailableCount(ordinal);
+                return column == AVAILABLE_COLUMN ? String.valueOf(available) : available > 0 ? "Yes" : "No";
+            }
+        }
+        return entity.getDisplayValue(column);
+    }
+}
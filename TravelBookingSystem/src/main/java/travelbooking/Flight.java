@@ -0,0 +1,152 @@
+package travelbooking;
+
+import java.util.Locale;
+
+// Flight Class
+class Flight extends TravelEntity implements Bookable {
+    private String airline;
+    private String source;
+    private String destination;
+    private String departureTime;
+    private final int departureMinute;
+    private final int durationMinutes;
+    private final InventoryCounter availableSeats;
+
+    // Used when a flight is created without a known duration
+    public static final int DEFAULT_DURATION_MINUTES = 120;
+
+    public Flight(String id, String name, double basePrice, String airline,
+                  String source, String destination, String departureTime, int availableSeats) {
+        this(id, name, basePrice, airline, source, destination, departureTime, DEFAULT_DURATION_MINUTES, availableSeats);
+    }
+
+    public Flight(String id, String name, double basePrice, String airline, String source,
+                  String destination, String departureTime, int durationMinutes, int availableSeats) {
+        this(id, name, basePrice, airline, source, destination, departureTime, durationMinutes,
+                new InventoryCounter(availableSeats));
+    }
+
+    // Seats counted by the given counter; ColumnarCatalog's flyweights count in a column slot
+    Flight(String id, String name, double basePrice, String airline, String source, String destination,
+           String departureTime, int durationMinutes, InventoryCounter availableSeats) {
+        super(id, name, basePrice);
+        this.airline = airline;
+        this.source = source;
+        this.destination = destination;
+        this.departureTime = departureTime;
+        this.departureMinute = parseMinuteOfDay(departureTime);
+        this.durationMinutes = durationMinutes;
+        this.availableSeats = availableSeats;
+    }
+
+    // Parses "10:00 AM", "02:30 PM" or "14:30" into minutes after midnight; -1 if unparseable
+    static int parseMinuteOfDay(String time) {
+        if (time == null) {
+            return -1;
+        }
+        String t = time.trim().toUpperCase(Locale.ROOT);
+        boolean twelveHour = t.endsWith("AM") || t.endsWith("PM");
+        int offset = 0;
+        if (twelveHour) {
+            offset = t.endsWith("PM") ? 12 * 60 : 0;
+            t = t.substring(0, t.length() - 2).trim();
+        }
+        int colon = t.indexOf(':');
+        if (colon < 0) {
+            return -1;
+        }
+        try {
+            int hours = Integer.parseInt(t.substring(0, colon));
+            int minutes = Integer.parseInt(t.substring(colon + 1));
+            if (hours < 0 || hours > (twelveHour ? 12 : 23) || minutes < 0 || minutes > 59) {
+                return -1;
+            }
+            if (twelveHour) {
+                hours = hours % 12; // 12:xx AM is midnight, 12:xx PM is noon
+            }
+            return offset + hours * 60 + minutes;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    void shareValues(CatalogDictionary dictionary) {
+        airline = dictionary.encode(airline);
+        source = dictionary.encode(source);
+        destination = dictionary.encode(destination);
+        departureTime = dictionary.encode(departureTime);
+    }
+
+    public String getAirline() { return airline; }
+    public String getSource() { return source; }
+    public String getDestination() { return destination; }
+    public String getDepartureTime() { return departureTime; }
+    public int getDepartureMinute() { return departureMinute; }
+    public int getDurationMinutes() { return durationMinutes; }
+
+    @Override
+    public String getCategory() { return airline; }
+
+    @Override
+    public void book() {
+        tryReserve(1);
+    }
+
+    @Override
+    public void cancel() {
+        release(1);
+    }
+
+    @Override
+    public boolean tryReserve(int quantity) {
+        return availableSeats.tryAcquire(quantity);
+    }
+
+    @Override
+    public boolean release(int quantity) {
+        return availableSeats.release(quantity);
+    }
+
+    @Override
+    public int getAvailableCount() {
+        return availableSeats.get();
+    }
+
+    @Override
+    public int getCapacity() {
+        return availableSeats.getCapacity();
+    }
+
+    @Override
+    public double calculatePrice() {
+        return PricingEngine.getActive().price(this);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return availableSeats.get() > 0;
+    }
+
+    @Override
+    public String getType() {
+        return "Flight";
+    }
+
+    @Override
+    public String getDisplayValue(int column) {
+        switch (column) {
+            case 0: return id;
+            case 1: return name;
+            case 2: return "Flight";
+            case 3: return airline;
+            case 4: return source + " to " + destination;
+            case 5: return departureTime;
+            case 6: return String.valueOf(availableSeats.get());
+            case 7: return String.format("$%.2f", basePrice);
+            case 8: return String.format("$%.2f", calculatePrice());
+            case 9: return isAvailable() ? "Yes" : "No";
+            default: return "";
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package travelbooking;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+// Capacity set aside for a customer for a limited time, at the price quoted when it was placed.
+// Exactly one of confirm, release or expiry wins, decided by a CAS on the state.
+class Hold extends TimerWheel.Timeout {
+    static final int ACTIVE = 0;
+    static final int CONFIRMED = 1;
+    static final int RELEASED = 2;
+    static final int EXPIRED = 3;
+
+    // A field updater rather than an AtomicInteger: one less object for every outstanding hold
+    private static final AtomicIntegerFieldUpdater<Hold> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Hold.class, "state");
+
+    private final String reference;
+    private final String itemId;
+    private final Bookable item;
+    private final int quantity;
+    private final double price;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final long expiresAt;
+    private volatile int state;
+
+    public Hold(String reference, String itemId, Bookable item, int quantity, double price,
+                LocalDate startDate, LocalDate endDate, long expiresAt) {
+        this.reference = reference;
+        this.itemId = itemId;
+        this.item = item;
+        this.quantity = quantity;
+        this.price = price;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getReference() { return reference; }
+    public String getItemId() { return itemId; }
+    public Bookable getItem() { return item; }
+    public int getQuantity() { return quantity; }
+    // Total price the booking will be charged if the hold is confirmed
+    public double getPrice() { return price; }
+    public LocalDate getStartDate() { return startDate; }
+    public LocalDate getEndDate() { return endDate; }
+    // Wall-clock time (epoch millis) after which the hold lapses
+    public long getExpiresAt() { return expiresAt; }
+
+    public boolean isActive() {
+        return state == ACTIVE;
+    }
+
+    public boolean isDated() {
+        return startDate != null;
+    }
+
+    // Moves an active hold to the given final state; false if something else got there first
+    boolean finish(int finalState) {
+        return STATE.compareAndSet(this, ACTIVE, finalState);
+    }
+
+    @Override
+    public String toString() {
+        String dates = isDated() ? ", " + startDate + " to " + endDate : "";
+        return reference + " [" + itemId + " x" + quantity + dates + String.format(", $%.2f]", price);
+    }
+}
@@ -0,0 +1,96 @@
+package travelbooking;
+
+// Hotel Class
+class Hotel extends TravelEntity implements Bookable {
+    private String location;
+    private final InventoryCounter availableRooms;
+    private int rating;
+
+    public Hotel(String id, String name, double basePrice, String location,
+                 int availableRooms, int rating) {
+        this(id, name, basePrice, location, new InventoryCounter(availableRooms), rating);
+    }
+
+    // Rooms counted by the given counter; ColumnarCatalog's flyweights count in a column slot
+    Hotel(String id, String name, double basePrice, String location, InventoryCounter availableRooms, int rating) {
+        super(id, name, basePrice);
+        this.location = location;
+        this.availableRooms = availableRooms;
+        this.rating = rating;
+    }
+
+    @Override
+    void shareValues(CatalogDictionary dictionary) {
+        location = dictionary.encode(location);
+    }
+
+    public String getLocation() { return location; }
+
+    @Override
+    public int getRating() { return rating; }
+
+    @Override
+    public String getCategory() { return location; }
+
+    @Override
+    public void book() {
+        tryReserve(1);
+    }
+
+    @Override
+    public void cancel() {
+        release(1);
+    }
+
+    @Override
+    public boolean tryReserve(int quantity) {
+        return availableRooms.tryAcquire(quantity);
+    }
+
+    @Override
+    public boolean release(int quantity) {
+        return availableRooms.release(quantity);
+    }
+
+    @Override
+    public int getAvailableCount() {
+        return availableRooms.get();
+    }
+
+    @Override
+    public int getCapacity() {
+        return availableRooms.getCapacity();
+    }
+
+    @Override
+    public double calculatePrice() {
+        return PricingEngine.getActive().price(this);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return availableRooms.get() > 0;
+    }
+
+    @Override
+    public String getType() {
+        return "Hotel";
+    }
+
+    @Override
+    public String getDisplayValue(int column) {
+        switch (column) {
+            case 0: return id;
+            case 1: return name;
+            case 2: return "Hotel";
+            case 3: return location;
+            case 4: return rating + " Stars";
+            case 5: return "-";
+            case 6: return String.valueOf(availableRooms.get());
+            case 7: return String.format("$%.2f", basePrice);
+            case 8: return String.format("$%.2f", calculatePrice());
+            case 9: return isAvailable() ? "Yes" : "No";
+            default: return "";
+        }
+    }
+}
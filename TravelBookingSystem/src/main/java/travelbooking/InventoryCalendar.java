@@ -0,0 +1,383 @@
+package travelbooking;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-date inventory for items booked over a date range: hotel nights from check-in to check-out,
+ * car days from pickup to return, and a flight's departure date. Each item that has dated bookings
+ * gets a DayTree of the units booked per day, over a fixed horizon of days. A range reservation and
+ * the "fewest units free over these dates" check are both O(log days).
+ *
+ * Open-dated bookings still go through the item's own counter, which now means "units free on every
+ * day". The calendar keeps the two consistent by charging the counter for the peak of the dated
+ * bookings: when a reservation raises the busiest day's total, the increase is taken from the
+ * counter, and it is handed back when that peak falls. So units free on day d are
+ * capacity - open-dated - booked(d), and availability indexes and events keep working off the counter.
+ *
+ * The horizon is a window that rolls forward: advanceTo moves its first date, and roll clears each
+ * item's days that fell off the front so they can serve the dates that came into view at the end.
+ * Days are kept in a ring, so rolling costs O(log days) per day passed and nothing is copied.
+ * Bookings that started before the window are charged (restore) and released only for the days
+ * still in it; their past days were cleared when the window moved past them.
+ *
+ * Items without dated bookings cost nothing. A year-long tree is 729 chars, about 1.5KB.
+ */
+class InventoryCalendar {
+    public static final int DEFAULT_HORIZON_DAYS = 365;
+    // Per-day totals are stored as chars
+    private static final int MAX_DATED_CAPACITY = Character.MAX_VALUE;
+
+    private volatile long firstDay;
+    private final int days;
+    private final ConcurrentMap<String, DayTree> trees = new ConcurrentHashMap<>();
+
+    public InventoryCalendar(LocalDate firstDate, int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("Calendar needs at least one day");
+        }
+        this.firstDay = firstDate.toEpochDay();
+        this.days = days;
+    }
+
+    public LocalDate getFirstDate() {
+        return LocalDate.ofEpochDay(firstDay);
+    }
+
+    // First date past the horizon
+    public LocalDate getEndDate() {
+        return LocalDate.ofEpochDay(firstDay + days);
+    }
+
+    // Length of the window in days
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * Moves the window to start at firstDate; false if it already starts there or later. Items'
+     * trees follow when roll is called for them; until then they keep answering for their old window.
+     */
+    public synchronized boolean advanceTo(LocalDate firstDate) {
+        long day = firstDate.toEpochDay();
+        if (day <= firstDay) {
+            return false;
+        }
+        firstDay = day;
+        return true;
+    }
+
+    // Items that have a tree, for rolling each of them after advanceTo
+    public Set<String> trackedIds() {
+        return trees.keySet();
+    }
+
+    // Brings the item's tree up to the window's first date; returns the units handed back to the
+    // counter because the peak of the days left behind is gone
+    public int roll(String id, Bookable item) {
+        DayTree tree = trees.get(id);
+        if (tree == null) {
+            return 0;
+        }
+        synchronized (tree) {
+            int peak = tree.peak();
+            tree.rollTo(firstDay);
+            int freed = peak - tree.peak();
+            if (freed > 0) {
+                item.release(freed);
+            }
+            return freed;
+        }
+    }
+
+    /**
+     * Books quantity units on every date from start (inclusive) to end (exclusive). Returns how many
+     * units this took from the item's open-dated counter (0 when an existing peak already covered
+     * it), or -1 if some date in the range has fewer than quantity units free. Throws
+     * IllegalArgumentException for a quantity below one or dates outside the window.
+     */
+    public int reserve(String id, Bookable item, LocalDate start, LocalDate end, int quantity) {
+        return reserve(id, item, start.toEpochDay(), end.toEpochDay(), quantity, false, Integer.MAX_VALUE);
+    }
+
+    // Like reserve, but only if the dates fit under the item's current peak, so nothing is taken
+    // from the counter (for an item whose freed units are promised to its waitlist); -1 otherwise
+    public int reserveWithinPeak(String id, Bookable item, LocalDate start, LocalDate end, int quantity) {
+        return reserve(id, item, start.toEpochDay(), end.toEpochDay(), quantity, false, 0);
+    }
+
+    /**
+     * Like reserve, for a booking read back after a restart: the days of the range that are
+     * already past are skipped, so a stay in progress keeps its remaining nights. A range that
+     * ended before the window takes nothing and returns 0.
+     */
+    public int restore(String id, Bookable item, LocalDate start, LocalDate end, int quantity) {
+        return reserve(id, item, start.toEpochDay(), end.toEpochDay(), quantity, true, Integer.MAX_VALUE);
+    }
+
+    private int reserve(String id, Bookable item, long start, long end, int quantity, boolean skipPast,
+                        int maxTaken) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        checkRange(start, end);
+        if (!skipPast) {
+            checkWindow(firstDay, start, start + 1); // no new bookings for dates already past
+        }
+        DayTree tree = trees.get(id);
+        if (tree == null) {
+            if (skipPast && end <= firstDay) {
+                return 0;
+            }
+            if (maxTaken == 0) {
+                checkWindow(firstDay, start, end);
+                return -1; // no peak yet, so any booking would take units
+            }
+            if (item.getCapacity() > MAX_DATED_CAPACITY) {
+                throw new IllegalArgumentException("Capacity too large for dated bookings: " + id);
+            }
+            tree = trees.computeIfAbsent(id, key -> new DayTree(days, firstDay));
+        }
+        synchronized (tree) {
+            if (skipPast) {
+                start = Math.max(start, tree.firstDay);
+                if (end <= start) {
+                    return 0;
+                }
+            }
+            checkWindow(tree, start, end);
+            int peak = tree.peak();
+            int newPeak = Math.max(peak, tree.max(start, end) + quantity);
+            int taken = newPeak - peak;
+            if (taken > maxTaken || taken > 0 && !item.tryReserve(taken)) {
+                return -1;
+            }
+            tree.add(start, end, quantity);
+            return taken;
+        }
+    }
+
+    // Undoes a reserve or restore of the same range and quantity; returns the units handed back to
+    // the counter. Days that already fell off the window were cleared when it rolled.
+    public int release(String id, Bookable item, LocalDate start, LocalDate end, int quantity) {
+        long from = start.toEpochDay();
+        long to = end.toEpochDay();
+        checkRange(from, to);
+        DayTree tree = trees.get(id);
+        if (tree == null) {
+            if (to <= firstDay) {
+                return 0; // restored after it had ended, so it never held anything
+            }
+            throw new IllegalStateException("No dated bookings for " + id);
+        }
+        synchronized (tree) {
+            from = Math.max(from, tree.firstDay);
+            if (to <= from) {
+                return 0;
+            }
+            checkWindow(tree, from, to);
+            int peak = tree.peak();
+            tree.add(from, to, -quantity);
+            int freed = peak - tree.peak();
+            if (freed > 0) {
+                item.release(freed);
+            }
+            return freed;
+        }
+    }
+
+    // Fewest units free on any date from start (inclusive) to end (exclusive)
+    public int available(String id, Bookable item, LocalDate start, LocalDate end) {
+        long from = start.toEpochDay();
+        long to = end.toEpochDay();
+        checkRange(from, to);
+        DayTree tree = trees.get(id);
+        if (tree == null) {
+            checkWindow(firstDay, from, to);
+            return item.getAvailableCount();
+        }
+        synchronized (tree) {
+            checkWindow(tree, from, to);
+            return item.getAvailableCount() + tree.peak() - tree.max(from, to);
+        }
+    }
+
+    // Units free on each date from start (inclusive) to end (exclusive), read under one lock
+    public int[] availableByDay(String id, Bookable item, LocalDate start, LocalDate end) {
+        long from = start.toEpochDay();
+        long to = end.toEpochDay();
+        checkRange(from, to);
+        DayTree tree = trees.get(id);
+        if (tree == null) {
+            checkWindow(firstDay, from, to);
+            int[] free = new int[(int) (to - from)];
+            Arrays.fill(free, item.getAvailableCount());
+            return free;
+        }
+        synchronized (tree) {
+            checkWindow(tree, from, to);
+            int[] free = new int[(int) (to - from)];
+            int open = item.getAvailableCount() + tree.peak();
+            for (int i = 0; i < free.length; i++) {
+                free[i] = open - tree.max(from + i, from + i + 1);
+            }
+            return free;
+        }
+    }
+
+    // Number of items that have a tree
+    public int trackedItems() {
+        return trees.size();
+    }
+
+    private static void checkRange(long start, long end) {
+        if (end <= start) {
+            throw new IllegalArgumentException("End date " + LocalDate.ofEpochDay(end) + " must be after "
+                    + LocalDate.ofEpochDay(start));
+        }
+    }
+
+    private void checkWindow(DayTree tree, long start, long end) {
+        checkWindow(tree.firstDay, start, end);
+    }
+
+    private void checkWindow(long first, long start, long end) {
+        long outside = start < first ? start : end > first + days ? end : Long.MIN_VALUE;
+        if (outside != Long.MIN_VALUE) {
+            throw new IllegalArgumentException(LocalDate.ofEpochDay(outside) + " is outside the calendar ("
+                    + LocalDate.ofEpochDay(first) + " to " + LocalDate.ofEpochDay(first + days) + ")");
+        }
+    }
+
+    // Segment tree of units booked per day, supporting range add and range max. Nodes are laid out
+    // in depth-first order (left child at node + 1, right child after the whole left subtree), so n
+    // days need exactly 2n - 1 nodes. t[node] is the max over the node's days including adds applied
+    // to the node itself; that own add is t[node] - max(children), so no separate lazy array is
+    // needed. Every value stays between 0 and the item's capacity, since a release removes exactly
+    // what a reserve of the same range added. Day d lives in slot d mod days, so a range of dates
+    // inside the window covers one run of slots, or two when it wraps past the last slot.
+    // Rolling clears a day's slot by pushing the own adds on its path down to the children first:
+    // part of the day's total may sit in an ancestor that also covers days still in the window, so
+    // subtracting the total at the leaf alone would take it below zero.
+    private static final class DayTree {
+        private final char[] t;
+        private final int days;
+        // First day of the window this tree answers for
+        long firstDay;
+
+        DayTree(int days, long firstDay) {
+            this.days = days;
+            this.t = new char[2 * days - 1];
+            this.firstDay = firstDay;
+        }
+
+        int peak() {
+            return t[0];
+        }
+
+        // Max over the dates from start (inclusive) to end (exclusive), all inside the window
+        int max(long start, long end) {
+            int from = (int) Math.floorMod(start, (long) days);
+            int to = from + (int) (end - start);
+            if (to <= days) {
+                return max(0, 0, days, from, to);
+            }
+            return Math.max(max(0, 0, days, from, days), max(0, 0, days, 0, to - days));
+        }
+
+        void add(long start, long end, int delta) {
+            int from = (int) Math.floorMod(start, (long) days);
+            int to = from + (int) (end - start);
+            if (to <= days) {
+                add(0, 0, days, from, to, delta);
+            } else {
+                add(0, 0, days, from, days, delta);
+                add(0, 0, days, 0, to - days, delta);
+            }
+        }
+
+        // Empties the days before newFirstDay, so their slots start over as the window's new last days
+        void rollTo(long newFirstDay) {
+            if (newFirstDay <= firstDay) {
+                return;
+            }
+            if (newFirstDay - firstDay >= days) {
+                Arrays.fill(t, (char) 0);
+            } else {
+                for (long day = firstDay; day < newFirstDay; day++) {
+                    clear(0, 0, days, (int) Math.floorMod(day, (long) days));
+                }
+            }
+            firstDay = newFirstDay;
+        }
+
+        private void clear(int node, int lo, int hi, int slot) {
+            if (hi - lo == 1) {
+                t[node] = 0;
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            int left = node + 1;
+            int right = node + 2 * (mid - lo);
+            int own = t[node] - Math.max(t[left], t[right]);
+            if (own != 0) {
+                t[left] = check(t[left] + own);
+                t[right] = check(t[right] + own);
+            }
+            if (slot < mid) {
+                clear(left, lo, mid, slot);
+            } else {
+                clear(right, mid, hi, slot);
+            }
+            t[node] = (char) Math.max(t[left], t[right]);
+        }
+
+        private int max(int node, int lo, int hi, int from, int to) {
+            if (from <= lo && hi <= to) {
+                return t[node];
+            }
+            int mid = (lo + hi) >>> 1;
+            int left = node + 1;
+            int right = node + 2 * (mid - lo);
+            int own = t[node] - Math.max(t[left], t[right]);
+            int best = 0;
+            if (from < mid) {
+                best = max(left, lo, mid, from, to);
+            }
+            if (to > mid) {
+                best = Math.max(best, max(right, mid, hi, from, to));
+            }
+            return own + best;
+        }
+
+        private void add(int node, int lo, int hi, int from, int to, int delta) {
+            if (from <= lo && hi <= to) {
+                t[node] = check(t[node] + delta);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            int left = node + 1;
+            int right = node + 2 * (mid - lo);
+            int own = t[node] - Math.max(t[left], t[right]);
+            if (from < mid) {
+                add(left, lo, mid, from, to, delta);
+            }
+            if (to > mid) {
+                add(right, mid, hi, from, to, delta);
+            }
+            t[node] = check(own + Math.max(t[left], t[right]));
+        }
+
+        // A value outside a char means the adds no longer match the bookings; failing here keeps a
+        // wrapped counter from releasing units that are still booked
+        private static char check(int value) {
+            if (value < 0 || value > MAX_DATED_CAPACITY) {
+                throw new IllegalStateException("Day total out of range: " + value);
+            }
+            return (char) value;
+        }
+    }
+}
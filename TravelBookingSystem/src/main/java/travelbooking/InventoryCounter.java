@@ -0,0 +1,54 @@
+package travelbooking;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+// Lock-free capacity counter backing every bookable entity. ColumnarCatalog subclasses it to count
+// in a column slot instead of the fields here.
+class InventoryCounter {
+    // CAS on the field itself, so each item in the catalog carries one counter object, not two
+    private static final AtomicIntegerFieldUpdater<InventoryCounter> AVAILABLE =
+            AtomicIntegerFieldUpdater.newUpdater(InventoryCounter.class, "available");
+
+    private volatile int available;
+    private final int capacity;
+
+    public InventoryCounter(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.available = this.capacity;
+    }
+
+    // Takes quantity units only if all of them are free; never goes below zero
+    public boolean tryAcquire(int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        while (true) {
+            int current = available;
+            if (current < quantity) {
+                return false;
+            }
+            if (AVAILABLE.compareAndSet(this, current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    // Gives units back; refuses to grow past the original capacity
+    public boolean release(int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        while (true) {
+            int current = available;
+            if (current + quantity > capacity) {
+                return false;
+            }
+            if (AVAILABLE.compareAndSet(this, current, current + quantity)) {
+                return true;
+            }
+        }
+    }
+
+    public int get() { return available; }
+    public int getCapacity() { return capacity; }
+}
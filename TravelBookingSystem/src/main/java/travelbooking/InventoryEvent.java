@@ -0,0 +1,43 @@
+package travelbooking;
+
+import java.util.List;
+
+// One item's capacity moving from oldCount to newCount. Events are coalesced, so a burst of
+// bookings on an item arrives as a single event spanning the whole burst.
+class InventoryEvent {
+    private final String itemId;
+    private final int ordinal;
+    private final int oldCount;
+    private final int newCount;
+    private final int capacity;
+
+    public InventoryEvent(String itemId, int ordinal, int oldCount, int newCount, int capacity) {
+        this.itemId = itemId;
+        this.ordinal = ordinal;
+        this.oldCount = oldCount;
+        this.newCount = newCount;
+        this.capacity = capacity;
+    }
+
+    public String getItemId() { return itemId; }
+    // Position of the item in the catalog, as used by the manager's list views
+    public int getOrdinal() { return ordinal; }
+    public int getOldCount() { return oldCount; }
+    public int getNewCount() { return newCount; }
+    public int getCapacity() { return capacity; }
+
+    // True when the item sold out or came back into stock
+    public boolean isAvailabilityChanged() {
+        return (oldCount > 0) != (newCount > 0);
+    }
+
+    @Override
+    public String toString() {
+        return itemId + " " + oldCount + "->" + newCount + "/" + capacity;
+    }
+
+    // Receives batches of events on the publisher's thread; implementations must not block for long
+    interface Listener {
+        void inventoryChanged(List<InventoryEvent> events);
+    }
+}
@@ -0,0 +1,126 @@
+package travelbooking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalescing, batching publisher of InventoryEvents. Booking threads only mark an item as changed.
+ * The first mark after a quiet period schedules a flush one batch window later. The flush reads
+ * each marked item's current count, drops items whose count ended where it started, and hands the
+ * rest to every listener as one list. Listener calls happen on a single daemon thread, in order.
+ *
+ * Each event's oldCount is the newCount of the item's previous event. For an item's first event,
+ * it is the count the triggering operation saw before it changed anything.
+ */
+class InventoryEventPublisher {
+    public static final long DEFAULT_BATCH_MILLIS = 50;
+
+    private final long batchMillis;
+    private final List<InventoryEvent.Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Change> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService dispatcher;
+    // Last count published per ordinal, -1 if none yet; only touched on the dispatcher thread
+    private int[] published = new int[0];
+
+    public InventoryEventPublisher(long batchMillis) {
+        this.batchMillis = batchMillis;
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-events");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void addListener(InventoryEvent.Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(InventoryEvent.Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Records that the item's count just changed by delta (negative for a booking). Use 0 to ask
+     * for a re-check without claiming a change, e.g. after a rolled-back reservation.
+     * Costs one map lookup when the item is already pending, and nothing when no one is listening.
+     */
+    public void changed(String id, int ordinal, Bookable item, int delta) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        if (!pending.containsKey(id)) {
+            pending.putIfAbsent(id, new Change(ordinal, item, item.getAvailableCount() - delta));
+        }
+        if (!flushScheduled.get() && flushScheduled.compareAndSet(false, true)) {
+            try {
+                dispatcher.schedule(this::flush, batchMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // closed; flushScheduled is left set and no flush comes again
+            }
+        }
+    }
+
+    private void flush() {
+        // Cleared first: a mark arriving mid-flush schedules the next batch rather than being lost
+        flushScheduled.set(false);
+        List<InventoryEvent> events = new ArrayList<>();
+        for (String id : pending.keySet()) {
+            Change change = pending.remove(id);
+            if (change == null) {
+                continue;
+            }
+            int oldCount = lastPublished(change.ordinal, change.countBefore);
+            int newCount = change.item.getAvailableCount();
+            if (newCount != oldCount) {
+                published[change.ordinal] = newCount;
+                events.add(new InventoryEvent(id, change.ordinal, oldCount, newCount, change.item.getCapacity()));
+            }
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        for (InventoryEvent.Listener listener : listeners) {
+            try {
+                listener.inventoryChanged(events);
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // one bad listener must not starve the others
+            }
+        }
+    }
+
+    private int lastPublished(int ordinal, int fallback) {
+        if (ordinal >= published.length) {
+            int oldLength = published.length;
+            published = Arrays.copyOf(published, Math.max(ordinal + 1, oldLength * 2));
+            Arrays.fill(published, oldLength, published.length, -1);
+        }
+        return published[ordinal] >= 0 ? published[ordinal] : fallback;
+    }
+
+    // Stops delivering; changes marked afterwards are never flushed
+    public void close() {
+        dispatcher.shutdownNow();
+    }
+
+    private static class Change {
+        final int ordinal;
+        final Bookable item;
+        final int countBefore;
+
+        Change(int ordinal, Bookable item, int countBefore) {
+            this.ordinal = ordinal;
+            this.item = item;
+            this.countBefore = countBefore;
+        }
+    }
+}
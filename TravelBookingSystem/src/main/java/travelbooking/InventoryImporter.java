@@ -0,0 +1,409 @@
+package travelbooking;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Streams supplier inventory feeds into a BookingManager.
+// The file is read sequentially in chunks, chunks are parsed in parallel, and parsed chunks are
+// registered in file order with one bulk call each. Every row, CSV or binary, goes through the
+// same checks; bad rows are rejected and reported and never abort the load. Only a binary frame
+// whose length is unreadable ends it early, because without that length the following frames
+// cannot be found; the rows before it are kept and the result says where reading stopped.
+// Memory stays flat however large the feed is: a bounded window of chunks is in flight, and ids
+// are checked for duplicates against the manager plus the one chunk being registered.
+//
+// CSV rows (a header line starting with "type" and lines starting with '#' are skipped):
+//   FLIGHT,id,name,basePrice,airline,source,destination,departureTime,durationMinutes,seats
+//   HOTEL,id,name,basePrice,location,rooms,rating
+//   CAR,id,name,basePrice,carType,cars
+// Binary files start with BINARY_MAGIC followed by [int length][EntityCodec record] frames.
+class InventoryImporter {
+    static final int BINARY_MAGIC = 0x54424931;
+    private static final int CHUNK_SIZE = 8192;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final BookingManager manager;
+    private final int threads;
+
+    public InventoryImporter(BookingManager manager) {
+        this(manager, Runtime.getRuntime().availableProcessors());
+    }
+
+    public InventoryImporter(BookingManager manager, int threads) {
+        this.manager = manager;
+        this.threads = Math.max(1, threads);
+    }
+
+    // Picks the format from the file's first bytes
+    public ImportResult importFile(Path file) throws IOException {
+        try (DataInputStream probe = new DataInputStream(Files.newInputStream(file))) {
+            boolean binary = Files.size(file) >= 4 && probe.readInt() == BINARY_MAGIC;
+            if (binary) {
+                return importBinary(Files.newInputStream(file));
+            }
+        }
+        return importCsv(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
+    public ImportResult importCsv(Reader source) throws IOException {
+        ImportResult result = new ImportResult();
+        try (BufferedReader reader = new BufferedReader(source, 1 << 16)) {
+            run(result, () -> {
+                List<String> lines = new ArrayList<>(CHUNK_SIZE);
+                String line;
+                while (lines.size() < CHUNK_SIZE && (line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+                return lines.isEmpty() ? null : lines;
+            }, this::parseCsvLine);
+        }
+        return result;
+    }
+
+    public ImportResult importBinary(InputStream source) throws IOException {
+        ImportResult result = new ImportResult();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(source, 1 << 16))) {
+            if (in.readInt() != BINARY_MAGIC) {
+                throw new IOException("Not a binary inventory file");
+            }
+            run(result, new FrameSource(in, result), frame -> EntityCodec.read(new DataInputStream(new ByteArrayInputStream(frame))));
+        }
+        return result;
+    }
+
+    // Writes entities in the binary format read by importBinary
+    public static void writeBinary(Collection<? extends Displayable> entities, OutputStream target) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16))) {
+            out.writeInt(BINARY_MAGIC);
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(128);
+            DataOutputStream frameOut = new DataOutputStream(frame);
+            for (Displayable entity : entities) {
+                frame.reset();
+                EntityCodec.write(frameOut, entity);
+                frameOut.flush();
+                out.writeInt(frame.size());
+                frame.writeTo(out);
+            }
+        }
+    }
+
+    interface ChunkSource<T> {
+        List<T> next() throws IOException;
+    }
+
+    interface RowParser<T> {
+        // Returns null for rows that carry no entity (comments, headers); throws for bad rows
+        Displayable parse(T row) throws Exception;
+    }
+
+    private <T> void run(ImportResult result, ChunkSource<T> source, RowParser<T> parser) throws IOException {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "inventory-import");
+            t.setDaemon(true);
+            return t;
+        });
+        // Bounded window of chunks in flight keeps memory flat however large the feed is
+        Deque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+        long firstRow = 1;
+        try {
+            List<T> chunk;
+            while ((chunk = source.next()) != null) {
+                final List<T> rows = chunk;
+                final long offset = firstRow;
+                inFlight.add(pool.submit(() -> parseChunk(rows, offset, parser)));
+                firstRow += chunk.size();
+                if (inFlight.size() >= threads * 2) {
+                    register(inFlight.poll(), result);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                register(inFlight.poll(), result);
+            }
+        } finally {
+            pool.shutdownNow();
+            result.elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    private <T> ParsedChunk parseChunk(List<T> rows, long firstRow, RowParser<T> parser) {
+        ParsedChunk parsed = new ParsedChunk();
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                Displayable entity = parser.parse(rows.get(i));
+                if (entity != null) {
+                    validate(entity);
+                    parsed.entities.add(entity);
+                    parsed.rows.add(firstRow + i);
+                }
+            } catch (Exception e) {
+                parsed.errors.add("row " + (firstRow + i) + ": " + e.getMessage());
+            }
+        }
+        return parsed;
+    }
+
+    // Earlier chunks are already registered, so the manager answers for them; only ids repeated
+    // within this chunk need remembering
+    private void register(Future<ParsedChunk> future, ImportResult result) throws IOException {
+        ParsedChunk parsed;
+        try {
+            parsed = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Import worker failed", e.getCause());
+        }
+        for (String error : parsed.errors) {
+            result.reject(error);
+        }
+        List<Displayable> accepted = new ArrayList<>(parsed.entities.size());
+        Set<String> seenIds = new HashSet<>();
+        for (int i = 0; i < parsed.entities.size(); i++) {
+            String id = ((TravelEntity) parsed.entities.get(i)).getId();
+            if (!seenIds.add(id) || manager.findBookableById(id) != null) {
+                result.reject("row " + parsed.rows.get(i) + ": duplicate id " + id);
+            } else {
+                accepted.add(parsed.entities.get(i));
+            }
+        }
+        manager.addTravelEntities(accepted);
+        result.imported += accepted.size();
+    }
+
+    private Displayable parseCsvLine(String line) {
+        if (line.isEmpty() || line.startsWith("#") || line.regionMatches(true, 0, "type", 0, 4)) {
+            return null;
+        }
+        List<String> f = splitCsv(line);
+        String kind = f.get(0).trim().toUpperCase(Locale.ROOT);
+        switch (kind) {
+            case "FLIGHT":
+                expectFields(f, 10);
+                return new Flight(text(f, 1), text(f, 2), price(f, 3), text(f, 4), text(f, 5), text(f, 6),
+                        text(f, 7), count(f, 8), count(f, 9));
+            case "HOTEL":
+                expectFields(f, 7);
+                return new Hotel(text(f, 1), text(f, 2), price(f, 3), text(f, 4), count(f, 5), count(f, 6));
+            case "CAR":
+            case "CAR RENTAL":
+                expectFields(f, 6);
+                return new CarRental(text(f, 1), text(f, 2), price(f, 3), text(f, 4), count(f, 5));
+            default:
+                throw new IllegalArgumentException("unknown type '" + f.get(0) + "'");
+        }
+    }
+
+    // The checks every row must pass, whichever format it came from
+    static void validate(Displayable entity) {
+        TravelEntity item = (TravelEntity) entity;
+        required(item.getId(), "id");
+        required(item.getName(), "name");
+        double price = item.getBasePrice();
+        if (!(price >= 0) || Double.isInfinite(price)) {
+            throw new IllegalArgumentException("invalid price " + price);
+        }
+        if (item.getCapacity() < 0) {
+            throw new IllegalArgumentException("negative capacity " + item.getCapacity());
+        }
+        if (item instanceof Flight) {
+            Flight flight = (Flight) item;
+            required(flight.getAirline(), "airline");
+            required(flight.getSource(), "source");
+            required(flight.getDestination(), "destination");
+            if (flight.getDepartureMinute() < 0) {
+                throw new IllegalArgumentException("unreadable departure time '" + flight.getDepartureTime() + "'");
+            }
+            if (flight.getDurationMinutes() < 0) {
+                throw new IllegalArgumentException("negative duration " + flight.getDurationMinutes());
+            }
+        } else if (item instanceof Hotel) {
+            Hotel hotel = (Hotel) item;
+            required(hotel.getLocation(), "location");
+            if (hotel.getRating() < 0 || hotel.getRating() > 5) {
+                throw new IllegalArgumentException("rating must be 0-5, was " + hotel.getRating());
+            }
+        } else if (item instanceof CarRental) {
+            required(((CarRental) item).getCarType(), "car type");
+        }
+    }
+
+    private static void required(String value, String field) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException(field + " is empty");
+        }
+    }
+
+    private static void expectFields(List<String> fields, int expected) {
+        if (fields.size() != expected) {
+            throw new IllegalArgumentException("expected " + expected + " fields, found " + fields.size());
+        }
+    }
+
+    private static String text(List<String> fields, int index) {
+        String value = fields.get(index).trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("field " + (index + 1) + " is empty");
+        }
+        return value;
+    }
+
+    private static double price(List<String> fields, int index) {
+        double value = Double.parseDouble(text(fields, index));
+        if (!(value >= 0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("invalid price " + fields.get(index));
+        }
+        return value;
+    }
+
+    private static int count(List<String> fields, int index) {
+        int value = Integer.parseInt(text(fields, index));
+        if (value < 0) {
+            throw new IllegalArgumentException("negative value " + value + " in field " + (index + 1));
+        }
+        return value;
+    }
+
+    // Splits one CSV line; supports double-quoted fields with "" escapes
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(10);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    // Reads [int length][record] frames. A length that is out of range or cut short, or a frame cut
+    // short by the end of the file, leaves no way to find the next frame, so reading stops there and
+    // the rejection says so. Only an end of file exactly between frames is a clean end.
+    private static class FrameSource implements ChunkSource<byte[]> {
+        private static final int MAX_FRAME_LENGTH = 1 << 20;
+
+        private final DataInputStream in;
+        private final ImportResult result;
+        private final byte[] lengthBytes = new byte[4];
+        private long frames;
+        private boolean stopped;
+
+        FrameSource(DataInputStream in, ImportResult result) {
+            this.in = in;
+            this.result = result;
+        }
+
+        @Override
+        public List<byte[]> next() throws IOException {
+            List<byte[]> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (!stopped && chunk.size() < CHUNK_SIZE) {
+                long row = frames + 1;
+                int read = in.read(lengthBytes);
+                while (read >= 0 && read < lengthBytes.length) {
+                    int more = in.read(lengthBytes, read, lengthBytes.length - read);
+                    if (more < 0) {
+                        break;
+                    }
+                    read += more;
+                }
+                if (read <= 0) {
+                    stopped = true; // clean end of file
+                    break;
+                }
+                if (read < lengthBytes.length) {
+                    stop("row " + row + ": truncated frame length");
+                    break;
+                }
+                int length = (lengthBytes[0] & 0xFF) << 24 | (lengthBytes[1] & 0xFF) << 16
+                        | (lengthBytes[2] & 0xFF) << 8 | (lengthBytes[3] & 0xFF);
+                if (length < 0 || length > MAX_FRAME_LENGTH) {
+                    stop("row " + row + ": corrupt frame length " + length);
+                    break;
+                }
+                byte[] frame = new byte[length];
+                try {
+                    in.readFully(frame);
+                } catch (EOFException e) {
+                    stop("row " + row + ": frame cut short by the end of the file");
+                    break;
+                }
+                chunk.add(frame);
+                frames++;
+            }
+            return chunk.isEmpty() ? null : chunk;
+        }
+
+        // Called on the reading thread, which registers chunks too, so result needs no locking
+        private void stop(String error) {
+            stopped = true;
+            result.reject(error + "; rest of file not read");
+            result.truncated = true;
+        }
+    }
+
+    private static class ParsedChunk {
+        final List<Displayable> entities = new ArrayList<>();
+        final List<Long> rows = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+    }
+
+    // Outcome of one import run
+    static class ImportResult {
+        private long imported;
+        private long rejected;
+        private long elapsedNanos;
+        private boolean truncated;
+        private final List<String> errors = new ArrayList<>();
+
+        void reject(String error) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        public long getImported() { return imported; }
+        public long getRejected() { return rejected; }
+        // True if a corrupt binary frame ended the load before the end of the file
+        public boolean isTruncated() { return truncated; }
+        // The first rejections, with their row numbers
+        public List<String> getErrors() { return Collections.unmodifiableList(errors); }
+        public long getElapsedMillis() { return TimeUnit.NANOSECONDS.toMillis(elapsedNanos); }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : (imported + rejected) * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Imported %d rows, rejected %d, in %d ms (%.0f rows/s)%s",
+                    imported, rejected, getElapsedMillis(), getRowsPerSecond(),
+                    truncated ? "; stopped early at a corrupt frame" : "");
+        }
+    }
+}
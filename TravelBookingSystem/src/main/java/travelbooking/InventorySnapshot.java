@@ -0,0 +1,169 @@
+package travelbooking;
+
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * One published version of the inventory: the catalog, every item's open-dated available count
+ * and the active bookings, as they stood between two write operations. Nothing in it changes
+ * after publication, so it can be read from any thread, for as long as needed, without locks and
+ * without copying; a booking is either entirely in it (count taken, booking listed) or not at all.
+ *
+ * Counts come from the snapshot, not the entities: an entity's own getAvailableCount() and display
+ * cells stay live. Entities are read from the live catalog below this version's size, which is
+ * safe because the catalog only grows; with the columnar store each read is a fresh flyweight.
+ */
+final class InventorySnapshot {
+    static final InventorySnapshot EMPTY = new InventorySnapshot(0, 0, Collections.<Displayable>emptyList(), 0,
+            PersistentIntTrie.EMPTY, PersistentTrie.<Booking>empty());
+
+    private final long version;
+    private final long publishedAt;
+    private final List<Displayable> catalog;
+    private final int size;
+    private final PersistentIntTrie counts;
+    private final PersistentTrie<Booking> bookings;
+
+    InventorySnapshot(long version, long publishedAt, List<Displayable> catalog, int size,
+                      PersistentIntTrie counts, PersistentTrie<Booking> bookings) {
+        this.version = version;
+        this.publishedAt = publishedAt;
+        this.catalog = catalog;
+        this.size = size;
+        this.counts = counts;
+        this.bookings = bookings;
+    }
+
+    // The structures the next version is derived from
+    PersistentIntTrie countTrie() {
+        return counts;
+    }
+
+    PersistentTrie<Booking> bookingTrie() {
+        return bookings;
+    }
+
+    // Increases by one with every publication
+    public long getVersion() {
+        return version;
+    }
+
+    // Wall-clock time (epoch millis) of publication
+    public long getPublishedAt() {
+        return publishedAt;
+    }
+
+    // Catalog size; ordinals run from 0 to size - 1
+    public int size() {
+        return size;
+    }
+
+    public Displayable getEntity(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("Ordinal " + ordinal + " of " + size);
+        }
+        return catalog.get(ordinal);
+    }
+
+    // Units free as of this version; 0 for anything that is not bookable
+    public int getAvailableCount(int ordinal) {
+        return counts.get(ordinal);
+    }
+
+    public boolean isAvailable(int ordinal) {
+        return counts.get(ordinal) > 0;
+    }
+
+    // The catalog in ordinal order
+    public List<Displayable> getEntities() {
+        return new AbstractList<Displayable>() {
+            @Override
+            public Displayable get(int index) {
+                return getEntity(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Entities with units free, in ordinal order. size() is O(1) and get(i) O(log n).
+    public List<Displayable> getAvailableEntities() {
+        return new AbstractList<Displayable>() {
+            @Override
+            public Displayable get(int index) {
+                return catalog.get(counts.nthPositive(index));
+            }
+
+            @Override
+            public int size() {
+                return counts.positiveCount();
+            }
+
+            @Override
+            public Iterator<Displayable> iterator() {
+                return new Iterator<Displayable>() {
+                    private int next = counts.nextPositive(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+
+                    @Override
+                    public Displayable next() {
+                        if (next < 0) {
+                            throw new NoSuchElementException();
+                        }
+                        Displayable entity = catalog.get(next);
+                        next = counts.nextPositive(next + 1);
+                        return entity;
+                    }
+                };
+            }
+        };
+    }
+
+    public int getBookingCount() {
+        return bookings.size();
+    }
+
+    // Active bookings, oldest reference first
+    public Collection<Booking> getBookings() {
+        return new AbstractCollection<Booking>() {
+            @Override
+            public Iterator<Booking> iterator() {
+                return new Iterator<Booking>() {
+                    private int next = bookings.nextPresent(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+
+                    @Override
+                    public Booking next() {
+                        if (next < 0) {
+                            throw new NoSuchElementException();
+                        }
+                        Booking booking = bookings.get(next);
+                        next = bookings.nextPresent(next + 1);
+                        return booking;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return bookings.size();
+            }
+        };
+    }
+}
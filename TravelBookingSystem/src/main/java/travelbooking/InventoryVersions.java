@@ -0,0 +1,224 @@
+package travelbooking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes InventorySnapshots. Every write operation runs between beginWrite and endWrite and
+ * reports what it touched. A publication briefly closes that gate: once the operations already
+ * inside have left, it reads the touched items' counts and takes the queued booking changes,
+ * which is a cut between whole operations, then reopens the gate and builds the new version off
+ * to the side by path copying. Readers just read the current version.
+ *
+ * Publications run on a daemon thread at most PUBLISH_MILLIS after a write, so a snapshot trails
+ * the live inventory by about that much; publish() makes one on the spot.
+ *
+ * The gate costs a writer one striped counter increment and decrement and a volatile read; writers
+ * only wait while a publication is reading counts, never for each other.
+ */
+class InventoryVersions {
+    public static final long PUBLISH_MILLIS = 10;
+    // References that do not follow the BKnnnnnnnn pattern are keyed from here up
+    private static final int FOREIGN_SLOTS = 1 << 30;
+
+    private final List<Displayable> catalog;
+    private final LongAdder writers = new LongAdder();
+    private volatile boolean closed; // gate closed while a publication reads the live state
+    private volatile boolean publishing; // from before a publication drains the changes until it is current
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private final Queue<Booking> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Booking> removed = new ConcurrentLinkedQueue<>();
+    private final Map<String, Integer> foreignSlots = new ConcurrentHashMap<>();
+    private final AtomicInteger nextForeignSlot = new AtomicInteger(FOREIGN_SLOTS);
+    private final AtomicBoolean publishScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService publisher;
+    private volatile InventorySnapshot current = InventorySnapshot.EMPTY;
+
+    // catalog is the live, append-only entity list, in ordinal order
+    public InventoryVersions(List<Displayable> catalog) {
+        this.catalog = catalog;
+        this.publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-snapshots");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public InventorySnapshot current() {
+        return current;
+    }
+
+    // The current version when it already holds every finished write, else one published now. The
+    // changes are checked before the publishing flag, so a publication that took them but is not
+    // current yet is waited for rather than missed.
+    public InventorySnapshot latest() {
+        if (dirty.isEmpty() && added.isEmpty() && removed.isEmpty() && !publishing) {
+            InventorySnapshot snapshot = current;
+            if (snapshot.size() == catalog.size()) {
+                return snapshot;
+            }
+        }
+        return publish();
+    }
+
+    // Must not nest: a publication waiting on the outer call would never let the inner one in
+    public void beginWrite() {
+        while (true) {
+            writers.increment();
+            if (!closed) {
+                return;
+            }
+            writers.decrement();
+            while (closed) {
+                Thread.yield();
+            }
+        }
+    }
+
+    public void endWrite() {
+        writers.decrement();
+        if (!publishScheduled.get() && publishScheduled.compareAndSet(false, true)) {
+            try {
+                publisher.schedule(() -> {
+                    publishScheduled.set(false);
+                    publish();
+                }, PUBLISH_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // closed; publishScheduled stays set, leaving publish() to callers
+            }
+        }
+    }
+
+    // Inside a write: the item's count changed
+    public void itemChanged(int ordinal) {
+        dirty.add(ordinal);
+    }
+
+    // Inside a write
+    public void bookingAdded(Booking booking) {
+        added.add(booking);
+    }
+
+    // Inside a write
+    public void bookingRemoved(Booking booking) {
+        removed.add(booking);
+    }
+
+    // Publishes a version with every write that has finished by now, and returns it
+    public synchronized InventorySnapshot publish() {
+        InventorySnapshot previous = current;
+        int oldSize = previous.size();
+        int size;
+        int[] ordinals;
+        int[] counts;
+        int changes = 0;
+        List<Booking> newBookings = new ArrayList<>();
+        List<Booking> oldBookings = new ArrayList<>();
+        publishing = true;
+        closed = true;
+        try {
+            while (writers.sum() != 0) {
+                Thread.yield();
+            }
+            size = catalog.size();
+            ordinals = new int[dirty.size() + size - oldSize];
+            counts = new int[ordinals.length];
+            for (int ordinal = oldSize; ordinal < size; ordinal++) {
+                ordinals[changes] = ordinal;
+                counts[changes++] = countOf(catalog.get(ordinal));
+            }
+            // Nothing can be added while the gate is closed, so the size read above holds
+            for (Iterator<Integer> it = dirty.iterator(); it.hasNext() && changes < ordinals.length; ) {
+                int ordinal = it.next();
+                it.remove();
+                if (ordinal >= oldSize) {
+                    continue; // new in this version, so already read above
+                }
+                ordinals[changes] = ordinal;
+                counts[changes++] = countOf(catalog.get(ordinal));
+            }
+            drain(added, newBookings);
+            drain(removed, oldBookings);
+        } finally {
+            closed = false;
+        }
+
+        PersistentIntTrie.sortByIndex(ordinals, counts, changes);
+        InventorySnapshot snapshot = new InventorySnapshot(previous.getVersion() + 1, System.currentTimeMillis(),
+                catalog, size,
+                previous.countTrie().with(ordinals, counts, changes),
+                updateBookings(previous.bookingTrie(), newBookings, oldBookings));
+        current = snapshot;
+        publishing = false;
+        return snapshot;
+    }
+
+    private static int countOf(Displayable entity) {
+        return entity instanceof Bookable ? ((Bookable) entity).getAvailableCount() : 0;
+    }
+
+    private static void drain(Queue<Booking> queue, List<Booking> into) {
+        Booking booking;
+        while ((booking = queue.poll()) != null) {
+            into.add(booking);
+        }
+    }
+
+    // Additions are applied before removals, so a booking made and cancelled in one window is gone
+    private PersistentTrie<Booking> updateBookings(PersistentTrie<Booking> bookings, List<Booking> newBookings,
+                                                   List<Booking> oldBookings) {
+        int count = newBookings.size() + oldBookings.size();
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            Booking booking = i < newBookings.size() ? newBookings.get(i) : oldBookings.get(i - newBookings.size());
+            keys[i] = ((long) slotOf(booking) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] slots = new int[count];
+        Object[] values = new Object[count];
+        for (int i = 0; i < count; i++) {
+            int change = (int) keys[i];
+            slots[i] = (int) (keys[i] >>> 32);
+            values[i] = change < newBookings.size() ? newBookings.get(change) : null;
+        }
+        for (Booking booking : oldBookings) {
+            foreignSlots.remove(booking.getReference());
+        }
+        return bookings.with(slots, values, count);
+    }
+
+    // A BKnnnnnnnn reference's number, so bookings list in reference order
+    private int slotOf(Booking booking) {
+        String reference = booking.getReference();
+        if (reference.startsWith("BK") && reference.length() > 2) {
+            try {
+                long number = Long.parseLong(reference.substring(2));
+                if (number >= 0 && number < FOREIGN_SLOTS) {
+                    return (int) number;
+                }
+            } catch (NumberFormatException e) {
+                // not one of ours; falls through to a foreign slot
+            }
+        }
+        return foreignSlots.computeIfAbsent(reference, key -> nextForeignSlot.getAndIncrement());
+    }
+
+    // Stops the background publications; publish() still makes a version on the caller's thread
+    public void close() {
+        publisher.shutdownNow();
+    }
+}
@@ -0,0 +1,39 @@
+package travelbooking;
+
+import java.util.Collections;
+import java.util.List;
+
+// A sequence of connecting flights found by RouteGraph
+class Itinerary {
+    private final List<Flight> legs;
+    private final double totalPrice;
+    private final long departureMinute;
+    private final long arrivalMinute;
+
+    public Itinerary(List<Flight> legs, double totalPrice, long departureMinute, long arrivalMinute) {
+        this.legs = Collections.unmodifiableList(legs);
+        this.totalPrice = totalPrice;
+        this.departureMinute = departureMinute;
+        this.arrivalMinute = arrivalMinute;
+    }
+
+    public List<Flight> getLegs() { return legs; }
+    public int getConnections() { return legs.size() - 1; }
+    public double getTotalPrice() { return totalPrice; }
+    // Minutes after midnight of the search day; may run into the following days
+    public long getDepartureMinute() { return departureMinute; }
+    public long getArrivalMinute() { return arrivalMinute; }
+    public long getTotalMinutes() { return arrivalMinute - departureMinute; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Flight leg : legs) {
+            if (sb.length() > 0) {
+                sb.append(" -> ");
+            }
+            sb.append(leg.getName()).append(" (").append(leg.getSource()).append('-').append(leg.getDestination()).append(')');
+        }
+        return sb.append(String.format(", $%.2f, %dh%02dm", totalPrice, getTotalMinutes() / 60, getTotalMinutes() % 60)).toString();
+    }
+}
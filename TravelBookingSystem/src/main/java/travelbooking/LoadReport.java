@@ -0,0 +1,182 @@
+package travelbooking;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Results of one LoadTest run: per-operation counts and latency percentiles, throughput, and the
+ * integrity counts from the end-of-run inventory check. Saved as a properties file so a later run
+ * can be compared against it; latencies are stored in microseconds.
+ */
+final class LoadReport {
+    // A latency this much higher, or a throughput this much lower, than the baseline is flagged
+    static final double REGRESSION_THRESHOLD = 0.10;
+
+    private static final String[] PERCENTILES = {"p50", "p90", "p99", "p99.9"};
+    private static final double[] FRACTIONS = {0.5, 0.9, 0.99, 0.999};
+
+    private final Map<String, String> values; // in insertion order: settings, summary, then operations
+    private final List<String> operations = new ArrayList<>();
+
+    LoadReport() {
+        this.values = new LinkedHashMap<>();
+    }
+
+    private LoadReport(Map<String, String> values) {
+        this.values = values;
+        for (String key : values.keySet()) {
+            if (key.startsWith("op.") && key.endsWith(".count")) {
+                operations.add(key.substring(3, key.length() - ".count".length()));
+            }
+        }
+    }
+
+    public void put(String key, Object value) {
+        values.put(key, String.valueOf(value));
+    }
+
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public double getDouble(String key) {
+        String value = values.get(key);
+        return value == null ? Double.NaN : Double.parseDouble(value);
+    }
+
+    // Outcome counts and latency (measured from the intended start) of one operation type
+    public void putOperation(String name, long ok, long rejected, long errors, LatencyHistogram.Snapshot latency) {
+        if (!operations.contains(name)) {
+            operations.add(name);
+        }
+        String prefix = "op." + name + ".";
+        put(prefix + "count", latency.getCount());
+        put(prefix + "ok", ok);
+        put(prefix + "rejected", rejected);
+        put(prefix + "errors", errors);
+        put(prefix + "mean", String.format(Locale.ROOT, "%.1f", latency.getMeanNanos() / 1000.0));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            put(prefix + PERCENTILES[i], String.format(Locale.ROOT, "%.1f", latency.getValueAtPercentile(FRACTIONS[i]) / 1000.0));
+        }
+        put(prefix + "max", String.format(Locale.ROOT, "%.1f", latency.getMaxNanos() / 1000.0));
+    }
+
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append("Load test ").append(get("label")).append(": ").append(get("catalog")).append(System.lineSeparator());
+        out.append(String.format(Locale.ROOT, "%s threads, %s arrivals at %s ops/s, mix %s, zipf %s, %s s measured%n",
+                get("threads"), get("arrivals"), get("targetRate"), get("mix"), get("zipf"), get("durationSeconds")));
+        out.append(String.format(Locale.ROOT, "%-14s %9s %9s %9s %7s %9s %9s %9s %9s %9s %9s%n", "operation (us)", "count", "ok",
+                "rejected", "errors", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (String operation : operations) {
+            String prefix = "op." + operation + ".";
+            if (getDouble(prefix + "count") == 0) {
+                continue;
+            }
+            out.append(String.format(Locale.ROOT, "%-14s %9s %9s %9s %7s %9s %9s %9s %9s %9s %9s%n", operation, get(prefix + "count"),
+                    get(prefix + "ok"), get(prefix + "rejected"), get(prefix + "errors"), get(prefix + "mean"),
+                    get(prefix + "p50"), get(prefix + "p90"), get(prefix + "p99"), get(prefix + "p99.9"),
+                    get(prefix + "max")));
+        }
+        out.append(String.format(Locale.ROOT, "throughput %.1f ops/s; oversold items %s, inconsistent items %s, unaccounted bookings %s%n",
+                getDouble("throughput"), get("oversoldItems"), get("inconsistentItems"), get("unaccountedBookings")));
+        if (get("firstError") != null) {
+            out.append("first error: ").append(get("firstError")).append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+
+    /**
+     * Side-by-side table of this run against a baseline: throughput, every operation's percentiles
+     * and the failure counts, with the relative change. Changes past REGRESSION_THRESHOLD in the bad
+     * direction are marked; any oversold item is always marked.
+     */
+    public String compare(LoadReport baseline) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "Comparison: %s (baseline) vs %s%n", baseline.get("label"), get("label")));
+        out.append(String.format(Locale.ROOT, "%-24s %12s %12s %9s%n", "metric", "baseline", "current", "change"));
+        compareRow(out, baseline, "throughput", "throughput (ops/s)", false);
+        for (String operation : operations) {
+            String prefix = "op." + operation + ".";
+            if (baseline.get(prefix + "count") == null) {
+                continue;
+            }
+            for (String percentile : PERCENTILES) {
+                compareRow(out, baseline, prefix + percentile, operation + " " + percentile + " (us)", true);
+            }
+            compareRow(out, baseline, prefix + "max", operation + " max (us)", true);
+            compareRow(out, baseline, prefix + "errors", operation + " errors", true);
+        }
+        compareRow(out, baseline, "oversoldItems", "oversold items", true);
+        compareRow(out, baseline, "inconsistentItems", "inconsistent items", true);
+        compareRow(out, baseline, "unaccountedBookings", "unaccounted bookings", true);
+        return out.toString();
+    }
+
+    private void compareRow(StringBuilder out, LoadReport baseline, String key, String label, boolean lowerIsBetter) {
+        double before = baseline.getDouble(key);
+        double after = getDouble(key);
+        if (Double.isNaN(before) || Double.isNaN(after)) {
+            return;
+        }
+        String change;
+        boolean regressed;
+        if (before == 0) {
+            change = after == 0 ? "0.0%" : "new";
+            regressed = lowerIsBetter && after > 0;
+        } else {
+            double relative = (after - before) / before;
+            change = String.format(Locale.ROOT, "%+.1f%%", relative * 100);
+            regressed = lowerIsBetter ? relative > REGRESSION_THRESHOLD : relative < -REGRESSION_THRESHOLD;
+        }
+        if (key.equals("oversoldItems") && after > 0) {
+            regressed = true;
+        }
+        out.append(String.format(Locale.ROOT, "%-24s %12s %12s %9s%s%n", label, trim(before), trim(after), change,
+                regressed ? "  REGRESSED" : ""));
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    public void save(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("# Load test report" + System.lineSeparator());
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                out.write(entry.getKey() + "=" + escape(entry.getValue()) + System.lineSeparator());
+            }
+        }
+    }
+
+    public static LoadReport load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        // Properties forgets the order; operations are listed in file order for the comparison
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int equals = line.indexOf('=');
+            if (!line.startsWith("#") && equals > 0) {
+                String key = line.substring(0, equals);
+                values.put(key, properties.getProperty(key));
+            }
+        }
+        return new LoadReport(values);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+}
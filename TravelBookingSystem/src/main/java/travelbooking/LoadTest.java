@@ -0,0 +1,405 @@
+package travelbooking;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Synthetic load driver: fills a BookingManager with a SyntheticCatalog, then runs a weighted mix of
+// searches, availability checks, bookings and cancellations from many threads against Zipf-skewed
+// items, and reports throughput, latency percentiles, failures and an end-of-run oversell check.
+// Usage: java LoadTest [--flights 10000] [--hotels 10000] [--cars 10000] [--capacity 50]
+//            [--threads 8] [--rate 2000] [--arrivals poisson|fixed] [--duration 10] [--warmup 2]
+//            [--mix search=40,availability=30,book=20,cancel=10] [--zipf 0.99] [--quantity 2]
+//            [--seed 42] [--shards <n>] [--data <empty journal dir>] [--label <name>]
+//            [--out <report file>] [--compare <baseline report file>] [--analytics <csv file>]
+//            [--store objects|columnar]
+// Arrivals are open-loop: each thread issues requests on its own schedule (--rate across all threads)
+// whether or not earlier ones have finished, and latency is measured from when a request was due, so
+// a stall shows up as the queue it causes rather than as fewer, faster samples. --rate 0 runs closed
+// loop, each thread issuing its next request as soon as the last returns.
+public class LoadTest {
+    enum Operation { SEARCH, AVAILABILITY, BOOK, CANCEL }
+
+    private static final int SEARCH_PAGE = 20;
+
+    private final BookingManager manager;
+    private final ShardedBookingPipeline pipeline;
+    private final String[] ids;
+    private final List<String> searchTerms = SyntheticCatalog.searchTerms();
+    private final ZipfianGenerator items;
+    private final int[] mixWeights;
+    private final int mixTotal;
+    private final int maxQuantity;
+    private final long seed;
+    private final Map<Operation, LatencyHistogram> latency = new HashMap<>();
+    private final Map<Operation, LongAdder> ok = new HashMap<>();
+    private final Map<Operation, LongAdder> rejected = new HashMap<>();
+    private final Map<Operation, LongAdder> errors = new HashMap<>();
+    // Whole run, warmup included, as the booking ledger is
+    private final LongAdder bookedTotal = new LongAdder();
+    private final LongAdder cancelledTotal = new LongAdder();
+    private volatile String firstError;
+
+    LoadTest(BookingManager manager, ShardedBookingPipeline pipeline, String[] ids, int[] mixWeights, double zipf,
+             int maxQuantity, long seed) {
+        this.manager = manager;
+        this.pipeline = pipeline;
+        this.ids = ids;
+        this.items = new ZipfianGenerator(ids.length, zipf, seed);
+        this.mixWeights = mixWeights;
+        int total = 0;
+        for (int weight : mixWeights) {
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Operation mix has no weight");
+        }
+        this.mixTotal = total;
+        this.maxQuantity = maxQuantity;
+        this.seed = seed;
+        for (Operation operation : Operation.values()) {
+            latency.put(operation, new LatencyHistogram());
+            ok.put(operation, new LongAdder());
+            rejected.put(operation, new LongAdder());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * Runs threads for warmup + duration and records what was due after the warmup. rate is the total
+     * target in requests per second (0 for closed loop); with poisson arrivals the gaps between one
+     * thread's requests are exponentially distributed around the mean rather than fixed.
+     */
+    public void run(int threads, double rate, boolean poisson, long warmupNanos, long durationNanos)
+            throws InterruptedException {
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        double meanGap = rate > 0 ? threads * 1e9 / rate : 0;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(seed * 31 + t);
+            long first = start + (long) (meanGap * t / threads); // staggered, not all due at once
+            Thread worker = new Thread(() -> drive(random, first, meanGap, poisson, measureFrom, end), "load-" + t);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void drive(Random random, long first, double meanGap, boolean poisson, long measureFrom, long end) {
+        List<String> references = new ArrayList<>(); // this thread's active bookings, for its cancellations
+        double due = first;
+        while (true) {
+            long intended;
+            if (meanGap > 0) {
+                intended = (long) due;
+                due += poisson ? -Math.log(1 - random.nextDouble()) * meanGap : meanGap;
+                if (intended >= end) {
+                    break;
+                }
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                intended = System.nanoTime();
+                if (intended >= end) {
+                    break;
+                }
+            }
+            Operation operation = pick(random);
+            Boolean succeeded;
+            try {
+                succeeded = execute(operation, random, references);
+            } catch (RuntimeException e) {
+                succeeded = null;
+                if (firstError == null) {
+                    firstError = operation + ": " + e;
+                }
+            }
+            long elapsed = System.nanoTime() - intended;
+            if (Boolean.TRUE.equals(succeeded) && operation == Operation.BOOK) {
+                bookedTotal.increment();
+            } else if (Boolean.TRUE.equals(succeeded) && operation == Operation.CANCEL) {
+                cancelledTotal.increment();
+            }
+            if (intended < measureFrom) {
+                continue;
+            }
+            latency.get(operation).record(elapsed);
+            (succeeded == null ? errors : succeeded ? ok : rejected).get(operation).increment();
+        }
+    }
+
+    private Operation pick(Random random) {
+        int roll = random.nextInt(mixTotal);
+        for (Operation operation : Operation.values()) {
+            roll -= mixWeights[operation.ordinal()];
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        throw new AssertionError();
+    }
+
+    // True if the operation did what was asked, false if the inventory turned it down (sold out,
+    // nothing to cancel)
+    private boolean execute(Operation operation, Random random, List<String> references) {
+        switch (operation) {
+            case SEARCH: {
+                List<Displayable> results = manager.search(searchTerms.get(random.nextInt(searchTerms.size())),
+                        null, true);
+                int page = Math.min(SEARCH_PAGE, results.size());
+                for (int i = 0; i < page; i++) {
+                    results.get(i).getDisplayValue(0);
+                }
+                return page > 0;
+            }
+            case AVAILABILITY: {
+                Bookable item = manager.findBookableById(ids[items.next(random)]);
+                item.calculatePrice();
+                return item.getAvailableCount() > 0;
+            }
+            case BOOK: {
+                String id = ids[items.next(random)];
+                int quantity = 1 + random.nextInt(maxQuantity);
+                Booking booking = pipeline != null ? pipeline.book(id, quantity).join() : manager.book(id, quantity);
+                if (booking == null) {
+                    return false;
+                }
+                references.add(booking.getReference());
+                return true;
+            }
+            case CANCEL: {
+                if (references.isEmpty()) {
+                    return false;
+                }
+                int index = random.nextInt(references.size());
+                String reference = references.get(index);
+                references.set(index, references.get(references.size() - 1));
+                references.remove(references.size() - 1);
+                return pipeline != null ? pipeline.cancelByReference(reference).join() != null
+                        : manager.cancelByReference(reference);
+            }
+            default:
+                throw new AssertionError(operation);
+        }
+    }
+
+    // Counts and latencies recorded so far, plus the inventory check; call once the threads are done
+    public void report(LoadReport report, double elapsedSeconds) {
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram.Snapshot snapshot = latency.get(operation).snapshot();
+            report.putOperation(operation.name().toLowerCase(Locale.ROOT), ok.get(operation).sum(),
+                    rejected.get(operation).sum(), errors.get(operation).sum(), snapshot);
+            total += snapshot.getCount();
+        }
+        report.put("throughput", String.format(Locale.ROOT, "%.1f", total / elapsedSeconds));
+        checkInventory(report);
+        if (firstError != null) {
+            report.put("firstError", firstError);
+        }
+    }
+
+    /**
+     * Oversell check. Every item's units must be accounted for: capacity minus available must equal
+     * the units of its active bookings, and no item may have more units booked than it has capacity
+     * (or a negative count). Bookings made minus bookings cancelled must also match the ledger.
+     */
+    private void checkInventory(LoadReport report) {
+        Map<String, Integer> booked = new HashMap<>();
+        int active = 0;
+        for (Booking booking : manager.getBookingRecords()) {
+            booked.merge(booking.getItemId(), booking.getQuantity(), Integer::sum);
+            active++;
+        }
+        int oversold = 0;
+        int inconsistent = 0;
+        for (String id : ids) {
+            Bookable item = manager.findBookableById(id);
+            int units = booked.getOrDefault(id, 0);
+            int available = item.getAvailableCount();
+            if (available < 0 || units > item.getCapacity()) {
+                oversold++;
+            }
+            if (item.getCapacity() - available != units) {
+                inconsistent++;
+            }
+        }
+        report.put("oversoldItems", oversold);
+        report.put("inconsistentItems", inconsistent);
+        report.put("activeBookings", active);
+        report.put("unaccountedBookings", Math.abs(active - (bookedTotal.sum() - cancelledTotal.sum())));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int flights = 10000;
+        int hotels = 10000;
+        int cars = 10000;
+        int capacity = 50;
+        int threads = 8;
+        double rate = 2000;
+        boolean poisson = true;
+        double durationSeconds = 10;
+        double warmupSeconds = 2;
+        String mix = "search=40,availability=30,book=20,cancel=10";
+        double zipf = 0.99;
+        int quantity = 2;
+        long seed = 42;
+        int shards = 0;
+        String dataDir = null;
+        String label = null;
+        String outFile = null;
+        String compareFile = null;
+        String analyticsFile = null;
+        BookingManager.Storage storage = BookingManager.Storage.OBJECTS;
+        int[] mixWeights = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : null;
+                if (value == null) {
+                    throw new IllegalArgumentException(args[i]);
+                }
+                switch (args[i]) {
+                    case "--flights": flights = Integer.parseInt(value); break;
+                    case "--hotels": hotels = Integer.parseInt(value); break;
+                    case "--cars": cars = Integer.parseInt(value); break;
+                    case "--capacity": capacity = Integer.parseInt(value); break;
+                    case "--threads": threads = Integer.parseInt(value); break;
+                    case "--rate": rate = Double.parseDouble(value); break;
+                    case "--arrivals":
+                        if (!value.equals("poisson") && !value.equals("fixed")) {
+                            throw new IllegalArgumentException(value);
+                        }
+                        poisson = value.equals("poisson");
+                        break;
+                    case "--duration": durationSeconds = Double.parseDouble(value); break;
+                    case "--warmup": warmupSeconds = Double.parseDouble(value); break;
+                    case "--mix": mix = value; break;
+                    case "--zipf": zipf = Double.parseDouble(value); break;
+                    case "--quantity": quantity = Integer.parseInt(value); break;
+                    case "--seed": seed = Long.parseLong(value); break;
+                    case "--shards": shards = Integer.parseInt(value); break;
+                    case "--data": dataDir = value; break;
+                    case "--label": label = value; break;
+                    case "--out": outFile = value; break;
+                    case "--compare": compareFile = value; break;
+                    case "--analytics": analyticsFile = value; break;
+                    case "--store": storage = BookingManager.Storage.valueOf(value.toUpperCase(Locale.ROOT)); break;
+                    default: throw new IllegalArgumentException(args[i]);
+                }
+                i++;
+            }
+            mixWeights = parseMix(mix);
+            if (threads <= 0 || quantity <= 0 || durationSeconds <= 0 || warmupSeconds < 0 || rate < 0) {
+                throw new IllegalArgumentException("counts and durations must be positive");
+            }
+            if (zipf < 0 || zipf >= 1) {
+                throw new IllegalArgumentException("--zipf must be at least 0 and below 1");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Bad argument: " + e.getMessage());
+            System.err.println("Usage: java LoadTest [--flights <n>] [--hotels <n>] [--cars <n>] [--capacity <n>]"
+                    + " [--threads <n>] [--rate <ops/s, 0 for closed loop>] [--arrivals poisson|fixed]"
+                    + " [--duration <s>] [--warmup <s>] [--mix search=40,availability=30,book=20,cancel=10]"
+                    + " [--zipf <0..1>] [--quantity <n>] [--seed <n>] [--shards <n>] [--data <dir>]"
+                    + " [--label <name>] [--out <file>] [--compare <file>] [--analytics <file>]"
+                    + " [--store objects|columnar]");
+            System.exit(2);
+            return;
+        }
+
+        BookingManager manager = new BookingManager(storage);
+        BookingJournal journal = null;
+        if (dataDir != null) {
+            journal = BookingJournal.open(Paths.get(dataDir), manager, true);
+            if (!manager.getEntityView().isEmpty()) {
+                System.err.println("--data must name an empty directory: " + dataDir + " already holds inventory");
+                journal.close();
+                System.exit(2);
+            }
+        }
+        SyntheticCatalog catalog = new SyntheticCatalog(flights, hotels, cars, capacity, seed);
+        long loadStart = System.nanoTime();
+        String[] ids = catalog.populate(manager);
+        System.out.printf("Loaded %s in %d ms%n", catalog, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart));
+        ShardedBookingPipeline pipeline = shards > 0 ? new ShardedBookingPipeline(manager, shards,
+                ShardedBookingPipeline.DEFAULT_RING_SIZE) : null;
+
+        LoadTest test = new LoadTest(manager, pipeline, ids, mixWeights, zipf, quantity, seed);
+        test.run(threads, rate, poisson, (long) (warmupSeconds * 1e9), (long) (durationSeconds * 1e9));
+        if (pipeline != null) {
+            pipeline.close();
+        }
+
+        LoadReport report = new LoadReport();
+        report.put("label", label != null ? label : "run-" + System.currentTimeMillis());
+        report.put("catalog", catalog);
+        report.put("store", storage.name().toLowerCase(Locale.ROOT));
+        report.put("threads", threads);
+        report.put("targetRate", rate > 0 ? String.valueOf(rate) : "closed-loop");
+        report.put("arrivals", rate > 0 ? (poisson ? "poisson" : "fixed") : "closed-loop");
+        report.put("mix", mix);
+        report.put("zipf", zipf);
+        report.put("shards", shards);
+        report.put("journal", dataDir != null);
+        report.put("durationSeconds", durationSeconds);
+        test.report(report, durationSeconds);
+        if (journal != null) {
+            journal.close();
+        }
+        manager.close();
+        System.out.print(report.format());
+        if (outFile != null) {
+            report.save(Paths.get(outFile));
+            System.out.println("Report written to " + outFile);
+        }
+        if (analyticsFile != null) {
+            Files.write(Paths.get(analyticsFile), manager.getAnalytics().toCsv().getBytes(StandardCharsets.UTF_8));
+            System.out.println("Revenue and occupancy written to " + analyticsFile);
+        }
+        if (compareFile != null) {
+            Path baseline = Paths.get(compareFile);
+            if (Files.exists(baseline)) {
+                System.out.print(report.compare(LoadReport.load(baseline)));
+            } else {
+                System.err.println("No baseline report at " + compareFile);
+            }
+        }
+    }
+
+    // "search=40,book=20" into weights by Operation ordinal; operations not named get no weight
+    static int[] parseMix(String mix) {
+        int[] weights = new int[Operation.values().length];
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("mix entry " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("mix weight " + part);
+            }
+            weights[Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)).ordinal()] = weight;
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,106 @@
+package travelbooking;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Headless server mode: serves the booking core over HTTP without the Swing front end.
+// Usage: java Main [--port 8080] [--data <journal dir>] [--import <csv or binary feed>] [--metrics <seconds>]
+//            [--shards <n>] [--store objects|columnar]
+// Latency metrics are always published over JMX; --metrics also prints them to stdout every interval.
+// --shards routes bookings and cancellations through a ShardedBookingPipeline with n shard threads.
+// --store columnar keeps the catalog in primitive columns, for imports too large for an object per item.
+public class Main {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 8080;
+        String dataDir = null;
+        String importFile = null;
+        int metricsSeconds = 0;
+        int shards = 0;
+        BookingManager.Storage storage = BookingManager.Storage.OBJECTS;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            if (args[i].equals("--port") && value != null) {
+                port = Integer.parseInt(value);
+                i++;
+            } else if (args[i].equals("--data") && value != null) {
+                dataDir = value;
+                i++;
+            } else if (args[i].equals("--import") && value != null) {
+                importFile = value;
+                i++;
+            } else if (args[i].equals("--metrics") && value != null) {
+                metricsSeconds = Integer.parseInt(value);
+                i++;
+            } else if (args[i].equals("--shards") && value != null) {
+                shards = Integer.parseInt(value);
+                i++;
+            } else if (args[i].equals("--store") && value != null) {
+                storage = BookingManager.Storage.valueOf(value.toUpperCase(Locale.ROOT));
+                i++;
+            } else {
+                System.err.println("Usage: java Main [--port 8080] [--data <dir>] [--import <file>] [--metrics <seconds>]"
+                        + " [--shards <n>] [--store objects|columnar]");
+                System.exit(2);
+            }
+        }
+
+        BookingManager manager = new BookingManager(storage);
+        try {
+            manager.getMetrics().registerMBean("server");
+        } catch (JMException e) {
+            System.err.println("Metrics are not published over JMX: " + e);
+        }
+        if (metricsSeconds > 0) {
+            manager.getMetrics().scheduleDump(metricsSeconds, TimeUnit.SECONDS, System.out);
+        }
+        BookingJournal journal = null;
+        if (dataDir != null) {
+            journal = BookingJournal.open(Paths.get(dataDir), manager, true);
+            journal.scheduleSnapshots(5, TimeUnit.MINUTES);
+            System.out.println("Recovered " + journal.getRecoveredEvents() + " journal events");
+            for (String problem : journal.getRecoveryProblems()) {
+                System.err.println("Journal recovery: " + problem);
+            }
+        }
+        if (importFile != null) {
+            InventoryImporter.ImportResult result = new InventoryImporter(manager).importFile(Paths.get(importFile));
+            System.out.println(result);
+        } else if (manager.getEntityView().isEmpty()) {
+            TravelBookingSystem.initializeSampleData(manager);
+        }
+
+        ShardedBookingPipeline pipeline = shards > 0 ? new ShardedBookingPipeline(manager, shards,
+                ShardedBookingPipeline.DEFAULT_RING_SIZE) : null;
+        BookingServer server = new BookingServer(manager, pipeline, port);
+        server.start();
+        System.out.println("Serving " + manager.getEntityView().size() + " items on http://localhost:" + server.getPort() + "/"
+                + (pipeline != null ? " with " + shards + " booking shards" : ""));
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        BookingJournal openJournal = journal;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            if (pipeline != null) {
+                pipeline.close();
+            }
+            if (openJournal != null) {
+                if (openJournal.getFailure() != null) {
+                    System.err.println("Journal stopped after a failed write; later changes were refused");
+                    openJournal.getFailure().printStackTrace();
+                }
+                try {
+                    openJournal.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            manager.close();
+            stopped.countDown();
+        }));
+        stopped.await();
+    }
+}
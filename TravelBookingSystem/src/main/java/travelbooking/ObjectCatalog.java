@@ -0,0 +1,82 @@
+package travelbooking;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Catalog of the entities as they were registered, in fixed-size chunks of an append-only array so
+// that growing never copies what readers may be looking at. Repeated attribute values are swapped
+// for the shared instances of the catalog's own CatalogDictionary as the entities arrive.
+final class ObjectCatalog extends Catalog {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final CatalogDictionary dictionary = new CatalogDictionary();
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private volatile Displayable[][] chunks = new Displayable[0][];
+    // Written after the entries below it, so reading it first makes them visible
+    private volatile int size;
+
+    @Override
+    public Displayable get(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("Ordinal " + ordinal + " of " + size);
+        }
+        return chunks[ordinal >>> CHUNK_BITS][ordinal & (CHUNK_SIZE - 1)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    synchronized int append(List<? extends Displayable> entities) {
+        int first = size;
+        int end = first + entities.size();
+        Displayable[][] current = chunks;
+        int needed = (end + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        if (needed > current.length) {
+            current = Arrays.copyOf(current, Math.max(needed, current.length * 2));
+            chunks = current;
+        }
+        for (int chunk = first >>> CHUNK_BITS; chunk < needed; chunk++) {
+            if (current[chunk] == null) {
+                current[chunk] = new Displayable[CHUNK_SIZE];
+            }
+        }
+        for (int i = 0; i < entities.size(); i++) {
+            Displayable entity = entities.get(i);
+            if (entity instanceof TravelEntity) {
+                ((TravelEntity) entity).shareValues(dictionary);
+            }
+            int ordinal = first + i;
+            current[ordinal >>> CHUNK_BITS][ordinal & (CHUNK_SIZE - 1)] = entity;
+        }
+        size = end;
+        return first;
+    }
+
+    @Override
+    void indexIds(int firstOrdinal, int count) {
+        for (int ordinal = firstOrdinal; ordinal < firstOrdinal + count; ordinal++) {
+            Displayable entity = get(ordinal);
+            if (entity instanceof TravelEntity) {
+                ordinals.put(((TravelEntity) entity).getId(), ordinal);
+            }
+        }
+    }
+
+    @Override
+    int ordinalOf(String id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    // Entities keep the shared instances they were given; later ones start a fresh dictionary
+    @Override
+    void close() {
+        dictionary.clear();
+    }
+}
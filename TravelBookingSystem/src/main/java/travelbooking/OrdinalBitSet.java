@@ -0,0 +1,101 @@
+package travelbooking;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Thread-safe bitset over dense entity ordinals. Bits live in fixed-size pages of atomic words, so
+// growing the set never moves existing words and concurrent set/clear calls cannot lose updates.
+class OrdinalBitSet {
+    private static final int WORDS_PER_PAGE = 1024;
+    private static final int BITS_PER_PAGE = WORDS_PER_PAGE * 64;
+
+    private volatile AtomicLongArray[] pages = new AtomicLongArray[0];
+
+    // Makes room for ordinals below size; existing bits are kept
+    public synchronized void ensureCapacity(int size) {
+        int needed = (size + BITS_PER_PAGE - 1) / BITS_PER_PAGE;
+        AtomicLongArray[] current = pages;
+        if (needed <= current.length) {
+            return;
+        }
+        AtomicLongArray[] grown = Arrays.copyOf(current, needed);
+        for (int i = current.length; i < needed; i++) {
+            grown[i] = new AtomicLongArray(WORDS_PER_PAGE);
+        }
+        pages = grown;
+    }
+
+    public boolean get(int ordinal) {
+        AtomicLongArray[] pages = this.pages;
+        int page = ordinal / BITS_PER_PAGE;
+        if (page >= pages.length) {
+            return false;
+        }
+        return (pages[page].get((ordinal % BITS_PER_PAGE) >>> 6) & (1L << ordinal)) != 0;
+    }
+
+    // The ordinal must be below a size passed to ensureCapacity
+    public void set(int ordinal, boolean value) {
+        AtomicLongArray words = pages[ordinal / BITS_PER_PAGE];
+        int index = (ordinal % BITS_PER_PAGE) >>> 6;
+        long mask = 1L << ordinal;
+        long word;
+        long updated;
+        do {
+            word = words.get(index);
+            updated = value ? word | mask : word & ~mask;
+        } while (word != updated && !words.compareAndSet(index, word, updated));
+    }
+
+    // Word i of the set (bits 64*i .. 64*i+63), zero past the end
+    long word(int wordIndex) {
+        AtomicLongArray[] pages = this.pages;
+        int page = wordIndex / WORDS_PER_PAGE;
+        return page < pages.length ? pages[page].get(wordIndex % WORDS_PER_PAGE) : 0;
+    }
+
+    // Ordinals below size that are set in every one of the given sets, in ascending order
+    static int[] intersect(int size, OrdinalBitSet... sets) {
+        int[] result = new int[64];
+        int count = 0;
+        int words = (size + 63) >>> 6;
+        for (int w = 0; w < words; w++) {
+            long bits = -1L;
+            for (OrdinalBitSet set : sets) {
+                bits &= set.word(w);
+            }
+            if (w == words - 1 && (size & 63) != 0) {
+                bits &= (1L << size) - 1; // ignore bits past the catalog size
+            }
+            while (bits != 0) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // The given ordinals, in their original order, that are set in every one of the given sets
+    static int[] retain(int[] ordinals, OrdinalBitSet... sets) {
+        int[] result = new int[ordinals.length];
+        int count = 0;
+        for (int ordinal : ordinals) {
+            if (setInAll(ordinal, sets)) {
+                result[count++] = ordinal;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static boolean setInAll(int ordinal, OrdinalBitSet[] sets) {
+        for (OrdinalBitSet set : sets) {
+            if (!set.get(ordinal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+package travelbooking;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+// Read-only list of catalog entries picked out by ordinals, or the whole live catalog when no
+// ordinals are given. Knows where an ordinal sits in the list, so an inventory event can be mapped
+// to its table row: by binary search for ascending ordinals, by a scan of the (short) list for a
+// ranked result.
+class OrdinalView extends AbstractList<Displayable> {
+    private final List<Displayable> catalog;
+    private final int[] ordinals;
+    private final boolean ascending;
+
+    OrdinalView(List<Displayable> catalog, int[] ordinals) {
+        this(catalog, ordinals, true);
+    }
+
+    OrdinalView(List<Displayable> catalog, int[] ordinals, boolean ascending) {
+        this.catalog = catalog;
+        this.ordinals = ordinals;
+        this.ascending = ascending;
+    }
+
+    @Override
+    public Displayable get(int index) {
+        return catalog.get(ordinals == null ? index : ordinals[index]);
+    }
+
+    @Override
+    public int size() {
+        return ordinals == null ? catalog.size() : ordinals.length;
+    }
+
+    // Catalog ordinal of the entry at index
+    public int ordinalAt(int index) {
+        if (ordinals == null) {
+            return index;
+        }
+        return ordinals[index];
+    }
+
+    // Index of the ordinal's entry in this list, or -1 if the view does not include it
+    public int indexOfOrdinal(int ordinal) {
+        if (ordinals == null) {
+            return ordinal < catalog.size() ? ordinal : -1;
+        }
+        if (!ascending) {
+            for (int i = 0; i < ordinals.length; i++) {
+                if (ordinals[i] == ordinal) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int index = Arrays.binarySearch(ordinals, ordinal);
+        return index >= 0 ? index : -1;
+    }
+}
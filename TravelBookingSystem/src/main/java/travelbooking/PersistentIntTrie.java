@@ -0,0 +1,182 @@
+package travelbooking;
+
+import java.util.Arrays;
+
+/**
+ * Immutable array of ints, indexed from 0 and zero by default, stored as a 32-way trie. An update
+ * copies only the nodes on the paths it touches and shares everything else with the version it
+ * came from, so old versions stay intact for whoever still reads them. Every node counts the
+ * positive entries below it, so the positive entries can be counted in O(1), the k-th one found
+ * in O(log n), and runs of zeros skipped while scanning.
+ */
+final class PersistentIntTrie {
+    static final PersistentIntTrie EMPTY = new PersistentIntTrie(null, 0);
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private final Node root;  // null while every entry is zero
+    private final int shift;  // of the root's level; leaves are level 0
+
+    private PersistentIntTrie(Node root, int shift) {
+        this.root = root;
+        this.shift = shift;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= capacity(shift)) {
+            return 0;
+        }
+        Node node = root;
+        for (int level = shift; node != null; level -= BITS) {
+            if (level == 0) {
+                return node.values[index & MASK];
+            }
+            node = (Node) node.children[(index >>> level) & MASK];
+        }
+        return 0;
+    }
+
+    // Number of entries greater than zero
+    public int positiveCount() {
+        return root == null ? 0 : root.positive;
+    }
+
+    // Index of the k-th (from 0) positive entry, in index order
+    public int nthPositive(int k) {
+        if (k < 0 || k >= positiveCount()) {
+            throw new IndexOutOfBoundsException("No positive entry " + k);
+        }
+        Node node = root;
+        int index = 0;
+        for (int level = shift; level > 0; level -= BITS) {
+            for (int slot = 0; ; slot++) {
+                Node child = (Node) node.children[slot];
+                int positive = child == null ? 0 : child.positive;
+                if (k < positive) {
+                    node = child;
+                    index |= slot << level;
+                    break;
+                }
+                k -= positive;
+            }
+        }
+        for (int slot = 0; ; slot++) {
+            if (node.values[slot] > 0 && k-- == 0) {
+                return index | slot;
+            }
+        }
+    }
+
+    // Smallest index at or after from holding a positive entry, or -1
+    public int nextPositive(int from) {
+        if (root == null || from >= capacity(shift)) {
+            return -1;
+        }
+        return next(root, shift, 0, Math.max(0, from));
+    }
+
+    private static int next(Node node, int level, int base, int from) {
+        if (level == 0) {
+            for (int slot = Math.max(0, from - base); slot < WIDTH; slot++) {
+                if (node.values[slot] > 0) {
+                    return base | slot;
+                }
+            }
+            return -1;
+        }
+        int first = from > base ? (from - base) >>> level : 0;
+        for (int slot = first; slot < WIDTH; slot++) {
+            Node child = (Node) node.children[slot];
+            if (child != null && child.positive > 0) {
+                int found = next(child, level - BITS, base | (slot << level), from);
+                if (found >= 0) {
+                    return found;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A new version with values[i] at indexes[i] for i below count. indexes must be ascending;
+     * for a repeated index the last value wins. Each touched node is copied once.
+     */
+    public PersistentIntTrie with(int[] indexes, int[] values, int count) {
+        if (count == 0) {
+            return this;
+        }
+        Node newRoot = root;
+        int newShift = shift;
+        while (indexes[count - 1] >= capacity(newShift)) {
+            if (newRoot != null) {
+                Object[] children = new Object[WIDTH];
+                children[0] = newRoot;
+                newRoot = new Node(children, null, newRoot.positive);
+            }
+            newShift += BITS;
+        }
+        return new PersistentIntTrie(update(newRoot, newShift, indexes, values, 0, count), newShift);
+    }
+
+    private static Node update(Node node, int level, int[] indexes, int[] values, int from, int to) {
+        int positive = node == null ? 0 : node.positive;
+        if (level == 0) {
+            int[] copy = node == null ? new int[WIDTH] : node.values.clone();
+            for (int i = from; i < to; i++) {
+                int slot = indexes[i] & MASK;
+                positive += (values[i] > 0 ? 1 : 0) - (copy[slot] > 0 ? 1 : 0);
+                copy[slot] = values[i];
+            }
+            return new Node(null, copy, positive);
+        }
+        Object[] children = node == null ? new Object[WIDTH] : node.children.clone();
+        for (int i = from; i < to; ) {
+            int slot = (indexes[i] >>> level) & MASK;
+            int end = i + 1;
+            while (end < to && ((indexes[end] >>> level) & MASK) == slot) {
+                end++;
+            }
+            Node child = (Node) children[slot];
+            Node updated = update(child, level - BITS, indexes, values, i, end);
+            positive += updated.positive - (child == null ? 0 : child.positive);
+            children[slot] = updated;
+            i = end;
+        }
+        return new Node(children, null, positive);
+    }
+
+    private static long capacity(int shift) {
+        return 1L << (shift + BITS);
+    }
+
+    // Sorts parallel index/value arrays by index, keeping the original order of equal indexes
+    static void sortByIndex(int[] indexes, int[] values, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) indexes[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] sortedValues = new int[count];
+        for (int i = 0; i < count; i++) {
+            int from = (int) keys[i];
+            indexes[i] = (int) (keys[i] >>> 32);
+            sortedValues[i] = values[from];
+        }
+        System.arraycopy(sortedValues, 0, values, 0, count);
+    }
+
+    // A leaf holds values, an inner node holds children
+    private static final class Node {
+        final Object[] children;
+        final int[] values;
+        final int positive;
+
+        Node(Object[] children, int[] values, int positive) {
+            this.children = children;
+            this.values = values;
+            this.positive = positive;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package travelbooking;
+
+/**
+ * Immutable sparse array of objects, indexed from 0 and null by default: the object counterpart of
+ * PersistentIntTrie, with the same path-copying updates. Nodes count the non-null entries below
+ * them, so the entries can be counted in O(1), the k-th one found in O(log n), and empty stretches
+ * skipped while scanning.
+ */
+final class PersistentTrie<T> {
+    private static final PersistentTrie<Object> EMPTY = new PersistentTrie<>(null, 0);
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private final Node root;
+    private final int shift;
+
+    private PersistentTrie(Node root, int shift) {
+        this.root = root;
+        this.shift = shift;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PersistentTrie<T> empty() {
+        return (PersistentTrie<T>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= capacity(shift)) {
+            return null;
+        }
+        Node node = root;
+        for (int level = shift; node != null; level -= BITS) {
+            if (level == 0) {
+                return (T) node.slots[index & MASK];
+            }
+            node = (Node) node.slots[(index >>> level) & MASK];
+        }
+        return null;
+    }
+
+    // Number of non-null entries
+    public int size() {
+        return root == null ? 0 : root.present;
+    }
+
+    // Index of the k-th (from 0) non-null entry, in index order
+    public int nthPresent(int k) {
+        if (k < 0 || k >= size()) {
+            throw new IndexOutOfBoundsException("No entry " + k);
+        }
+        Node node = root;
+        int index = 0;
+        for (int level = shift; level > 0; level -= BITS) {
+            for (int slot = 0; ; slot++) {
+                Node child = (Node) node.slots[slot];
+                int present = child == null ? 0 : child.present;
+                if (k < present) {
+                    node = child;
+                    index |= slot << level;
+                    break;
+                }
+                k -= present;
+            }
+        }
+        for (int slot = 0; ; slot++) {
+            if (node.slots[slot] != null && k-- == 0) {
+                return index | slot;
+            }
+        }
+    }
+
+    // Smallest index at or after from holding an entry, or -1
+    public int nextPresent(int from) {
+        if (root == null || from >= capacity(shift)) {
+            return -1;
+        }
+        return next(root, shift, 0, Math.max(0, from));
+    }
+
+    private static int next(Node node, int level, int base, int from) {
+        if (level == 0) {
+            for (int slot = Math.max(0, from - base); slot < WIDTH; slot++) {
+                if (node.slots[slot] != null) {
+                    return base | slot;
+                }
+            }
+            return -1;
+        }
+        int first = from > base ? (from - base) >>> level : 0;
+        for (int slot = first; slot < WIDTH; slot++) {
+            Node child = (Node) node.slots[slot];
+            if (child != null && child.present > 0) {
+                int found = next(child, level - BITS, base | (slot << level), from);
+                if (found >= 0) {
+                    return found;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A new version with values[i] (null to clear) at indexes[i] for i below count. indexes must
+     * be ascending; for a repeated index the last value wins. Each touched node is copied once.
+     */
+    public PersistentTrie<T> with(int[] indexes, Object[] values, int count) {
+        if (count == 0) {
+            return this;
+        }
+        Node newRoot = root;
+        int newShift = shift;
+        while (indexes[count - 1] >= capacity(newShift)) {
+            if (newRoot != null) {
+                Object[] slots = new Object[WIDTH];
+                slots[0] = newRoot;
+                newRoot = new Node(slots, newRoot.present);
+            }
+            newShift += BITS;
+        }
+        return new PersistentTrie<>(update(newRoot, newShift, indexes, values, 0, count), newShift);
+    }
+
+    private static Node update(Node node, int level, int[] indexes, Object[] values, int from, int to) {
+        Object[] slots = node == null ? new Object[WIDTH] : node.slots.clone();
+        int present = node == null ? 0 : node.present;
+        if (level == 0) {
+            for (int i = from; i < to; i++) {
+                int slot = indexes[i] & MASK;
+                present += (values[i] != null ? 1 : 0) - (slots[slot] != null ? 1 : 0);
+                slots[slot] = values[i];
+            }
+            return new Node(slots, present);
+        }
+        for (int i = from; i < to; ) {
+            int slot = (indexes[i] >>> level) & MASK;
+            int end = i + 1;
+            while (end < to && ((indexes[end] >>> level) & MASK) == slot) {
+                end++;
+            }
+            Node child = (Node) slots[slot];
+            Node updated = update(child, level - BITS, indexes, values, i, end);
+            present += updated.present - (child == null ? 0 : child.present);
+            slots[slot] = updated;
+            i = end;
+        }
+        return new Node(slots, present);
+    }
+
+    private static long capacity(int shift) {
+        return 1L << (shift + BITS);
+    }
+
+    // Children in an inner node, entries in a leaf
+    private static final class Node {
+        final Object[] slots;
+        final int present;
+
+        Node(Object[] slots, int present) {
+            this.slots = slots;
+            this.present = present;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package travelbooking;
+
+// Inputs the pricing engine reads from an item
+interface Priceable {
+    double getBasePrice();
+    String getType();
+    String getCategory();
+    int getRating();
+    int getCapacity();
+    int getAvailableCount();
+}
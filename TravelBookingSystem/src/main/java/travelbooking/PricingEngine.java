@@ -0,0 +1,154 @@
+package travelbooking;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Rule-based pricing. Rules are applied in order to a running price, starting from the base price.
+// The rule list is compiled once into a rule array per item type, so pricing an item is a plain loop
+// with no type checks. Final prices are cached on each TravelEntity and reused until the engine,
+// the units free on the day priced or the day changes.
+class PricingEngine {
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private static volatile PricingEngine active = new PricingEngine(defaultRules());
+
+    private final long version;
+    private final List<PricingRule> rules;
+    private final Map<String, PricingRule[]> rulesByType;
+    private final PricingRule[] untypedRules;
+
+    public PricingEngine(List<PricingRule> rules) {
+        this.version = VERSIONS.incrementAndGet();
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+        this.rulesByType = new HashMap<>();
+        List<PricingRule> untyped = new ArrayList<>();
+        Set<String> types = new HashSet<>();
+        for (PricingRule rule : rules) {
+            if (rule.type == null) {
+                untyped.add(rule);
+            } else {
+                types.add(rule.type);
+            }
+        }
+        for (String type : types) {
+            List<PricingRule> compiled = new ArrayList<>();
+            for (PricingRule rule : rules) {
+                if (rule.type == null || rule.type.equals(type)) {
+                    compiled.add(rule);
+                }
+            }
+            rulesByType.put(type, compiled.toArray(new PricingRule[0]));
+        }
+        this.untypedRules = untyped.toArray(new PricingRule[0]);
+    }
+
+    // The pricing that reproduces the original per-class formulas
+    public static List<PricingRule> defaultRules() {
+        return Arrays.asList(
+                PricingRule.tax("Flight", 18),
+                PricingRule.ratingMultiplier("Hotel", 0.1),
+                PricingRule.multiplier("Car Rental", "luxury", 1.5));
+    }
+
+    public static PricingEngine getActive() {
+        return active;
+    }
+
+    // Swapping the engine invalidates every cached price, because the version changes
+    public static void setActive(PricingEngine engine) {
+        active = engine;
+    }
+
+    // Changes whenever a new engine is made active
+    long getVersion() {
+        return version;
+    }
+
+    public List<PricingRule> getRules() {
+        return rules;
+    }
+
+    // Final price of one item today, served from the entity's cache when its inputs are unchanged
+    public double price(Priceable item) {
+        return price(item, item.getAvailableCount());
+    }
+
+    // As price(item), with the units free today given by the caller, e.g. from the inventory calendar
+    public double price(Priceable item, int available) {
+        long day = today();
+        if (!(item instanceof TravelEntity)) {
+            return evaluate(item, available, day);
+        }
+        TravelEntity entity = (TravelEntity) item;
+        Quote cached = entity.priceCache;
+        if (cached != null && cached.version == version && cached.available == available && cached.day == day) {
+            return cached.price;
+        }
+        double price = evaluate(item, available, day);
+        entity.priceCache = new Quote(version, available, day, price);
+        return price;
+    }
+
+    // Prices a whole result set for the given day in one pass, with each item's open-dated count
+    public double[] quote(List<? extends Priceable> items, LocalDate date) {
+        return quote(items, date, null);
+    }
+
+    // As above; available[i], when given, is the units of item i free on that day
+    public double[] quote(List<? extends Priceable> items, LocalDate date, int[] available) {
+        long day = date.toEpochDay();
+        boolean today = day == today();
+        double[] prices = new double[items.size()];
+        for (int i = 0; i < prices.length; i++) {
+            Priceable item = items.get(i);
+            int free = available == null ? item.getAvailableCount() : available[i];
+            prices[i] = today ? price(item, free) : evaluate(item, free, day);
+        }
+        return prices;
+    }
+
+    // Unit price summed over every date from start (inclusive) to end (exclusive): a hotel stay or
+    // car hire. available[i] is the units free on the i-th date, as the inventory calendar has it.
+    public double priceRange(Priceable item, LocalDate start, LocalDate end, int[] available) {
+        long first = start.toEpochDay();
+        long today = today();
+        double total = 0;
+        for (long day = first; day < end.toEpochDay(); day++) {
+            int free = available[(int) (day - first)];
+            total += day == today ? price(item, free) : evaluate(item, free, day);
+        }
+        return total;
+    }
+
+    private double evaluate(Priceable item, int available, long day) {
+        PricingRule[] compiled = rulesByType.get(item.getType());
+        if (compiled == null) {
+            compiled = untypedRules;
+        }
+        double price = item.getBasePrice();
+        for (PricingRule rule : compiled) {
+            price = rule.apply(price, item, available, day);
+        }
+        return price;
+    }
+
+    // Epoch day of today in TravelClock's zone, the same day the inventory calendar starts from
+    static long today() {
+        return TravelClock.todayEpochDay();
+    }
+
+    // Cached final price together with the inputs it was computed from
+    static final class Quote {
+        final long version;
+        final int available;
+        final long day;
+        final double price;
+
+        Quote(long version, int available, long day, double price) {
+            this.version = version;
+            this.available = available;
+            this.day = day;
+            this.price = price;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package travelbooking;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+
+// One pricing step. A null type or category matches every item.
+abstract class PricingRule {
+    final String type;
+    final String category;
+
+    protected PricingRule(String type, String category) {
+        this.type = type;
+        this.category = category;
+    }
+
+    // Called only for items of the rule's type; checks the category itself
+    final double apply(double price, Priceable item, int available, long epochDay) {
+        if (category != null && !category.equalsIgnoreCase(item.getCategory())) {
+            return price;
+        }
+        return adjust(price, item, available, epochDay);
+    }
+
+    protected abstract double adjust(double price, Priceable item, int available, long epochDay);
+
+    public static PricingRule multiplier(String type, String category, double factor) {
+        return new PricingRule(type, category) {
+            @Override
+            protected double adjust(double price, Priceable item, int available, long epochDay) {
+                return price * factor;
+            }
+        };
+    }
+
+    public static PricingRule tax(String type, double percent) {
+        return multiplier(type, null, 1 + percent / 100);
+    }
+
+    // price * (1 + rating * perStar)
+    public static PricingRule ratingMultiplier(String type, double perStar) {
+        return new PricingRule(type, null) {
+            @Override
+            protected double adjust(double price, Priceable item, int available, long epochDay) {
+                return price * (1 + item.getRating() * perStar);
+            }
+        };
+    }
+
+    // Adds percent once the share of capacity already sold reaches threshold (0..1)
+    public static PricingRule occupancySurcharge(String type, double threshold, double percent) {
+        return new PricingRule(type, null) {
+            @Override
+            protected double adjust(double price, Priceable item, int available, long epochDay) {
+                int capacity = item.getCapacity();
+                double occupancy = capacity == 0 ? 1 : 1 - (double) available / capacity;
+                return occupancy >= threshold ? price * (1 + percent / 100) : price;
+            }
+        };
+    }
+
+    // Adds percent when only a few units are left
+    public static PricingRule demandSurcharge(String type, int remainingAtMost, double percent) {
+        return new PricingRule(type, null) {
+            @Override
+            protected double adjust(double price, Priceable item, int available, long epochDay) {
+                return available <= remainingAtMost ? price * (1 + percent / 100) : price;
+            }
+        };
+    }
+
+    // Multiplies prices between two calendar days of every year, inclusive; may wrap over new year
+    public static PricingRule seasonal(String type, MonthDay from, MonthDay to, double factor) {
+        return new PricingRule(type, null) {
+            @Override
+            protected double adjust(double price, Priceable item, int available, long epochDay) {
+                MonthDay day = MonthDay.from(LocalDate.ofEpochDay(epochDay));
+                boolean inSeason = from.isAfter(to)
+                        ? !day.isBefore(from) || !day.isAfter(to)
+                        : !day.isBefore(from) && !day.isAfter(to);
+                return inSeason ? price * factor : price;
+            }
+        };
+    }
+
+    // Takes percentOff between two dates, inclusive
+    public static PricingRule promo(String type, String category, LocalDate from, LocalDate to, double percentOff) {
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        return new PricingRule(type, category) {
+            @Override
+            protected double adjust(double price, Priceable item, int available, long epochDay) {
+                return epochDay >= first && epochDay <= last ? price * (1 - percentOff / 100) : price;
+            }
+        };
+    }
+}
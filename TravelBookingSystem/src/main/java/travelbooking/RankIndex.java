@@ -0,0 +1,612 @@
+package travelbooking;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sorted secondary indexes for ranked queries, per item type: every item by final price, by rating
+ * (best first) and by location, each group ordered by price within. A query picks one of these
+ * orders, or a search-text match list, and either walks it in rank order until it has limit
+ * matches, or scans the one narrow slice it needs into a bounded heap, whichever its slice sizes
+ * make cheaper. "The 20 cheapest 4-star hotels in Mumbai" walks the Mumbai slice in price order
+ * and stops at the 20th match, without touching the rest of the catalog.
+ *
+ * Prices move with capacity (occupancy rules), the pricing engine and the day. Orders are built
+ * lazily, on the first query after items are added or the engine or day changes. Between builds,
+ * items whose capacity changed are re-priced when the next query runs. Those whose price really
+ * moved are set aside as drifted and checked at their live price by every query, until there are
+ * enough of them to be worth re-sorting the type.
+ */
+class RankIndex {
+    private final List<Displayable> entities;   // the live catalog, read below size
+    private int size;                             // ordinals indexed so far
+    private final Map<String, TypeRanks> byType;  // keyed by lower-cased Bookable.getType()
+    private double[] indexedPrice;                // ordinal -> price the orders were built with
+    private final Set<Integer> dirty;             // capacity changed since the last query
+    private final ReadWriteLock lock;
+
+    // entities is the manager's append-only catalog, which holds an entity before it is added here
+    public RankIndex(List<Displayable> entities) {
+        this.entities = entities;
+        byType = new HashMap<>();
+        indexedPrice = new double[0];
+        dirty = ConcurrentHashMap.newKeySet();
+        lock = new ReentrantReadWriteLock();
+    }
+
+    // Ordinals must be added densely, in increasing order
+    public void addAll(int firstOrdinal, List<? extends Displayable> added) {
+        lock.writeLock().lock();
+        try {
+            size = Math.max(size, firstOrdinal + added.size());
+            if (indexedPrice.length < size) {
+                indexedPrice = Arrays.copyOf(indexedPrice, Math.max(size, indexedPrice.length * 2));
+            }
+            for (int i = 0; i < added.size(); i++) {
+                Displayable entity = added.get(i);
+                int ordinal = firstOrdinal + i;
+                if (entity instanceof Bookable && entity instanceof TravelEntity) {
+                    String type = ((Bookable) entity).getType().toLowerCase(Locale.ROOT);
+                    byType.computeIfAbsent(type, key -> new TypeRanks()).add(ordinal);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Cheap and lock-free: the item is re-priced before the next query
+    public void markDirty(int ordinal) {
+        dirty.add(ordinal);
+    }
+
+    // Hotels are ranked by their location, flights by their destination
+    static String locationOf(Displayable entity) {
+        if (entity instanceof Hotel) {
+            return ((Hotel) entity).getLocation();
+        } else if (entity instanceof Flight) {
+            return ((Flight) entity).getDestination();
+        }
+        return null;
+    }
+
+    /**
+     * Ordinals of the best matches for the query, best first. textMatches are the ascending
+     * ordinals matching the query's search text, or null when it has none.
+     */
+    public int[] query(RankedQuery query, int[] textMatches) {
+        // Most queries find nothing to refresh and run under the read lock alone; the write lock is
+        // taken only when items were marked dirty or a type needs a rebuild
+        lock.readLock().lock();
+        List<TypeRanks> types = typesFor(query);
+        if (!dirty.isEmpty() || needsRefresh(types)) {
+            lock.readLock().unlock();
+            lock.writeLock().lock();
+            try {
+                types = typesFor(query);
+                refresh(types);
+                lock.readLock().lock(); // downgrade: orders stay as refreshed while the query runs
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        try {
+            TopK top = new TopK(query.getOrder(), query.getLimit());
+            for (TypeRanks ranks : types) {
+                new Scan(ranks, query, textMatches, top).run();
+            }
+            return top.drain();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<TypeRanks> typesFor(RankedQuery query) {
+        if (query.getType() == null) {
+            return new ArrayList<>(byType.values());
+        }
+        TypeRanks ranks = byType.get(query.getType().toLowerCase(Locale.ROOT));
+        return ranks == null ? Collections.<TypeRanks>emptyList() : Collections.singletonList(ranks);
+    }
+
+    // Under either lock: whether refresh would rebuild any of the types
+    private boolean needsRefresh(List<TypeRanks> types) {
+        long version = PricingEngine.getActive().getVersion();
+        long day = PricingEngine.today();
+        for (TypeRanks ranks : types) {
+            if (ranks.needsBuild(version, day) || ranks.drifted.size() > driftLimit(ranks)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int driftLimit(TypeRanks ranks) {
+        return Math.max(64, ranks.size >>> 4);
+    }
+
+    // Under the write lock: re-prices dirty items and rebuilds any of the types that need it
+    private void refresh(List<TypeRanks> types) {
+        PricingEngine engine = PricingEngine.getActive();
+        long version = engine.getVersion();
+        long day = PricingEngine.today();
+        if (!dirty.isEmpty()) {
+            for (Iterator<Integer> it = dirty.iterator(); it.hasNext(); ) {
+                int ordinal = it.next();
+                it.remove();
+                Displayable entity = entities.get(ordinal);
+                TypeRanks ranks = entity instanceof TravelEntity
+                        ? byType.get(((Bookable) entity).getType().toLowerCase(Locale.ROOT)) : null;
+                if (ranks == null || ranks.needsBuild(version, day)) {
+                    continue; // re-priced by the rebuild anyway
+                }
+                if (engine.price((Priceable) entity) != indexedPrice[ordinal]) {
+                    ranks.drifted.add(ordinal);
+                } else {
+                    ranks.drifted.remove(ordinal);
+                }
+            }
+        }
+        for (TypeRanks ranks : types) {
+            if (ranks.needsBuild(version, day) || ranks.drifted.size() > driftLimit(ranks)) {
+                build(ranks, engine, day);
+            }
+        }
+    }
+
+    private void build(TypeRanks ranks, PricingEngine engine, long day) {
+        int n = ranks.size;
+        int[] members = ranks.members;
+        double[] prices = engine.quote(new AbstractList<Priceable>() {
+            @Override
+            public Priceable get(int i) {
+                return (Priceable) entities.get(members[i]);
+            }
+
+            @Override
+            public int size() {
+                return n;
+            }
+        }, LocalDate.ofEpochDay(day));
+        for (int i = 0; i < n; i++) {
+            indexedPrice[members[i]] = prices[i];
+        }
+        int[] byPrice = sortByPrice(members, n);
+
+        // Ratings and locations are grouped with a primitive sort of (group, position in price
+        // order), so each group comes out already in price order
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            int rating = ((Priceable) entities.get(byPrice[i])).getRating();
+            keys[i] = ((long) -rating << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] byRating = new int[n];
+        int[] ratings = new int[n];
+        int groups = 0;
+        int[] ratingStarts = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int rating = (int) -(keys[i] >> 32);
+            if (groups == 0 || ratings[groups - 1] != rating) {
+                ratings[groups] = rating;
+                ratingStarts[groups++] = i;
+            }
+            byRating[i] = byPrice[(int) keys[i]];
+        }
+        ranks.ratingValues = Arrays.copyOf(ratings, groups);
+        ranks.ratingStarts = Arrays.copyOf(ratingStarts, groups + 1);
+        ranks.ratingStarts[groups] = n;
+
+        TreeMap<String, Integer> names = new TreeMap<>();
+        String[] locations = new String[n];
+        int located = 0;
+        for (int i = 0; i < n; i++) {
+            String location = locationOf(entities.get(byPrice[i]));
+            if (location != null && !location.isEmpty()) {
+                locations[i] = location.toLowerCase(Locale.ROOT);
+                names.put(locations[i], 0);
+                located++;
+            }
+        }
+        int id = 0;
+        for (Map.Entry<String, Integer> entry : names.entrySet()) {
+            entry.setValue(id++);
+        }
+        keys = new long[located];
+        for (int i = 0, k = 0; i < n; i++) {
+            if (locations[i] != null) {
+                keys[k++] = ((long) names.get(locations[i]) << 32) | i;
+            }
+        }
+        Arrays.sort(keys);
+        int[] byLocation = new int[located];
+        int[] locationStarts = new int[names.size() + 1];
+        int previous = -1;
+        for (int i = 0; i < located; i++) {
+            int group = (int) (keys[i] >> 32);
+            while (previous < group) {
+                locationStarts[++previous] = i;
+            }
+            byLocation[i] = byPrice[(int) keys[i]];
+        }
+        while (previous < names.size()) {
+            locationStarts[++previous] = located;
+        }
+
+        ranks.byPrice = byPrice;
+        ranks.byRating = byRating;
+        ranks.byLocation = byLocation;
+        ranks.locationNames = names.keySet().toArray(new String[0]);
+        ranks.locationStarts = locationStarts;
+        ranks.drifted.clear();
+        ranks.builtSize = n;
+        ranks.builtVersion = engine.getVersion();
+        ranks.builtDay = day;
+    }
+
+    // Ordinals by (indexed price, ordinal): a primitive sort on float-rounded prices, then an
+    // insertion pass to order the few prices that round to the same float
+    private int[] sortByPrice(int[] ordinals, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) floatKey(indexedPrice[ordinals[i]]) << 32) | ordinals[i];
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = (int) keys[i];
+        }
+        for (int i = 1; i < count; i++) {
+            int ordinal = sorted[i];
+            int j = i - 1;
+            while (j >= 0 && comparePrice(sorted[j], ordinal) > 0) {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = ordinal;
+        }
+        return sorted;
+    }
+
+    private int comparePrice(int a, int b) {
+        int c = Double.compare(indexedPrice[a], indexedPrice[b]);
+        return c != 0 ? c : Integer.compare(a, b);
+    }
+
+    // An int that orders like the float nearest the price, negative prices included
+    private static int floatKey(double price) {
+        int bits = Float.floatToIntBits((float) price);
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
+
+    // One type's members and orders. The orders cover the first builtSize members.
+    private static final class TypeRanks {
+        int[] members = new int[16];
+        int size;
+        int builtSize = -1;
+        long builtVersion;
+        long builtDay;
+        int[] byPrice;
+        int[] byRating;
+        int[] ratingValues;    // distinct ratings, highest first
+        int[] ratingStarts;    // byRating index where each rating starts, plus the end
+        int[] byLocation;      // members with a location
+        String[] locationNames; // distinct lower-cased locations, sorted
+        int[] locationStarts;
+        final Set<Integer> drifted = new HashSet<>();
+
+        void add(int ordinal) {
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size * 2);
+            }
+            members[size++] = ordinal;
+        }
+
+        boolean needsBuild(long version, long day) {
+            return builtSize != size || builtVersion != version || builtDay != day;
+        }
+    }
+
+    // One query against one type
+    private final class Scan {
+        private final TypeRanks ranks;
+        private final RankedQuery query;
+        private final int[] textMatches;
+        private final TopK top;
+        private final String location;
+
+        Scan(TypeRanks ranks, RankedQuery query, int[] textMatches, TopK top) {
+            this.ranks = ranks;
+            this.query = query;
+            this.textMatches = textMatches;
+            this.top = top;
+            this.location = query.getLocation() == null ? null : query.getLocation().toLowerCase(Locale.ROOT);
+        }
+
+        void run() {
+            // Each filter's slice of the type; an empty one means nothing can match
+            int n = ranks.size;
+            int[] price = query.hasPriceBand() ? priceSlice() : null;
+            int[] rating = query.hasRatingBand() ? ratingSlice() : null;
+            int[] located = location != null ? locationSlice() : null;
+            int textCount = textMatches == null ? n : Math.min(n, textMatches.length);
+            if (isEmpty(price) || isEmpty(rating) || isEmpty(located) || textCount == 0) {
+                scanDrifted();
+                return;
+            }
+            // Expected walk length: limit divided by the share of items passing the other filters
+            double walkShare = share(price, n) * share(rating, n) * share(located, n) * ((double) textCount / n);
+            boolean byRating = query.getOrder() == RankedQuery.Order.BEST_RATED;
+
+            // Walkable orders: the order's own index (narrowed by its own band), and a single
+            // location's slice, which is in price order
+            int[] walk = byRating ? orElse(rating, 0, n) : orElse(price, 0, n);
+            int[] walkArray = byRating ? ranks.byRating : ranks.byPrice;
+            double walkOwnShare = byRating ? share(rating, n) : share(price, n);
+            double walkCost = Math.min(length(walk), query.getLimit() / (walkShare / walkOwnShare));
+            if (!byRating && located != null) {
+                double cost = Math.min(length(located), query.getLimit() / (walkShare / share(located, n)));
+                if (cost < walkCost) {
+                    walk = located;
+                    walkArray = ranks.byLocation;
+                    walkCost = cost;
+                }
+            }
+
+            // The narrowest slice, scanned whole into the heap
+            int[] heap = null;
+            int[] heapArray = null;
+            int heapCost = Integer.MAX_VALUE;
+            if (price != null && length(price) < heapCost) {
+                heap = price;
+                heapArray = ranks.byPrice;
+                heapCost = length(price);
+            }
+            if (rating != null && length(rating) < heapCost) {
+                heap = rating;
+                heapArray = ranks.byRating;
+                heapCost = length(rating);
+            }
+            if (located != null && length(located) < heapCost) {
+                heap = located;
+                heapArray = ranks.byLocation;
+                heapCost = length(located);
+            }
+
+            if (textMatches != null && textMatches.length < Math.min(walkCost, heapCost)) {
+                scanText();
+            } else if (walkCost <= heapCost) {
+                walk(walkArray, walk[0], walk[1], query.getOrder() == RankedQuery.Order.MOST_EXPENSIVE, true);
+            } else {
+                walk(heapArray, heap[0], heap[1], false, false);
+            }
+            scanDrifted();
+        }
+
+        // Offers items in array order. With stopEarly the array runs in rank order, so the walk ends
+        // after limit matches; walking down, it first finishes the run of prices equal to the last
+        // match, which the heap breaks by ordinal.
+        private void walk(int[] array, int from, int to, boolean descending, boolean stopEarly) {
+            int matches = 0;
+            double lastPrice = Double.NaN;
+            for (int i = 0; i < to - from; i++) {
+                int ordinal = array[descending ? to - 1 - i : from + i];
+                if (stopEarly && matches >= query.getLimit() && (!descending || indexedPrice[ordinal] != lastPrice)) {
+                    return;
+                }
+                if (ranks.drifted.contains(ordinal)) {
+                    continue;
+                }
+                if (offer(ordinal, indexedPrice[ordinal])) {
+                    matches++;
+                    lastPrice = indexedPrice[ordinal];
+                }
+            }
+        }
+
+        private void scanText() {
+            for (int ordinal : textMatches) {
+                if (ordinal >= size) {
+                    break; // registered after the search ran, and not indexed here yet
+                }
+                Displayable entity = entities.get(ordinal);
+                if (entity instanceof Bookable && entity instanceof TravelEntity && ranks == byType.get(
+                        ((Bookable) entity).getType().toLowerCase(Locale.ROOT)) && !ranks.drifted.contains(ordinal)) {
+                    offer(ordinal, indexedPrice[ordinal]);
+                }
+            }
+        }
+
+        private void scanDrifted() {
+            for (int ordinal : ranks.drifted) {
+                offer(ordinal, ((Bookable) entities.get(ordinal)).calculatePrice());
+            }
+        }
+
+        // Adds the item to the heap if it passes every filter; true if it did
+        private boolean offer(int ordinal, double price) {
+            if (price < query.getMinPrice() || price > query.getMaxPrice()) {
+                return false;
+            }
+            Displayable entity = entities.get(ordinal);
+            int rating = ((Priceable) entity).getRating();
+            if (rating < query.getMinRating() || rating > query.getMaxRating()) {
+                return false;
+            }
+            if (location != null) {
+                String itemLocation = locationOf(entity);
+                if (itemLocation == null || !itemLocation.equalsIgnoreCase(location)) {
+                    return false;
+                }
+            }
+            if (query.isAvailableOnly() && !((Bookable) entity).isAvailable()) {
+                return false;
+            }
+            if (textMatches != null && Arrays.binarySearch(textMatches, ordinal) < 0) {
+                return false;
+            }
+            top.offer(ordinal, price, rating);
+            return true;
+        }
+
+        // byPrice positions [from, to) with indexed prices inside the band
+        private int[] priceSlice() {
+            return new int[]{firstPriceAtLeast(query.getMinPrice(), false), firstPriceAtLeast(query.getMaxPrice(), true)};
+        }
+
+        private int firstPriceAtLeast(double bound, boolean strictlyAbove) {
+            int lo = 0;
+            int hi = ranks.byPrice.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                double price = indexedPrice[ranks.byPrice[mid]];
+                if (strictlyAbove ? price <= bound : price < bound) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // byRating positions covering the ratings inside the band (ratings run highest first)
+        private int[] ratingSlice() {
+            int[] values = ranks.ratingValues;
+            int first = 0;
+            while (first < values.length && values[first] > query.getMaxRating()) {
+                first++;
+            }
+            int last = first;
+            while (last < values.length && values[last] >= query.getMinRating()) {
+                last++;
+            }
+            return new int[]{ranks.ratingStarts[first], ranks.ratingStarts[last]};
+        }
+
+        private int[] locationSlice() {
+            int group = Arrays.binarySearch(ranks.locationNames, location);
+            if (group < 0) {
+                return new int[]{0, 0};
+            }
+            return new int[]{ranks.locationStarts[group], ranks.locationStarts[group + 1]};
+        }
+    }
+
+    private static boolean isEmpty(int[] slice) {
+        return slice != null && slice[0] >= slice[1];
+    }
+
+    private static int length(int[] slice) {
+        return slice[1] - slice[0];
+    }
+
+    private static double share(int[] slice, int n) {
+        return slice == null ? 1 : (double) length(slice) / n;
+    }
+
+    private static int[] orElse(int[] slice, int from, int to) {
+        return slice != null ? slice : new int[]{from, to};
+    }
+
+    // Bounded heap keeping the limit best candidates, worst at the root
+    private static final class TopK {
+        private final RankedQuery.Order order;
+        private final int[] ordinals;
+        private final double[] prices;
+        private final int[] ratings;
+        private int size;
+
+        TopK(RankedQuery.Order order, int limit) {
+            this.order = order;
+            this.ordinals = new int[limit];
+            this.prices = new double[limit];
+            this.ratings = new int[limit];
+        }
+
+        void offer(int ordinal, double price, int rating) {
+            if (size < ordinals.length) {
+                set(size, ordinal, price, rating);
+                siftUp(size++);
+            } else if (compare(ordinal, price, rating, 0) < 0) {
+                set(0, ordinal, price, rating);
+                siftDown(0);
+            }
+        }
+
+        // Best first; empties the heap
+        int[] drain() {
+            int[] result = new int[size];
+            while (size > 0) {
+                result[size - 1] = ordinals[0];
+                size--;
+                set(0, ordinals[size], prices[size], ratings[size]);
+                siftDown(0);
+            }
+            return result;
+        }
+
+        // Negative if the candidate ranks before the entry at index i
+        private int compare(int ordinal, double price, int rating, int i) {
+            int c;
+            switch (order) {
+                case MOST_EXPENSIVE:
+                    c = Double.compare(prices[i], price);
+                    break;
+                case BEST_RATED:
+                    c = Integer.compare(ratings[i], rating);
+                    if (c == 0) {
+                        c = Double.compare(price, prices[i]);
+                    }
+                    break;
+                default:
+                    c = Double.compare(price, prices[i]);
+                    break;
+            }
+            return c != 0 ? c : Integer.compare(ordinal, ordinals[i]);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (compare(ordinals[i], prices[i], ratings[i], parent) <= 0) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int worst = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (compare(ordinals[child], prices[child], ratings[child], worst) > 0) {
+                        worst = child;
+                    }
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void set(int i, int ordinal, double price, int rating) {
+            ordinals[i] = ordinal;
+            prices[i] = price;
+            ratings[i] = rating;
+        }
+
+        private void swap(int a, int b) {
+            int ordinal = ordinals[a];
+            double price = prices[a];
+            int rating = ratings[a];
+            set(a, ordinals[b], prices[b], ratings[b]);
+            set(b, ordinal, price, rating);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package travelbooking;
+
+// A ranked query: up to limit items in the given order, narrowed by any mix of type, location,
+// price band, rating band, search text and availability. Unset filters match everything.
+//   new RankedQuery(RankedQuery.Order.CHEAPEST, 20).type("Hotel").location("Mumbai").minRating(4)
+//   new RankedQuery(RankedQuery.Order.CHEAPEST, 50).type("Car Rental").maxPrice(50)
+class RankedQuery {
+    enum Order {
+        CHEAPEST,
+        MOST_EXPENSIVE,
+        // Highest rating first, cheapest first within a rating
+        BEST_RATED
+    }
+
+    private final Order order;
+    private final int limit;
+    private String type;
+    private String location;
+    private String text;
+    private double minPrice = Double.NEGATIVE_INFINITY;
+    private double maxPrice = Double.POSITIVE_INFINITY;
+    private int minRating = Integer.MIN_VALUE;
+    private int maxRating = Integer.MAX_VALUE;
+    private boolean availableOnly;
+
+    public RankedQuery(Order order, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        this.order = order;
+        this.limit = limit;
+    }
+
+    // A Bookable.getType() value, any case
+    public RankedQuery type(String type) {
+        this.type = type;
+        return this;
+    }
+
+    // Exact match, any case: a hotel's location or a flight's destination
+    public RankedQuery location(String location) {
+        this.location = location;
+        return this;
+    }
+
+    // Substring search over the display cells, as in BookingManager.search
+    public RankedQuery text(String text) {
+        this.text = text == null || text.trim().isEmpty() ? null : text;
+        return this;
+    }
+
+    // Final price at least min, inclusive
+    public RankedQuery minPrice(double min) {
+        this.minPrice = min;
+        return this;
+    }
+
+    // Final price at most max, inclusive
+    public RankedQuery maxPrice(double max) {
+        this.maxPrice = max;
+        return this;
+    }
+
+    public RankedQuery minRating(int min) {
+        this.minRating = min;
+        return this;
+    }
+
+    public RankedQuery maxRating(int max) {
+        this.maxRating = max;
+        return this;
+    }
+
+    public RankedQuery availableOnly() {
+        this.availableOnly = true;
+        return this;
+    }
+
+    public Order getOrder() { return order; }
+    public int getLimit() { return limit; }
+    public String getType() { return type; }
+    public String getLocation() { return location; }
+    public String getText() { return text; }
+    public double getMinPrice() { return minPrice; }
+    public double getMaxPrice() { return maxPrice; }
+    public int getMinRating() { return minRating; }
+    public int getMaxRating() { return maxRating; }
+    public boolean isAvailableOnly() { return availableOnly; }
+
+    boolean hasPriceBand() {
+        return minPrice != Double.NEGATIVE_INFINITY || maxPrice != Double.POSITIVE_INFINITY;
+    }
+
+    boolean hasRatingBand() {
+        return minRating != Integer.MIN_VALUE || maxRating != Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,139 @@
+package travelbooking;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer, single-consumer ring of preallocated slots, in the style of the LMAX
+ * Disruptor. A producer claims a sequence number with one CAS, fills the slot for it in place and
+ * publishes it by writing the sequence into the slot's marker; the consumer handles slots in
+ * sequence order as their markers appear. Slots are reused, so steady-state traffic allocates
+ * nothing here. A full ring makes producers wait, which is the back-pressure.
+ *
+ * close() stops further claims. Everything claimed before it is still handed to the consumer, and
+ * isDrained() turns true once it has been.
+ */
+class RingBuffer<E> {
+    private static final long CLOSED = Long.MIN_VALUE;
+    private static final int SPINS = 64;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Object[] slots;
+    private final int mask;
+    // Sequence of the slot's current contents once published; -1 before the first lap
+    private final AtomicLongArray published;
+    // Next sequence to hand out, with the CLOSED bit set once closed
+    private final AtomicLong claimed = new AtomicLong();
+    // Everything below this has been handled and its slot may be reused
+    private volatile long consumed;
+    private volatile Thread waitingConsumer;
+    private long next; // owned by the consumer
+
+    public RingBuffer(int capacity, Supplier<E> factory) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.slots = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = factory.get();
+        }
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Claims the next slot, waiting while the ring is full. The caller must fill and publish it.
+     * Throws IllegalStateException once the ring is closed.
+     */
+    public long claim() {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence < 0) {
+                throw new IllegalStateException("Ring is closed");
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        for (int spins = 0; sequence - consumed >= slots.length; spins++) {
+            if (spins < SPINS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+        return sequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E slot(long sequence) {
+        return (E) slots[(int) (sequence & mask)];
+    }
+
+    public void publish(long sequence) {
+        published.set((int) (sequence & mask), sequence);
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    // Consumer only: hands each published slot to the handler in order, up to one lap; returns the count
+    public int drain(Consumer<E> handler) {
+        int handled = 0;
+        long sequence = next;
+        while (handled < slots.length && published.get((int) (sequence & mask)) == sequence) {
+            handler.accept(slot(sequence));
+            sequence++;
+            handled++;
+        }
+        if (handled > 0) {
+            next = sequence;
+            consumed = sequence;
+        }
+        return handled;
+    }
+
+    // Consumer only: returns once the next slot is published or the ring is closed, spinning briefly before parking
+    public void awaitPublished() {
+        for (int spins = 0; !isReady(); spins++) {
+            if (spins < SPINS) {
+                Thread.yield();
+                continue;
+            }
+            // Advertise before the final check; publish reads this after writing its marker
+            waitingConsumer = Thread.currentThread();
+            if (!isReady()) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            waitingConsumer = null;
+        }
+    }
+
+    private boolean isReady() {
+        return published.get((int) (next & mask)) == next || claimed.get() < 0;
+    }
+
+    public void close() {
+        claimed.getAndUpdate(sequence -> sequence | CLOSED);
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    // Consumer only: closed, and every slot claimed before that has been handled
+    public boolean isDrained() {
+        long sequence = claimed.get();
+        return sequence < 0 && next == (sequence & ~CLOSED);
+    }
+}
@@ -0,0 +1,197 @@
+package travelbooking;
+
+import java.util.*;
+
+// Airports and the daily flights between them, prepared once for itinerary searches.
+// Every flight is assumed to operate daily at its departure time, so a missed connection waits for the next day.
+class RouteGraph {
+    enum Objective { CHEAPEST, FASTEST }
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final Map<String, Integer> airportIds;
+    private final Flight[][] outgoing;   // airport id -> departing flights, by departure time
+    private final int[][] destinations;  // parallel to outgoing: arrival airport id of each flight
+
+    private RouteGraph(Map<String, Integer> airportIds, Flight[][] outgoing, int[][] destinations) {
+        this.airportIds = airportIds;
+        this.outgoing = outgoing;
+        this.destinations = destinations;
+    }
+
+    public static RouteGraph build(Collection<? extends Displayable> entities) {
+        Map<String, Integer> airportIds = new HashMap<>();
+        List<List<Flight>> adjacency = new ArrayList<>();
+        for (Displayable entity : entities) {
+            if (!(entity instanceof Flight)) {
+                continue;
+            }
+            Flight flight = (Flight) entity;
+            int from = airportId(airportIds, adjacency, flight.getSource());
+            airportId(airportIds, adjacency, flight.getDestination());
+            adjacency.get(from).add(flight);
+        }
+
+        Flight[][] outgoing = new Flight[adjacency.size()][];
+        int[][] destinations = new int[adjacency.size()][];
+        for (int i = 0; i < outgoing.length; i++) {
+            outgoing[i] = adjacency.get(i).toArray(new Flight[0]);
+            Arrays.sort(outgoing[i], Comparator.comparingInt(RouteGraph::departureOf));
+            destinations[i] = new int[outgoing[i].length];
+            for (int j = 0; j < outgoing[i].length; j++) {
+                destinations[i][j] = airportIds.get(outgoing[i][j].getDestination().trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return new RouteGraph(airportIds, outgoing, destinations);
+    }
+
+    private static int airportId(Map<String, Integer> ids, List<List<Flight>> adjacency, String airport) {
+        String key = airport.trim().toLowerCase(Locale.ROOT);
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = adjacency.size();
+            ids.put(key, id);
+            adjacency.add(new ArrayList<>());
+        }
+        return id;
+    }
+
+    // Flights with an unparseable time are treated as leaving at midnight
+    private static int departureOf(Flight flight) {
+        return Math.max(0, flight.getDepartureMinute());
+    }
+
+    public int getAirportCount() {
+        return outgoing.length;
+    }
+
+    /**
+     * Finds the best itinerary using only flights that still have seats.
+     * Fares are quoted by the active pricing engine as the search reaches each flight, so they
+     * follow engine swaps, the day and seat counts without rebuilding the graph.
+     * Returns null if the airports are unknown or no route fits within maxConnections.
+     */
+    public Itinerary find(String from, String to, Objective objective, int maxConnections,
+                          int minLayoverMinutes, int earliestDepartureMinute) {
+        Integer source = airportIds.get(from.trim().toLowerCase(Locale.ROOT));
+        Integer target = airportIds.get(to.trim().toLowerCase(Locale.ROOT));
+        if (source == null || target == null || source.equals(target) || maxConnections < 0) {
+            return null;
+        }
+        int maxLegs = maxConnections + 1;
+        boolean cheapest = objective == Objective.CHEAPEST;
+        PricingEngine engine = PricingEngine.getActive();
+
+        // Labels are settled in order of their key; a label is useless once its airport
+        // was settled with no more legs, because that earlier label is at least as good.
+        int[] settledLegs = new int[outgoing.length];
+        Arrays.fill(settledLegs, Integer.MAX_VALUE);
+        double[][] bestQueued = new double[outgoing.length][maxLegs + 1];
+        for (double[] row : bestQueued) {
+            Arrays.fill(row, Double.MAX_VALUE);
+        }
+
+        PriorityQueue<Label> queue = new PriorityQueue<>();
+        queue.add(new Label(source, null, null, 0, 0.0, earliestDepartureMinute, earliestDepartureMinute));
+        while (!queue.isEmpty()) {
+            Label label = queue.poll();
+            if (label.legs >= settledLegs[label.airport]) {
+                continue;
+            }
+            settledLegs[label.airport] = label.legs;
+            if (label.airport == target) {
+                return label.toItinerary();
+            }
+            if (label.legs == maxLegs) {
+                continue;
+            }
+
+            long ready = label.flight == null ? label.arrival : label.arrival + minLayoverMinutes;
+            Flight[] flights = outgoing[label.airport];
+            for (int i = 0; i < flights.length; i++) {
+                Flight flight = flights[i];
+                if (!flight.isAvailable()) {
+                    continue;
+                }
+                int next = destinations[label.airport][i];
+                int legs = label.legs + 1;
+                if (legs >= settledLegs[next]) {
+                    continue;
+                }
+                long departure = nextDeparture(departureOf(flight), ready);
+                long arrival = departure + flight.getDurationMinutes();
+                double cost = label.cost + engine.price(flight);
+                double key = cheapest ? cost : arrival;
+                if (dominated(bestQueued[next], legs, key)) {
+                    continue;
+                }
+                bestQueued[next][legs] = key;
+                long firstDeparture = label.flight == null ? departure : label.firstDeparture;
+                queue.add(new Label(next, label, flight, legs, cost, arrival, firstDeparture).keyedBy(cheapest));
+            }
+        }
+        return null;
+    }
+
+    // True if something at least as good with no more legs is already queued
+    private static boolean dominated(double[] bestByLegs, int legs, double key) {
+        for (int l = 1; l <= legs; l++) {
+            if (bestByLegs[l] <= key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long nextDeparture(int minuteOfDay, long ready) {
+        long day = Math.floorDiv(ready, MINUTES_PER_DAY);
+        long candidate = day * MINUTES_PER_DAY + minuteOfDay;
+        return candidate >= ready ? candidate : candidate + MINUTES_PER_DAY;
+    }
+
+    // Partial itinerary ending at an airport, linked back to the previous leg
+    private static class Label implements Comparable<Label> {
+        final int airport;
+        final Label prev;
+        final Flight flight;
+        final int legs;
+        final double cost;
+        final long arrival;
+        final long firstDeparture;
+        double primary;
+        double secondary;
+
+        Label(int airport, Label prev, Flight flight, int legs, double cost, long arrival, long firstDeparture) {
+            this.airport = airport;
+            this.prev = prev;
+            this.flight = flight;
+            this.legs = legs;
+            this.cost = cost;
+            this.arrival = arrival;
+            this.firstDeparture = firstDeparture;
+        }
+
+        Label keyedBy(boolean cheapest) {
+            primary = cheapest ? cost : arrival;
+            secondary = cheapest ? arrival : cost;
+            return this;
+        }
+
+        @Override
+        public int compareTo(Label other) {
+            int c = Double.compare(primary, other.primary);
+            if (c == 0) {
+                c = Double.compare(secondary, other.secondary);
+            }
+            return c != 0 ? c : Integer.compare(legs, other.legs);
+        }
+
+        Itinerary toItinerary() {
+            LinkedList<Flight> legs = new LinkedList<>();
+            for (Label l = this; l.flight != null; l = l.prev) {
+                legs.addFirst(l.flight);
+            }
+            return new Itinerary(new ArrayList<>(legs), cost, firstDeparture, arrival);
+        }
+    }
+}
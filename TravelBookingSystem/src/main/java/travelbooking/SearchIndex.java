@@ -0,0 +1,203 @@
+package travelbooking;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Inverted index over the descriptive display cells of every entity, addressed by entity ordinal.
+// Each distinct lowercased cell value is a term; terms are in turn indexed by their trigrams,
+// so a substring query only verifies the few terms that share all of its trigrams. A token of
+// one or two characters goes through the distinct trigrams instead, whose number is bounded by
+// the alphabet, not the catalog.
+// Only the cells that never change are indexed (id, name, type, details, route or rating, time):
+// counts, prices and status change with every booking and are answered by CatalogIndex and
+// RankIndex instead, so bookings never touch this index and a search never waits on a writer.
+class SearchIndex {
+    // Display columns 0 up to here are indexed
+    static final int INDEXED_COLUMNS = 6;
+
+    private final Map<String, Integer> termIds;
+    private final List<String> terms;
+    private final List<PostingList> termPostings;   // term id -> entity ordinals
+    private final Map<String, PostingList> gramPostings; // trigram -> term ids
+    private final List<String> grams;                    // distinct trigrams, for short tokens
+    private final PostingList shortTerms;                // ids of terms too short to have a trigram
+    private int size;                                    // ordinals indexed so far
+    private final ReadWriteLock lock;
+
+    public SearchIndex() {
+        termIds = new HashMap<>();
+        terms = new ArrayList<>();
+        termPostings = new ArrayList<>();
+        gramPostings = new HashMap<>();
+        grams = new ArrayList<>();
+        shortTerms = new PostingList();
+        lock = new ReentrantReadWriteLock();
+    }
+
+    // Ordinals must be added densely, in increasing order
+    public void add(int ordinal, Displayable entity) {
+        addAll(ordinal, Collections.singletonList(entity));
+    }
+
+    public void addAll(int firstOrdinal, List<? extends Displayable> added) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < added.size(); i++) {
+                index(firstOrdinal + i, added.get(i));
+            }
+            size = Math.max(size, firstOrdinal + added.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ordinals of entities where every whitespace-separated query token is contained in some cell
+    public int[] search(String query) {
+        String[] tokens = query.toLowerCase(Locale.ROOT).trim().split("\\s+");
+        lock.readLock().lock();
+        try {
+            BitSet result = null;
+            for (String token : tokens) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                BitSet matches = matchToken(token);
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.and(matches);
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            if (result == null) {
+                result = new BitSet(size);
+                result.set(0, size);
+            }
+            return result.stream().toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet matchToken(String token) {
+        BitSet matches = new BitSet(size);
+        if (token.length() < 3) {
+            // A longer term contains the token exactly when one of its trigrams does, so only the
+            // distinct trigrams and the few short terms are checked, never the whole dictionary
+            BitSet termMatches = new BitSet(terms.size());
+            for (int i = 0; i < shortTerms.size(); i++) {
+                if (terms.get(shortTerms.get(i)).contains(token)) {
+                    termMatches.set(shortTerms.get(i));
+                }
+            }
+            for (String gram : grams) {
+                if (gram.contains(token)) {
+                    gramPostings.get(gram).addTo(termMatches);
+                }
+            }
+            for (int termId = termMatches.nextSetBit(0); termId >= 0; termId = termMatches.nextSetBit(termId + 1)) {
+                termPostings.get(termId).addTo(matches);
+            }
+            return matches;
+        }
+
+        PostingList candidates = null;
+        for (int i = 0; i + 3 <= token.length(); i++) {
+            PostingList grams = gramPostings.get(token.substring(i, i + 3));
+            if (grams == null) {
+                return matches;
+            }
+            if (candidates == null || grams.size() < candidates.size()) {
+                candidates = grams;
+            }
+        }
+        // Verify against the smallest trigram posting only; the contains() check does the rest
+        for (int i = 0; i < candidates.size(); i++) {
+            int termId = candidates.get(i);
+            if (terms.get(termId).contains(token)) {
+                termPostings.get(termId).addTo(matches);
+            }
+        }
+        return matches;
+    }
+
+    // Caller holds the write lock
+    private void index(int ordinal, Displayable entity) {
+        int[] added = new int[INDEXED_COLUMNS];
+        for (int column = 0; column < INDEXED_COLUMNS; column++) {
+            int termId = termId(entity.getDisplayValue(column).toLowerCase(Locale.ROOT));
+            added[column] = termId;
+            if (!contains(added, column, termId)) {
+                termPostings.get(termId).add(ordinal);
+            }
+        }
+    }
+
+    private int termId(String term) {
+        Integer id = termIds.get(term);
+        if (id != null) {
+            return id;
+        }
+        int newId = terms.size();
+        terms.add(term);
+        termPostings.add(new PostingList());
+        termIds.put(term, newId);
+        if (term.length() < 3) {
+            shortTerms.add(newId);
+        }
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            String gram = term.substring(i, i + 3);
+            PostingList postings = gramPostings.get(gram);
+            if (postings == null) {
+                postings = new PostingList();
+                gramPostings.put(gram, postings);
+                grams.add(gram);
+            }
+            postings.add(newId);
+        }
+        return newId;
+    }
+
+    // Whether value occurs among the first count entries
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Sorted set of ints in a growable array; appends in increasing order are O(1), and ordinals
+    // are only ever appended
+    static class PostingList {
+        private int[] values = new int[4];
+        private int size;
+
+        public void add(int value) {
+            int pos = size == 0 || values[size - 1] < value ? size : Arrays.binarySearch(values, 0, size, value);
+            if (pos >= 0 && pos < size) {
+                return; // already present
+            }
+            int insertAt = pos >= 0 ? pos : -pos - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = value;
+            size++;
+        }
+
+        public int get(int index) { return values[index]; }
+        public int size() { return size; }
+
+        public void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package travelbooking;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alternative execution mode for bookings and cancellations: items are partitioned by id across a
+ * fixed number of shards, and each shard is owned by one thread that applies its commands in
+ * arrival order. Callers drop a command into the shard's RingBuffer and get a future back, so
+ * concurrent writers to a hot item queue up behind one thread instead of retrying CAS loops against
+ * each other, and a shard works through a whole batch while its item state is still in cache.
+ *
+ * Commands go through the same BookingManager, so direct calls and the pipeline can be mixed, and
+ * holds, packages and queries keep working as before. A future completes once the change is
+ * durable: with a journal that waits for sync that is after its group commit, which the shard
+ * thread does not wait for.
+ *
+ * Only the pipeline's own commands are serialized per item. Direct book and cancel calls, holds,
+ * packages, waitlist promotions and hold expiry still change the same items from their own
+ * threads, so an item's counter is still claimed by CAS and may see contention from them. Every
+ * shard also enters the manager's shared write paths: the snapshot gate (one striped counter and a
+ * volatile flag), the journal's read lock and, for dated bookings, the item's calendar lock. Shards
+ * therefore do not write in isolation; what they remove is the retrying between writers of one hot
+ * item that all come through the pipeline.
+ */
+class ShardedBookingPipeline implements AutoCloseable {
+    public static final int DEFAULT_RING_SIZE = 1024;
+
+    private static final int BOOK = 0;
+    private static final int CANCEL_REFERENCE = 1;
+    private static final int CANCEL_ITEM = 2;
+
+    private final BookingManager manager;
+    private final Shard[] shards;
+
+    // One shard per available processor
+    public ShardedBookingPipeline(BookingManager manager) {
+        this(manager, Runtime.getRuntime().availableProcessors(), DEFAULT_RING_SIZE);
+    }
+
+    public ShardedBookingPipeline(BookingManager manager, int shardCount, int ringSize) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Need at least one shard");
+        }
+        this.manager = manager;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, ringSize);
+        }
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Completes with the new booking, or null if the item is unknown or short
+    public CompletableFuture<Booking> book(String id, int quantity) {
+        return book(id, quantity, null, null);
+    }
+
+    // Dated variant; completes exceptionally with IllegalArgumentException for dates the calendar rejects
+    public CompletableFuture<Booking> book(String id, int quantity, LocalDate startDate, LocalDate endDate) {
+        return submit(BOOK, id, null, quantity, startDate, endDate);
+    }
+
+    // Completes with the cancelled booking, or null if it was not (or no longer) active
+    public CompletableFuture<Booking> cancelByReference(String reference) {
+        Booking booking = manager.findBooking(reference);
+        if (booking == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return submit(CANCEL_REFERENCE, booking.getItemId(), reference, 0, null, null);
+    }
+
+    // Cancels any one booking of the item; completes with it, or null if the item had none
+    public CompletableFuture<Booking> cancelBooking(String id) {
+        return submit(CANCEL_ITEM, id, null, 0, null, null);
+    }
+
+    private CompletableFuture<Booking> submit(int kind, String id, String reference, int quantity,
+                                              LocalDate startDate, LocalDate endDate) {
+        RingBuffer<Command> ring = shardFor(id).ring;
+        CompletableFuture<Booking> result = new CompletableFuture<>();
+        long sequence = ring.claim();
+        Command command = ring.slot(sequence);
+        command.kind = kind;
+        command.id = id;
+        command.reference = reference;
+        command.quantity = quantity;
+        command.startDate = startDate;
+        command.endDate = endDate;
+        command.result = result;
+        ring.publish(sequence);
+        return result;
+    }
+
+    private Shard shardFor(String id) {
+        int h = id.hashCode();
+        h ^= h >>> 16; // ids often differ only in their last characters
+        return shards[(h & Integer.MAX_VALUE) % shards.length];
+    }
+
+    /**
+     * Stops taking commands and waits for each shard to finish the ones already submitted. Their
+     * futures still complete; later submissions throw IllegalStateException.
+     */
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.ring.close();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private final class Shard {
+        final RingBuffer<Command> ring;
+        final Thread thread;
+
+        Shard(int index, int ringSize) {
+            this.ring = new RingBuffer<>(ringSize, Command::new);
+            this.thread = new Thread(this::run, "booking-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            while (!ring.isDrained()) {
+                if (ring.drain(this::execute) == 0) {
+                    ring.awaitPublished();
+                }
+            }
+        }
+
+        private void execute(Command command) {
+            CompletableFuture<Booking> result = command.result;
+            try {
+                CompletableFuture<Booking> applied;
+                switch (command.kind) {
+                    case BOOK:
+                        applied = manager.bookDeferred(command.id, command.quantity, command.startDate, command.endDate);
+                        break;
+                    case CANCEL_REFERENCE:
+                        applied = manager.cancelDeferred(command.reference);
+                        break;
+                    default:
+                        applied = manager.cancelItemDeferred(command.id);
+                        break;
+                }
+                if (applied.isDone() && !applied.isCompletedExceptionally()) {
+                    result.complete(applied.join());
+                } else {
+                    applied.whenComplete((booking, failure) -> {
+                        if (failure != null) {
+                            result.completeExceptionally(failure);
+                        } else {
+                            result.complete(booking);
+                        }
+                    });
+                }
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e); // e.g. dates outside the calendar; the shard carries on
+            } finally {
+                command.clear();
+            }
+        }
+    }
+
+    // A ring slot; filled by the submitting thread, read and cleared by the shard thread
+    private static final class Command {
+        int kind;
+        String id;
+        String reference;
+        int quantity;
+        LocalDate startDate;
+        LocalDate endDate;
+        CompletableFuture<Booking> result;
+
+        // Drops references so a finished command does not keep its booking reachable
+        void clear() {
+            id = null;
+            reference = null;
+            startDate = null;
+            endDate = null;
+            result = null;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package travelbooking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Terms for autocomplete and typo correction: entity names, flight cities and airlines, hotel
+ * locations and car types, plus each word of the multi-word ones, weighted by how many entities
+ * use them. These never change once an entity is registered, so the index only grows. It reads
+ * the catalog itself: registering entities costs nothing here, and the first lookup after a
+ * registration folds the new entities in and rebuilds the TermDictionary that answers queries.
+ */
+class SuggestIndex {
+    public static final int DEFAULT_LIMIT = 10;
+
+    private final List<Displayable> catalog;
+    private final Map<String, Term> terms = new HashMap<>(); // by lowercase key; guarded by this
+    private volatile TermDictionary dictionary = TermDictionary.EMPTY;
+    private volatile int dictionarySize; // catalog entities the dictionary covers
+
+    // catalog is the live, append-only entity list
+    public SuggestIndex(List<Displayable> catalog) {
+        this.catalog = catalog;
+    }
+
+    // Caller holds the lock
+    private void index(Displayable entity) {
+        for (String phrase : phrasesOf(entity)) {
+            add(phrase);
+            addWords(phrase);
+        }
+    }
+
+    // Each word of a multi-word phrase, split at anything but letters and digits
+    private void addWords(String phrase) {
+        int start = -1;
+        boolean multiWord = false;
+        for (int i = 0; i <= phrase.length(); i++) {
+            boolean inWord = i < phrase.length() && Character.isLetterOrDigit(phrase.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                if (start > 0 || i < phrase.length()) {
+                    multiWord = true;
+                }
+                if (multiWord && i - start > 1) {
+                    add(phrase.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+    }
+
+    // Distinct searchable phrases of one entity
+    static Set<String> phrasesOf(Displayable entity) {
+        Set<String> phrases = new LinkedHashSet<>();
+        if (entity instanceof TravelEntity) {
+            phrases.add(((TravelEntity) entity).getName());
+        }
+        if (entity instanceof Priceable) {
+            phrases.add(((Priceable) entity).getCategory()); // airline, location or car type
+        }
+        if (entity instanceof Flight) {
+            phrases.add(((Flight) entity).getSource());
+            phrases.add(((Flight) entity).getDestination());
+        }
+        phrases.remove(null);
+        phrases.removeIf(phrase -> phrase.trim().isEmpty());
+        return phrases;
+    }
+
+    private void add(String phrase) {
+        String display = phrase.trim();
+        Term term = terms.get(display.toLowerCase(Locale.ROOT));
+        if (term == null) {
+            terms.put(display.toLowerCase(Locale.ROOT), new Term(display));
+        } else {
+            term.weight++;
+        }
+    }
+
+    // Up to limit terms starting with what was typed, most used first, topped up with close misspellings
+    public List<String> suggest(String typed, int limit) {
+        String prefix = typed.trim().toLowerCase(Locale.ROOT);
+        if (prefix.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        TermDictionary current = dictionary();
+        List<String> suggestions = current.complete(prefix, limit);
+        // One edit at most while typing: a second one multiplies the prefixes walked and mostly
+        // turns up noise; whole-word corrections get the full budget
+        if (suggestions.size() < limit && TermDictionary.maxEditsFor(prefix.length()) > 0) {
+            for (String fuzzy : current.fuzzy(prefix, 1, true, limit)) {
+                if (suggestions.size() == limit) {
+                    break;
+                }
+                if (!suggestions.contains(fuzzy)) {
+                    suggestions.add(fuzzy);
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    // Known words closest to a word that matched nothing, best first; empty if none is close enough
+    public List<String> corrections(String word, int limit) {
+        String key = word.toLowerCase(Locale.ROOT);
+        int maxEdits = TermDictionary.maxEditsFor(key.length());
+        if (maxEdits == 0) {
+            return new ArrayList<>();
+        }
+        return dictionary().fuzzy(key, maxEdits, false, limit);
+    }
+
+    // Lock-free unless entities were registered since the last rebuild
+    private TermDictionary dictionary() {
+        int size = catalog.size();
+        if (dictionarySize >= size) {
+            return dictionary;
+        }
+        TermDictionary current;
+        synchronized (this) {
+            if (dictionarySize >= size) {
+                return dictionary;
+            }
+            for (int ordinal = dictionarySize; ordinal < size; ordinal++) {
+                index(catalog.get(ordinal));
+            }
+            String[] keys = terms.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            String[] displays = new String[keys.length];
+            int[] weights = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                Term term = terms.get(keys[i]);
+                displays[i] = term.display;
+                weights[i] = term.weight;
+            }
+            current = new TermDictionary(keys, displays, weights);
+            dictionary = current;
+            dictionarySize = size;
+        }
+        return current;
+    }
+
+    // Spelling as first seen, and the number of entities using it
+    private static final class Term {
+        final String display;
+        int weight = 1;
+
+        Term(String display) {
+            this.display = display;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package travelbooking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic synthetic inventory for LoadTest and the JMH benchmarks: the same counts and seed
+// always produce the same items, so two runs compared against each other booked the same catalog.
+// Flights, hotels and car rentals are interleaved in registration order rather than grouped by type.
+final class SyntheticCatalog {
+    static final String[] CITIES = {"Delhi", "Mumbai", "Bangalore", "Chennai", "Kolkata", "Hyderabad", "Pune", "Goa",
+            "Jaipur", "Ahmedabad", "Lucknow", "Kochi"};
+    static final String[] AIRLINES = {"Air India", "SpiceJet", "IndiGo", "Vistara", "Akasa Air"};
+    static final String[] CAR_TYPES = {"SUV", "Sedan", "Luxury", "Hatchback", "Convertible"};
+
+    private final int flights;
+    private final int hotels;
+    private final int cars;
+    private final int capacity;
+    private final long seed;
+
+    SyntheticCatalog(int flights, int hotels, int cars, int capacity, long seed) {
+        if (flights < 0 || hotels < 0 || cars < 0 || flights + hotels + cars == 0) {
+            throw new IllegalArgumentException("Catalog needs at least one item");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.flights = flights;
+        this.hotels = hotels;
+        this.cars = cars;
+        this.capacity = capacity;
+        this.seed = seed;
+    }
+
+    // size items split as evenly as possible between flights, hotels and car rentals
+    static SyntheticCatalog ofSize(int size, int capacity, long seed) {
+        return new SyntheticCatalog((size + 2) / 3, (size + 1) / 3, size / 3, capacity, seed);
+    }
+
+    public int size() {
+        return flights + hotels + cars;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Words a user might search for: every city, airline and car type
+    public static List<String> searchTerms() {
+        List<String> terms = new ArrayList<>();
+        for (String[] words : new String[][]{CITIES, AIRLINES, CAR_TYPES}) {
+            for (String word : words) {
+                terms.add(word);
+            }
+        }
+        return terms;
+    }
+
+    // Registers the catalog in bulk batches; returns the item ids in registration order
+    public String[] populate(BookingManager manager) {
+        Random random = new Random(seed);
+        String[] ids = new String[size()];
+        List<Displayable> batch = new ArrayList<>();
+        int flight = 0;
+        int hotel = 0;
+        int car = 0;
+        for (int i = 0; i < ids.length; i++) {
+            Displayable entity;
+            // Round-robin over the types that still have items to create
+            int type = i % 3;
+            while (type == 0 && flight == flights || type == 1 && hotel == hotels || type == 2 && car == cars) {
+                type = (type + 1) % 3;
+            }
+            if (type == 0) {
+                int from = random.nextInt(CITIES.length);
+                int to = (from + 1 + random.nextInt(CITIES.length - 1)) % CITIES.length; // never the same city
+                entity = new Flight("LF" + flight, "LT-" + flight, 50 + random.nextInt(450),
+                        AIRLINES[random.nextInt(AIRLINES.length)], CITIES[from], CITIES[to],
+                        String.format("%02d:%02d", random.nextInt(24), 5 * random.nextInt(12)),
+                        60 + random.nextInt(240), capacity);
+                flight++;
+            } else if (type == 1) {
+                String city = CITIES[random.nextInt(CITIES.length)];
+                entity = new Hotel("LH" + hotel, city + " Stay " + hotel, 30 + random.nextInt(300), city,
+                        capacity, 1 + random.nextInt(5));
+                hotel++;
+            } else {
+                String carType = CAR_TYPES[random.nextInt(CAR_TYPES.length)];
+                entity = new CarRental("LC" + car, carType + " " + car, 20 + random.nextInt(100), carType, capacity);
+                car++;
+            }
+            ids[i] = ((TravelEntity) entity).getId();
+            batch.add(entity);
+            if (batch.size() == 10000) {
+                manager.addTravelEntities(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        manager.addTravelEntities(batch);
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        return flights + " flights, " + hotels + " hotels, " + cars + " cars x" + capacity + " (seed " + seed + ")";
+    }
+}
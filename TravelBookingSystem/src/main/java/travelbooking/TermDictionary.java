@@ -0,0 +1,277 @@
+package travelbooking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable dictionary of search terms (city, airline and entity names) for autocomplete and
+ * typo correction. Keys are kept sorted, so every prefix is one contiguous range: the sorted array
+ * is the trie, with a node's children found by binary search instead of stored pointers, which
+ * keeps hundreds of thousands of terms in a few flat arrays.
+ *
+ * Completion finds a prefix's range and takes its heaviest terms from a max-by-weight segment tree,
+ * so it costs O(limit * log n) however many terms share the prefix. Fuzzy lookups walk the implicit
+ * trie with one edit-distance row per depth (a Levenshtein automaton run on the fly) and prune any
+ * branch whose row has no cell within the edit budget. Transpositions count as one edit.
+ */
+final class TermDictionary {
+    static final TermDictionary EMPTY = new TermDictionary(new String[0], new String[0], new int[0]);
+
+    // Fuzzy matches must get the first character right: typos there are rare, and it cuts the
+    // branches a lookup walks by the size of the alphabet
+    private static final int EXACT_PREFIX = 1;
+
+    private final String[] keys;     // lowercased, ascending
+    private final String[] displays; // original spelling, parallel to keys
+    private final int[] weights;     // number of entities using the term
+    private final int[] best;        // segment tree over key indexes: heaviest in each node's range
+    private final int maxKeyLength;
+
+    // keys must be ascending and distinct
+    TermDictionary(String[] keys, String[] displays, int[] weights) {
+        this.keys = keys;
+        this.displays = displays;
+        this.weights = weights;
+        int n = keys.length;
+        best = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            best[n + i] = i;
+        }
+        for (int node = n - 1; node > 0; node--) {
+            best[node] = heavier(best[2 * node], best[2 * node + 1]);
+        }
+        int longest = 0;
+        for (String key : keys) {
+            longest = Math.max(longest, key.length());
+        }
+        maxKeyLength = longest;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    // Edit budget for a typed word: none for short words, where one edit is a different word
+    static int maxEditsFor(int length) {
+        return length < 3 ? 0 : length < 6 ? 1 : 2;
+    }
+
+    // Up to limit terms starting with prefix (lowercase), most used first
+    public List<String> complete(String prefix, int limit) {
+        int lo = lowerBound(prefix);
+        int hi = prefixEnd(prefix, lo);
+        List<String> result = new ArrayList<>(Math.min(limit, hi - lo));
+        PriorityQueue<int[]> ranges = new PriorityQueue<>(this::compareRanges);
+        offer(ranges, lo, hi);
+        takeHeaviest(ranges, limit, result);
+        return result;
+    }
+
+    /**
+     * Up to limit terms within maxEdits of the word (lowercase), closest first and most used among
+     * equally close ones. With prefixMatch, a term also matches when it starts with something
+     * within maxEdits of the word, which is what autocomplete needs for a half-typed word.
+     */
+    public List<String> fuzzy(String word, int maxEdits, boolean prefixMatch, int limit) {
+        if (word.length() < EXACT_PREFIX || keys.length == 0) {
+            return new ArrayList<>();
+        }
+        String start = word.substring(0, EXACT_PREFIX);
+        int lo = lowerBound(start);
+        int hi = prefixEnd(start, lo);
+        if (lo == hi) {
+            return new ArrayList<>();
+        }
+        int m = word.length();
+        int[][] rows = new int[maxKeyLength + 1][m + 1];
+        for (int j = 0; j <= m; j++) {
+            rows[0][j] = j;
+        }
+        for (int depth = 0; depth < EXACT_PREFIX; depth++) {
+            advance(rows, depth, word, word.charAt(depth), depth == 0 ? 0 : word.charAt(depth - 1));
+        }
+        FuzzyWalk walk = new FuzzyWalk(word, maxEdits, prefixMatch, rows);
+        walk.visit(lo, hi, EXACT_PREFIX, prefixMatch ? rows[EXACT_PREFIX][m] : Integer.MAX_VALUE);
+
+        // Closest distance first; within a distance, heaviest first across all of its ranges
+        List<String> result = new ArrayList<>();
+        for (int distance = 0; distance <= maxEdits && result.size() < limit; distance++) {
+            PriorityQueue<int[]> ranges = new PriorityQueue<>(this::compareRanges);
+            for (int[] range : walk.found) {
+                if (range[2] == distance) {
+                    offer(ranges, range[0], range[1]);
+                }
+            }
+            takeHeaviest(ranges, limit, result);
+        }
+        return result;
+    }
+
+    // The original spelling of a lowercase key, or null if it is not in the dictionary
+    public String display(String key) {
+        int i = Arrays.binarySearch(keys, key);
+        return i >= 0 ? displays[i] : null;
+    }
+
+    // Pops the heaviest index of the heaviest range, then splits the range around it
+    private void takeHeaviest(PriorityQueue<int[]> ranges, int limit, List<String> result) {
+        while (result.size() < limit && !ranges.isEmpty()) {
+            int[] range = ranges.poll();
+            int top = range[2];
+            result.add(displays[top]);
+            offer(ranges, range[0], top);
+            offer(ranges, top + 1, range[1]);
+        }
+    }
+
+    // Ranges are {lo, hi, heaviest index in [lo, hi)}
+    private void offer(PriorityQueue<int[]> ranges, int lo, int hi) {
+        if (lo < hi) {
+            ranges.add(new int[]{lo, hi, heaviest(lo, hi)});
+        }
+    }
+
+    private int compareRanges(int[] a, int[] b) {
+        return a[2] == b[2] ? 0 : heavier(a[2], b[2]) == a[2] ? -1 : 1;
+    }
+
+    // Heaviest key index in [lo, hi)
+    private int heaviest(int lo, int hi) {
+        int n = keys.length;
+        int result = -1;
+        for (lo += n, hi += n; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                result = result < 0 ? best[lo] : heavier(result, best[lo]);
+                lo++;
+            }
+            if ((hi & 1) == 1) {
+                hi--;
+                result = result < 0 ? best[hi] : heavier(result, best[hi]);
+            }
+        }
+        return result;
+    }
+
+    // More used wins; between equals, the alphabetically first
+    private int heavier(int a, int b) {
+        if (weights[a] != weights[b]) {
+            return weights[a] > weights[b] ? a : b;
+        }
+        return Math.min(a, b);
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // End of the run of keys from lo that start with prefix
+    private int prefixEnd(String prefix, int lo) {
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].startsWith(prefix)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // rows[depth + 1] from rows[depth] for the next key character c (previous key character prev)
+    private static void advance(int[][] rows, int depth, String word, char c, char prev) {
+        int[] above = rows[depth];
+        int[] row = rows[depth + 1];
+        row[0] = depth + 1;
+        for (int j = 1; j < row.length; j++) {
+            int cost = word.charAt(j - 1) == c ? 0 : 1;
+            int value = Math.min(Math.min(above[j] + 1, row[j - 1] + 1), above[j - 1] + cost);
+            if (depth > 0 && j > 1 && c == word.charAt(j - 2) && prev == word.charAt(j - 1)) {
+                value = Math.min(value, rows[depth - 1][j - 2] + 1);
+            }
+            row[j] = value;
+        }
+    }
+
+    private static int min(int[] row) {
+        int min = row[0];
+        for (int value : row) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    // Depth-first walk of the implicit trie; collects {lo, hi, distance} ranges of matching keys
+    private final class FuzzyWalk {
+        final String word;
+        final int maxEdits;
+        final boolean prefixMatch;
+        final int[][] rows;
+        final List<int[]> found = new ArrayList<>();
+
+        FuzzyWalk(String word, int maxEdits, boolean prefixMatch, int[][] rows) {
+            this.word = word;
+            this.maxEdits = maxEdits;
+            this.prefixMatch = prefixMatch;
+            this.rows = rows;
+        }
+
+        // keys[lo, hi) share their first depth characters, whose row is rows[depth]; closest is the
+        // best distance of any prefix on the way here (prefix matching only)
+        void visit(int lo, int hi, int depth, int closest) {
+            int[] row = rows[depth];
+            int whole = row[word.length()];
+            char prev = depth > 0 ? keys[lo].charAt(depth - 1) : 0;
+            if (prefixMatch) {
+                closest = Math.min(closest, whole);
+                if (closest <= maxEdits && min(row) >= closest) {
+                    found.add(new int[]{lo, hi, closest}); // nothing deeper can get any closer
+                    return;
+                }
+            }
+            if (keys[lo].length() == depth) {
+                int distance = prefixMatch ? closest : whole;
+                if (distance <= maxEdits) {
+                    found.add(new int[]{lo, lo + 1, distance});
+                }
+                lo++;
+            }
+            if (min(row) > maxEdits) {
+                return;
+            }
+            while (lo < hi) {
+                char c = keys[lo].charAt(depth);
+                int end = childEnd(lo, hi, depth, c);
+                advance(rows, depth, word, c, prev);
+                visit(lo, end, depth + 1, closest);
+                lo = end;
+            }
+        }
+
+        // End of the run of keys from lo whose character at depth is c
+        private int childEnd(int lo, int hi, int depth, char c) {
+            int from = lo + 1;
+            while (from < hi) {
+                int mid = (from + hi) >>> 1;
+                if (keys[mid].charAt(depth) == c) {
+                    from = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return from;
+        }
+    }
+}
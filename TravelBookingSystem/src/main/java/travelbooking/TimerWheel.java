@@ -0,0 +1,176 @@
+package travelbooking;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel: a ring of buckets, each an intrusive list of timeouts, advanced by one
+ * thread every tick. A timeout lands in the bucket its deadline hashes to, with a count of whole
+ * turns still to wait. Scheduling and cancelling are queue appends, and a tick only touches one
+ * bucket, so millions of pending timeouts cost the list links they carry and no CPU until they fall
+ * due. Deadlines are rounded up to the tick, so a timeout fires up to one tick late, never early.
+ *
+ * The worker thread starts with the first schedule call.
+ */
+class TimerWheel<T extends TimerWheel.Timeout> {
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Consumer<T> onExpiry;
+    private final String threadName;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean stopped;
+    private volatile long startNanos;
+    private Thread worker;
+    private long tick; // owned by the worker
+
+    public TimerWheel(long tickDuration, TimeUnit unit, int buckets, String threadName, Consumer<T> onExpiry) {
+        if (Integer.bitCount(buckets) != 1) {
+            throw new IllegalArgumentException("Bucket count must be a power of two");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = buckets - 1;
+        this.threadName = threadName;
+        this.onExpiry = onExpiry;
+    }
+
+    // Fires onExpiry for the timeout after the delay, unless it is cancelled first
+    public void schedule(T timeout, long delay, TimeUnit unit) {
+        start();
+        Timeout entry = timeout;
+        entry.deadline = System.nanoTime() - startNanos + unit.toNanos(delay);
+        scheduled.add(entry);
+    }
+
+    // Unlinks a timeout that will no longer expire; onExpiry may still run if it is already due
+    public void cancel(T timeout) {
+        cancelled.add(timeout);
+    }
+
+    public void stop() {
+        stopped = true;
+        Thread worker = this.worker;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void start() {
+        if (!started.get() && started.compareAndSet(false, true)) {
+            startNanos = System.nanoTime();
+            Thread t = new Thread(this::run, threadName);
+            t.setDaemon(true);
+            worker = t;
+            t.start();
+        }
+        while (startNanos == 0) {
+            Thread.yield(); // another caller is starting the worker
+        }
+    }
+
+    private void run() {
+        while (!stopped) {
+            long sleepNanos = tickNanos * (tick + 1) - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    continue; // stop() interrupts; the loop condition decides
+                }
+                continue;
+            }
+            placeScheduled();
+            unlinkCancelled();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void placeScheduled() {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            long dueTick = Math.max((timeout.deadline + tickNanos - 1) / tickNanos, tick);
+            timeout.rounds = (dueTick - tick) / wheel.length;
+            wheel[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    private void unlinkCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds <= 0) {
+                bucket.remove(timeout);
+                try {
+                    onExpiry.accept((T) timeout);
+                } catch (RuntimeException e) {
+                    e.printStackTrace(); // one bad timeout must not stop the wheel
+                }
+            } else {
+                timeout.rounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    // Base class for anything the wheel can expire; the links live in the object itself
+    abstract static class Timeout {
+        private long deadline;
+        private long rounds;
+        private Timeout next;
+        private Timeout prev;
+        private Bucket bucket;
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,767 @@
+package travelbooking;
+
+import javax.management.JMException;
+import javax.swing.*;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Main GUI Class
+public class TravelBookingSystem {
+    private BookingManager manager;
+    private JTable dataTable;
+    private EntityTableModel tableModel;
+    private JTextField searchField;
+    private JComboBox<String> filterComboBox;
+    private JComboBox<String> sortComboBox;
+    private JFrame frame;
+    private Timer searchDebounce;
+    private QueryWorker currentQuery;
+    private Timer suggestDebounce;
+    private SuggestWorker currentSuggest;
+    private JPopupMenu suggestionPopup;
+    private boolean applyingSuggestion;
+
+    // Delay after the last keystroke before a search runs
+    private static final int SEARCH_DEBOUNCE_MS = 250;
+    // Suggestions are cheap, so they follow typing much more closely
+    private static final int SUGGEST_DEBOUNCE_MS = 60;
+    private static final int SUGGESTION_COUNT = 8;
+    // Rows shown for a sorted view; ranking stops once it has this many
+    private static final int RANKED_ROW_LIMIT = 500;
+    // Search results reach the table in chunks of this many rows, so the first rows paint at once
+    private static final int RESULT_CHUNK_SIZE = 2000;
+    private static final String CATALOG_ORDER = "Catalog order";
+
+    // Column names for the table
+    private final String[] COLUMN_NAMES = {
+            "ID", "Name", "Type", "Details", "Route/Rating", "Time",
+            "Available", "Base Price", "Final Price", "Status"
+    };
+
+    public TravelBookingSystem() {
+        // -Dtravel.store=columnar keeps the catalog in primitive columns instead of an object per item
+        manager = new BookingManager(BookingManager.Storage.valueOf(
+                System.getProperty("travel.store", "objects").toUpperCase(Locale.ROOT)));
+        try {
+            manager.getMetrics().registerMBean("gui");
+        } catch (JMException e) {
+            System.err.println("Metrics are not published over JMX: " + e);
+        }
+        // -Dtravel.metricsInterval=<seconds> also prints latency tables to stdout
+        int metricsSeconds = Integer.getInteger("travel.metricsInterval", 0);
+        if (metricsSeconds > 0) {
+            manager.getMetrics().scheduleDump(metricsSeconds, TimeUnit.SECONDS, System.out);
+        }
+        openJournal();
+        if (manager.getEntityView().isEmpty()) {
+            String importFile = System.getProperty("travel.importFile");
+            if (importFile != null) {
+                importInventory(importFile);
+            } else {
+                initializeSampleData(manager);
+            }
+        }
+        initializeGUI();
+        manager.addInventoryListener(events -> {
+            // Runs on the publisher's "inventory-events" thread, not the event thread: the snapshot is
+            // published here, after the batch's counts changed, so the repaint queued below shows
+            // counts at least as new as the events
+            InventorySnapshot snapshot = manager.publishSnapshot();
+            SwingUtilities.invokeLater(() -> inventoryChanged(events, snapshot));
+        });
+    }
+
+    // Applies a batch of capacity changes to the rows on screen instead of re-running the query
+    private void inventoryChanged(List<InventoryEvent> events, InventorySnapshot snapshot) {
+        tableModel.setSnapshot(snapshot);
+        if ("Available".equals(filterComboBox.getSelectedItem())) {
+            for (InventoryEvent event : events) {
+                if (event.isAvailabilityChanged()) {
+                    filterTable(); // an item entered or left the filtered set
+                    return;
+                }
+            }
+        }
+        tableModel.rowsChanged(events);
+    }
+
+    // Persists bookings across restarts when started with -Dtravel.dataDir=<directory>
+    private void openJournal() {
+        String dataDir = System.getProperty("travel.dataDir");
+        if (dataDir == null) {
+            return;
+        }
+        try {
+            BookingJournal journal = BookingJournal.open(Paths.get(dataDir), manager, true);
+            for (String problem : journal.getRecoveryProblems()) {
+                System.err.println("Journal recovery: " + problem);
+            }
+            journal.scheduleSnapshots(5, TimeUnit.MINUTES);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Loads a supplier feed given with -Dtravel.importFile=<csv or binary file>
+    private void importInventory(String importFile) {
+        try {
+            InventoryImporter.ImportResult result = new InventoryImporter(manager).importFile(Paths.get(importFile));
+            System.out.println(result);
+            for (String error : result.getErrors()) {
+                System.err.println("Rejected " + error);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    static void initializeSampleData(BookingManager manager) {
+        // Create sample flights
+        Flight flight1 = new Flight("F001", "AI-101", 200.0, "Air India",
+                "Delhi", "Mumbai", "10:00 AM", 5);
+        Flight flight2 = new Flight("F002", "SG-202", 150.0, "SpiceJet",
+                "Mumbai", "Bangalore", "02:30 PM", 0);
+
+        // Create sample hotels
+        Hotel hotel1 = new Hotel("H001", "Taj Hotel", 100.0, "Mumbai", 3, 5);
+        Hotel hotel2 = new Hotel("H002", "Ibis Hotel", 50.0, "Delhi", 2, 3);
+        Hotel hotel3 = new Hotel("H003", "Grand Plaza", 80.0, "Bangalore", 4, 4);
+
+        // Create sample car rentals
+        CarRental car1 = new CarRental("C001", "Toyota Innova", 40.0, "SUV", 2);
+        CarRental car2 = new CarRental("C002", "Mercedes E-Class", 80.0, "Luxury", 1);
+        CarRental car3 = new CarRental("C003", "Honda City", 30.0, "Sedan", 3);
+
+        // Add all to manager
+        manager.addTravelEntity(flight1);
+        manager.addTravelEntity(flight2);
+        manager.addTravelEntity(hotel1);
+        manager.addTravelEntity(hotel2);
+        manager.addTravelEntity(hotel3);
+        manager.addTravelEntity(car1);
+        manager.addTravelEntity(car2);
+        manager.addTravelEntity(car3);
+    }
+
+    private void initializeGUI() {
+        frame = new JFrame("Travel Booking System");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(1000, 600);
+        frame.setLocationRelativeTo(null);
+
+        // Create main panel with border layout
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        // Create header
+        JLabel headerLabel = new JLabel("Travel Booking System", JLabel.CENTER);
+        headerLabel.setFont(new Font("Arial", Font.BOLD, 24));
+        headerLabel.setForeground(new Color(0, 100, 200));
+        mainPanel.add(headerLabel, BorderLayout.NORTH);
+
+        // Create control panel
+        JPanel controlPanel = createControlPanel();
+        mainPanel.add(controlPanel, BorderLayout.CENTER);
+
+        frame.add(mainPanel);
+    }
+
+    private JPanel createControlPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+
+        // Create search and filter panel
+        JPanel topPanel = createTopPanel();
+        panel.add(topPanel, BorderLayout.NORTH);
+
+        // Create table
+        createTable();
+        JScrollPane scrollPane = new JScrollPane(dataTable);
+        panel.add(scrollPane, BorderLayout.CENTER);
+
+        // Create button panel
+        JPanel buttonPanel = createButtonPanel();
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+
+        return panel;
+    }
+
+    private JPanel createTopPanel() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+        // Search field
+        panel.add(new JLabel("Search:"));
+        searchField = new JTextField(15);
+        searchField.addActionListener(e -> {
+            suggestDebounce.stop();
+            suggestionPopup.setVisible(false);
+            filterTable();
+        });
+        searchDebounce = new Timer(SEARCH_DEBOUNCE_MS, e -> filterTable());
+        searchDebounce.setRepeats(false);
+        suggestDebounce = new Timer(SUGGEST_DEBOUNCE_MS, e -> showSuggestions());
+        suggestDebounce.setRepeats(false);
+        suggestionPopup = new JPopupMenu();
+        suggestionPopup.setFocusable(false); // typing stays in the search field
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { searchTextChanged(); }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) { searchTextChanged(); }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) { searchTextChanged(); }
+        });
+        panel.add(searchField);
+
+        // Filter combo box
+        panel.add(new JLabel("Filter:"));
+        filterComboBox = new JComboBox<>(new String[]{"All", "Available", "Flights", "Hotels", "Car Rentals"});
+        filterComboBox.addActionListener(e -> filterTable());
+        panel.add(filterComboBox);
+
+        // Sort combo box
+        panel.add(new JLabel("Sort:"));
+        sortComboBox = new JComboBox<>(new String[]{CATALOG_ORDER, "Cheapest first", "Most expensive first", "Best rated"});
+        sortComboBox.addActionListener(e -> filterTable());
+        panel.add(sortComboBox);
+
+        // Refresh button
+        JButton refreshBtn = new JButton("Refresh");
+        refreshBtn.addActionListener(e -> refreshTable());
+        panel.add(refreshBtn);
+
+        return panel;
+    }
+
+    private void createTable() {
+        tableModel = new EntityTableModel(COLUMN_NAMES);
+
+        dataTable = new JTable(tableModel);
+        dataTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        dataTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 12));
+        dataTable.setRowHeight(25);
+        dataTable.setFont(new Font("Arial", Font.PLAIN, 12));
+
+        // Set column widths
+        dataTable.getColumnModel().getColumn(0).setPreferredWidth(60); // ID
+        dataTable.getColumnModel().getColumn(1).setPreferredWidth(120); // Name
+        dataTable.getColumnModel().getColumn(2).setPreferredWidth(80); // Type
+        dataTable.getColumnModel().getColumn(3).setPreferredWidth(120); // Details
+        dataTable.getColumnModel().getColumn(4).setPreferredWidth(100); // Route/Rating
+        dataTable.getColumnModel().getColumn(5).setPreferredWidth(80); // Time
+        dataTable.getColumnModel().getColumn(6).setPreferredWidth(70); // Available
+        dataTable.getColumnModel().getColumn(7).setPreferredWidth(80); // Base Price
+        dataTable.getColumnModel().getColumn(8).setPreferredWidth(80); // Final Price
+        dataTable.getColumnModel().getColumn(9).setPreferredWidth(60); // Status
+
+        refreshTable();
+    }
+
+    private JPanel createButtonPanel() {
+        JPanel panel = new JPanel(new FlowLayout());
+
+        // Book button
+        JButton bookBtn = new JButton("Book Selected");
+        bookBtn.setBackground(new Color(50, 150, 50));
+        bookBtn.setForeground(Color.WHITE);
+        bookBtn.addActionListener(e -> bookSelectedItem());
+        panel.add(bookBtn);
+
+        // Cancel button
+        JButton cancelBtn = new JButton("Cancel Booking");
+        cancelBtn.setBackground(new Color(200, 50, 50));
+        cancelBtn.setForeground(Color.WHITE);
+        cancelBtn.addActionListener(e -> cancelSelectedBooking());
+        panel.add(cancelBtn);
+
+        // View All button
+        JButton viewAllBtn = new JButton("View All");
+        viewAllBtn.addActionListener(e -> showAllItems());
+        panel.add(viewAllBtn);
+
+        // View Available button
+        JButton viewAvailableBtn = new JButton("View Available");
+        viewAvailableBtn.addActionListener(e -> showAvailableItems());
+        panel.add(viewAvailableBtn);
+
+        // View Bookings button
+        JButton viewBookingsBtn = new JButton("View Bookings");
+        viewBookingsBtn.addActionListener(e -> showBookings());
+        panel.add(viewBookingsBtn);
+
+        // Analytics button
+        JButton analyticsBtn = new JButton("Analytics");
+        analyticsBtn.addActionListener(e -> showAnalytics());
+        panel.add(analyticsBtn);
+
+        // Exit button
+        JButton exitBtn = new JButton("Exit");
+        exitBtn.addActionListener(e -> System.exit(0));
+        panel.add(exitBtn);
+
+        return panel;
+    }
+
+    private void refreshTable() {
+        runQuery("", "All", CATALOG_ORDER);
+    }
+
+    private void searchTextChanged() {
+        searchDebounce.restart();
+        if (applyingSuggestion) {
+            return;
+        }
+        suggestDebounce.restart();
+    }
+
+    // Completes the last word typed; the popup lists city, airline and entity names, near misses included
+    private void showSuggestions() {
+        if (currentSuggest != null) {
+            currentSuggest.cancel(true);
+        }
+        String text = searchField.getText();
+        int lastSpace = text.lastIndexOf(' ');
+        String word = text.substring(lastSpace + 1);
+        if (word.isEmpty()) {
+            suggestionPopup.setVisible(false);
+            return;
+        }
+        currentSuggest = new SuggestWorker(text.substring(0, lastSpace + 1), word);
+        currentSuggest.execute();
+    }
+
+    private void applySuggestion(String text) {
+        suggestionPopup.setVisible(false);
+        applyingSuggestion = true;
+        try {
+            searchField.setText(text);
+        } finally {
+            applyingSuggestion = false;
+        }
+        filterTable();
+    }
+
+    // Off the event thread: the first lookup after new inventory rebuilds the term dictionary
+    private class SuggestWorker extends SwingWorker<List<String>, Void> {
+        private final String head;
+        private final String word;
+
+        SuggestWorker(String head, String word) {
+            this.head = head;
+            this.word = word;
+        }
+
+        @Override
+        protected List<String> doInBackground() {
+            return manager.suggest(word, SUGGESTION_COUNT);
+        }
+
+        @Override
+        protected void done() {
+            if (this != currentSuggest || isCancelled()) {
+                return;
+            }
+            currentSuggest = null;
+            List<String> suggestions;
+            try {
+                suggestions = get();
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+                return;
+            }
+            suggestionPopup.setVisible(false);
+            suggestionPopup.removeAll();
+            if (suggestions.isEmpty() || !searchField.isFocusOwner()) {
+                return;
+            }
+            for (String suggestion : suggestions) {
+                JMenuItem item = new JMenuItem(suggestion);
+                item.addActionListener(e -> applySuggestion(head + suggestion));
+                suggestionPopup.add(item);
+            }
+            suggestionPopup.show(searchField, 0, searchField.getHeight());
+        }
+    }
+
+    private void filterTable() {
+        runQuery(searchField.getText(), (String) filterComboBox.getSelectedItem(), (String) sortComboBox.getSelectedItem());
+    }
+
+    // Runs a search off the event thread; starting a new one cancels any stale one still running
+    private void runQuery(String searchText, String filterType, String sort) {
+        cancelQuery();
+        currentQuery = new QueryWorker(searchText, filterType, sort);
+        currentQuery.execute();
+    }
+
+    private void cancelQuery() {
+        searchDebounce.stop();
+        if (currentQuery != null) {
+            currentQuery.cancel(true);
+            currentQuery = null;
+        }
+    }
+
+    // Item type for a filter choice, or null when the filter does not narrow by type
+    private static String filterItemType(String filterType) {
+        if (filterType == null) {
+            return null;
+        }
+        switch (filterType) {
+            case "Flights": return "Flight";
+            case "Hotels": return "Hotel";
+            case "Car Rentals": return "Car Rental";
+            default: return null;
+        }
+    }
+
+    // Ranking for a sort choice, or null to keep catalog order
+    private static RankedQuery.Order sortOrder(String sort) {
+        if (sort == null) {
+            return null;
+        }
+        switch (sort) {
+            case "Cheapest first": return RankedQuery.Order.CHEAPEST;
+            case "Most expensive first": return RankedQuery.Order.MOST_EXPENSIVE;
+            case "Best rated": return RankedQuery.Order.BEST_RATED;
+            default: return null;
+        }
+    }
+
+    // Background search; type and availability filters come straight from the manager's bitset
+    // indexes, and sorted views from its ranked query. The result is handed to the table in chunks:
+    // the first chunk replaces the rows on screen, later ones extend them, and a superseded worker's
+    // chunks are dropped.
+    private class QueryWorker extends SwingWorker<Void, Integer> {
+        private final String searchText;
+        private final String filterType;
+        private final String sort;
+        private InventorySnapshot snapshot;
+        private List<Displayable> result;
+        private boolean shownFirstChunk;
+
+        QueryWorker(String searchText, String filterType, String sort) {
+            this.searchText = searchText;
+            this.filterType = filterType;
+            this.sort = sort;
+        }
+
+        @Override
+        protected Void doInBackground() {
+            snapshot = manager.publishSnapshot();
+            result = query();
+            int size = result.size();
+            for (int end = Math.min(RESULT_CHUNK_SIZE, size); ; end = Math.min(end + RESULT_CHUNK_SIZE, size)) {
+                if (isCancelled()) {
+                    return null;
+                }
+                // Resolve the chunk's entities here rather than while the event thread paints them
+                for (int i = Math.max(0, end - RESULT_CHUNK_SIZE); i < end; i++) {
+                    result.get(i);
+                }
+                publish(end);
+                if (end == size) {
+                    return null;
+                }
+            }
+        }
+
+        private List<Displayable> query() {
+            RankedQuery.Order order = sortOrder(sort);
+            if (order == null) {
+                return manager.search(searchText, filterItemType(filterType), "Available".equals(filterType));
+            }
+            RankedQuery query = new RankedQuery(order, RANKED_ROW_LIMIT).type(filterItemType(filterType)).text(searchText);
+            if ("Available".equals(filterType)) {
+                query.availableOnly();
+            }
+            return manager.findRanked(query);
+        }
+
+        @Override
+        protected void process(List<Integer> chunkEnds) {
+            if (this != currentQuery || isCancelled()) {
+                return; // superseded by a newer query
+            }
+            int shown = chunkEnds.get(chunkEnds.size() - 1);
+            if (shownFirstChunk) {
+                tableModel.showRows(shown);
+            } else {
+                shownFirstChunk = true;
+                tableModel.setRows(result, snapshot, shown);
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (this != currentQuery || isCancelled()) {
+                return;
+            }
+            currentQuery = null;
+            try {
+                get();
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+                return;
+            }
+            // Chunks still queued for process are dropped from here on, so show whatever they held
+            if (shownFirstChunk) {
+                tableModel.showRows(result.size());
+            } else {
+                tableModel.setRows(result, snapshot);
+            }
+        }
+    }
+
+    private void bookSelectedItem() {
+        int selectedRow = dataTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(frame, "Please select an item to book.", "No Selection", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        Displayable selected = tableModel.getEntityAt(selectedRow);
+        String id = selected instanceof BookingRow
+                ? ((BookingRow) selected).getBooking().getItemId()
+                : (String) tableModel.getValueAt(selectedRow, 0);
+        String name = (String) tableModel.getValueAt(selectedRow, 1);
+
+        int confirm = JOptionPane.showConfirmDialog(frame,
+                "Are you sure you want to book: " + name + "?",
+                "Confirm Booking", JOptionPane.YES_NO_OPTION);
+
+        if (confirm == JOptionPane.YES_OPTION) {
+            new BookWorker(id, name).execute();
+        }
+    }
+
+    // Off the event thread: with a journal, a booking returns only once its record is on disk
+    private class BookWorker extends SwingWorker<Booking, Void> {
+        private final String id;
+        private final String name;
+
+        BookWorker(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        protected Booking doInBackground() {
+            return manager.book(id, 1);
+        }
+
+        @Override
+        protected void done() {
+            Booking booking;
+            try {
+                booking = get();
+            } catch (InterruptedException | ExecutionException e) {
+                JOptionPane.showMessageDialog(frame, "Booking failed: " + failureMessage(e), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            Bookable item = manager.findBookableById(id);
+            if (booking != null) {
+                JOptionPane.showMessageDialog(frame, "Booking successful for: " + name + "\nReference: " + booking.getReference(), "Success", JOptionPane.INFORMATION_MESSAGE);
+            } else if (item != null && item.getCapacity() >= 1) {
+                offerWaitlist(id, name);
+            } else if (item != null) {
+                JOptionPane.showMessageDialog(frame, name + " has no units to book or wait for.", "Not Bookable", JOptionPane.ERROR_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(frame, "Booking failed! Item may not be available.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    // What went wrong in a background action, e.g. a journal that can no longer write
+    private static String failureMessage(Exception e) {
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
+
+    // Sold out: offer a place on the item's waitlist, and report back once it turns into a booking
+    private void offerWaitlist(String id, String name) {
+        int join = JOptionPane.showConfirmDialog(frame,
+                name + " is sold out. Join the waitlist? You will be booked automatically when a unit frees up.",
+                "Sold Out", JOptionPane.YES_NO_OPTION);
+        if (join != JOptionPane.YES_OPTION) {
+            return;
+        }
+        WaitlistEntry entry;
+        try {
+            entry = manager.joinWaitlist(id, 1, 0);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(frame, e.getMessage(), "Waitlist", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (entry == null) {
+            JOptionPane.showMessageDialog(frame, name + " is no longer in the catalog.", "Waitlist", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        entry.getResult().thenAccept(booking -> {
+            if (booking != null) {
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(frame,
+                        "A unit of " + name + " freed up and is now booked for you.\nReference: " + booking.getReference(),
+                        "Waitlist", JOptionPane.INFORMATION_MESSAGE));
+            }
+        });
+        int position = manager.getWaitlistPosition(entry);
+        if (position > 0) {
+            JOptionPane.showMessageDialog(frame, "You are number " + position + " on the waitlist for " + name
+                    + ".\nReference: " + entry.getReference(), "Waitlist", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    private void cancelSelectedBooking() {
+        int selectedRow = dataTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(frame, "Please select a booking to cancel.", "No Selection", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        String reference = selectedBookingReference(selectedRow);
+        if (reference == null) {
+            return;
+        }
+        String name = (String) tableModel.getValueAt(selectedRow, 1);
+
+        int confirm = JOptionPane.showConfirmDialog(frame,
+                "Are you sure you want to cancel booking " + reference + " for: " + name + "?",
+                "Confirm Cancellation", JOptionPane.YES_NO_OPTION);
+
+        if (confirm == JOptionPane.YES_OPTION) {
+            boolean bookingsView = tableModel.getEntityAt(selectedRow) instanceof BookingRow;
+            new CancelWorker(reference, name, bookingsView).execute();
+        }
+    }
+
+    // Off the event thread for the same reason as BookWorker
+    private class CancelWorker extends SwingWorker<Boolean, Void> {
+        private final String reference;
+        private final String name;
+        private final boolean bookingsView;
+
+        CancelWorker(String reference, String name, boolean bookingsView) {
+            this.reference = reference;
+            this.name = name;
+            this.bookingsView = bookingsView;
+        }
+
+        @Override
+        protected Boolean doInBackground() {
+            return manager.cancelByReference(reference);
+        }
+
+        @Override
+        protected void done() {
+            boolean cancelled;
+            try {
+                cancelled = get();
+            } catch (InterruptedException | ExecutionException e) {
+                JOptionPane.showMessageDialog(frame, "Cancellation failed: " + failureMessage(e), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (cancelled) {
+                JOptionPane.showMessageDialog(frame, "Booking " + reference + " cancelled for: " + name, "Success", JOptionPane.INFORMATION_MESSAGE);
+                if (bookingsView) {
+                    showBookings();
+                }
+            } else {
+                JOptionPane.showMessageDialog(frame, "Cancellation failed! Booking not found.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    // Rows in the bookings view carry their own reference; a catalog row may have several
+    // bookings against it, so the user picks which one. Returns null if there is nothing to cancel.
+    private String selectedBookingReference(int row) {
+        Displayable selected = tableModel.getEntityAt(row);
+        if (selected instanceof BookingRow) {
+            return ((BookingRow) selected).getBooking().getReference();
+        }
+        String id = (String) tableModel.getValueAt(row, 0);
+        List<String> references = new ArrayList<>();
+        for (Booking booking : manager.getBookingsForItem(id)) {
+            references.add(booking.getReference());
+        }
+        if (references.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "No active bookings for: " + id, "Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+        if (references.size() == 1) {
+            return references.get(0);
+        }
+        Object choice = JOptionPane.showInputDialog(frame, "Which booking of " + id + " should be cancelled?",
+                "Choose Booking", JOptionPane.QUESTION_MESSAGE, null, references.toArray(), references.get(0));
+        return choice == null ? null : (String) choice;
+    }
+
+    private void showAllItems() {
+        filterComboBox.setSelectedItem("All");
+        searchField.setText("");
+        refreshTable();
+    }
+
+    private void showAvailableItems() {
+        filterComboBox.setSelectedItem("Available");
+    }
+
+    private void showBookings() {
+        cancelQuery();
+        Collection<Booking> bookings = manager.publishSnapshot().getBookings();
+        List<Displayable> rows = new ArrayList<>();
+
+        if (bookings.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "No active bookings found.", "Bookings", JOptionPane.INFORMATION_MESSAGE);
+        } else {
+            for (Booking booking : bookings) {
+                rows.add(new BookingRow(booking));
+            }
+        }
+        tableModel.setRows(rows);
+    }
+
+    // Revenue and occupancy so far; read straight from the running totals, so it opens instantly
+    private void showAnalytics() {
+        JTextArea report = new JTextArea(manager.getAnalytics().report());
+        report.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        report.setEditable(false);
+        JScrollPane scroll = new JScrollPane(report);
+        scroll.setPreferredSize(new Dimension(900, 500));
+        JOptionPane.showMessageDialog(frame, scroll, "Revenue and Occupancy", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    public void show() {
+        frame.setVisible(true);
+    }
+
+    public static void main(String[] args) {
+        // Set system look and feel
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        // Create and show GUI
+        SwingUtilities.invokeLater(() -> {
+            TravelBookingSystem gui = new TravelBookingSystem();
+            gui.show();
+        });
+    }
+}
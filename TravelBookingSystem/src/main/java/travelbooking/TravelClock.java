@@ -0,0 +1,56 @@
+package travelbooking;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+
+// The one "today" shared by pricing and the inventory calendar: the date in the clock's time zone
+// (the system zone by default). The current day's bounds are cached, so asking for today on every
+// price is a clock read and two compares; the zone rules are only consulted once a day.
+final class TravelClock {
+    private static volatile Clock clock = Clock.systemDefaultZone();
+    private static volatile Day current = Day.of(clock);
+
+    private TravelClock() {
+    }
+
+    // For deployments that book in another zone than the host's, and for tests
+    public static void setClock(Clock newClock) {
+        clock = newClock;
+        current = Day.of(newClock);
+    }
+
+    public static LocalDate today() {
+        return LocalDate.ofEpochDay(todayEpochDay());
+    }
+
+    public static long todayEpochDay() {
+        Clock clock = TravelClock.clock;
+        long now = clock.millis();
+        Day day = current;
+        if (day.clock != clock || now < day.startMillis || now >= day.endMillis) {
+            day = Day.of(clock);
+            current = day;
+        }
+        return day.epochDay;
+    }
+
+    // A calendar date and the instants it covers in one clock's zone
+    private static final class Day {
+        final Clock clock;
+        final long epochDay;
+        final long startMillis;
+        final long endMillis;
+
+        private Day(Clock clock, LocalDate date) {
+            this.clock = clock;
+            this.epochDay = date.toEpochDay();
+            this.startMillis = date.atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+            this.endMillis = date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        }
+
+        static Day of(Clock clock) {
+            return new Day(clock, Instant.ofEpochMilli(clock.millis()).atZone(clock.getZone()).toLocalDate());
+        }
+    }
+}
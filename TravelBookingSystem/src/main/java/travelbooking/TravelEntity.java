@@ -0,0 +1,45 @@
+package travelbooking;
+
+// Abstract base class for all travel entities
+abstract class TravelEntity implements Displayable, Priceable {
+    protected String id;
+    protected String name;
+    protected double basePrice;
+    volatile PricingEngine.Quote priceCache; // maintained by PricingEngine
+
+    public TravelEntity(String id, String name, double basePrice) {
+        this.id = id;
+        this.name = name;
+        this.basePrice = basePrice;
+    }
+
+    // Swaps repeated attribute values for the dictionary's shared instances; called once, when a
+    // BookingManager registers the entity and before it is visible to other threads
+    void shareValues(CatalogDictionary dictionary) {
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public double getBasePrice() { return basePrice; }
+
+    // Attribute that pricing rules can target, e.g. a car type; empty if the entity has none
+    @Override
+    public String getCategory() { return ""; }
+
+    @Override
+    public int getRating() { return 0; }
+
+    public static final int COLUMN_COUNT = 10;
+
+    @Override
+    public abstract String getDisplayValue(int column);
+
+    @Override
+    public String[] getDisplayData() {
+        String[] row = new String[COLUMN_COUNT];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = getDisplayValue(i);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,248 @@
+package travelbooking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-item waitlists for sold-out items, promoted into bookings when capacity comes back.
+ * While an item has waiting entries, BookingManager refuses direct bookings, holds and packages
+ * that would take its units (see hasWaiting), so units freed in the meantime stay free until the
+ * promotion pass hands them to the line: nobody jumps the queue, at the cost of those units
+ * sitting idle for up to PROMOTE_BATCH_MILLIS.
+ *
+ * Freeing capacity only marks the item: the first mark after a quiet period schedules a promotion
+ * pass PROMOTE_BATCH_MILLIS later, on a single daemon thread, which works through every marked
+ * item. So a cancel costs one set insertion however long the waitlist, and a mass cancellation
+ * (a schedule change freeing hundreds of seats) is promoted in a few passes rather than one by
+ * one on the callers' threads. A pass books each item's entries in order until one does not fit;
+ * that entry holds the line, so a large request is never starved by smaller ones behind it.
+ * Promotions do not wait for the journal: each entry's result completes once its booking is durable.
+ *
+ * The queue's monitor is never held while booking: the head is taken off under the lock, booked
+ * outside it (the booking enters the manager's write gate, which a snapshot may be holding shut
+ * while bookers call hasWaiting), and put back if it did not fit. While it is out, it still counts
+ * as waiting and keeps its place, but cannot be withdrawn.
+ */
+class Waitlist {
+    public static final long PROMOTE_BATCH_MILLIS = 20;
+
+    // Books the entry if the item has room: the booking's future (completing once durable), or null if short
+    interface Promoter {
+        CompletableFuture<Booking> promote(WaitlistEntry entry);
+    }
+
+    private final Promoter promoter;
+    private final Map<String, ItemQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, WaitlistEntry> byReference = new ConcurrentHashMap<>();
+    private final Set<String> freed = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean passScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService promoterThread;
+
+    public Waitlist(Promoter promoter) {
+        this.promoter = promoter;
+        this.promoterThread = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "waitlist-promotion");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public WaitlistEntry join(String itemId, Bookable item, int quantity, int priority) {
+        long seq = sequence.incrementAndGet();
+        WaitlistEntry entry = new WaitlistEntry(String.format("WL%08d", seq), itemId, item, quantity, priority,
+                seq, System.currentTimeMillis());
+        while (true) {
+            ItemQueue queue = queues.computeIfAbsent(itemId, id -> new ItemQueue());
+            synchronized (queue) {
+                if (queue.retired) {
+                    continue; // emptied and dropped by a promotion pass; take the new one
+                }
+                byReference.put(entry.getReference(), entry);
+                queue.entries.add(entry);
+            }
+            break;
+        }
+        // Capacity may have come back between the failed booking and joining
+        capacityFreed(itemId);
+        return entry;
+    }
+
+    // False if the entry was already promoted, withdrawn or is unknown
+    public boolean withdraw(String reference) {
+        WaitlistEntry entry = byReference.get(reference);
+        if (entry == null) {
+            return false;
+        }
+        ItemQueue queue = queues.get(entry.getItemId());
+        if (queue == null) {
+            return false;
+        }
+        synchronized (queue) {
+            // The entry being booked right now is not in entries, so it cannot be withdrawn
+            if (!entry.isWaiting() || !queue.entries.remove(entry)) {
+                return false;
+            }
+            byReference.remove(reference);
+            entry.withdrawn();
+        }
+        // The entry may have been the one holding the line
+        capacityFreed(entry.getItemId());
+        return true;
+    }
+
+    public WaitlistEntry find(String reference) {
+        return byReference.get(reference);
+    }
+
+    // 1 for the next entry to be promoted; 0 once the entry is no longer waiting
+    public int position(WaitlistEntry entry) {
+        ItemQueue queue = queues.get(entry.getItemId());
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            if (!entry.isWaiting()) {
+                return 0;
+            }
+            if (entry == queue.promoting) {
+                return 1;
+            }
+            int ahead = queue.promoting != null ? 1 : 0;
+            for (WaitlistEntry other : queue.entries) {
+                if (other.compareTo(entry) < 0) {
+                    ahead++;
+                }
+            }
+            return ahead + 1;
+        }
+    }
+
+    // Waiting entries for the item, in promotion order
+    public List<WaitlistEntry> entriesFor(String itemId) {
+        ItemQueue queue = queues.get(itemId);
+        List<WaitlistEntry> entries = new ArrayList<>();
+        if (queue != null) {
+            synchronized (queue) {
+                if (queue.promoting != null) {
+                    entries.add(queue.promoting);
+                }
+                entries.addAll(queue.entries);
+            }
+        }
+        entries.sort(WaitlistEntry::compareTo);
+        return entries;
+    }
+
+    public int size() {
+        return byReference.size();
+    }
+
+    // True while entries wait for the item; one map lookup when nobody does
+    public boolean hasWaiting(String itemId) {
+        ItemQueue queue = queues.get(itemId);
+        if (queue == null) {
+            return false;
+        }
+        synchronized (queue) {
+            return queue.promoting != null || !queue.entries.isEmpty();
+        }
+    }
+
+    // Units of the item were just freed; costs one map lookup when nobody is waiting for it
+    public void capacityFreed(String itemId) {
+        if (!queues.containsKey(itemId)) {
+            return;
+        }
+        freed.add(itemId);
+        if (!passScheduled.get() && passScheduled.compareAndSet(false, true)) {
+            try {
+                promoterThread.schedule(this::promotionPass, PROMOTE_BATCH_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // closed; passScheduled stays set, so later frees skip straight past
+            }
+        }
+    }
+
+    private void promotionPass() {
+        // Cleared first: an item freed mid-pass schedules the next pass rather than being lost
+        passScheduled.set(false);
+        for (String itemId : freed) {
+            freed.remove(itemId);
+            try {
+                promote(itemId);
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // the other items still get their turn
+            }
+        }
+    }
+
+    // Books the item's entries in order until one does not fit. Runs on the promotion thread only,
+    // so at most one entry per item is out of its queue at a time.
+    private void promote(String itemId) {
+        ItemQueue queue = queues.get(itemId);
+        if (queue == null) {
+            return;
+        }
+        while (true) {
+            WaitlistEntry head;
+            synchronized (queue) {
+                head = queue.entries.poll();
+                if (head == null) {
+                    queue.retired = true;
+                    queues.remove(itemId, queue);
+                    return;
+                }
+                queue.promoting = head;
+            }
+            CompletableFuture<Booking> booked = null;
+            try {
+                booked = promoter.promote(head);
+            } finally {
+                synchronized (queue) {
+                    queue.promoting = null;
+                    if (booked == null) {
+                        queue.entries.add(head); // holds the line until it fits
+                    } else {
+                        byReference.remove(head.getReference());
+                        head.promoted();
+                    }
+                }
+            }
+            if (booked == null) {
+                return;
+            }
+            CompletableFuture<Booking> result = head.getResult();
+            booked.whenComplete((booking, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(booking);
+                }
+            });
+        }
+    }
+
+    // Stops promoting; entries still waiting stay on the list with their results incomplete
+    public void close() {
+        promoterThread.shutdownNow();
+    }
+
+    // One item's waiting entries; guarded by its own monitor
+    private static final class ItemQueue {
+        final PriorityQueue<WaitlistEntry> entries = new PriorityQueue<>(WaitlistEntry::compareTo);
+        WaitlistEntry promoting; // the head, taken out while it is being booked
+        boolean retired;
+    }
+}
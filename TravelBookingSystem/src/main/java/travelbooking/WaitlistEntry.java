@@ -0,0 +1,80 @@
+package travelbooking;
+
+import java.util.concurrent.CompletableFuture;
+
+// A request for units of a sold-out item, waiting for capacity to come back. Higher priority goes
+// first (a fare class or loyalty tier, say), then earlier sequence. State only changes under the
+// item's waitlist lock, so it needs no CAS.
+class WaitlistEntry {
+    static final int WAITING = 0;
+    static final int PROMOTED = 1;
+    static final int WITHDRAWN = 2;
+
+    private final String reference;
+    private final String itemId;
+    private final Bookable item;
+    private final int quantity;
+    private final int priority;
+    private final long sequence;
+    private final long joinedAt;
+    private final CompletableFuture<Booking> result = new CompletableFuture<>();
+    private volatile int state;
+
+    public WaitlistEntry(String reference, String itemId, Bookable item, int quantity, int priority,
+                         long sequence, long joinedAt) {
+        this.reference = reference;
+        this.itemId = itemId;
+        this.item = item;
+        this.quantity = quantity;
+        this.priority = priority;
+        this.sequence = sequence;
+        this.joinedAt = joinedAt;
+    }
+
+    public String getReference() { return reference; }
+    public String getItemId() { return itemId; }
+    public Bookable getItem() { return item; }
+    public int getQuantity() { return quantity; }
+    public int getPriority() { return priority; }
+    // Wall-clock time (epoch millis) the entry joined the waitlist
+    public long getJoinedAt() { return joinedAt; }
+
+    public boolean isWaiting() {
+        return state == WAITING;
+    }
+
+    public boolean isPromoted() {
+        return state == PROMOTED;
+    }
+
+    /**
+     * Completes with the booking once a promotion is durable, with null if the entry is withdrawn,
+     * or exceptionally if the booking could not be written. Completes on the promoter's or the
+     * journal's thread, so dependent actions should not block.
+     */
+    public CompletableFuture<Booking> getResult() {
+        return result;
+    }
+
+    // Promotion order: a negative value means this entry goes before other
+    int compareTo(WaitlistEntry other) {
+        if (priority != other.priority) {
+            return priority > other.priority ? -1 : 1;
+        }
+        return Long.compare(sequence, other.sequence);
+    }
+
+    void promoted() {
+        state = PROMOTED;
+    }
+
+    void withdrawn() {
+        state = WITHDRAWN;
+        result.complete(null);
+    }
+
+    @Override
+    public String toString() {
+        return reference + " [" + itemId + " x" + quantity + ", priority " + priority + "]";
+    }
+}
@@ -0,0 +1,86 @@
+package travelbooking;
+
+import java.util.Random;
+
+/**
+ * Zipf-distributed item indexes for load generation: rank r (from 0) is drawn with probability
+ * proportional to 1 / (r + 1)^theta, so a theta of 0.99 sends over two-fifths of all requests to the
+ * hottest 0.1% of a 100,000-item catalog. Uses Gray et al.'s closed-form inversion ("Quickly
+ * Generating Billion-Record Synthetic Databases"), so a draw is one random double and a pow, after
+ * an O(n) setup. Ranks are mapped to indexes through a seeded shuffle: otherwise the hot set would be
+ * the first items registered, all of one type and from one import batch.
+ */
+final class ZipfianGenerator {
+    private final int n;
+    private final double theta;
+    private final double alpha;
+    private final double zetaN;
+    private final double eta;
+    private final double secondThreshold; // 1 + 0.5^theta
+    private final int[] indexOfRank;
+
+    // Indexes 0 to n - 1; theta from 0 (uniform) up to, but excluding, 1
+    ZipfianGenerator(int n, double theta, long seed) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Item count must be positive: " + n);
+        }
+        if (theta < 0 || theta >= 1) {
+            throw new IllegalArgumentException("Zipf theta must be in [0, 1): " + theta);
+        }
+        this.n = n;
+        this.theta = theta;
+        this.alpha = 1.0 / (1.0 - theta);
+        this.zetaN = zeta(n, theta);
+        this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta(Math.min(n, 2), theta) / zetaN);
+        this.secondThreshold = 1 + Math.pow(0.5, theta);
+        indexOfRank = new int[n];
+        for (int i = 0; i < n; i++) {
+            indexOfRank[i] = i;
+        }
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = indexOfRank[i];
+            indexOfRank[i] = indexOfRank[j];
+            indexOfRank[j] = swap;
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    // Popularity rank of the next request, 0 being the hottest
+    public int nextRank(Random random) {
+        if (theta == 0) {
+            return random.nextInt(n);
+        }
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1) {
+            return 0;
+        }
+        if (uz < secondThreshold) {
+            return Math.min(1, n - 1);
+        }
+        return (int) Math.min(n - 1, (long) (n * Math.pow(eta * u - eta + 1, alpha)));
+    }
+
+    // Index of the item the next request is for
+    public int next(Random random) {
+        return indexOfRank[nextRank(random)];
+    }
+
+    // Index of the item with the given popularity rank
+    public int indexOfRank(int rank) {
+        return indexOfRank[rank];
+    }
+
+    private static double zeta(int n, double theta) {
+        double sum = 0;
+        for (int i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,126 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A package books every item or none of them, even with other packages racing for the same units
+class BookPackageTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    private BookingManager trip() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Goa", "08:00", 4),
+                new Hotel("H1", "Hotel", 100, "Goa", 3, 3),
+                new CarRental("C1", "Car", 50, "SUV", 2)));
+        return manager;
+    }
+
+    @Test
+    void bookingEveryItemReturnsOneBookingEach() {
+        BookingManager manager = trip();
+        List<Booking> bookings = manager.bookPackage(Arrays.asList("F1", "H1", "C1"), new int[] {2, 1, 1});
+        assertNotNull(bookings);
+        assertEquals(3, bookings.size());
+        assertEquals("F1", bookings.get(0).getItemId());
+        assertEquals(2, bookings.get(0).getQuantity());
+        assertEquals(2, manager.findBookableById("F1").getAvailableCount());
+        assertEquals(2, manager.findBookableById("H1").getAvailableCount());
+        assertEquals(1, manager.findBookableById("C1").getAvailableCount());
+        for (Booking booking : bookings) {
+            assertNotNull(manager.findBooking(booking.getReference()));
+        }
+    }
+
+    @Test
+    void oneShortItemRollsBackTheOthers() {
+        BookingManager manager = trip();
+        // C1 sorts first and H1 last, so F1 and C1 are claimed before H1 turns out short
+        assertNull(manager.bookPackage(Arrays.asList("F1", "C1", "H1"), new int[] {1, 1, 4}));
+        assertEquals(4, manager.findBookableById("F1").getAvailableCount());
+        assertEquals(3, manager.findBookableById("H1").getAvailableCount());
+        assertEquals(2, manager.findBookableById("C1").getAvailableCount());
+        assertTrue(manager.getBookingRecords().isEmpty());
+    }
+
+    @Test
+    void repeatedItemIsClaimedForTheCombinedQuantity() {
+        BookingManager manager = trip();
+        assertNull(manager.bookPackage(Arrays.asList("C1", "F1", "C1"), new int[] {1, 1, 2}));
+        assertEquals(4, manager.findBookableById("F1").getAvailableCount());
+        assertEquals(2, manager.findBookableById("C1").getAvailableCount());
+
+        List<Booking> bookings = manager.bookPackage(Arrays.asList("C1", "F1", "C1"), new int[] {1, 1, 1});
+        assertNotNull(bookings);
+        assertEquals(3, bookings.size());
+        assertEquals(0, manager.findBookableById("C1").getAvailableCount());
+    }
+
+    @Test
+    void unknownItemsAndBadQuantitiesReserveNothing() {
+        BookingManager manager = trip();
+        assertNull(manager.bookPackage(Arrays.asList("F1", "NOPE"), new int[] {1, 1}));
+        assertNull(manager.bookPackage(Arrays.asList("F1", "H1"), new int[] {1, 0}));
+        assertNull(manager.bookPackage(Arrays.asList("F1", "H1"), new int[] {1, -2}));
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.bookPackage(Arrays.asList("F1", "H1"), new int[] {1}));
+        assertEquals(4, manager.findBookableById("F1").getAvailableCount());
+        assertEquals(3, manager.findBookableById("H1").getAvailableCount());
+        assertTrue(manager.getBookingRecords().isEmpty());
+    }
+
+    @Test
+    void racingPackagesNeverLeavePartialTrips() throws Exception {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Goa", "08:00", 300),
+                new Hotel("H1", "Hotel", 100, "Goa", 200, 3),
+                new CarRental("C1", "Car", 50, "SUV", 250)));
+        List<List<String>> packages = Arrays.asList(
+                Arrays.asList("F1", "H1"), Arrays.asList("H1", "C1"), Arrays.asList("C1", "F1", "H1"));
+        AtomicIntegerArray succeeded = new AtomicIntegerArray(packages.size());
+        BookingManagerConcurrencyTest.runConcurrently(thread -> {
+            int kind = thread % packages.size();
+            List<String> trip = packages.get(kind);
+            int[] quantities = new int[trip.size()];
+            Arrays.fill(quantities, 1);
+            for (int i = 0; i < 200; i++) {
+                List<Booking> booked = manager.bookPackage(trip, quantities);
+                if (booked != null) {
+                    assertEquals(trip.size(), booked.size());
+                    succeeded.incrementAndGet(kind);
+                }
+            }
+        });
+
+        Map<String, Integer> units = new HashMap<>();
+        for (Booking booking : manager.getBookingRecords()) {
+            units.merge(booking.getItemId(), booking.getQuantity(), Integer::sum);
+        }
+        int flightHotel = succeeded.get(0);
+        int hotelCar = succeeded.get(1);
+        int everything = succeeded.get(2);
+        assertEquals(flightHotel + everything, (int) units.getOrDefault("F1", 0));
+        assertEquals(flightHotel + hotelCar + everything, (int) units.getOrDefault("H1", 0));
+        assertEquals(hotelCar + everything, (int) units.getOrDefault("C1", 0));
+        for (String id : Arrays.asList("F1", "H1", "C1")) {
+            Bookable item = manager.findBookableById(id);
+            assertEquals(item.getCapacity() - item.getAvailableCount(), (int) units.getOrDefault(id, 0), id);
+        }
+        // The hotel is the bottleneck, so it sells out
+        assertEquals(0, manager.findBookableById("H1").getAvailableCount());
+    }
+}
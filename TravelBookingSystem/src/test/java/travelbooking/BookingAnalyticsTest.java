@@ -0,0 +1,153 @@
+package travelbooking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Revenue is split by type, airline, route and hour as bookings and cancellations happen, and dated
+// stays count toward occupancy night by night, against the calendar's window
+class BookingAnalyticsTest {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    private final Locale original = Locale.getDefault();
+
+    @AfterEach
+    void restoreLocale() {
+        Locale.setDefault(original);
+    }
+
+    @Test
+    void datedStaysAreChargedPerNight() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new Hotel("H1", "Hotel", 100, "Goa", 5, 3));
+        int window = manager.getCalendar().getDays();
+        LocalDate start = LocalDate.now().plusDays(2);
+        Booking stay = manager.book("H1", 2, start, start.plusDays(3));
+        assertNotNull(stay);
+        assertNotNull(manager.book("H1", 1));
+
+        BookingAnalytics.Totals hotel = manager.getAnalytics().get(BookingAnalytics.Dimension.HOTEL, "H1");
+        assertEquals(2, hotel.getBookings());
+        assertEquals(1, hotel.getUnits());
+        assertEquals(6, hotel.getNights());
+        assertEquals(5, hotel.getCapacity());
+        assertEquals((1 + 6.0 / window) / 5, hotel.getLoadFactor(), 1e-12);
+        assertEquals(6, manager.getAnalytics().get(BookingAnalytics.Dimension.CITY, "Goa").getNights());
+        assertTrue(manager.getAnalytics().toCsv().startsWith(
+                "dimension,key,bookings,cancellations,units,nights,capacity"));
+
+        assertTrue(manager.cancelByReference(stay.getReference()));
+        BookingAnalytics.Totals total = manager.getAnalytics().getTotal();
+        assertEquals(0, total.getNights());
+        assertEquals(1, total.getUnits());
+        assertEquals(1 / 5.0, total.getLoadFactor(), 1e-12);
+    }
+
+    @Test
+    void revenueIsSplitByTypeAirlineAndRoute() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Goa", "08:00", 10),
+                new Flight("F2", "FL-2", 100, "IndiGo", "Goa", "Pune", "14:00", 10),
+                new Flight("F3", "FL-3", 300, "Vistara", "Delhi", "Goa", "18:00", 10),
+                new CarRental("C1", "Car", 50, "SUV", 4)));
+        Booking delhiGoa = manager.book("F1", 2);
+        Booking goaPune = manager.book("F2", 1);
+        Booking vistara = manager.book("F3", 1);
+        Booking car = manager.book("C1", 1);
+        assertTrue(manager.cancelByReference(goaPune.getReference()));
+        BookingAnalytics analytics = manager.getAnalytics();
+
+        BookingAnalytics.Totals flights = analytics.get(BookingAnalytics.Dimension.TYPE, "Flight");
+        double flightRevenue = delhiGoa.getPrice() + goaPune.getPrice() + vistara.getPrice();
+        assertEquals(3, flights.getBookings());
+        assertEquals(1, flights.getCancellations());
+        assertEquals(3, flights.getUnits());
+        assertEquals(30, flights.getCapacity());
+        assertEquals(flightRevenue, flights.getRevenue(), 1e-9);
+        assertEquals(goaPune.getPrice(), flights.getCancelledRevenue(), 1e-9);
+        assertEquals(delhiGoa.getPrice() + vistara.getPrice(), flights.getNetRevenue(), 1e-9);
+        assertEquals(car.getPrice(), analytics.get(BookingAnalytics.Dimension.TYPE, "Car Rental").getNetRevenue(), 1e-9);
+
+        BookingAnalytics.Totals indigo = analytics.get(BookingAnalytics.Dimension.AIRLINE, "IndiGo");
+        assertEquals(2, indigo.getBookings());
+        assertEquals(delhiGoa.getPrice(), indigo.getNetRevenue(), 1e-9);
+        assertEquals(vistara.getPrice(), analytics.get(BookingAnalytics.Dimension.AIRLINE, "Vistara").getRevenue(), 1e-9);
+
+        BookingAnalytics.Totals route = analytics.get(BookingAnalytics.Dimension.ROUTE, "Delhi to Goa");
+        assertEquals(2, route.getBookings());
+        assertEquals(20, route.getCapacity());
+        assertEquals(delhiGoa.getPrice() + vistara.getPrice(), route.getNetRevenue(), 1e-9);
+        assertEquals(0, analytics.get(BookingAnalytics.Dimension.ROUTE, "Goa to Pune").getNetRevenue(), 1e-9);
+        assertNull(analytics.get(BookingAnalytics.Dimension.ROUTE, "Pune to Goa"));
+
+        // Highest net revenue first
+        assertEquals(Arrays.asList("Delhi to Goa", "Goa to Pune"),
+                new ArrayList<>(analytics.breakdown(BookingAnalytics.Dimension.ROUTE).keySet()));
+        BookingAnalytics.Totals total = analytics.getTotal();
+        assertEquals(flightRevenue + car.getPrice(), total.getRevenue(), 1e-9);
+        assertEquals(goaPune.getPrice(), total.getCancelledRevenue(), 1e-9);
+    }
+
+    @Test
+    void hourBucketsHoldBookingsByWhenTheyWereMade() {
+        BookingAnalytics analytics = new BookingAnalytics(30);
+        CarRental car = new CarRental("C1", "Car", 50, "SUV", 10);
+        analytics.itemsAdded(Arrays.asList(car));
+        long earlier = 1_000 * HOUR;
+        long later = earlier + 3 * HOUR;
+        analytics.bookingAdded(new Booking("B1", "C1", car, 1, 50, earlier + 10));
+        analytics.bookingAdded(new Booking("B2", "C1", car, 2, 100, earlier + HOUR - 1));
+        analytics.bookingsAdded(Arrays.asList(
+                new Booking("B3", "C1", car, 1, 70, later),
+                new Booking("B4", "C1", car, 1, 30, later + 5)));
+
+        BookingAnalytics.Totals first = analytics.get(BookingAnalytics.Dimension.HOUR, String.valueOf(earlier));
+        assertEquals(2, first.getBookings());
+        assertEquals(3, first.getUnits());
+        assertEquals(150, first.getRevenue(), 1e-9);
+        assertEquals(0, first.getLoadFactor(), 1e-12);
+        assertEquals(100, analytics.get(BookingAnalytics.Dimension.HOUR, String.valueOf(later)).getRevenue(), 1e-9);
+        assertNull(analytics.get(BookingAnalytics.Dimension.HOUR, String.valueOf(earlier + HOUR)));
+
+        Map<String, BookingAnalytics.Totals> hours = analytics.breakdown(BookingAnalytics.Dimension.HOUR);
+        assertEquals(Arrays.asList(String.valueOf(later), String.valueOf(earlier)), new ArrayList<>(hours.keySet()));
+        BookingAnalytics.Totals type = analytics.get(BookingAnalytics.Dimension.TYPE, "Car Rental");
+        assertEquals(4, type.getBookings());
+        assertEquals(250, type.getRevenue(), 1e-9);
+        assertEquals(0.5, type.getLoadFactor(), 1e-12);
+    }
+
+    @Test
+    void csvUsesDecimalPointsUnderACommaDecimalLocale() {
+        Locale.setDefault(Locale.GERMANY);
+        BookingAnalytics analytics = new BookingAnalytics(30);
+        Hotel hotel = new Hotel("H1", "Hotel, Goa", 100, "Goa", 3, 4);
+        analytics.itemsAdded(Arrays.asList(hotel));
+        analytics.bookingAdded(new Booking("B1", "H1", hotel, 1, 123.456, 0));
+
+        List<String> lines = Arrays.asList(analytics.toCsv().split("\n"));
+        assertEquals("total,,1,0,1,0,3,0.3333,123.46,0.00,123.46", lines.get(1));
+        assertTrue(lines.contains("type,Hotel,1,0,1,0,3,0.3333,123.46,0.00,123.46"), lines.toString());
+        assertTrue(lines.contains("city,Goa,1,0,1,0,3,0.3333,123.46,0.00,123.46"), lines.toString());
+        for (String line : lines) {
+            assertEquals(11, line.split(",", -1).length, line);
+        }
+    }
+}
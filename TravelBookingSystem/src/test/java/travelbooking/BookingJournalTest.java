@@ -0,0 +1,271 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// What was acknowledged survives a restart; a torn tail or a failed write never leaves half a change
+class BookingJournalTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    @TempDir
+    Path dir;
+
+    private static List<Displayable> catalog() {
+        return Arrays.asList(
+                new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Goa", "08:00", 10),
+                new Hotel("H1", "Hotel", 100, "Goa", 5, 3),
+                new CarRental("C1", "Car", 50, "SUV", 3));
+    }
+
+    private BookingManager reopen() throws IOException {
+        BookingManager manager = managers.open();
+        BookingJournal.open(dir, manager, true).close();
+        return manager;
+    }
+
+    @Test
+    void restartRestoresCatalogBookingsAndCancellations() throws IOException {
+        BookingManager manager = managers.open();
+        BookingJournal journal = BookingJournal.open(dir, manager, true);
+        manager.addTravelEntities(catalog());
+        Booking kept = manager.book("F1", 2);
+        Booking cancelled = manager.book("H1", 1);
+        LocalDate start = LocalDate.now().plusDays(3);
+        Booking dated = manager.book("C1", 1, start, start.plusDays(2));
+        assertTrue(manager.cancelByReference(cancelled.getReference()));
+        journal.close();
+
+        BookingManager restored = reopen();
+        assertEquals(3, restored.getAllEntities().size());
+        assertEquals(2, restored.getBookingRecords().size());
+        assertEquals(2, restored.findBooking(kept.getReference()).getQuantity());
+        assertNull(restored.findBooking(cancelled.getReference()));
+        assertEquals(start, restored.findBooking(dated.getReference()).getStartDate());
+        assertEquals(8, restored.findBookableById("F1").getAvailableCount());
+        assertEquals(5, restored.findBookableById("H1").getAvailableCount());
+        assertEquals(2, restored.getAvailableCount("C1", start, start.plusDays(2)));
+    }
+
+    @Test
+    void tornTailIsDroppedAndTruncated() throws IOException {
+        BookingManager manager = managers.open();
+        BookingJournal journal = BookingJournal.open(dir, manager, true);
+        manager.addTravelEntities(catalog());
+        Booking first = manager.book("F1", 1);
+        Booking second = manager.book("H1", 1);
+        journal.close();
+
+        Path segment = segments().get(segments().size() - 1);
+        long intact = Files.size(segment);
+        // A record cut short mid-write: full header, a fraction of its payload
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            file.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 2, 9, 9}));
+        }
+
+        BookingManager restored = managers.open();
+        journal = BookingJournal.open(dir, restored, true);
+        assertEquals(intact, Files.size(segment));
+        assertEquals(Collections.singletonList(segment.getFileName() + " has a torn tail after byte " + intact + "; truncated"),
+                journal.getRecoveryProblems());
+        assertNotNull(restored.findBooking(first.getReference()));
+        assertNotNull(restored.findBooking(second.getReference()));
+        // Appends carry on from the end of the intact records
+        Booking third = restored.book("C1", 1);
+        journal.close();
+
+        BookingManager again = reopen();
+        assertEquals(3, again.getBookingRecords().size());
+        assertNotNull(again.findBooking(third.getReference()));
+        assertEquals(2, again.findBookableById("C1").getAvailableCount());
+    }
+
+    @Test
+    void segmentsAfterATornOneAreSetAsideNotReplayed() throws IOException {
+        BookingManager manager = managers.open();
+        BookingJournal journal = BookingJournal.open(dir, manager, true);
+        manager.addTravelEntities(catalog());
+        Booking first = manager.book("F1", 1);
+        Booking second = manager.book("H1", 1);
+        journal.close();
+
+        // A later segment that holds everything, after a first one whose last record is torn
+        Path torn = segments().get(0);
+        Path later = dir.resolve("journal-000000000001.log");
+        Files.copy(torn, later);
+        byte[] bytes = Files.readAllBytes(torn);
+        Files.write(torn, Arrays.copyOf(bytes, bytes.length - 3));
+
+        BookingManager restored = managers.open();
+        journal = BookingJournal.open(dir, restored, true);
+        assertEquals(3, restored.getAllEntities().size());
+        assertNotNull(restored.findBooking(first.getReference()));
+        assertNull(restored.findBooking(second.getReference()));
+        assertFalse(Files.exists(later));
+        assertTrue(Files.exists(dir.resolve(later.getFileName() + BookingJournal.TORN_SUFFIX)));
+        assertEquals(2, journal.getRecoveryProblems().size());
+        assertTrue(journal.getRecoveryProblems().get(1).startsWith(later.getFileName() + " follows a torn segment"));
+        Booking third = restored.book("C1", 1);
+        journal.close();
+
+        BookingManager again = reopen();
+        assertEquals(3, again.getAllEntities().size());
+        assertEquals(2, again.getBookingRecords().size());
+        assertNotNull(again.findBooking(third.getReference()));
+        assertEquals(5, again.findBookableById("H1").getAvailableCount());
+    }
+
+    @Test
+    void bulkRestoreFallsBackToOneByOneWhenAnItemIsOversold() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(catalog());
+        LocalDate start = LocalDate.now().plusDays(1);
+        List<Booking> saved = Arrays.asList(
+                new Booking("BK00000001", "C1", null, 2, 100, 0),
+                new Booking("BK00000002", "C1", null, 2, 100, 0),
+                new Booking("BK00000003", "F1", null, 4, 800, 0),
+                new Booking("BK00000004", "H1", null, 1, 300, 0, start, start.plusDays(3)),
+                new Booking("BK00000005", "X9", null, 1, 10, 0));
+
+        List<Booking> skipped = manager.restoreBookings(saved);
+        assertEquals(Arrays.asList("BK00000002", "BK00000005"),
+                skipped.stream().map(Booking::getReference).collect(Collectors.toList()));
+        assertEquals(3, manager.getBookingRecords().size());
+        assertEquals(1, manager.findBookableById("C1").getAvailableCount());
+        assertEquals(6, manager.findBookableById("F1").getAvailableCount());
+        assertEquals(4, manager.getAvailableCount("H1", start, start.plusDays(3)));
+        assertEquals(3, manager.getAnalytics().getTotal().getBookings());
+        assertEquals("BK00000005", manager.book("C1", 1).getReference());
+        assertEquals(2, manager.getMetrics().getRestoresSkipped());
+    }
+
+    @Test
+    void recordWithBadChecksumEndsReplay() throws IOException {
+        BookingManager manager = managers.open();
+        BookingJournal journal = BookingJournal.open(dir, manager, true);
+        manager.addTravelEntities(catalog());
+        Booking first = manager.book("F1", 1);
+        Booking last = manager.book("H1", 1);
+        journal.close();
+
+        Path segment = segments().get(segments().size() - 1);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x5A;
+        Files.write(segment, bytes);
+
+        BookingManager restored = reopen();
+        assertNotNull(restored.findBooking(first.getReference()));
+        assertNull(restored.findBooking(last.getReference()));
+        assertEquals(5, restored.findBookableById("H1").getAvailableCount());
+    }
+
+    @Test
+    void snapshotRestoresStateAndReplacesOlderSegments() throws IOException {
+        BookingManager manager = managers.open();
+        BookingJournal journal = BookingJournal.open(dir, manager, true);
+        manager.addTravelEntities(catalog());
+        Booking beforeSnapshot = manager.book("F1", 3);
+        Booking cancelledLater = manager.book("H1", 2);
+        journal.snapshot();
+        Booking afterSnapshot = manager.book("C1", 1);
+        assertTrue(manager.cancelByReference(cancelledLater.getReference()));
+        journal.close();
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.sorted().collect(Collectors.toList());
+        }
+        assertEquals(2, files.size(), files.toString());
+        assertTrue(files.get(0).getFileName().toString().startsWith("journal-000000000001"));
+        assertTrue(files.get(1).getFileName().toString().startsWith("snapshot-000000000001"));
+
+        BookingManager restored = reopen();
+        assertEquals(3, restored.getAllEntities().size());
+        assertNotNull(restored.findBooking(beforeSnapshot.getReference()));
+        assertNotNull(restored.findBooking(afterSnapshot.getReference()));
+        assertNull(restored.findBooking(cancelledLater.getReference()));
+        assertEquals(7, restored.findBookableById("F1").getAvailableCount());
+        assertEquals(5, restored.findBookableById("H1").getAvailableCount());
+        assertEquals(2, restored.findBookableById("C1").getAvailableCount());
+    }
+
+    @Test
+    void failedWriteUndoesTheChangeAndRefusesLaterOnes() throws Exception {
+        BookingManager manager = managers.open();
+        BookingJournal journal = BookingJournal.open(dir, manager, true);
+        manager.addTravelEntities(catalog());
+        Booking kept = manager.book("H1", 2);
+        breakChannel(journal);
+
+        assertThrows(CompletionException.class, () -> manager.book("F1", 4));
+        assertEquals(10, manager.findBookableById("F1").getAvailableCount());
+        assertEquals(1, manager.getBookingRecords().size());
+
+        assertThrows(UncheckedIOException.class, () -> manager.cancelByReference(kept.getReference()));
+        assertThrows(UncheckedIOException.class, () -> manager.book("C1", 1));
+        assertNotNull(manager.findBooking(kept.getReference()));
+        assertEquals(3, manager.findBookableById("H1").getAvailableCount());
+        assertEquals(3, manager.findBookableById("C1").getAvailableCount());
+        assertNotNull(journal.getFailure());
+        assertEquals(1, manager.getMetrics().getJournalUndone());
+        assertThrows(IOException.class, journal::close);
+
+        BookingManager restored = reopen();
+        assertEquals(1, restored.getBookingRecords().size());
+        assertNotNull(restored.findBooking(kept.getReference()));
+    }
+
+    @Test
+    void failedCancellationPutsTheBookingBack() throws Exception {
+        BookingManager manager = managers.open();
+        BookingJournal journal = BookingJournal.open(dir, manager, true);
+        manager.addTravelEntities(catalog());
+        Booking booking = manager.book("H1", 2);
+        breakChannel(journal);
+
+        assertThrows(CompletionException.class, () -> manager.cancelByReference(booking.getReference()));
+        assertNotNull(manager.findBooking(booking.getReference()));
+        assertEquals(3, manager.findBookableById("H1").getAvailableCount());
+        assertThrows(IOException.class, journal::close);
+    }
+
+    // The writer's next write fails as if the disk had gone away
+    private static void breakChannel(BookingJournal journal) throws Exception {
+        Field channel = BookingJournal.class.getDeclaredField("channel");
+        channel.setAccessible(true);
+        ((FileChannel) channel.get(journal)).close();
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> file.getFileName().toString().startsWith("journal-")).sorted().forEach(segments::add);
+        }
+        return segments;
+    }
+}
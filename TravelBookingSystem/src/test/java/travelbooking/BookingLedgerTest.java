@@ -0,0 +1,184 @@
+package travelbooking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// References are unique and keep counting past restored ones; a booking is cancelled by its
+// reference exactly once, and leaves both indexes when it is
+class BookingLedgerTest {
+    private static final Hotel HOTEL = new Hotel("H1", "Hotel", 100, "Goa", 10, 4);
+    private static final CarRental CAR = new CarRental("C1", "Car", 50, "SUV", 5);
+
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    private final Locale original = Locale.getDefault();
+
+    @AfterEach
+    void restoreLocale() {
+        Locale.setDefault(original);
+    }
+
+    @Test
+    void referencesCountUpInAsciiDigits() {
+        // Thai digits by default: references must not follow the locale
+        Locale.setDefault(Locale.forLanguageTag("th-TH-u-nu-thai"));
+        BookingLedger ledger = new BookingLedger();
+        assertEquals("BK00000001", ledger.record("H1", HOTEL, 1, 100).getReference());
+        assertEquals("BK00000002", ledger.record("C1", CAR, 2, 100).getReference());
+        Booking third = ledger.record("H1", HOTEL, 3, 300, TravelClock.today(), TravelClock.today().plusDays(1));
+        assertEquals("BK00000003", third.getReference());
+        assertEquals(3, third.getQuantity());
+        assertTrue(third.isDated());
+
+        assertSame(third, ledger.find("BK00000003"));
+        assertEquals(3, ledger.size());
+        assertEquals(2, ledger.forItem("H1").size());
+        assertEquals(0, ledger.forItem("F1").size());
+        assertNull(ledger.anyForItem("F1"));
+        assertEquals("C1", ledger.anyForItem("C1").getItemId());
+    }
+
+    @Test
+    void referencesStayUniqueUnderConcurrentBookings() throws Exception {
+        BookingLedger ledger = new BookingLedger();
+        int threads = 8;
+        int perThread = 5_000;
+        Set<String> references = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                done.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        references.add(ledger.record("H1", HOTEL, 1, 100).getReference());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : done) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(threads * perThread, references.size());
+        assertEquals(threads * perThread, ledger.size());
+        assertEquals(threads * perThread, ledger.forItem("H1").size());
+        assertTrue(references.contains(String.format(Locale.ROOT, "BK%08d", threads * perThread)));
+    }
+
+    @Test
+    void cancellingByReferenceRemovesTheBookingOnce() throws Exception {
+        BookingLedger ledger = new BookingLedger();
+        Booking first = ledger.record("H1", HOTEL, 1, 100);
+        Booking second = ledger.record("H1", HOTEL, 2, 200);
+
+        assertSame(first, ledger.remove(first.getReference()));
+        assertNull(ledger.find(first.getReference()));
+        assertEquals(Arrays.asList(second), new ArrayList<>(ledger.forItem("H1")));
+        assertSame(second, ledger.anyForItem("H1"));
+        // The second cancel of the same reference finds nothing
+        assertNull(ledger.remove(first.getReference()));
+        assertNull(ledger.remove("BK99999999"));
+        assertEquals(1, ledger.size());
+
+        // Racing cancels of one reference: exactly one of them gets the booking
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 200; round++) {
+                String reference = ledger.record("C1", CAR, 1, 50).getReference();
+                CountDownLatch start = new CountDownLatch(1);
+                AtomicInteger winners = new AtomicInteger();
+                List<Future<?>> done = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    done.add(pool.submit(() -> {
+                        start.await();
+                        if (ledger.remove(reference) != null) {
+                            winners.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : done) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+                assertEquals(1, winners.get(), reference);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(ledger.forItem("C1").isEmpty());
+    }
+
+    @Test
+    void restoredReferencesAreNotHandedOutAgain() {
+        BookingLedger ledger = new BookingLedger();
+        ledger.restore(new Booking("BK00000041", "H1", HOTEL, 1, 100, 0, null, null));
+        assertEquals("BK00000042", ledger.record("H1", HOTEL, 1, 100).getReference());
+
+        // A foreign reference format is kept but does not move the sequence
+        ledger.restore(new Booking("EXT-9000", "C1", CAR, 1, 50, 0, null, null));
+        assertEquals("BK00000043", ledger.record("C1", CAR, 1, 50).getReference());
+
+        ledger.restoreAll(Arrays.asList(
+                new Booking("BK00000100", "H1", HOTEL, 1, 100, 0, null, null),
+                new Booking("BK00000070", "H1", HOTEL, 1, 100, 0, null, null),
+                new Booking("BK00000090", "C1", CAR, 1, 50, 0, null, null)));
+        assertEquals("BK00000101", ledger.record("H1", HOTEL, 1, 100).getReference());
+        assertEquals(8, ledger.size());
+        assertEquals(5, ledger.forItem("H1").size());
+        assertEquals(3, ledger.forItem("C1").size());
+        assertEquals("EXT-9000", ledger.find("EXT-9000").getReference());
+    }
+
+    @Test
+    void managerCancelsByReferenceOnceAndGivesTheUnitsBack() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(new Hotel("H1", "Hotel", 100, "Goa", 4, 4)));
+        Booking first = manager.book("H1", 3);
+        Booking second = manager.book("H1", 1);
+        assertFalse(first.getReference().equals(second.getReference()));
+        Bookable hotel = manager.findBookableById("H1");
+        assertEquals(0, hotel.getAvailableCount());
+
+        assertTrue(manager.cancelByReference(first.getReference()));
+        assertEquals(3, hotel.getAvailableCount());
+        assertFalse(manager.cancelByReference(first.getReference()));
+        assertEquals(3, hotel.getAvailableCount());
+        assertEquals(1, manager.getBookingRecords().size());
+        assertEquals(1, manager.getMetrics().getCancelled());
+        assertEquals(1, manager.getMetrics().getCancelMissed());
+
+        Set<String> left = new HashSet<>();
+        for (Booking booking : manager.getBookingsForItem("H1")) {
+            left.add(booking.getReference());
+        }
+        assertEquals(new HashSet<>(Arrays.asList(second.getReference())), left);
+    }
+}
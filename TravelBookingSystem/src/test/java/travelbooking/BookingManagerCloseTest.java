@@ -0,0 +1,64 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Closing a manager ends every thread it started; what remains keeps working on the caller's thread
+class BookingManagerCloseTest {
+    private static final List<String> BACKGROUND = Arrays.asList("hold-expiry", "waitlist-promotion",
+            "inventory-events", "inventory-snapshots", "calendar-roll", "booking-metrics-dump");
+
+    @Test
+    void closeStopsEveryBackgroundThread() throws Exception {
+        BookingManager manager = new BookingManager();
+        manager.addTravelEntities(Arrays.asList(
+                new CarRental("C1", "Car", 50, "SUV", 1),
+                new Hotel("H1", "Hotel", 100, "Goa", 5, 3)));
+        manager.getMetrics().scheduleDump(1, TimeUnit.HOURS, new PrintStream(new ByteArrayOutputStream()));
+        manager.addInventoryListener(events -> { });
+        LocalDate start = LocalDate.now().plusDays(1);
+        assertNotNull(manager.book("H1", 1, start, start.plusDays(2)));
+        assertNotNull(manager.hold("H1", 1, 1, TimeUnit.MINUTES));
+        Booking car = manager.book("C1", 1);
+        assertNotNull(manager.joinWaitlist("C1", 1, 0));
+        assertTrue(manager.cancelByReference(car.getReference()));
+        Thread.sleep(4 * Waitlist.PROMOTE_BATCH_MILLIS);
+        assertEquals(new HashSet<>(BACKGROUND), running());
+
+        manager.close();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!running().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(new HashSet<String>(), running());
+
+        // Writes after close schedule nothing and fail nothing
+        assertNotNull(manager.book("H1", 1));
+        assertNotNull(manager.hold("H1", 1, 1, TimeUnit.MILLISECONDS));
+        assertEquals(1, manager.publishSnapshot().getAvailableCount(1));
+        Thread.sleep(50);
+        assertEquals(new HashSet<String>(), running());
+    }
+
+    private static Set<String> running() {
+        Set<String> names = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && BACKGROUND.contains(thread.getName())) {
+                names.add(thread.getName());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,110 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Many threads racing for the same few units must never book more than there is
+class BookingManagerConcurrencyTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    static final int THREADS = 8;
+
+    @Test
+    void concurrentBookingsNeverOversell() throws Exception {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new Hotel("H1", "Hot Hotel", 100, "Goa", 50, 4));
+        AtomicInteger booked = new AtomicInteger();
+        runConcurrently(thread -> {
+            for (int i = 0; i < 1000; i++) {
+                if (manager.book("H1", 1 + i % 3) != null) {
+                    booked.incrementAndGet();
+                }
+            }
+        });
+        Bookable hotel = manager.findBookableById("H1");
+        int units = 0;
+        for (Booking booking : manager.getBookingsForItem("H1")) {
+            units += booking.getQuantity();
+        }
+        assertTrue(hotel.getAvailableCount() >= 0);
+        assertEquals(booked.get(), manager.getBookingsForItem("H1").size());
+        assertEquals(50 - hotel.getAvailableCount(), units);
+        assertTrue(units <= 50);
+    }
+
+    @Test
+    void bookAndCancelUnderContentionKeepsEveryUnitAccountedFor() throws Exception {
+        BookingManager manager = managers.open();
+        String[] ids = {"F1", "H1", "C1"};
+        manager.addTravelEntities(Arrays.asList(
+                new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Goa", "08:00", 10),
+                new Hotel("H1", "Hotel", 100, "Goa", 5, 3),
+                new CarRental("C1", "Car", 50, "SUV", 3)));
+        runConcurrently(thread -> {
+            Random random = new Random(thread);
+            List<String> mine = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                if (!mine.isEmpty() && random.nextBoolean()) {
+                    assertTrue(manager.cancelByReference(mine.remove(mine.size() - 1)));
+                } else {
+                    Booking booking = manager.book(ids[random.nextInt(ids.length)], 1 + random.nextInt(2));
+                    if (booking != null) {
+                        mine.add(booking.getReference());
+                    }
+                }
+            }
+        });
+        Map<String, Integer> units = new HashMap<>();
+        for (Booking booking : manager.getBookingRecords()) {
+            units.merge(booking.getItemId(), booking.getQuantity(), Integer::sum);
+        }
+        for (String id : ids) {
+            Bookable item = manager.findBookableById(id);
+            int held = units.getOrDefault(id, 0);
+            assertTrue(item.getAvailableCount() >= 0, id);
+            assertTrue(held <= item.getCapacity(), id);
+            assertEquals(item.getCapacity() - item.getAvailableCount(), held, id);
+        }
+    }
+
+    interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    // Starts every worker at once and fails the test if any of them throws
+    static void runConcurrently(Worker worker) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            results.add(pool.submit(() -> {
+                start.await();
+                worker.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+}
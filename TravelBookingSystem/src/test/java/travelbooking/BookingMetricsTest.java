@@ -0,0 +1,85 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Counters and <histogram><stat> attributes read the same directly and through the platform MBean server
+class BookingMetricsTest {
+    private static final Flight FLIGHT = new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Goa", "08:00", 40);
+
+    @Test
+    void attributesNameCountersAndHistogramStats() throws Exception {
+        BookingMetrics metrics = new BookingMetrics();
+        long start = System.nanoTime();
+        metrics.bookCompleted(FLIGHT, start, true);
+        metrics.bookCompleted(FLIGHT, start, true);
+        metrics.bookCompleted(FLIGHT, start, false);
+        metrics.cancelCompleted(null, start, false);
+        metrics.record(BookingMetrics.Operation.SEARCH, start);
+
+        assertEquals(2L, metrics.getAttribute("Booked"));
+        assertEquals(1L, metrics.getAttribute("SoldOut"));
+        assertEquals(1L, metrics.getAttribute("CancelMissed"));
+        assertEquals(3L, metrics.getAttribute("BookCount"));
+        // "Book" is a prefix of "BookFlight": the per-type histogram must still be found
+        assertEquals(3L, metrics.getAttribute("BookFlightCount"));
+        assertEquals(1L, metrics.getAttribute("CancelCount"));
+        assertEquals(1L, metrics.getAttribute("SearchCount"));
+        double p99 = (Double) metrics.getAttribute("BookP99Micros");
+        double max = (Double) metrics.getAttribute("BookMaxMicros");
+        assertTrue(p99 > 0 && p99 <= max, p99 + " vs " + max);
+
+        assertThrows(AttributeNotFoundException.class, () -> metrics.getAttribute("BookP42Micros"));
+        assertThrows(AttributeNotFoundException.class, () -> metrics.getAttribute("CancelHotelCount"));
+        assertThrows(AttributeNotFoundException.class, () -> metrics.setAttribute(new Attribute("Booked", 0L)));
+
+        // Unknown names are left out of a bulk read rather than failing it
+        AttributeList list = metrics.getAttributes(new String[] {"Booked", "Nonsense", "BookFlightCount"});
+        assertEquals(2, list.size());
+
+        Set<String> described = Arrays.stream(metrics.getMBeanInfo().getAttributes())
+                .map(MBeanAttributeInfo::getName).collect(Collectors.toSet());
+        assertTrue(described.containsAll(Arrays.asList("Booked", "BookP999Micros", "BookFlightMeanMicros")));
+        assertFalse(described.contains("BookHotelCount"));
+    }
+
+    @Test
+    void registeredMetricsAreReadableThroughThePlatformServer() throws Exception {
+        BookingMetrics metrics = new BookingMetrics();
+        metrics.bookCompleted(FLIGHT, System.nanoTime(), true);
+        ObjectName name = metrics.registerMBean("metrics-test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(1L, server.getAttribute(name, "Booked"));
+            assertEquals(1L, server.getAttribute(name, "BookFlightCount"));
+            assertThrows(AttributeNotFoundException.class, () -> server.getAttribute(name, "Unknown"));
+
+            // Registering the name again replaces the earlier metrics
+            BookingMetrics replacement = new BookingMetrics();
+            assertEquals(name, replacement.registerMBean("metrics-test"));
+            assertEquals(0L, server.getAttribute(name, "Booked"));
+
+            replacement.bookCompleted(FLIGHT, System.nanoTime(), true);
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            assertEquals(0L, replacement.getBooked());
+            assertTrue(((String) server.invoke(name, "report", new Object[0], new String[0])).contains("Booked"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
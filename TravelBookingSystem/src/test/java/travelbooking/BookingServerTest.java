@@ -0,0 +1,161 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Parameter validation: counts must be positive, bounds and priorities may be any integer; routes
+// are found over the manager's flights; bookings made over HTTP read back and cancel over HTTP
+class BookingServerTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    @Test
+    void ratingBoundsAndPrioritiesAcceptZeroWhileCountsDoNot() throws IOException {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new Hotel("H1", "Hotel", 100, "Goa", 4, 1),
+                new CarRental("C1", "Car", 50, "SUV", 1)));
+        BookingServer server = new BookingServer(manager, 0);
+        server.start();
+        try {
+            assertEquals(200, status(server, "GET", "/top?order=rating&minRating=0"));
+            assertEquals(200, status(server, "GET", "/top?order=rating&maxRating=0"));
+            assertEquals(200, status(server, "GET", "/top?order=rating&minRating=-1&maxRating=5"));
+            assertEquals(201, status(server, "POST", "/waitlist?id=C1&quantity=1&priority=0"));
+            assertEquals(201, status(server, "POST", "/waitlist?id=C1&quantity=1&priority=-2"));
+
+            assertEquals(400, status(server, "GET", "/top?limit=0"));
+            assertEquals(400, status(server, "GET", "/search?q=goa&limit=-1"));
+            assertEquals(400, status(server, "POST", "/book?id=H1&quantity=0"));
+            assertEquals(400, status(server, "POST", "/hold?id=H1&quantity=1&ttl=0"));
+            assertEquals(400, status(server, "GET", "/top?minRating=four"));
+            assertEquals(400, status(server, "POST", "/waitlist?id=C1&quantity=2"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void routesAreServedWithTheirObjectiveAndDepartureTime() throws IOException {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new Flight("F1", "FL-1", 100, "IndiGo", "Delhi", "Goa", "08:00", 120, 10),
+                new Flight("F2", "FL-2", 100, "IndiGo", "Goa", "Pune", "11:00 AM", 60, 10)));
+        BookingServer server = new BookingServer(manager, 0);
+        server.start();
+        try {
+            assertEquals(200, status(server, "GET", "/route?from=Delhi&to=Pune"));
+            assertEquals(200, status(server, "GET", "/route?from=delhi&to=pune&objective=fastest&after=9:00%20AM"));
+            assertEquals(404, status(server, "GET", "/route?from=Delhi&to=Pune&maxConnections=0"));
+            assertEquals(404, status(server, "GET", "/route?from=Pune&to=Delhi"));
+            assertEquals(400, status(server, "GET", "/route?from=Delhi"));
+            assertEquals(400, status(server, "GET", "/route?from=Delhi&to=Pune&objective=shortest"));
+            assertEquals(400, status(server, "GET", "/route?from=Delhi&to=Pune&after=13:00%20PM"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void bookingsMadeOverHttpReadBackAndCancel() throws IOException {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new Hotel("H1", "Sea View", 100, "Goa", 4, 3),
+                new CarRental("C1", "Car", 50, "SUV", 1)));
+        BookingServer server = new BookingServer(manager, 0);
+        server.start();
+        try {
+            String booked = call(server, "POST", "/book?id=H1&quantity=3", 201);
+            String reference = field(booked, "reference");
+            assertTrue(booked.contains("\"itemId\":\"H1\""), booked);
+            assertTrue(booked.contains("\"quantity\":3"), booked);
+            assertEquals(reference, manager.getBookingRecords().iterator().next().getReference());
+
+            String availability = call(server, "GET", "/availability?id=H1", 200);
+            assertTrue(availability.contains("\"available\":1,\"capacity\":4"), availability);
+            String search = call(server, "GET", "/search?q=goa", 200);
+            assertTrue(search.startsWith("[{\"id\":\"H1\",\"name\":\"Sea View\",\"type\":\"Hotel\""), search);
+            assertTrue(search.contains("\"available\":1"), search);
+            assertFalse(search.contains("C1"), search);
+            assertTrue(call(server, "GET", "/bookings", 200).contains(reference));
+            assertTrue(call(server, "GET", "/bookings?id=H1", 200).contains(reference));
+            assertEquals("[]", call(server, "GET", "/bookings?id=C1", 200));
+            assertEquals(409, status(server, "POST", "/book?id=H1&quantity=2"));
+
+            assertEquals("{\"cancelled\":true}", call(server, "POST", "/cancel?reference=" + reference, 200));
+            assertEquals(404, status(server, "POST", "/cancel?reference=" + reference));
+            assertEquals("[]", call(server, "GET", "/bookings", 200));
+            assertTrue(call(server, "GET", "/availability?id=H1", 200).contains("\"available\":4"));
+
+            // Dated stays read back with their range and only take those nights
+            LocalDate from = TravelClock.today().plusDays(10);
+            String range = "&from=" + from + "&to=" + from.plusDays(2);
+            String stay = call(server, "POST", "/book?id=H1&quantity=4" + range, 201);
+            assertTrue(stay.contains("\"from\":\"" + from + "\",\"to\":\"" + from.plusDays(2) + "\""), stay);
+            assertTrue(call(server, "GET", "/availability?id=H1" + range, 200).contains("\"available\":0"));
+            assertTrue(call(server, "GET", "/availability?id=H1&from=" + from.plusDays(2) + "&to=" + from.plusDays(3), 200)
+                    .contains("\"available\":4"));
+            call(server, "POST", "/cancel?reference=" + field(stay, "reference"), 200);
+            assertTrue(call(server, "GET", "/availability?id=H1" + range, 200).contains("\"available\":4"));
+
+            assertEquals(404, status(server, "POST", "/book?id=X9"));
+            assertEquals(404, status(server, "GET", "/availability?id=X9"));
+            assertEquals(400, status(server, "POST", "/cancel"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    // Response body of a request expected to answer with the given status
+    private static String call(BookingServer server, String method, String pathAndQuery, int expectedStatus)
+            throws IOException {
+        URL url = new URL("http://localhost:" + server.getPort() + pathAndQuery);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod(method);
+            assertEquals(expectedStatus, connection.getResponseCode(), method + " " + pathAndQuery);
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream in = expectedStatus < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                byte[] buffer = new byte[4096];
+                for (int n; (n = in.read(buffer)) > 0; ) {
+                    body.write(buffer, 0, n);
+                }
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String field(String json, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\":\"([^\"]*)\"").matcher(json);
+        assertTrue(matcher.find(), name + " in " + json);
+        return matcher.group(1);
+    }
+
+    private static int status(BookingServer server, String method, String pathAndQuery) throws IOException {
+        URL url = new URL("http://localhost:" + server.getPort() + pathAndQuery);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod(method);
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
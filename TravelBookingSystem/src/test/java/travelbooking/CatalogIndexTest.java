@@ -0,0 +1,177 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The type and availability bitsets, kept up incrementally by books, cancels and additions, always
+// select what a scan of the catalog would; bits on either side of a page boundary are kept apart
+class CatalogIndexTest {
+    private static final int PAGE_BITS = 1024 * 64;
+    private static final String[] TYPES = {"Flight", "Hotel", "Car Rental"};
+
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    @Test
+    void bitsOnEitherSideOfPageAndWordBoundariesAreIndependent() {
+        OrdinalBitSet set = new OrdinalBitSet();
+        int size = 2 * PAGE_BITS + 70;
+        set.ensureCapacity(size);
+        int[] edges = {0, 63, 64, PAGE_BITS - 1, PAGE_BITS, PAGE_BITS + 64, 2 * PAGE_BITS - 1, 2 * PAGE_BITS, size - 1};
+        for (int ordinal : edges) {
+            set.set(ordinal, true);
+        }
+        for (int ordinal : edges) {
+            assertTrue(set.get(ordinal), "bit " + ordinal);
+            if (Arrays.binarySearch(edges, ordinal + 1) < 0) {
+                assertFalse(set.get(ordinal + 1), "bit " + (ordinal + 1));
+            }
+        }
+        assertFalse(set.get(PAGE_BITS + 1));
+        assertFalse(set.get(10 * PAGE_BITS)); // past every page reads as clear
+        assertArrayEquals(edges, OrdinalBitSet.intersect(size, set));
+        // The catalog size cuts the last word short
+        assertArrayEquals(Arrays.copyOf(edges, edges.length - 1), OrdinalBitSet.intersect(size - 1, set));
+        assertArrayEquals(new int[] {0, 63}, OrdinalBitSet.intersect(64, set));
+
+        set.set(PAGE_BITS, false);
+        assertFalse(set.get(PAGE_BITS));
+        assertTrue(set.get(PAGE_BITS - 1));
+
+        // Growing keeps what was set, and the new pages start clear
+        set.ensureCapacity(4 * PAGE_BITS);
+        assertTrue(set.get(2 * PAGE_BITS));
+        assertFalse(set.get(3 * PAGE_BITS));
+        set.set(3 * PAGE_BITS, true);
+
+        OrdinalBitSet other = new OrdinalBitSet();
+        other.ensureCapacity(4 * PAGE_BITS);
+        for (int ordinal : new int[] {63, PAGE_BITS - 1, 2 * PAGE_BITS, 3 * PAGE_BITS, 3 * PAGE_BITS + 1}) {
+            other.set(ordinal, true);
+        }
+        assertArrayEquals(new int[] {63, PAGE_BITS - 1, 2 * PAGE_BITS, 3 * PAGE_BITS},
+                OrdinalBitSet.intersect(4 * PAGE_BITS, set, other));
+        // retain keeps the candidates' own order rather than sorting them
+        assertArrayEquals(new int[] {3 * PAGE_BITS, 63, 2 * PAGE_BITS},
+                OrdinalBitSet.retain(new int[] {3 * PAGE_BITS, 64, 63, PAGE_BITS, 2 * PAGE_BITS}, set, other));
+    }
+
+    @Test
+    void indexSpanningSeveralPagesMatchesAScan() {
+        Random random = new Random(7);
+        CatalogIndex index = new CatalogIndex();
+        List<Displayable> catalog = new ArrayList<>();
+        // Added in uneven batches so batch edges fall on both sides of page boundaries
+        while (catalog.size() < 2 * PAGE_BITS + 500) {
+            List<Displayable> batch = new ArrayList<>();
+            for (int i = random.nextInt(30_000) + 1; i > 0; i--) {
+                batch.add(randomItem(random, "I" + (catalog.size() + batch.size())));
+            }
+            index.addAll(catalog.size(), batch);
+            catalog.addAll(batch);
+        }
+        for (int round = 0; round < 20_000; round++) {
+            int ordinal = random.nextInt(catalog.size());
+            Bookable item = (Bookable) catalog.get(ordinal);
+            if (random.nextBoolean() ? item.tryReserve(1) : item.release(1)) {
+                index.refresh(ordinal, item);
+            }
+        }
+        int size = catalog.size();
+        for (String type : new String[] {null, "Flight", "hotel", "CAR RENTAL"}) {
+            for (boolean availableOnly : new boolean[] {false, true}) {
+                assertArrayEquals(scan(catalog, type, availableOnly), index.select(size, type, availableOnly),
+                        type + " available=" + availableOnly);
+            }
+        }
+        assertEquals(0, index.select(size, "Train", false).length);
+
+        int[] candidates = IntStream.range(0, 5_000).map(i -> random.nextInt(size)).distinct().toArray();
+        int[] hotels = scan(catalog, "Hotel", true);
+        int[] expected = Arrays.stream(candidates).filter(o -> Arrays.binarySearch(hotels, o) >= 0).toArray();
+        assertArrayEquals(expected, index.retain(candidates, "Hotel", true));
+    }
+
+    @Test
+    void managerFiltersMatchAScanAfterBooksCancelsAndAdditions() {
+        BookingManager manager = managers.open();
+        Random random = new Random(11);
+        List<String> ids = new ArrayList<>();
+        List<String> references = new ArrayList<>();
+        for (int round = 0; round < 5; round++) {
+            List<Displayable> added = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                String id = "R" + round + "-" + i;
+                added.add(randomItem(random, id));
+                ids.add(id);
+            }
+            manager.addTravelEntities(added);
+            for (int i = 0; i < 1_500; i++) {
+                if (references.isEmpty() || random.nextInt(3) > 0) {
+                    Booking booking = manager.book(ids.get(random.nextInt(ids.size())), 1);
+                    if (booking != null) {
+                        references.add(booking.getReference());
+                    }
+                } else {
+                    String reference = references.remove(random.nextInt(references.size()));
+                    assertTrue(manager.cancelByReference(reference));
+                }
+            }
+            List<Displayable> catalog = manager.getAllEntities();
+            for (String type : new String[] {null, "Flight", "Hotel", "car rental"}) {
+                for (boolean availableOnly : new boolean[] {false, true}) {
+                    if (type == null && !availableOnly) {
+                        continue; // unfiltered: not answered from the bitsets
+                    }
+                    assertEquals(idsOf(catalog, scan(catalog, type, availableOnly)),
+                            idsOf(manager.search("", type, availableOnly)), type + " available=" + availableOnly);
+                }
+            }
+            assertEquals(idsOf(catalog, scan(catalog, null, true)), idsOf(manager.getAvailableEntities()));
+        }
+    }
+
+    // Capacities of 0 to 2, so books and cancels keep taking items to and from zero
+    private static Displayable randomItem(Random random, String id) {
+        int capacity = random.nextInt(3);
+        switch (TYPES[random.nextInt(TYPES.length)]) {
+            case "Flight": return new Flight(id, id, 100, "IndiGo", "Delhi", "Goa", "08:00", capacity);
+            case "Hotel": return new Hotel(id, id, 100, "Goa", capacity, 3);
+            default: return new CarRental(id, id, 100, "SUV", capacity);
+        }
+    }
+
+    private static int[] scan(List<Displayable> catalog, String type, boolean availableOnly) {
+        return IntStream.range(0, catalog.size()).filter(ordinal -> {
+            Bookable item = (Bookable) catalog.get(ordinal);
+            return (type == null || item.getType().equalsIgnoreCase(type)) && (!availableOnly || item.isAvailable());
+        }).toArray();
+    }
+
+    private static List<String> idsOf(List<Displayable> catalog, int[] ordinals) {
+        List<String> ids = new ArrayList<>();
+        for (int ordinal : ordinals) {
+            ids.add(catalog.get(ordinal).getDisplayValue(0));
+        }
+        return ids;
+    }
+
+    private static List<String> idsOf(List<Displayable> entities) {
+        List<String> ids = new ArrayList<>();
+        for (Displayable entity : entities) {
+            ids.add(entity.getDisplayValue(0));
+        }
+        return ids;
+    }
+}
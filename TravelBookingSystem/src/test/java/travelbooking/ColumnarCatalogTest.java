@@ -0,0 +1,204 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The columnar store gives back what was registered, and its flyweights book the one shared count
+class ColumnarCatalogTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    @TempDir
+    Path dir;
+
+    private static List<Displayable> catalog() {
+        return Arrays.asList(
+                new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Goa", "08:00", 95, 10),
+                new Hotel("H1", "Beach Hotel", 100, "Goa", 5, 4),
+                new CarRental("C1", "Car", 50, "SUV", 3),
+                new Flight("F2", "FL-2", 300, "IndiGo", "Goa", "Delhi", "06:30 PM", 110, 20));
+    }
+
+    private static ColumnarCatalog columnar(List<? extends Displayable> entities) {
+        ColumnarCatalog catalog = new ColumnarCatalog();
+        int first = catalog.append(entities);
+        catalog.indexIds(first, entities.size());
+        return catalog;
+    }
+
+    @Test
+    void everyTypeReadsBackWithItsValues() {
+        ColumnarCatalog catalog = columnar(catalog());
+        assertEquals(4, catalog.size());
+
+        Flight flight = (Flight) catalog.get(0);
+        assertEquals("F1", flight.getId());
+        assertEquals("FL-1", flight.getName());
+        assertEquals(200, flight.getBasePrice());
+        assertEquals("IndiGo", flight.getAirline());
+        assertEquals("Delhi", flight.getSource());
+        assertEquals("Goa", flight.getDestination());
+        assertEquals("08:00", flight.getDepartureTime());
+        assertEquals(8 * 60, flight.getDepartureMinute());
+        assertEquals(95, flight.getDurationMinutes());
+        assertEquals(10, flight.getCapacity());
+        assertEquals(10, flight.getAvailableCount());
+
+        Hotel hotel = (Hotel) catalog.get(1);
+        assertEquals("Beach Hotel", hotel.getName());
+        assertEquals("Goa", hotel.getLocation());
+        assertEquals(4, hotel.getRating());
+        assertEquals(5, hotel.getCapacity());
+
+        CarRental car = (CarRental) catalog.get(2);
+        assertEquals("SUV", car.getCarType());
+        assertEquals(50, car.getBasePrice());
+        assertEquals(3, car.getAvailableCount());
+
+        // Repeated values come back as the dictionary's one instance
+        Flight other = (Flight) catalog.get(3);
+        assertSame(flight.getAirline(), other.getAirline());
+        assertSame(flight.getDestination(), other.getSource());
+        assertSame(flight.getDestination(), hotel.getLocation());
+        assertEquals(Arrays.asList(catalog().get(3).getDisplayData()), Arrays.asList(other.getDisplayData()));
+    }
+
+    @Test
+    void flyweightsFromDifferentReadsShareOneCount() throws InterruptedException {
+        ColumnarCatalog catalog = columnar(Collections.singletonList(
+                new Hotel("H1", "Hotel", 100, "Goa", 1000, 3)));
+        Bookable first = catalog.findBookable("H1");
+        Bookable second = catalog.findBookable("H1");
+        assertNotSame(first, second);
+        assertTrue(first.tryReserve(3));
+        assertEquals(997, second.getAvailableCount());
+        assertTrue(second.release(3));
+        assertFalse(first.release(1)); // never past capacity
+
+        int threads = 8;
+        AtomicInteger taken = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (catalog.findBookable("H1").tryReserve(1)) {
+                    taken.incrementAndGet();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(1000, taken.get());
+        assertEquals(0, first.getAvailableCount());
+    }
+
+    @Test
+    void entityAddedWithBookingsKeepsCapacityAndFreeCountApart() {
+        Flight flight = new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Goa", "08:00", 10);
+        assertTrue(flight.tryReserve(4));
+        Bookable stored = columnar(Collections.singletonList(flight)).findBookable("F1");
+        assertEquals(10, stored.getCapacity());
+        assertEquals(6, stored.getAvailableCount());
+        assertTrue(stored.release(4));
+        assertFalse(stored.release(1));
+    }
+
+    @Test
+    void idsAreFoundAcrossSegmentsAndTheLaterDuplicateWins() {
+        List<Displayable> many = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            many.add(new CarRental("C" + i, "Car " + i, 50 + i, i % 2 == 0 ? "SUV" : "Sedan", 1 + i % 7));
+        }
+        ColumnarCatalog catalog = columnar(many);
+        for (int i = 0; i < many.size(); i += 997) {
+            assertEquals(i, catalog.ordinalOf("C" + i));
+            assertEquals("Car " + i, ((CarRental) catalog.get(i)).getName());
+        }
+        assertEquals(-1, catalog.ordinalOf("C10000"));
+        assertEquals(-1, catalog.ordinalOf("C1 "));
+        assertEquals(-1, catalog.ordinalOf(null));
+
+        int first = catalog.append(Arrays.asList(
+                new CarRental("C5", "Replacement", 70, "SUV", 2),
+                new Hotel("Hôtel-1", "Château Ü", 120, "Zürich", 4, 5)));
+        catalog.indexIds(first, 2);
+        assertEquals(first, catalog.ordinalOf("C5"));
+        assertEquals("Replacement", ((CarRental) catalog.findBookable("C5")).getName());
+        assertEquals(first + 1, catalog.ordinalOf("Hôtel-1"));
+        assertEquals(-1, catalog.ordinalOf("Hotel-1"));
+        Hotel hotel = (Hotel) catalog.get(first + 1);
+        assertEquals("Château Ü", hotel.getName());
+        assertEquals("Zürich", hotel.getLocation());
+    }
+
+    @Test
+    void rejectedBatchLeavesTheCatalogUnchanged() {
+        ColumnarCatalog catalog = columnar(catalog());
+        Displayable foreign = () -> new String[0];
+        assertThrows(IllegalArgumentException.class, () -> catalog.append(Arrays.asList(
+                new CarRental("C9", "Car", 50, "SUV", 3), foreign)));
+        assertThrows(IllegalArgumentException.class, () -> catalog.append(Collections.singletonList(
+                new CarRental(null, "Car", 50, "SUV", 3))));
+        assertEquals(4, catalog.size());
+        assertEquals(-1, catalog.ordinalOf("C9"));
+    }
+
+    @Test
+    void columnarManagerBooksSearchesSnapshotsAndRestores() throws IOException {
+        BookingManager manager = managers.open(BookingManager.Storage.COLUMNAR);
+        BookingJournal journal = BookingJournal.open(dir, manager, true);
+        manager.addTravelEntities(catalog());
+
+        Booking booking = manager.book("F1", 3);
+        assertEquals(7, manager.findBookableById("F1").getAvailableCount());
+        Booking cancelled = manager.book("C1", 3);
+        assertNull(manager.book("C1", 1));
+        assertTrue(manager.cancelByReference(cancelled.getReference()));
+        assertEquals(3, manager.findBookableById("C1").getAvailableCount());
+
+        List<Displayable> results = manager.search("goa", "Flight", true);
+        assertEquals(2, results.size());
+        assertEquals("F1", ((Flight) results.get(0)).getId());
+
+        InventorySnapshot snapshot = manager.publishSnapshot();
+        assertEquals(4, snapshot.size());
+        assertEquals(7, snapshot.getAvailableCount(0));
+        assertEquals("H1", ((Hotel) snapshot.getEntity(1)).getId());
+        assertEquals(1, snapshot.getBookingCount());
+        journal.close();
+
+        BookingManager restored = managers.open(BookingManager.Storage.COLUMNAR);
+        BookingJournal.open(dir, restored, true).close();
+        assertEquals(4, restored.getAllEntities().size());
+        assertEquals(3, restored.findBooking(booking.getReference()).getQuantity());
+        assertEquals(7, restored.findBookableById("F1").getAvailableCount());
+        assertEquals(3, restored.findBookableById("C1").getAvailableCount());
+    }
+}
@@ -0,0 +1,245 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Dated bookings share an item's units with open-dated ones, night by night, as the window rolls on
+class InventoryCalendarTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+    @Test
+    void datedBookingRejectsQuantityBelowOne() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new Hotel("H1", "Hotel", 100, "Goa", 5, 3));
+        LocalDate start = LocalDate.now().plusDays(1);
+        assertThrows(IllegalArgumentException.class, () -> manager.book("H1", 0, start, start.plusDays(2)));
+        assertThrows(IllegalArgumentException.class, () -> manager.book("H1", -3, start, start.plusDays(2)));
+        assertEquals(5, manager.findBookableById("H1").getAvailableCount());
+        assertEquals(5, manager.getAvailableCount("H1", start, start.plusDays(2)));
+    }
+
+    @Test
+    void overlappingStaysShareTheBusiestNight() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new Hotel("H1", "Hotel", 100, "Goa", 5, 3));
+        Bookable hotel = manager.findBookableById("H1");
+        LocalDate day = LocalDate.now().plusDays(10);
+
+        Booking first = manager.book("H1", 2, day, day.plusDays(3));
+        assertNotNull(first);
+        assertNotNull(manager.book("H1", 3, day.plusDays(3), day.plusDays(5)));
+        // Back-to-back stays never overlap, so the counter is only charged for the busier one
+        assertEquals(2, hotel.getAvailableCount());
+        assertNull(manager.book("H1", 3, day.plusDays(2), day.plusDays(4)));
+        assertNotNull(manager.book("H1", 1, day.plusDays(1), day.plusDays(3)));
+        assertEquals(2, manager.getAvailableCount("H1", day.plusDays(1), day.plusDays(4)));
+        assertEquals(3, manager.getAvailableCount("H1", day, day.plusDays(1)));
+
+        assertTrue(manager.cancelByReference(first.getReference()));
+        assertEquals(2, hotel.getAvailableCount());
+        assertEquals(5, manager.getAvailableCount("H1", day, day.plusDays(1)));
+        assertEquals(4, manager.getAvailableCount("H1", day.plusDays(1), day.plusDays(3)));
+    }
+
+    @Test
+    void pastDatesAreRejectedForNewBookings() {
+        InventoryCalendar calendar = new InventoryCalendar(TODAY, 30);
+        Hotel hotel = new Hotel("H1", "Hotel", 100, "Goa", 5, 3);
+        assertThrows(IllegalArgumentException.class,
+                () -> calendar.reserve("H1", hotel, TODAY.minusDays(1), TODAY.plusDays(1), 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> calendar.reserve("H1", hotel, TODAY.plusDays(29), TODAY.plusDays(31), 1));
+        assertEquals(5, hotel.getAvailableCount());
+    }
+
+    @Test
+    void restoredStayInProgressKeepsItsRemainingNights() {
+        InventoryCalendar calendar = new InventoryCalendar(TODAY, 30);
+        Hotel hotel = new Hotel("H1", "Hotel", 100, "Goa", 5, 3);
+
+        assertEquals(4, calendar.restore("H1", hotel, TODAY.minusDays(2), TODAY.plusDays(2), 4));
+        assertEquals(1, hotel.getAvailableCount());
+        assertEquals(1, calendar.available("H1", hotel, TODAY, TODAY.plusDays(2)));
+        assertEquals(5, calendar.available("H1", hotel, TODAY.plusDays(2), TODAY.plusDays(3)));
+        assertEquals(-1, calendar.reserve("H1", hotel, TODAY.plusDays(1), TODAY.plusDays(3), 2));
+
+        assertEquals(4, calendar.release("H1", hotel, TODAY.minusDays(2), TODAY.plusDays(2), 4));
+        assertEquals(5, hotel.getAvailableCount());
+    }
+
+    @Test
+    void restoredStayThatAlreadyEndedHoldsNothing() {
+        InventoryCalendar calendar = new InventoryCalendar(TODAY, 30);
+        Hotel hotel = new Hotel("H1", "Hotel", 100, "Goa", 5, 3);
+        assertEquals(0, calendar.restore("H1", hotel, TODAY.minusDays(5), TODAY, 2));
+        assertEquals(5, hotel.getAvailableCount());
+        assertEquals(0, calendar.release("H1", hotel, TODAY.minusDays(5), TODAY, 2));
+        assertEquals(5, hotel.getAvailableCount());
+    }
+
+    @Test
+    void managerRestoresBookingsThatStartedBeforeToday() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new Hotel("H1", "Hotel", 100, "Goa", 5, 3));
+        LocalDate today = LocalDate.now();
+        manager.restoreBooking(new Booking("B1", "H1", null, 3, 600, 0, today.minusDays(3), today.plusDays(2)));
+        manager.restoreBooking(new Booking("B2", "H1", null, 1, 200, 0, today.minusDays(9), today.minusDays(7)));
+
+        assertNotNull(manager.findBooking("B1"));
+        assertNotNull(manager.findBooking("B2"));
+        assertEquals(2, manager.getAvailableCount("H1", today, today.plusDays(2)));
+        // The nights still to come are held, so they cannot be sold twice
+        assertNull(manager.book("H1", 3, today.plusDays(1), today.plusDays(3)));
+        assertTrue(manager.cancelByReference("B1"));
+        assertTrue(manager.cancelByReference("B2"));
+        assertEquals(5, manager.findBookableById("H1").getAvailableCount());
+    }
+
+    @Test
+    void rollingTheWindowHandsPastNightsBack() {
+        InventoryCalendar calendar = new InventoryCalendar(TODAY, 30);
+        Hotel hotel = new Hotel("H1", "Hotel", 100, "Goa", 5, 3);
+        assertEquals(4, calendar.reserve("H1", hotel, TODAY, TODAY.plusDays(2), 4));
+        assertEquals(1, calendar.reserve("H1", hotel, TODAY.plusDays(1), TODAY.plusDays(4), 1));
+        assertEquals(0, hotel.getAvailableCount());
+
+        assertTrue(calendar.advanceTo(TODAY.plusDays(2)));
+        assertEquals(4, calendar.roll("H1", hotel));
+        assertEquals(4, hotel.getAvailableCount());
+        assertEquals(TODAY.plusDays(32), calendar.getEndDate());
+        // Cancelling after the window moved on only gives back the nights still in it
+        assertEquals(1, calendar.release("H1", hotel, TODAY.plusDays(1), TODAY.plusDays(4), 1));
+        assertEquals(0, calendar.release("H1", hotel, TODAY, TODAY.plusDays(2), 4));
+        assertEquals(5, hotel.getAvailableCount());
+    }
+
+    @Test
+    void rangesWrappingRoundTheRingStayExact() {
+        InventoryCalendar calendar = new InventoryCalendar(TODAY, 30);
+        Hotel hotel = new Hotel("H1", "Hotel", 100, "Goa", 5, 3);
+        calendar.advanceTo(TODAY.plusDays(20));
+        LocalDate first = calendar.getFirstDate();
+        // Days 20..49 sit in slots 20..29 then 0..19, so this range wraps
+        assertEquals(2, calendar.reserve("H1", hotel, first.plusDays(5), first.plusDays(15), 2));
+        assertEquals(3, calendar.available("H1", hotel, first.plusDays(9), first.plusDays(10)));
+        assertEquals(3, calendar.available("H1", hotel, first.plusDays(10), first.plusDays(11)));
+        assertEquals(5, calendar.available("H1", hotel, first.plusDays(15), first.plusDays(30)));
+        assertEquals(5, calendar.available("H1", hotel, first, first.plusDays(5)));
+
+        calendar.advanceTo(first.plusDays(12));
+        assertEquals(0, calendar.roll("H1", hotel));
+        assertEquals(3, calendar.available("H1", hotel, calendar.getFirstDate(), calendar.getFirstDate().plusDays(3)));
+        assertEquals(5, calendar.available("H1", hotel, first.plusDays(30), first.plusDays(42)));
+        assertEquals(2, calendar.release("H1", hotel, first.plusDays(5), first.plusDays(15), 2));
+        assertEquals(5, hotel.getAvailableCount());
+    }
+
+    @Test
+    void managerRollFreesUnitsForOpenDatedBookings() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new Hotel("H1", "Hotel", 100, "Goa", 5, 3));
+        Bookable hotel = manager.findBookableById("H1");
+        LocalDate today = LocalDate.now();
+        assertNotNull(manager.book("H1", 5, today, today.plusDays(1)));
+        assertNull(manager.book("H1", 1));
+
+        manager.rollCalendar(today.plusDays(1));
+        assertEquals(5, hotel.getAvailableCount());
+        assertNotNull(manager.book("H1", 1));
+    }
+
+    @Test
+    void rollKeepsTotalsHeldByAnAncestorNode() {
+        LocalDate first = LocalDate.of(2030, 1, 3);
+        InventoryCalendar calendar = new InventoryCalendar(first, 7);
+        Hotel hotel = new Hotel("H1", "Hotel", 100, "Goa", 13, 3);
+        calendar.reserve("H1", hotel, first.plusDays(3), first.plusDays(5), 2);
+        calendar.reserve("H1", hotel, first, first.plusDays(7), 1);
+        calendar.reserve("H1", hotel, first.plusDays(6), first.plusDays(7), 3);
+        assertEquals(9, hotel.getAvailableCount());
+
+        calendar.advanceTo(first.plusDays(1));
+        assertEquals(0, calendar.roll("H1", hotel));
+        assertEquals(9, hotel.getAvailableCount());
+        assertEquals(10, calendar.available("H1", hotel, first.plusDays(3), first.plusDays(5)));
+        assertEquals(13, calendar.available("H1", hotel, first.plusDays(7), first.plusDays(8)));
+    }
+
+    // Random reserves, releases and rolls, checked day by day against a plain array of totals
+    @Test
+    void randomOperationsMatchAPerDayModel() {
+        for (int days : new int[] {1, 2, 7, 13, 16, 31}) {
+            for (long seed = 0; seed < 5; seed++) {
+                runAgainstModel(days, seed);
+            }
+        }
+    }
+
+    private static void runAgainstModel(int days, long seed) {
+        Random random = new Random(seed * 31 + days);
+        int capacity = 12;
+        long base = TODAY.toEpochDay();
+        InventoryCalendar calendar = new InventoryCalendar(TODAY, days);
+        Hotel hotel = new Hotel("H1", "Hotel", 100, "Goa", capacity, 3);
+        int[] booked = new int[days + 2000];  // by day - base
+        List<long[]> held = new ArrayList<>(); // start, end, quantity
+        long first = base;
+        for (int op = 0; op < 2000; op++) {
+            int action = random.nextInt(20);
+            String step = "days " + days + ", seed " + seed + ", op " + op;
+            if (action < 10) {
+                long start = first + random.nextInt(days);
+                long end = start + 1 + random.nextInt((int) (first + days - start));
+                int quantity = 1 + random.nextInt(4);
+                int busiest = 0;
+                for (long day = start; day < end; day++) {
+                    busiest = Math.max(busiest, booked[(int) (day - base)]);
+                }
+                int taken = calendar.reserve("H1", hotel, LocalDate.ofEpochDay(start), LocalDate.ofEpochDay(end),
+                        quantity);
+                assertEquals(busiest + quantity <= capacity, taken >= 0, step);
+                if (taken >= 0) {
+                    for (long day = start; day < end; day++) {
+                        booked[(int) (day - base)] += quantity;
+                    }
+                    held.add(new long[] {start, end, quantity});
+                }
+            } else if (action < 17 && !held.isEmpty()) {
+                long[] booking = held.remove(random.nextInt(held.size()));
+                calendar.release("H1", hotel, LocalDate.ofEpochDay(booking[0]), LocalDate.ofEpochDay(booking[1]),
+                        (int) booking[2]);
+                for (long day = Math.max(booking[0], first); day < booking[1]; day++) {
+                    booked[(int) (day - base)] -= (int) booking[2];
+                }
+            } else if (first - base < 1900) {
+                first += 1 + random.nextInt(Math.min(days + 1, 4));
+                calendar.advanceTo(LocalDate.ofEpochDay(first));
+                calendar.roll("H1", hotel);
+            }
+
+            int peak = 0;
+            for (long day = first; day < first + days; day++) {
+                int total = booked[(int) (day - base)];
+                peak = Math.max(peak, total);
+                assertEquals(capacity - total,
+                        calendar.available("H1", hotel, LocalDate.ofEpochDay(day), LocalDate.ofEpochDay(day + 1)),
+                        step + ", day " + (day - first));
+            }
+            assertEquals(capacity - peak, hotel.getAvailableCount(), step);
+        }
+    }
+}
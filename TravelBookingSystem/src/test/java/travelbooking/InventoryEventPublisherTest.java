@@ -0,0 +1,133 @@
+package travelbooking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Changes inside one batch window coalesce to one event per item; batches arrive in order, on the
+// publisher's own thread, each event starting from the count the previous one ended at
+class InventoryEventPublisherTest {
+    private static final long BATCH_MILLIS = 100;
+
+    private final InventoryEventPublisher publisher = new InventoryEventPublisher(BATCH_MILLIS);
+    private final BlockingQueue<List<InventoryEvent>> batches = new LinkedBlockingQueue<>();
+    private final List<String> threads = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        publisher.close();
+    }
+
+    private void listen() {
+        publisher.addListener(events -> {
+            synchronized (threads) {
+                threads.add(Thread.currentThread().getName());
+            }
+            batches.add(events);
+        });
+    }
+
+    private List<InventoryEvent> nextBatch() throws InterruptedException {
+        List<InventoryEvent> batch = batches.poll(5, TimeUnit.SECONDS);
+        assertNotNull(batch, "no batch was published");
+        return batch;
+    }
+
+    private void book(Bookable item, String id, int ordinal, int quantity) {
+        assertTrue(item.tryReserve(quantity));
+        publisher.changed(id, ordinal, item, -quantity);
+    }
+
+    private void cancel(Bookable item, String id, int ordinal, int quantity) {
+        assertTrue(item.release(quantity));
+        publisher.changed(id, ordinal, item, quantity);
+    }
+
+    @Test
+    void changesWithinOneWindowCoalescePerItem() throws InterruptedException {
+        listen();
+        Hotel hotel = new Hotel("H1", "Hotel", 100, "Goa", 10, 4);
+        CarRental car = new CarRental("C1", "Car", 50, "SUV", 2);
+        Hotel unchanged = new Hotel("H2", "Hotel", 100, "Goa", 5, 4);
+        for (int i = 0; i < 4; i++) {
+            book(hotel, "H1", 0, 1);
+        }
+        cancel(hotel, "H1", 0, 1);
+        book(car, "C1", 1, 2);
+        // Booked and cancelled within the window: its count ends where it started, so no event
+        book(unchanged, "H2", 2, 3);
+        cancel(unchanged, "H2", 2, 3);
+
+        List<InventoryEvent> batch = nextBatch();
+        assertEquals(2, batch.size(), batch.toString());
+        for (InventoryEvent event : batch) {
+            if (event.getItemId().equals("H1")) {
+                assertEquals(10, event.getOldCount());
+                assertEquals(7, event.getNewCount());
+                assertFalse(event.isAvailabilityChanged());
+            } else {
+                assertEquals("C1", event.getItemId());
+                assertEquals(1, event.getOrdinal());
+                assertEquals(2, event.getOldCount());
+                assertEquals(0, event.getNewCount());
+                assertEquals(2, event.getCapacity());
+                assertTrue(event.isAvailabilityChanged());
+            }
+        }
+        assertNull(batches.poll(3 * BATCH_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void batchesArriveInOrderOnThePublisherThread() throws InterruptedException {
+        listen();
+        Hotel hotel = new Hotel("H1", "Hotel", 100, "Goa", 20, 4);
+        int expectedOld = 20;
+        for (int round = 1; round <= 5; round++) {
+            book(hotel, "H1", 0, round);
+            List<InventoryEvent> batch = nextBatch();
+            assertEquals(1, batch.size());
+            // Each event picks up where the item's previous event left off
+            assertEquals(expectedOld, batch.get(0).getOldCount());
+            assertEquals(expectedOld - round, batch.get(0).getNewCount());
+            expectedOld -= round;
+        }
+        cancel(hotel, "H1", 0, 15);
+        List<InventoryEvent> batch = nextBatch();
+        assertEquals(5, batch.get(0).getOldCount());
+        assertEquals(20, batch.get(0).getNewCount());
+        synchronized (threads) {
+            assertEquals(6, threads.size());
+            for (String thread : threads) {
+                assertEquals("inventory-events", thread);
+            }
+        }
+    }
+
+    @Test
+    void nothingIsPublishedWithoutListenersOrAfterClose() throws InterruptedException {
+        Hotel hotel = new Hotel("H1", "Hotel", 100, "Goa", 10, 4);
+        book(hotel, "H1", 0, 1); // nobody listening: not even marked
+        listen();
+        assertNull(batches.poll(3 * BATCH_MILLIS, TimeUnit.MILLISECONDS));
+
+        book(hotel, "H1", 0, 1);
+        List<InventoryEvent> batch = nextBatch();
+        assertEquals(9, batch.get(0).getOldCount());
+        assertEquals(8, batch.get(0).getNewCount());
+
+        publisher.close();
+        book(hotel, "H1", 0, 1);
+        assertNull(batches.poll(3 * BATCH_MILLIS, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,163 @@
+package travelbooking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// CSV and binary rows pass the same checks; a corrupt frame ends the load without losing the rows before it
+class InventoryImporterTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    private final Locale original = Locale.getDefault();
+
+    @AfterEach
+    void restoreLocale() {
+        Locale.setDefault(original);
+    }
+
+    @Test
+    void csvRowsWithBadValuesAreRejectedOneByOne() throws IOException {
+        BookingManager manager = managers.open();
+        String csv = "type,id,name\n"
+                + "FLIGHT,F1,FL-1,200,IndiGo,Delhi,Goa,08:00,120,10\n"
+                + "FLIGHT,F2,FL-2,200,IndiGo,Delhi,Goa,soon,120,10\n"
+                + "HOTEL,H1,Hotel,100,Goa,5,7\n"
+                + "HOTEL,H2,Hotel,100,Goa,5,4\n"
+                + "CAR,F1,Car,50,SUV,3\n";
+        InventoryImporter.ImportResult result = new InventoryImporter(manager, 2).importCsv(new StringReader(csv));
+        assertEquals(2, result.getImported());
+        assertEquals(3, result.getRejected());
+        assertFalse(result.isTruncated());
+        assertNotNull(manager.findBookableById("H2"));
+        assertNull(manager.findBookableById("F2"));
+        assertTrue(result.getErrors().get(0).contains("departure time"), result.getErrors().toString());
+    }
+
+    @Test
+    void lowerCaseRowKindsAreReadUnderATurkishLocale() throws IOException {
+        // Turkish uppercases "flight" to "FLİGHT", which is no known kind
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        BookingManager manager = managers.open();
+        String csv = "flight,F1,FL-1,200,IndiGo,Delhi,Goa,08:00,120,10\n"
+                + "hotel,H1,Hotel,100,Goa,5,4\n";
+        InventoryImporter.ImportResult result = new InventoryImporter(manager, 2).importCsv(new StringReader(csv));
+        assertEquals(2, result.getImported(), result.getErrors().toString());
+        assertNotNull(manager.findBookableById("F1"));
+    }
+
+    @Test
+    void binaryRowsGetTheSameChecksAsCsv() throws IOException {
+        BookingManager manager = managers.open();
+        byte[] file = binary(
+                new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Goa", "08:00", 120, 10),
+                new Flight("F2", "FL-2", 200, "IndiGo", "Delhi", "Goa", "soon", 120, 10),
+                new Hotel("H1", "Hotel", 100, "Goa", 5, 7),
+                new CarRental("C1", "Car", -50, "SUV", 3),
+                new CarRental("C2", "Car", 50, "SUV", 3));
+        InventoryImporter.ImportResult result = new InventoryImporter(manager, 2).importBinary(new ByteArrayInputStream(file));
+        assertEquals(2, result.getImported());
+        assertEquals(3, result.getRejected());
+        assertNotNull(manager.findBookableById("F1"));
+        assertNotNull(manager.findBookableById("C2"));
+    }
+
+    @Test
+    void corruptFrameLengthStopsTheLoadAndKeepsEarlierRows() throws IOException {
+        BookingManager manager = managers.open();
+        byte[] good = binary(
+                new Hotel("H1", "Hotel", 100, "Goa", 5, 3),
+                new Hotel("H2", "Hotel", 100, "Goa", 5, 3));
+        byte[] file = Arrays.copyOf(good, good.length + 8);
+        ByteBuffer.wrap(file, good.length, 8).putInt(-7).putInt(0);
+
+        InventoryImporter.ImportResult result = new InventoryImporter(manager, 2).importBinary(new ByteArrayInputStream(file));
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getRejected());
+        assertTrue(result.isTruncated());
+        assertTrue(result.getErrors().get(0).startsWith("row 3: corrupt frame length -7"), result.getErrors().toString());
+    }
+
+    @Test
+    void frameCutShortAtTheEndIsReported() throws IOException {
+        BookingManager manager = managers.open();
+        byte[] good = binary(
+                new Hotel("H1", "Hotel", 100, "Goa", 5, 3),
+                new Hotel("H2", "Hotel", 100, "Goa", 5, 3));
+        byte[] file = Arrays.copyOf(good, good.length - 3);
+
+        InventoryImporter.ImportResult result = new InventoryImporter(manager, 2).importBinary(new ByteArrayInputStream(file));
+        assertEquals(1, result.getImported());
+        assertTrue(result.isTruncated());
+        assertNotNull(manager.findBookableById("H1"));
+    }
+
+    @Test
+    void frameLengthCutShortAtTheEndIsReported(@TempDir Path dir) throws IOException {
+        BookingManager manager = managers.open();
+        byte[] good = binary(
+                new Hotel("H1", "Hotel", 100, "Goa", 5, 3),
+                new Hotel("H2", "Hotel", 100, "Goa", 5, 3));
+        Path file = dir.resolve("inventory.bin");
+        Files.write(file, Arrays.copyOf(good, good.length + 2));
+
+        InventoryImporter.ImportResult result = new InventoryImporter(manager, 2).importFile(file);
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getRejected());
+        assertTrue(result.isTruncated());
+        assertTrue(result.getErrors().get(0).startsWith("row 3: truncated frame length"), result.getErrors().toString());
+    }
+
+    @Test
+    void importedRowsShareRepeatedAttributeValues() throws IOException {
+        BookingManager manager = managers.open();
+        String csv = "type,id,name\n"
+                + "FLIGHT,F1,FL-1,200,IndiGo,Delhi,Goa,08:00,120,10\n"
+                + "FLIGHT,F2,FL-2,200,IndiGo,Goa,Delhi,08:00,120,10\n"
+                + "HOTEL,H1,Hotel,100,Goa,5,4\n";
+        assertEquals(3, new InventoryImporter(manager, 2).importCsv(new StringReader(csv)).getImported());
+        Flight first = (Flight) manager.findBookableById("F1");
+        Flight second = (Flight) manager.findBookableById("F2");
+        assertSame(first.getAirline(), second.getAirline());
+        assertSame(first.getDepartureTime(), second.getDepartureTime());
+        assertSame(first.getSource(), second.getDestination());
+        assertSame(first.getDestination(), ((Hotel) manager.findBookableById("H1")).getLocation());
+    }
+
+    @Test
+    void eachManagerKeepsItsOwnDictionary() {
+        BookingManager one = managers.open();
+        BookingManager other = managers.open();
+        one.addTravelEntity(new CarRental("C1", "Car", 50, new String("SUV"), 1));
+        other.addTravelEntity(new CarRental("C1", "Car", 50, new String("SUV"), 1));
+        other.addTravelEntity(new CarRental("C2", "Car", 50, new String("SUV"), 1));
+        CarRental otherFirst = (CarRental) other.findBookableById("C1");
+        assertSame(otherFirst.getCarType(), ((CarRental) other.findBookableById("C2")).getCarType());
+        assertNotSame(((CarRental) one.findBookableById("C1")).getCarType(), otherFirst.getCarType());
+    }
+
+    private static byte[] binary(Displayable... entities) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InventoryImporter.writeBinary(Arrays.asList(entities), out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,184 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Every published version is a cut between whole operations, and never changes once published
+class InventorySnapshotTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    private static final String[] SINGLES = {"F1", "H1", "C1"};
+
+    private BookingManager inventory() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Goa", "08:00", 40),
+                new Hotel("H1", "Hotel", 100, "Goa", 30, 3),
+                new CarRental("C1", "Car", 50, "SUV", 20),
+                new Flight("F2", "FL-2", 300, "Vistara", "Goa", "Delhi", "18:00", 1000),
+                new Hotel("H2", "Resort", 150, "Goa", 1000, 5)));
+        return manager;
+    }
+
+    @Test
+    void snapshotsTakenDuringWritesAreConsistentCuts() throws Exception {
+        BookingManager manager = inventory();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<Throwable> readerFailure = new AtomicReference<>();
+        AtomicInteger checked = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            long lastVersion = -1;
+            try {
+                while (writing.get()) {
+                    for (InventorySnapshot snapshot : Arrays.asList(manager.publishSnapshot(), manager.snapshot())) {
+                        assertTrue(snapshot.getVersion() >= lastVersion);
+                        lastVersion = snapshot.getVersion();
+                        assertConsistent(snapshot);
+                        checked.incrementAndGet();
+                    }
+                }
+            } catch (Throwable t) {
+                readerFailure.set(t);
+            }
+        });
+        reader.start();
+        try {
+            BookingManagerConcurrencyTest.runConcurrently(thread -> {
+                Random random = new Random(thread);
+                List<String> mine = new ArrayList<>();
+                for (int i = 0; i < 3000; i++) {
+                    int action = random.nextInt(4);
+                    if (action == 0) {
+                        // Packages are never cancelled, so every version holds as many F2 as H2 bookings
+                        manager.bookPackage(Arrays.asList("F2", "H2"), new int[] {1, 1});
+                    } else if (action == 1 && !mine.isEmpty()) {
+                        assertTrue(manager.cancelByReference(mine.remove(random.nextInt(mine.size()))));
+                    } else {
+                        Booking booking = manager.book(SINGLES[random.nextInt(SINGLES.length)], 1 + random.nextInt(2));
+                        if (booking != null) {
+                            mine.add(booking.getReference());
+                        }
+                    }
+                }
+            });
+        } finally {
+            writing.set(false);
+            reader.join();
+        }
+        if (readerFailure.get() != null) {
+            throw new AssertionError("Inconsistent snapshot", readerFailure.get());
+        }
+        assertTrue(checked.get() > 0);
+
+        InventorySnapshot last = manager.publishSnapshot();
+        assertConsistent(last);
+        // Published after every write finished, so it matches the live inventory
+        assertEquals(manager.getBookingRecords().size(), last.getBookingCount());
+        for (int ordinal = 0; ordinal < last.size(); ordinal++) {
+            Bookable item = (Bookable) last.getEntity(ordinal);
+            assertEquals(item.getAvailableCount(), last.getAvailableCount(ordinal));
+        }
+    }
+
+    @Test
+    void publishedVersionNeverChanges() {
+        BookingManager manager = inventory();
+        Booking booked = manager.book("H1", 3);
+        assertNotNull(booked);
+        InventorySnapshot before = manager.publishSnapshot();
+        int hotel = ordinalOf(before, "H1");
+
+        assertTrue(manager.cancelByReference(booked.getReference()));
+        manager.book("C1", 2);
+        manager.bookPackage(Arrays.asList("F2", "H2"), new int[] {1, 1});
+        InventorySnapshot after = manager.publishSnapshot();
+
+        assertEquals(27, before.getAvailableCount(hotel));
+        assertEquals(1, before.getBookingCount());
+        assertEquals(booked.getReference(), before.getBookings().iterator().next().getReference());
+        assertEquals(30, after.getAvailableCount(hotel));
+        assertEquals(3, after.getBookingCount());
+        assertTrue(after.getVersion() > before.getVersion());
+        assertConsistent(before);
+        assertConsistent(after);
+    }
+
+    @Test
+    void itemsBookedBeforeTheirFirstPublicationAreCountedOnce() {
+        BookingManager manager = inventory();
+        manager.publishSnapshot();
+        manager.addTravelEntities(Arrays.asList(
+                new CarRental("C2", "Car", 50, "SUV", 1),
+                new CarRental("C3", "Car", 50, "SUV", 2)));
+        assertNotNull(manager.book("C2", 1));
+        assertNotNull(manager.book("C3", 1));
+        InventorySnapshot snapshot = manager.publishSnapshot();
+
+        assertEquals(0, snapshot.getAvailableCount(ordinalOf(snapshot, "C2")));
+        assertEquals(1, snapshot.getAvailableCount(ordinalOf(snapshot, "C3")));
+        assertEquals(6, snapshot.getAvailableEntities().size());
+        assertConsistent(snapshot);
+    }
+
+    @Test
+    void catalogAndBookingReadsAreViewsThatIncludeFinishedWrites() {
+        BookingManager manager = inventory();
+        Booking booked = manager.book("H1", 2);
+        List<Displayable> entities = manager.getAllEntities();
+        Collection<Bookable> items = manager.getBookings();
+        assertEquals(5, entities.size());
+        assertEquals(1, items.size());
+        assertSame(manager.findBookableById("H1"), items.iterator().next());
+        assertThrows(UnsupportedOperationException.class, () -> entities.add(entities.get(0)));
+
+        // Later writes show up in later calls, never in views already handed out
+        manager.addTravelEntity(new CarRental("C2", "Car", 50, "SUV", 1));
+        assertTrue(manager.cancelByReference(booked.getReference()));
+        assertEquals(6, manager.getAllEntities().size());
+        assertTrue(manager.getBookings().isEmpty());
+        assertEquals(5, entities.size());
+        assertEquals(1, items.size());
+    }
+
+    // Counts taken match the bookings listed, item by item, and no package is half in
+    private static void assertConsistent(InventorySnapshot snapshot) {
+        Map<String, Integer> held = new HashMap<>();
+        for (Booking booking : snapshot.getBookings()) {
+            held.merge(booking.getItemId(), booking.getQuantity(), Integer::sum);
+        }
+        for (int ordinal = 0; ordinal < snapshot.size(); ordinal++) {
+            TravelEntity item = (TravelEntity) snapshot.getEntity(ordinal);
+            int units = held.getOrDefault(item.getId(), 0);
+            assertEquals(item.getCapacity() - snapshot.getAvailableCount(ordinal), units,
+                    "version " + snapshot.getVersion() + ", " + item.getId());
+        }
+        assertEquals(held.getOrDefault("F2", 0), held.getOrDefault("H2", 0), "version " + snapshot.getVersion());
+    }
+
+    private static int ordinalOf(InventorySnapshot snapshot, String id) {
+        for (int ordinal = 0; ordinal < snapshot.size(); ordinal++) {
+            if (((TravelEntity) snapshot.getEntity(ordinal)).getId().equals(id)) {
+                return ordinal;
+            }
+        }
+        throw new AssertionError(id);
+    }
+}
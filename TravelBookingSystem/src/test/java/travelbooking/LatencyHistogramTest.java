@@ -0,0 +1,109 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Buckets are exact below 128ns and within 1.6% above; percentiles read back the bucket's upper edge
+class LatencyHistogramTest {
+    @Test
+    void smallValuesAreKeptExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 0; nanos < 128; nanos++) {
+            histogram.record(nanos);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(128, snapshot.getCount());
+        assertEquals(127, snapshot.getMaxNanos());
+        assertEquals(63.5, snapshot.getMeanNanos(), 1e-9);
+        for (int rank = 1; rank <= 128; rank++) {
+            assertEquals(rank - 1, snapshot.getValueAtPercentile(rank / 128.0));
+        }
+    }
+
+    @Test
+    void bucketsWidenWithEachPowerOfTwo() {
+        // 128..255 share buckets two wide, 256..511 four wide; each reads back as its bucket's top
+        assertEquals(129, valueOfOnly(128, 129));
+        assertEquals(131, valueOfOnly(130, 131));
+        assertEquals(255, valueOfOnly(254, 255));
+        assertEquals(259, valueOfOnly(256, 259));
+        assertEquals(263, valueOfOnly(260, 263));
+
+        // Below the recorded maximum, a bucket reports its top edge rather than the value itself
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(256);
+        histogram.record(1_000);
+        assertEquals(259, histogram.snapshot().getValueAtPercentile(0.5));
+        assertEquals(1_000, histogram.snapshot().getValueAtPercentile(1.0));
+    }
+
+    // Records the first value and a larger one, then reads the median back: the first value's bucket top
+    private static long valueOfOnly(long value, long expectedTop) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        histogram.record(expectedTop + 1_000_000);
+        return histogram.snapshot().getValueAtPercentile(0.5);
+    }
+
+    @Test
+    void percentilesStayWithinTheStatedError() {
+        Random random = new Random(42);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] recorded = new long[100_000];
+        for (int i = 0; i < recorded.length; i++) {
+            // Log-uniform from 100ns to 100ms, so every bucket width gets exercised
+            recorded[i] = (long) Math.pow(10, 2 + random.nextDouble() * 6);
+            histogram.record(recorded[i]);
+        }
+        Arrays.sort(recorded);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        for (double fraction : new double[] {0.01, 0.1, 0.5, 0.9, 0.99, 0.999, 0.9999}) {
+            long exact = recorded[(int) Math.ceil(fraction * recorded.length) - 1];
+            long reported = snapshot.getValueAtPercentile(fraction);
+            assertTrue(reported >= exact, fraction + ": " + reported + " < " + exact);
+            assertTrue(reported - exact <= exact * 0.016, fraction + ": " + reported + " vs " + exact);
+        }
+        assertEquals(recorded[recorded.length - 1], snapshot.getValueAtPercentile(1.0));
+        assertEquals(Arrays.stream(recorded).average().getAsDouble(), snapshot.getMeanNanos(), 1e-6);
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentile(0.5));
+        assertEquals((1L << 40) - 1, snapshot.getMaxNanos());
+        assertEquals((1L << 40) - 1, snapshot.getValueAtPercentile(1.0));
+    }
+
+    @Test
+    void intervalsAndResetsCountOnlyTheirOwnRecordings() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(20);
+        LatencyHistogram.Snapshot earlier = histogram.snapshot();
+        histogram.record(30);
+        histogram.record(50);
+
+        LatencyHistogram.Snapshot interval = histogram.snapshot().since(earlier);
+        assertEquals(2, interval.getCount());
+        assertEquals(40.0, interval.getMeanNanos(), 1e-9);
+        assertEquals(30, interval.getValueAtPercentile(0.5));
+        assertEquals(50, interval.getMaxNanos());
+        assertEquals(0, histogram.snapshot().since(histogram.snapshot()).getCount());
+
+        histogram.reset();
+        LatencyHistogram.Snapshot cleared = histogram.snapshot();
+        assertEquals(0, cleared.getCount());
+        assertEquals(0, cleared.getMaxNanos());
+        assertEquals(0, cleared.getValueAtPercentile(0.99));
+    }
+}
@@ -0,0 +1,105 @@
+package travelbooking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Reports survive a save and load under any default locale, comparisons flag regressions, and a
+// short load run accounts for every unit it booked
+class LoadReportTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    private final Locale original = Locale.getDefault();
+
+    @AfterEach
+    void restoreLocale() {
+        Locale.setDefault(original);
+    }
+
+    @Test
+    void reportsRoundTripUnderACommaDecimalLocale(@TempDir Path dir) throws IOException {
+        Locale.setDefault(Locale.GERMANY);
+        LoadReport report = report("baseline", 1500.5, 2_500);
+        Path file = dir.resolve("baseline.properties");
+        report.save(file);
+
+        LoadReport loaded = LoadReport.load(file);
+        assertEquals("baseline", loaded.get("label"));
+        assertEquals(1500.5, loaded.getDouble("throughput"), 1e-9);
+        assertEquals("2.5", loaded.get("op.book.mean"));
+        assertEquals(2.5, loaded.getDouble("op.book.p50"), 0.1);
+        assertEquals(report.format(), loaded.format());
+    }
+
+    @Test
+    void comparisonFlagsSlowerAndLowerThroughputRuns(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("baseline.properties");
+        report("baseline", 1000, 2_000).save(file);
+        LoadReport baseline = LoadReport.load(file);
+
+        String same = report("same", 1000, 2_000).compare(baseline);
+        assertFalse(same.contains("REGRESSED"), same);
+
+        String slower = report("slower", 800, 4_000).compare(baseline);
+        assertTrue(line(slower, "throughput").endsWith("REGRESSED"), slower);
+        assertTrue(line(slower, "book p50").endsWith("REGRESSED"), slower);
+        assertTrue(line(slower, "book p50").contains("+100.0%"), slower);
+
+        LoadReport oversold = report("oversold", 1000, 2_000);
+        oversold.put("oversoldItems", 1);
+        assertTrue(line(oversold.compare(baseline), "oversold items").endsWith("REGRESSED"));
+    }
+
+    @Test
+    void shortRunAccountsForEveryBookedUnit() throws InterruptedException {
+        BookingManager manager = managers.open();
+        String[] ids = SyntheticCatalog.ofSize(30, 3, 42).populate(manager);
+        LoadTest load = new LoadTest(manager, null, ids, LoadTest.parseMix("search=10,availability=10,book=60,cancel=20"),
+                0.99, 2, 42);
+        load.run(2, 0, false, 0, 200_000_000L);
+
+        LoadReport report = new LoadReport();
+        load.report(report, 0.2);
+        assertTrue(report.getDouble("op.book.count") > 0);
+        assertEquals(0, report.getDouble("op.book.errors"));
+        assertEquals(0, report.getDouble("oversoldItems"));
+        assertEquals(0, report.getDouble("inconsistentItems"));
+        assertEquals(0, report.getDouble("unaccountedBookings"));
+    }
+
+    // One book operation whose latencies are all latencyNanos
+    private static LoadReport report(String label, double throughput, long latencyNanos) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(latencyNanos);
+        }
+        LoadReport report = new LoadReport();
+        report.put("label", label);
+        report.put("catalog", "30 items");
+        report.putOperation("book", 90, 10, 0, histogram.snapshot());
+        report.put("throughput", throughput);
+        report.put("oversoldItems", 0);
+        report.put("inconsistentItems", 0);
+        report.put("unaccountedBookings", 0);
+        return report;
+    }
+
+    private static String line(String table, String label) {
+        for (String line : table.split("\\R")) {
+            if (line.startsWith(label)) {
+                return line;
+            }
+        }
+        throw new AssertionError("No " + label + " row in " + table);
+    }
+}
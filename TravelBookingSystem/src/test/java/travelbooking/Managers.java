@@ -0,0 +1,33 @@
+package travelbooking;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hands out BookingManagers for one test and closes them all after it, so no test leaves their
+// background threads running. Tests register it as a field:
+//     @RegisterExtension
+//     final Managers managers = new Managers();
+final class Managers implements AfterEachCallback {
+    private final List<BookingManager> opened = new ArrayList<>();
+
+    BookingManager open() {
+        return open(BookingManager.Storage.OBJECTS);
+    }
+
+    BookingManager open(BookingManager.Storage storage) {
+        BookingManager manager = new BookingManager(storage);
+        opened.add(manager);
+        return manager;
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        for (BookingManager manager : opened) {
+            manager.close();
+        }
+        opened.clear();
+    }
+}
@@ -0,0 +1,86 @@
+package travelbooking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Prices and the inventory calendar agree on what day it is, and quotes follow the active engine
+class PricingEngineTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    private final PricingEngine original = PricingEngine.getActive();
+
+    @AfterEach
+    void restore() {
+        TravelClock.setClock(Clock.systemDefaultZone());
+        PricingEngine.setActive(original);
+    }
+
+    @Test
+    void pricingAndCalendarShareTheClocksDate() {
+        // Still the 1st in UTC, already the 2nd in India
+        TravelClock.setClock(Clock.fixed(Instant.parse("2026-03-01T20:00:00Z"), ZoneId.of("Asia/Kolkata")));
+        LocalDate today = LocalDate.of(2026, 3, 2);
+        assertEquals(today, TravelClock.today());
+        assertEquals(today.toEpochDay(), PricingEngine.today());
+
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new Hotel("H1", "Hotel", 100, "Goa", 5, 3));
+        assertNotNull(manager.book("H1", 1, today, today.plusDays(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.book("H1", 1, today.minusDays(1), today.plusDays(1)));
+    }
+
+    @Test
+    void bulkQuoteMatchesSinglePrices() {
+        Flight flight = new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Goa", "08:00", 10);
+        Hotel hotel = new Hotel("H1", "Hotel", 100, "Goa", 5, 3);
+        List<TravelEntity> items = Arrays.asList(flight, hotel);
+        PricingEngine engine = PricingEngine.getActive();
+        assertArrayEquals(new double[] {engine.price(flight), engine.price(hotel)},
+                engine.quote(items, TravelClock.today()), 1e-9);
+    }
+
+    @Test
+    void datedStaysArePricedWithEachNightsAvailability() {
+        PricingEngine.setActive(new PricingEngine(Collections.singletonList(PricingRule.demandSurcharge("Hotel", 1, 50))));
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new Hotel("H1", "Hotel", 100, "Goa", 3, 4));
+        LocalDate busy = TravelClock.today().plusDays(10);
+        assertNotNull(manager.book("H1", 2, busy, busy.plusDays(1)));
+        // The open-dated count is down to one room, but only the busy night is that full
+        assertEquals(1, manager.findBookableById("H1").getAvailableCount());
+
+        LocalDate quiet = TravelClock.today().plusDays(5);
+        assertEquals(200, manager.book("H1", 1, quiet, quiet.plusDays(2)).getPrice(), 1e-9);
+        assertEquals(150 + 100, manager.book("H1", 1, busy, busy.plusDays(2)).getPrice(), 1e-9);
+    }
+
+    @Test
+    void itineraryFaresFollowTheActiveEngine() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Goa", "08:00", 10),
+                new Flight("F2", "FL-2", 100, "IndiGo", "Goa", "Pune", "14:00", 10)));
+        Itinerary before = manager.findItinerary("Delhi", "Pune", RouteGraph.Objective.CHEAPEST, 1, 60, 0);
+        assertEquals(354, before.getTotalPrice(), 1e-9);
+
+        PricingEngine.setActive(new PricingEngine(Collections.singletonList(PricingRule.multiplier("Flight", null, 2))));
+        Itinerary after = manager.findItinerary("Delhi", "Pune", RouteGraph.Objective.CHEAPEST, 1, 60, 0);
+        assertEquals(600, after.getTotalPrice(), 1e-9);
+    }
+}
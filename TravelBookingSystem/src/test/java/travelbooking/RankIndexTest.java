@@ -0,0 +1,167 @@
+package travelbooking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// Whichever plan a query picks (walk an order, fill a heap from a slice, scan drifted items),
+// the result is the brute-force ranking at live prices
+class RankIndexTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    private static final String[] CITIES = {"Delhi", "Mumbai", "Goa", "Pune", "Agra", "Leh", "Kochi", "Ooty"};
+
+    private final PricingEngine original = PricingEngine.getActive();
+
+    @AfterEach
+    void restore() {
+        PricingEngine.setActive(original);
+    }
+
+    @Test
+    void everyQueryShapeMatchesABruteForceRanking() {
+        BookingManager manager = managers.open();
+        Random random = new Random(7);
+        List<Displayable> catalog = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            String city = CITIES[random.nextInt(i % 10 == 0 ? 2 : CITIES.length)];
+            double price = 20 + random.nextInt(400);
+            if (i % 3 == 0) {
+                catalog.add(new Flight("F" + i, "FL-" + i, price, "IndiGo", "Delhi", city, "08:00", 1 + random.nextInt(3)));
+            } else {
+                catalog.add(new Hotel("H" + i, "Stay " + i, price, city, 1 + random.nextInt(3), 1 + random.nextInt(5)));
+            }
+        }
+        manager.addTravelEntities(catalog);
+        for (int i = 0; i < 300; i++) {
+            manager.book(((TravelEntity) catalog.get(random.nextInt(catalog.size()))).getId(), 1);
+        }
+
+        int[] limits = {1, 5, 40, 2000};
+        for (int i = 0; i < 600; i++) {
+            RankedQuery.Order order = RankedQuery.Order.values()[i % 3];
+            RankedQuery query = new RankedQuery(order, limits[random.nextInt(limits.length)]);
+            if (random.nextInt(4) > 0) {
+                query.type(random.nextBoolean() ? "hotel" : "Flight");
+            }
+            if (random.nextInt(3) == 0) {
+                query.location(CITIES[random.nextInt(CITIES.length)].toUpperCase());
+            }
+            if (random.nextInt(3) == 0) {
+                // Bands from a few items wide to the whole catalog, so both plans get picked
+                double min = 20 + random.nextInt(500);
+                query.minPrice(min).maxPrice(min + (random.nextBoolean() ? 5 : 300));
+            }
+            if (random.nextInt(3) == 0) {
+                int min = random.nextInt(6);
+                query.minRating(min).maxRating(min + random.nextInt(3));
+            }
+            if (random.nextInt(4) == 0) {
+                query.availableOnly();
+            }
+            assertEquals(expected(manager, query), ids(manager.findRanked(query)), describe(query));
+        }
+    }
+
+    @Test
+    void itemsRepricedByBookingsRankAtTheirLivePrice() {
+        // Six times the price for the last unit left
+        PricingEngine.setActive(new PricingEngine(Arrays.asList(
+                PricingRule.demandSurcharge("Car Rental", 1, 500))));
+        BookingManager manager = managers.open();
+        List<Displayable> cars = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            cars.add(new CarRental("C" + i, "Car " + i, 10 + i, "SUV", 2));
+        }
+        manager.addTravelEntities(cars);
+        RankedQuery cheapest = new RankedQuery(RankedQuery.Order.CHEAPEST, 10).type("Car Rental");
+        RankedQuery dearest = new RankedQuery(RankedQuery.Order.MOST_EXPENSIVE, 10).type("Car Rental");
+        assertEquals(expected(manager, cheapest), ids(manager.findRanked(cheapest)));
+
+        // A few drifted items, checked at their live price on every query
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(manager.book("C" + i, 1));
+        }
+        assertEquals(expected(manager, cheapest), ids(manager.findRanked(cheapest)));
+        assertEquals(expected(manager, dearest), ids(manager.findRanked(dearest)));
+
+        // Past the drift threshold the type is re-sorted; results must not change
+        for (int i = 5; i < 200; i++) {
+            assertNotNull(manager.book("C" + i, 1));
+        }
+        assertEquals(expected(manager, cheapest), ids(manager.findRanked(cheapest)));
+        assertEquals(expected(manager, dearest), ids(manager.findRanked(dearest)));
+
+        // Cancelling brings prices back, through the drift set again
+        for (Booking booking : new ArrayList<>(manager.getBookingRecords())) {
+            if (booking.getItemId().compareTo("C3") < 0) {
+                manager.cancelByReference(booking.getReference());
+            }
+        }
+        assertEquals(expected(manager, cheapest), ids(manager.findRanked(cheapest)));
+        assertEquals(expected(manager, dearest), ids(manager.findRanked(dearest)));
+    }
+
+    // Filters every item at its live price, then sorts by the query's order with ties by catalog position
+    private static List<String> expected(BookingManager manager, RankedQuery query) {
+        List<Displayable> all = manager.getAllEntities();
+        List<Integer> matches = new ArrayList<>();
+        for (int ordinal = 0; ordinal < all.size(); ordinal++) {
+            Displayable entity = all.get(ordinal);
+            Bookable item = (Bookable) entity;
+            double price = item.calculatePrice();
+            int rating = ((Priceable) entity).getRating();
+            String location = RankIndex.locationOf(entity);
+            if ((query.getType() == null || item.getType().equalsIgnoreCase(query.getType()))
+                    && (query.getLocation() == null || query.getLocation().equalsIgnoreCase(location))
+                    && price >= query.getMinPrice() && price <= query.getMaxPrice()
+                    && rating >= query.getMinRating() && rating <= query.getMaxRating()
+                    && (!query.isAvailableOnly() || item.isAvailable())) {
+                matches.add(ordinal);
+            }
+        }
+        Comparator<Integer> byPrice = Comparator.comparingDouble(o -> ((Bookable) all.get(o)).calculatePrice());
+        Comparator<Integer> order;
+        switch (query.getOrder()) {
+            case MOST_EXPENSIVE:
+                order = byPrice.reversed();
+                break;
+            case BEST_RATED:
+                order = Comparator.<Integer>comparingInt(o -> -((Priceable) all.get(o)).getRating()).thenComparing(byPrice);
+                break;
+            default:
+                order = byPrice;
+                break;
+        }
+        matches.sort(order.thenComparing(Comparator.naturalOrder()));
+        List<String> ids = new ArrayList<>();
+        for (int ordinal : matches.subList(0, Math.min(query.getLimit(), matches.size()))) {
+            ids.add(((TravelEntity) all.get(ordinal)).getId());
+        }
+        return ids;
+    }
+
+    private static List<String> ids(List<Displayable> entities) {
+        List<String> ids = new ArrayList<>();
+        for (Displayable entity : entities) {
+            ids.add(((TravelEntity) entity).getId());
+        }
+        return ids;
+    }
+
+    private static String describe(RankedQuery query) {
+        return query.getOrder() + " limit " + query.getLimit() + " type " + query.getType() + " location "
+                + query.getLocation() + " price " + query.getMinPrice() + ".." + query.getMaxPrice() + " rating "
+                + query.getMinRating() + ".." + query.getMaxRating() + (query.isAvailableOnly() ? " available" : "");
+    }
+}
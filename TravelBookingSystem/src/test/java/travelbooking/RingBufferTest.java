@@ -0,0 +1,93 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Producers racing on a small ring lose nothing and keep their own order; close drains what was claimed
+class RingBufferTest {
+    private static final int PER_PRODUCER = 20_000;
+
+    @Test
+    void everyPublishedSlotReachesTheConsumerInProducerOrder() throws Exception {
+        RingBuffer<long[]> ring = new RingBuffer<>(8, () -> new long[2]);
+        int producers = BookingManagerConcurrencyTest.THREADS;
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+        long[] received = new long[producers];
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            while (!ring.isDrained()) {
+                int handled = ring.drain(slot -> {
+                    int producer = (int) slot[0];
+                    if (slot[1] != lastSeen[producer] + 1) {
+                        failure.compareAndSet(null, "producer " + producer + " sent " + slot[1]
+                                + " after " + lastSeen[producer]);
+                    }
+                    lastSeen[producer] = slot[1];
+                    received[producer]++;
+                });
+                if (handled == 0) {
+                    ring.awaitPublished();
+                }
+            }
+        });
+        consumer.setDaemon(true);
+        consumer.start();
+
+        BookingManagerConcurrencyTest.runConcurrently(producer -> {
+            for (int i = 0; i < PER_PRODUCER; i++) {
+                long sequence = ring.claim();
+                long[] slot = ring.slot(sequence);
+                slot[0] = producer;
+                slot[1] = i;
+                ring.publish(sequence);
+            }
+        });
+        ring.close();
+        consumer.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertFalse(consumer.isAlive());
+        assertNull(failure.get());
+        long[] expected = new long[producers];
+        Arrays.fill(expected, PER_PRODUCER);
+        assertArrayEquals(expected, received);
+    }
+
+    @Test
+    void closeRefusesNewClaimsButDrainsClaimedOnes() {
+        RingBuffer<StringBuilder> ring = new RingBuffer<>(4, StringBuilder::new);
+        assertEquals(4, ring.getCapacity());
+        long first = ring.claim();
+        long second = ring.claim();
+        ring.slot(first).append("a");
+        ring.publish(first);
+        ring.close();
+        assertThrows(IllegalStateException.class, ring::claim);
+
+        StringBuilder seen = new StringBuilder();
+        assertEquals(1, ring.drain(slot -> seen.append(slot)));
+        // The second slot was claimed before close, so the ring is not drained until it is published
+        assertFalse(ring.isDrained());
+        ring.slot(second).append("b");
+        ring.publish(second);
+        ring.awaitPublished();
+        assertEquals(1, ring.drain(slot -> seen.append(slot)));
+        assertTrue(ring.isDrained());
+        assertEquals("ab", seen.toString());
+    }
+
+    @Test
+    void capacityMustBeAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(6, Object::new));
+    }
+}
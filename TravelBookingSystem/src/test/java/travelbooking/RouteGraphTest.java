@@ -0,0 +1,127 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Itineraries connect over daily flights with seats left, and follow flights added while searches run
+class RouteGraphTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    private static final int DAY = 24 * 60;
+
+    @Test
+    void objectiveAndConnectionLimitPickTheRoute() {
+        RouteGraph graph = RouteGraph.build(Arrays.asList(
+                new Flight("F1", "FL-1", 100, "IndiGo", "Delhi", "Goa", "08:00", 120, 10),
+                new Flight("F2", "FL-2", 100, "IndiGo", "Goa", "Pune", "11:00", 60, 10),
+                new Flight("F3", "FL-3", 1000, "IndiGo", "Delhi", "Pune", "09:00", 60, 10)));
+        assertEquals(3, graph.getAirportCount());
+
+        Itinerary cheapest = graph.find("Delhi", "Pune", RouteGraph.Objective.CHEAPEST, 1, 30, 0);
+        assertEquals(Arrays.asList("FL-1", "FL-2"), names(cheapest));
+        assertEquals(1, cheapest.getConnections());
+        assertEquals(8 * 60, cheapest.getDepartureMinute());
+        assertEquals(12 * 60, cheapest.getArrivalMinute());
+
+        assertEquals(Collections.singletonList("FL-3"),
+                names(graph.find("Delhi", "Pune", RouteGraph.Objective.FASTEST, 1, 30, 0)));
+        assertEquals(Collections.singletonList("FL-3"),
+                names(graph.find(" delhi", "PUNE ", RouteGraph.Objective.CHEAPEST, 0, 30, 0)));
+        assertNull(graph.find("Delhi", "Mumbai", RouteGraph.Objective.CHEAPEST, 1, 30, 0));
+        assertNull(graph.find("Pune", "Delhi", RouteGraph.Objective.CHEAPEST, 3, 30, 0));
+    }
+
+    @Test
+    void missedConnectionsWaitForTheNextDay() {
+        RouteGraph graph = RouteGraph.build(Arrays.asList(
+                new Flight("F1", "FL-1", 100, "IndiGo", "Delhi", "Goa", "08:00", 120, 10),
+                new Flight("F2", "FL-2", 100, "IndiGo", "Goa", "Pune", "11:00", 60, 10)));
+
+        Itinerary tight = graph.find("Delhi", "Pune", RouteGraph.Objective.FASTEST, 1, 60, 0);
+        assertEquals(12 * 60, tight.getArrivalMinute());
+
+        Itinerary overnight = graph.find("Delhi", "Pune", RouteGraph.Objective.FASTEST, 1, 61, 0);
+        assertEquals(DAY + 12 * 60, overnight.getArrivalMinute());
+        assertEquals(DAY + 4 * 60, overnight.getTotalMinutes());
+
+        // Too late for today's first leg, so the whole trip starts tomorrow
+        Itinerary tomorrow = graph.find("Delhi", "Pune", RouteGraph.Objective.FASTEST, 1, 60, 9 * 60);
+        assertEquals(DAY + 8 * 60, tomorrow.getDepartureMinute());
+        assertEquals(DAY + 12 * 60, tomorrow.getArrivalMinute());
+    }
+
+    @Test
+    void departureTimesReadTwelveAndTwentyFourHourClocks() {
+        assertEquals(14 * 60 + 30, Flight.parseMinuteOfDay("14:30"));
+        assertEquals(14 * 60 + 30, Flight.parseMinuteOfDay("02:30 pm"));
+        assertEquals(30, Flight.parseMinuteOfDay("12:30 AM"));
+        assertEquals(12 * 60 + 30, Flight.parseMinuteOfDay("12:30 PM"));
+        assertEquals(-1, Flight.parseMinuteOfDay("13:00 PM"));
+        assertEquals(-1, Flight.parseMinuteOfDay("23:00 AM"));
+        assertEquals(-1, Flight.parseMinuteOfDay("24:00"));
+    }
+
+    @Test
+    void soldOutLegsAreRoutedAround() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new Flight("F1", "FL-1", 100, "IndiGo", "Delhi", "Goa", "08:00", 120, 10),
+                new Flight("F2", "FL-2", 100, "IndiGo", "Goa", "Pune", "11:00", 60, 1),
+                new Flight("F3", "FL-3", 1000, "IndiGo", "Delhi", "Pune", "09:00", 60, 10)));
+        assertEquals(Arrays.asList("FL-1", "FL-2"),
+                names(manager.findItinerary("Delhi", "Pune", RouteGraph.Objective.CHEAPEST, 1, 30, 0)));
+
+        Booking lastSeat = manager.book("F2", 1);
+        assertNotNull(lastSeat);
+        assertEquals(Collections.singletonList("FL-3"),
+                names(manager.findItinerary("Delhi", "Pune", RouteGraph.Objective.CHEAPEST, 1, 30, 0)));
+
+        assertTrue(manager.cancelByReference(lastSeat.getReference()));
+        assertEquals(Arrays.asList("FL-1", "FL-2"),
+                names(manager.findItinerary("Delhi", "Pune", RouteGraph.Objective.CHEAPEST, 1, 30, 0)));
+    }
+
+    @Test
+    void flightsAddedDuringSearchesAreNeverLost() throws Exception {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new Flight("F0", "FL-0", 100, "IndiGo", "Delhi", "Goa", "08:00", 120, 10));
+        int perThread = 50;
+        BookingManagerConcurrencyTest.runConcurrently(thread -> {
+            for (int i = 0; i < perThread; i++) {
+                String city = "City-" + thread + "-" + i;
+                manager.addTravelEntity(new Flight("F-" + thread + "-" + i, "FL", 100, "IndiGo", "Goa", city, "12:00", 60, 10));
+                manager.findItinerary("Delhi", city, RouteGraph.Objective.FASTEST, 1, 30, 0);
+            }
+        });
+
+        // A graph built before the last flights were added must not have been installed as current
+        for (int thread = 0; thread < BookingManagerConcurrencyTest.THREADS; thread++) {
+            for (int i = 0; i < perThread; i++) {
+                Itinerary itinerary = manager.findItinerary("Delhi", "City-" + thread + "-" + i,
+                        RouteGraph.Objective.FASTEST, 1, 30, 0);
+                assertNotNull(itinerary, "City-" + thread + "-" + i);
+                assertEquals(2, itinerary.getLegs().size());
+            }
+        }
+    }
+
+    private static List<String> names(Itinerary itinerary) {
+        assertNotNull(itinerary);
+        List<String> names = new ArrayList<>();
+        for (Flight leg : itinerary.getLegs()) {
+            names.add(leg.getName());
+        }
+        return names;
+    }
+}
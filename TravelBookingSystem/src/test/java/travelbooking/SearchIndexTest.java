@@ -0,0 +1,103 @@
+package travelbooking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+// Every token length answers exactly what a contains() scan over the indexed cells would, and
+// case folding does not depend on the default locale
+class SearchIndexTest {
+    private static final String[] CITIES = {"Delhi", "Goa", "Mumbai", "Pune", "Agra", "Ooty", "Kochi"};
+    private static final String[] AIRLINES = {"IndiGo", "Air India", "Vistara", "SpiceJet"};
+    private static final String[] CAR_TYPES = {"SUV", "Sedan", "Hatchback", "EV"};
+
+    private final Locale original = Locale.getDefault();
+
+    @AfterEach
+    void restoreLocale() {
+        Locale.setDefault(original);
+    }
+
+    @Test
+    void tokensOfEveryLengthMatchExactlyTheContainingEntities() {
+        Random random = new Random(7);
+        List<Displayable> catalog = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    catalog.add(new Flight("F" + i, "FL-" + i, 100 + i, pick(random, AIRLINES),
+                            pick(random, CITIES), pick(random, CITIES), (10 + random.nextInt(14)) + ":00", 5));
+                    break;
+                case 1:
+                    catalog.add(new Hotel("H" + i, "Stay " + i, 80 + i, pick(random, CITIES), 1 + random.nextInt(5), 4));
+                    break;
+                default:
+                    catalog.add(new CarRental("C" + i, "Car " + i, 40 + i, pick(random, CAR_TYPES), 2));
+                    break;
+            }
+        }
+        SearchIndex index = new SearchIndex();
+        index.addAll(0, catalog.subList(0, 150));
+        for (int i = 150; i < catalog.size(); i++) {
+            index.add(i, catalog.get(i));
+        }
+
+        List<String> tokens = new ArrayList<>(Arrays.asList("a", "o", "1", "-", ":", "in", "oa", "ev", "2:", "zz",
+                "goa", "air", "fl-1", "stay 1", "spicejet", "qqq"));
+        String alphabet = "abcdeghiklmnoprstuvy0123456789 -:";
+        for (int i = 0; i < 200; i++) {
+            StringBuilder token = new StringBuilder();
+            int length = 1 + random.nextInt(4);
+            for (int j = 0; j < length; j++) {
+                token.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            tokens.add(token.toString().trim());
+        }
+        for (String token : tokens) {
+            if (token.isEmpty() || token.contains(" ")) {
+                continue; // a single token; multi-token queries are intersections of these
+            }
+            assertArrayEquals(bruteForce(catalog, token), index.search(token), token);
+        }
+    }
+
+    @Test
+    void dottedAndDotlessIFoldTheSameUnderATurkishLocale() {
+        // Turkish lowercases I to dotless ı, which would split "IndiGo" from "indigo"
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        SearchIndex index = new SearchIndex();
+        index.addAll(0, Arrays.asList(
+                new Flight("F1", "FL-1", 100, "IndiGo", "Delhi", "Goa", "08:00", 5),
+                new Hotel("H1", "ITC Grand", 100, "Pune", 3, 5),
+                new CarRental("C1", "Car", 50, "SUV", 2)));
+        assertArrayEquals(new int[] {0}, index.search("indigo"));
+        assertArrayEquals(new int[] {0}, index.search("INDIGO"));
+        assertArrayEquals(new int[] {1}, index.search("itc"));
+        assertArrayEquals(new int[] {1}, index.search("ITC grand"));
+        assertArrayEquals(new int[] {2}, index.search("suv"));
+    }
+
+    private static int[] bruteForce(List<Displayable> catalog, String token) {
+        List<Integer> matches = new ArrayList<>();
+        for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+            for (int column = 0; column < SearchIndex.INDEXED_COLUMNS; column++) {
+                if (catalog.get(ordinal).getDisplayValue(column).toLowerCase(Locale.ROOT).contains(token)) {
+                    matches.add(ordinal);
+                    break;
+                }
+            }
+        }
+        return matches.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,101 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Bookings routed through shard threads sell exactly the capacity and mix freely with direct calls
+class ShardedBookingPipelineTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    @Test
+    void hotItemSellsExactlyItsCapacity() throws Exception {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new CarRental("C1", "Car", 50, "SUV", 100),
+                new Hotel("H1", "Hotel", 100, "Goa", 40, 3)));
+        AtomicInteger booked = new AtomicInteger();
+        try (ShardedBookingPipeline pipeline = new ShardedBookingPipeline(manager, 3, 16)) {
+            BookingManagerConcurrencyTest.runConcurrently(thread -> {
+                List<CompletableFuture<Booking>> results = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    results.add(pipeline.book(i % 2 == 0 ? "C1" : "H1", 1));
+                }
+                for (CompletableFuture<Booking> result : results) {
+                    if (result.get(10, TimeUnit.SECONDS) != null) {
+                        booked.incrementAndGet();
+                    }
+                }
+            });
+        }
+        assertEquals(140, booked.get());
+        assertEquals(0, manager.findBookableById("C1").getAvailableCount());
+        assertEquals(0, manager.findBookableById("H1").getAvailableCount());
+        assertEquals(140, manager.getBookingRecords().size());
+    }
+
+    @Test
+    void cancellationsAndFailuresCompleteTheirFutures() throws Exception {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new CarRental("C1", "Car", 50, "SUV", 2),
+                new Hotel("H1", "Hotel", 100, "Goa", 5, 3)));
+        try (ShardedBookingPipeline pipeline = new ShardedBookingPipeline(manager, 2, 4)) {
+            assertNull(pipeline.book("nope", 1).get(5, TimeUnit.SECONDS));
+            Booking viaPipeline = pipeline.book("C1", 1).get(5, TimeUnit.SECONDS);
+            Booking direct = manager.book("C1", 1);
+            assertNotNull(viaPipeline);
+            assertNotNull(direct);
+            assertNull(pipeline.book("C1", 1).get(5, TimeUnit.SECONDS));
+
+            // Dates the calendar rejects fail only their own future; the shard keeps going
+            LocalDate past = LocalDate.now().minusDays(3);
+            CompletableFuture<Booking> rejected = pipeline.book("H1", 1, past, past.plusDays(1));
+            CompletionException failure = assertThrows(CompletionException.class, rejected::join);
+            assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+            LocalDate start = LocalDate.now().plusDays(1);
+            assertNotNull(pipeline.book("H1", 2, start, start.plusDays(2)).get(5, TimeUnit.SECONDS));
+
+            assertEquals(direct.getReference(),
+                    pipeline.cancelByReference(direct.getReference()).get(5, TimeUnit.SECONDS).getReference());
+            assertNull(pipeline.cancelByReference(direct.getReference()).get(5, TimeUnit.SECONDS));
+            assertEquals(viaPipeline.getReference(), pipeline.cancelBooking("C1").get(5, TimeUnit.SECONDS).getReference());
+            assertNull(pipeline.cancelBooking("C1").get(5, TimeUnit.SECONDS));
+            assertEquals(2, manager.findBookableById("C1").getAvailableCount());
+        }
+    }
+
+    @Test
+    void closeFinishesSubmittedCommandsAndRefusesNewOnes() throws Exception {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new CarRental("C1", "Car", 50, "SUV", 1000));
+        ShardedBookingPipeline pipeline = new ShardedBookingPipeline(manager, 1, 8);
+        List<CompletableFuture<Booking>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(pipeline.book("C1", 1));
+        }
+        pipeline.close();
+        for (CompletableFuture<Booking> result : results) {
+            assertTrue(result.isDone());
+            assertNotNull(result.join());
+        }
+        assertThrows(IllegalStateException.class, () -> pipeline.book("C1", 1));
+        assertEquals(800, manager.findBookableById("C1").getAvailableCount());
+    }
+}
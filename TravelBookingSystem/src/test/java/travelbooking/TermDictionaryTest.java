@@ -0,0 +1,170 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Completions and fuzzy lookups on the implicit trie agree with a brute-force scan of every term,
+// and the catalog's suggestions and query corrections are built on them
+class TermDictionaryTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    @Test
+    void fuzzyMatchesBruteForceEditDistance() {
+        Random random = new Random(11);
+        TreeMap<String, Integer> terms = new TreeMap<>();
+        while (terms.size() < 1500) {
+            terms.put(randomWord(random, 1 + random.nextInt(8)), 1 + random.nextInt(20));
+        }
+        String[] keys = terms.keySet().toArray(new String[0]);
+        TermDictionary dictionary = dictionary(terms);
+
+        for (int i = 0; i < 400; i++) {
+            String word = randomWord(random, 1 + random.nextInt(8));
+            int maxEdits = random.nextInt(3);
+            boolean prefixMatch = random.nextBoolean();
+            List<String> expected = bruteForce(keys, terms, word, maxEdits, prefixMatch);
+            String context = word + " within " + maxEdits + (prefixMatch ? " as a prefix" : "");
+            assertEquals(expected, dictionary.fuzzy(word, maxEdits, prefixMatch, Integer.MAX_VALUE), context);
+            assertEquals(expected.subList(0, Math.min(5, expected.size())),
+                    dictionary.fuzzy(word, maxEdits, prefixMatch, 5), context);
+        }
+    }
+
+    @Test
+    void completionIsHeaviestFirstWithinThePrefix() {
+        TreeMap<String, Integer> terms = new TreeMap<>();
+        terms.put("goa", 7);
+        terms.put("goibibo", 2);
+        terms.put("gondia", 7);
+        terms.put("gorakhpur", 9);
+        terms.put("guwahati", 30);
+        TermDictionary dictionary = dictionary(terms);
+
+        assertEquals(Arrays.asList("GORAKHPUR", "GOA", "GONDIA"), dictionary.complete("go", 3));
+        assertEquals(Arrays.asList("GORAKHPUR", "GOA", "GONDIA", "GOIBIBO"), dictionary.complete("go", 10));
+        assertEquals(Collections.emptyList(), dictionary.complete("gx", 10));
+        assertEquals("GOA", dictionary.display("goa"));
+    }
+
+    @Test
+    void transpositionsCountOnceAndTheFirstLetterMustMatch() {
+        TreeMap<String, Integer> terms = new TreeMap<>();
+        terms.put("mumbai", 5);
+        terms.put("mysore", 1);
+        TermDictionary dictionary = dictionary(terms);
+
+        assertEquals(Collections.singletonList("MUMBAI"), dictionary.fuzzy("mubmai", 1, false, 10));
+        assertEquals(Collections.singletonList("MUMBAI"), dictionary.fuzzy("mubm", 1, true, 10));
+        assertTrue(dictionary.fuzzy("numbai", 2, false, 10).isEmpty());
+        assertTrue(TermDictionary.EMPTY.fuzzy("mumbai", 2, true, 10).isEmpty());
+    }
+
+    @Test
+    void suggestionsCompleteThenCorrectAndFollowNewEntities() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new Hotel("H1", "Sea View", 100, "Mumbai", 5, 4),
+                new Hotel("H2", "Harbour Inn", 100, "Mumbai", 5, 3),
+                new Flight("F1", "FL-1", 200, "IndiGo", "Delhi", "Mumbai", "08:00", 10)));
+
+        assertEquals("Mumbai", manager.suggest("mum", 5).get(0));
+        // Nothing starts with "mumv", so the one-edit prefix match fills in
+        assertEquals(Collections.singletonList("Mumbai"), manager.suggest("mumv", 5));
+        assertEquals("Mumbai Harbour", manager.correctQuery("Mumbia Harbour"));
+        assertEquals(3, manager.search("Mumbia").size());
+        assertNull(manager.correctQuery("Mumbai"));
+        assertTrue(manager.suggest("Goa", 5).isEmpty());
+
+        // Registered after the dictionary was built; the next lookup folds it in
+        manager.addTravelEntity(new Hotel("H3", "Beach Hut", 80, "Goa", 5, 3));
+        assertEquals("Goa", manager.suggest("go", 5).get(0));
+        assertEquals("Beach", manager.correctQuery("Baech"));
+    }
+
+    private static TermDictionary dictionary(TreeMap<String, Integer> terms) {
+        String[] keys = terms.keySet().toArray(new String[0]);
+        String[] displays = new String[keys.length];
+        int[] weights = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            displays[i] = keys[i].toUpperCase();
+            weights[i] = terms.get(keys[i]);
+        }
+        return new TermDictionary(keys, displays, weights);
+    }
+
+    // Terms sharing the word's first letter within maxEdits, closest first, then heaviest, then alphabetical
+    private static List<String> bruteForce(String[] keys, TreeMap<String, Integer> terms, String word,
+                                           int maxEdits, boolean prefixMatch) {
+        List<String> matches = new ArrayList<>();
+        List<Integer> distances = new ArrayList<>();
+        for (String key : keys) {
+            if (key.charAt(0) != word.charAt(0)) {
+                continue;
+            }
+            int distance = distance(word, key);
+            if (prefixMatch) {
+                for (int length = 1; length < key.length(); length++) {
+                    distance = Math.min(distance, distance(word, key.substring(0, length)));
+                }
+            }
+            if (distance <= maxEdits) {
+                matches.add(key);
+                distances.add(distance);
+            }
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < matches.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.<Integer>comparingInt(distances::get)
+                .thenComparing(i -> -terms.get(matches.get(i)))
+                .thenComparing(matches::get));
+        List<String> result = new ArrayList<>();
+        for (int i : order) {
+            result.add(matches.get(i).toUpperCase());
+        }
+        return result;
+    }
+
+    // Optimal string alignment distance: Levenshtein plus adjacent transpositions
+    private static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static String randomWord(Random random, int length) {
+        char[] word = new char[length];
+        for (int i = 0; i < length; i++) {
+            word[i] = (char) ('a' + random.nextInt(5));
+        }
+        return new String(word);
+    }
+}
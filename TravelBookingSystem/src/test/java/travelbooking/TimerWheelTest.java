@@ -0,0 +1,122 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Timeouts fire once, never before their deadline, across wheel turns; cancelled ones and expired holds behave
+class TimerWheelTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    @Test
+    void timeoutsFireOnceAndNeverEarly() throws Exception {
+        int count = 200;
+        CountDownLatch fired = new CountDownLatch(count);
+        TimerWheel<Task> wheel = new TimerWheel<>(2, TimeUnit.MILLISECONDS, 8, "test-wheel", task -> {
+            task.fire();
+            fired.countDown();
+        });
+        try {
+            List<Task> tasks = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                // Up to 150ms on a 16ms wheel, so most timeouts wait several turns
+                Task task = new Task(TimeUnit.MILLISECONDS.toNanos(i * 3 % 151));
+                tasks.add(task);
+                wheel.schedule(task, task.delayNanos, TimeUnit.NANOSECONDS);
+            }
+            assertTrue(fired.await(10, TimeUnit.SECONDS));
+            Thread.sleep(20);
+            for (Task task : tasks) {
+                assertEquals(1, task.fired.get());
+                assertTrue(task.firedAfterNanos >= task.delayNanos,
+                        task.firedAfterNanos + "ns for a delay of " + task.delayNanos + "ns");
+            }
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    void cancelledTimeoutsDoNotFire() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        TimerWheel<Task> wheel = new TimerWheel<>(2, TimeUnit.MILLISECONDS, 8, "test-wheel", task -> {
+            task.fire();
+            fired.countDown();
+        });
+        try {
+            Task cancelled = new Task(TimeUnit.MILLISECONDS.toNanos(40));
+            Task kept = new Task(TimeUnit.MILLISECONDS.toNanos(80));
+            wheel.schedule(cancelled, cancelled.delayNanos, TimeUnit.NANOSECONDS);
+            wheel.schedule(kept, kept.delayNanos, TimeUnit.NANOSECONDS);
+            wheel.cancel(cancelled);
+
+            assertTrue(fired.await(5, TimeUnit.SECONDS));
+            assertEquals(1, kept.fired.get());
+            assertEquals(0, cancelled.fired.get());
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    void bucketCountMustBeAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TimerWheel<Task>(1, TimeUnit.MILLISECONDS, 12, "test-wheel", Task::fire));
+    }
+
+    @Test
+    void expiredHoldsGiveTheirUnitsBack() throws Exception {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new CarRental("C1", "Car", 50, "SUV", 3));
+        Hold expiring = manager.hold("C1", 2, 150, TimeUnit.MILLISECONDS);
+        Hold released = manager.hold("C1", 1, 1, TimeUnit.MINUTES);
+        assertNotNull(expiring);
+        assertNotNull(released);
+        assertEquals(0, manager.findBookableById("C1").getAvailableCount());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (manager.findHold(expiring.getReference()) != null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(manager.findHold(expiring.getReference()));
+        assertFalse(expiring.isActive());
+        assertNull(manager.confirmHold(expiring.getReference()));
+        assertEquals(2, manager.findBookableById("C1").getAvailableCount());
+
+        // The other hold is untouched by the expiry and can still be released early
+        assertTrue(released.isActive());
+        assertTrue(manager.releaseHold(released.getReference()));
+        assertFalse(manager.releaseHold(released.getReference()));
+        assertEquals(3, manager.findBookableById("C1").getAvailableCount());
+        assertEquals(0, manager.getActiveHoldCount());
+    }
+
+    private static final class Task extends TimerWheel.Timeout {
+        final long delayNanos;
+        final long createdNanos = System.nanoTime();
+        final AtomicInteger fired = new AtomicInteger();
+        volatile long firedAfterNanos;
+
+        Task(long delayNanos) {
+            this.delayNanos = delayNanos;
+        }
+
+        void fire() {
+            firedAfterNanos = System.nanoTime() - createdNanos;
+            fired.incrementAndGet();
+        }
+    }
+}
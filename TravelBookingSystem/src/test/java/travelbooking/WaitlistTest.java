@@ -0,0 +1,175 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Units freed while others wait go to the waitlist, never to whoever books first
+class WaitlistTest {
+    @RegisterExtension
+    final Managers managers = new Managers();
+
+    @Test
+    void freedUnitsGoToTheLineBeforeDirectBookings() throws Exception {
+        BookingManager manager = managers.open();
+        manager.addTravelEntities(Arrays.asList(
+                new CarRental("C1", "Car", 50, "SUV", 2),
+                new Hotel("H1", "Hotel", 100, "Goa", 5, 3)));
+        Booking first = manager.book("C1", 1);
+        Booking second = manager.book("C1", 1);
+        WaitlistEntry entry = manager.joinWaitlist("C1", 1, 0);
+        assertNotNull(entry);
+
+        assertTrue(manager.cancelByReference(first.getReference()));
+        // The freed unit is the waiting entry's, though the promotion pass has not run yet
+        assertNull(manager.book("C1", 1));
+        assertNull(manager.hold("C1", 1, 1, TimeUnit.MINUTES));
+        assertNull(manager.bookPackage(Arrays.asList("C1", "H1"), new int[] {1, 1}));
+
+        Booking promoted = entry.getResult().get(5, TimeUnit.SECONDS);
+        assertNotNull(promoted);
+        assertEquals("C1", promoted.getItemId());
+        assertEquals(0, manager.findBookableById("C1").getAvailableCount());
+        assertEquals(5, manager.findBookableById("H1").getAvailableCount());
+
+        // Nobody waits any more, so direct bookings are back to first come, first served
+        assertTrue(manager.cancelByReference(second.getReference()));
+        assertNotNull(manager.book("C1", 1));
+    }
+
+    @Test
+    void headOfTheLineHoldsItUntilItsWholeRequestFits() throws Exception {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new CarRental("C1", "Car", 50, "SUV", 2));
+        Booking first = manager.book("C1", 1);
+        Booking second = manager.book("C1", 1);
+        WaitlistEntry entry = manager.joinWaitlist("C1", 2, 0);
+
+        assertTrue(manager.cancelByReference(first.getReference()));
+        Thread.sleep(4 * Waitlist.PROMOTE_BATCH_MILLIS);
+        assertTrue(entry.isWaiting());
+        assertNull(manager.book("C1", 1));
+        assertEquals(1, manager.findBookableById("C1").getAvailableCount());
+
+        assertTrue(manager.cancelByReference(second.getReference()));
+        assertEquals(2, entry.getResult().get(5, TimeUnit.SECONDS).getQuantity());
+        assertFalse(entry.isWaiting());
+    }
+
+    @Test
+    void requestsLargerThanTheItemAreRefusedAndDoNotBlockIt() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new CarRental("C1", "Car", 50, "SUV", 2));
+        assertThrows(IllegalArgumentException.class, () -> manager.joinWaitlist("C1", 3, 0));
+        assertEquals(0, manager.getWaitlistSize());
+        assertNotNull(manager.book("C1", 1));
+        assertNotNull(manager.joinWaitlist("C1", 2, 0));
+    }
+
+    @Test
+    void itemsWithNoCapacityCannotBeWaitedFor() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new Flight("F1", "FL-1", 150, "SpiceJet", "Mumbai", "Bangalore", "02:30 PM", 0));
+        assertNull(manager.book("F1", 1));
+        assertThrows(IllegalArgumentException.class, () -> manager.joinWaitlist("F1", 1, 0));
+        assertEquals(0, manager.getWaitlistSize());
+    }
+
+    @Test
+    void datedBookingsStillGetNightsThatTakeNoWaitedUnits() {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new Hotel("H1", "Hotel", 100, "Goa", 2, 3));
+        LocalDate day = LocalDate.now().plusDays(5);
+        assertNotNull(manager.book("H1", 1, day, day.plusDays(3)));
+        assertNotNull(manager.book("H1", 1));
+        assertNotNull(manager.joinWaitlist("H1", 1, 0));
+
+        // Other nights fit under the existing peak, so the waiting entry loses nothing
+        assertNotNull(manager.book("H1", 1, day.plusDays(4), day.plusDays(6)));
+        // These nights would raise the peak and take the unit the line is waiting for
+        assertNull(manager.book("H1", 1, day.plusDays(2), day.plusDays(4)));
+        assertNull(manager.hold("H1", 1, day, day.plusDays(1), 1, TimeUnit.MINUTES));
+        assertEquals(0, manager.findBookableById("H1").getAvailableCount());
+    }
+
+    // Bookers, waiters and cancellations race on a one-unit item while snapshots close the write gate
+    @Test
+    void promotionsAndSnapshotsNeverDeadlock() throws Exception {
+        BookingManager manager = managers.open();
+        manager.addTravelEntity(new CarRental("C1", "Car", 50, "SUV", 1));
+        List<WaitlistEntry> joined = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread snapshots = new Thread(() -> {
+            while (running.get()) {
+                manager.publishSnapshot();
+            }
+        });
+        snapshots.setDaemon(true);
+        snapshots.start();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> BookingManagerConcurrencyTest.runConcurrently(
+                    thread -> {
+                        Random random = new Random(thread);
+                        List<WaitlistEntry> mine = new ArrayList<>();
+                        for (int i = 0; i < 2000; i++) {
+                            Booking booking = manager.book("C1", 1);
+                            if (booking != null) {
+                                assertTrue(manager.cancelByReference(booking.getReference()));
+                            } else if (random.nextInt(4) == 0) {
+                                WaitlistEntry entry = manager.joinWaitlist("C1", 1, random.nextInt(2));
+                                mine.add(entry);
+                                joined.add(entry);
+                            }
+                            for (Iterator<WaitlistEntry> it = mine.iterator(); it.hasNext(); ) {
+                                WaitlistEntry entry = it.next();
+                                if (entry.getResult().isDone()) {
+                                    it.remove();
+                                    Booking promoted = entry.getResult().join();
+                                    if (promoted != null) {
+                                        assertTrue(manager.cancelByReference(promoted.getReference()));
+                                    }
+                                } else if (random.nextInt(8) == 0) {
+                                    manager.leaveWaitlist(entry.getReference());
+                                }
+                            }
+                        }
+                    }));
+        } finally {
+            running.set(false);
+            snapshots.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        // Whoever is still waiting leaves; a promotion in flight finishes first
+        for (WaitlistEntry entry : joined) {
+            while (!entry.getResult().isDone()) {
+                manager.leaveWaitlist(entry.getReference());
+                Thread.sleep(1);
+            }
+            Booking promoted = entry.getResult().join();
+            if (promoted != null && manager.findBooking(promoted.getReference()) != null) {
+                assertTrue(manager.cancelByReference(promoted.getReference()));
+            }
+        }
+        assertEquals(0, manager.getWaitlistSize());
+        assertTrue(manager.getBookingRecords().isEmpty());
+        assertEquals(1, manager.findBookableById("C1").getAvailableCount());
+    }
+}
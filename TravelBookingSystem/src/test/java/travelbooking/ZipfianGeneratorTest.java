@@ -0,0 +1,96 @@
+package travelbooking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Draws follow the Zipf skew the load test relies on, and ranks map onto a fixed shuffle of the items
+class ZipfianGeneratorTest {
+    private static final int DRAWS = 200_000;
+
+    @Test
+    void hottestRanksGetTheirZipfShare() {
+        int n = 100_000;
+        ZipfianGenerator zipf = new ZipfianGenerator(n, 0.99, 42);
+        Random random = new Random(7);
+        int[] counts = new int[n];
+        for (int i = 0; i < DRAWS; i++) {
+            counts[zipf.nextRank(random)]++;
+        }
+        // Expected shares: 1/zeta(n) for rank 0, and the first 100 ranks together
+        double zetaN = zeta(n, 0.99, n);
+        assertEquals(1 / zetaN, (double) counts[0] / DRAWS, 0.01);
+        double hottest = 0;
+        for (int rank = 0; rank < n / 1000; rank++) {
+            hottest += counts[rank];
+        }
+        assertEquals(zeta(n, 0.99, n / 1000) / zetaN, hottest / DRAWS, 0.02);
+        assertTrue(hottest / DRAWS > 0.4, "hottest 0.1% got " + hottest / DRAWS);
+        // Popularity falls with rank
+        assertTrue(counts[0] > counts[1] && counts[1] > counts[10] && counts[10] > counts[1000]);
+    }
+
+    @Test
+    void zeroThetaIsUniform() {
+        ZipfianGenerator zipf = new ZipfianGenerator(10, 0, 42);
+        Random random = new Random(7);
+        int[] counts = new int[10];
+        for (int i = 0; i < DRAWS; i++) {
+            counts[zipf.nextRank(random)]++;
+        }
+        for (int count : counts) {
+            assertEquals(DRAWS / 10.0, count, DRAWS / 100.0);
+        }
+    }
+
+    @Test
+    void ranksAreShuffledOntoEveryIndexOnce() {
+        int n = 1000;
+        ZipfianGenerator zipf = new ZipfianGenerator(n, 0.99, 42);
+        int[] indexes = new int[n];
+        for (int rank = 0; rank < n; rank++) {
+            indexes[rank] = zipf.indexOfRank(rank);
+        }
+        int[] sorted = indexes.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, sorted[i]);
+        }
+        assertTrue(indexes[0] != 0 || indexes[1] != 1 || indexes[2] != 2, "hot ranks were not shuffled");
+
+        ZipfianGenerator again = new ZipfianGenerator(n, 0.99, 42);
+        int[] repeated = new int[n];
+        for (int rank = 0; rank < n; rank++) {
+            repeated[rank] = again.indexOfRank(rank);
+        }
+        assertArrayEquals(indexes, repeated);
+        assertEquals(zipf.indexOfRank(0), zipf.next(new Random(1) {
+            @Override
+            public double nextDouble() {
+                return 0; // the very bottom of the distribution is rank 0
+            }
+        }));
+    }
+
+    @Test
+    void thetaMustBeBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new ZipfianGenerator(10, 1, 42));
+        assertThrows(IllegalArgumentException.class, () -> new ZipfianGenerator(10, -0.1, 42));
+        assertThrows(IllegalArgumentException.class, () -> new ZipfianGenerator(0, 0.5, 42));
+    }
+
+    // Sum of 1 / i^theta for i from 1 to k
+    private static double zeta(int n, double theta, int k) {
+        double sum = 0;
+        for (int i = 1; i <= Math.min(n, k); i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,133 @@
+package travelbooking;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Hot paths of BookingManager and the table search, across catalog sizes.
+// Run a subset with e.g.: java -jar benchmarks/target/benchmarks.jar BookingManagerBenchmark -p catalogSize=10000 -p store=objects
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class BookingManagerBenchmark {
+    @Param({"10", "10000", "1000000", "10000000"})
+    public int catalogSize;
+
+    @Param({"objects", "columnar"})
+    public String store;
+
+    private BookingManager manager;
+    private String[] ids;
+    private List<Displayable> catalog;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new BookingManager(BookingManager.Storage.valueOf(store.toUpperCase(Locale.ROOT)));
+        // Enough capacity that book never fails, so every call measures a real reservation
+        ids = SyntheticCatalog.ofSize(catalogSize, 1_000_000, 42).populate(manager);
+        catalog = manager.getEntityView();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.close();
+    }
+
+    private String randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    @Benchmark
+    public boolean bookAndCancel() {
+        Booking booking = manager.book(randomId(), 1);
+        return manager.cancelByReference(booking.getReference());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean bookAndCancelContended() {
+        Booking booking = manager.book(randomId(), 1);
+        return manager.cancelByReference(booking.getReference());
+    }
+
+    // Every thread hammers the same item: worst case for the per-item CAS
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean bookAndCancelSingleHotItem() {
+        Booking booking = manager.book(ids[0], 1);
+        return manager.cancelByReference(booking.getReference());
+    }
+
+    @Benchmark
+    public List<Displayable> getAvailableEntities() {
+        return manager.getAvailableEntities();
+    }
+
+    // The same set from the latest published snapshot: O(1) to get, and no index read at all
+    @Benchmark
+    public int snapshotAvailableCount() {
+        return manager.snapshot().getAvailableEntities().size();
+    }
+
+    // Reads a snapshot while other threads book and cancel: readers never wait on writers
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int snapshotUnderBookings() {
+        if (ThreadLocalRandom.current().nextInt(4) == 0) {
+            Booking booking = manager.book(randomId(), 1);
+            manager.cancelByReference(booking.getReference());
+            return 0;
+        }
+        return manager.snapshot().getAvailableCount(ThreadLocalRandom.current().nextInt(catalogSize));
+    }
+
+    // Same work as TravelBookingSystem's search worker for "mumbai" with the Hotels filter
+    @Benchmark
+    public void searchAndFilter(Blackhole blackhole) {
+        for (Displayable entity : manager.search("mumbai", "Hotel", false)) {
+            blackhole.consume(entity);
+        }
+    }
+
+    // One keystroke of autocomplete: heaviest terms under a prefix
+    @Benchmark
+    public List<String> suggestPrefix() {
+        return manager.suggest("mum", 10);
+    }
+
+    // A misspelled prefix: no exact completions beyond the typo, so the fuzzy walk runs too
+    @Benchmark
+    public List<String> suggestMisspelled() {
+        return manager.suggest("mumbia", 10);
+    }
+
+    // The "available hotels" combined filter with no search text: a pure bitset intersection
+    @Benchmark
+    public List<Displayable> availableHotels() {
+        return manager.search("", "Hotel", true);
+    }
+
+    // Ranked query through the location slice, walked in price order
+    @Benchmark
+    public List<Displayable> cheapestGoodHotelsInMumbai() {
+        return manager.findRanked(new RankedQuery(RankedQuery.Order.CHEAPEST, 20).type("Hotel").location("Mumbai").minRating(4));
+    }
+
+    // Price band range scan
+    @Benchmark
+    public List<Displayable> carsUnder50() {
+        return manager.findRanked(new RankedQuery(RankedQuery.Order.CHEAPEST, 100).type("Car Rental").maxPrice(50));
+    }
+
+    @Benchmark
+    public String[] getDisplayData() {
+        return catalog.get(ThreadLocalRandom.current().nextInt(catalog.size())).getDisplayData();
+    }
+}
@@ -0,0 +1,95 @@
+package travelbooking;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Time to bring a manager back from its journal: full recovery (catalog plus booking records), and
+// the booking restore step on its own, in bulk versus one booking at a time.
+// Run with e.g.: java -jar benchmarks/target/benchmarks.jar JournalRecoveryBenchmark -p bookings=10000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class JournalRecoveryBenchmark {
+    @Param({"10000"})
+    public int catalogSize;
+
+    @Param({"1000000"})
+    public int bookings;
+
+    private Path directory;
+    private List<Booking> saved;
+    private BookingManager empty;
+    private BookingManager populated;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-recovery");
+        saved = new ArrayList<>(bookings);
+        try (BookingManager manager = new BookingManager()) {
+            BookingJournal journal = BookingJournal.open(directory, manager, false);
+            // Enough capacity that every booking fits
+            String[] ids = SyntheticCatalog.ofSize(catalogSize, bookings, 42).populate(manager);
+            Random random = new Random(42);
+            for (int i = 0; i < bookings; i++) {
+                Booking booking = manager.book(ids[random.nextInt(ids.length)], 1);
+                // As recovery reads it back: the item is resolved on restore
+                saved.add(new Booking(booking.getReference(), booking.getItemId(), null, booking.getQuantity(),
+                        booking.getPrice(), booking.getTimestamp()));
+            }
+            journal.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void freshManagers() {
+        empty = new BookingManager();
+        populated = new BookingManager();
+        SyntheticCatalog.ofSize(catalogSize, bookings, 42).populate(populated);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeManagers() {
+        empty.close();
+        populated.close();
+    }
+
+    @Benchmark
+    public long recover() throws IOException {
+        BookingJournal journal = BookingJournal.open(directory, empty, false);
+        long events = journal.getRecoveredEvents();
+        journal.close();
+        return events;
+    }
+
+    @Benchmark
+    public int restoreBulk() {
+        return populated.restoreBookings(saved).size();
+    }
+
+    @Benchmark
+    public int restoreOneByOne() {
+        for (Booking booking : saved) {
+            populated.restoreBooking(booking);
+        }
+        return populated.getBookingRecords().size();
+    }
+}
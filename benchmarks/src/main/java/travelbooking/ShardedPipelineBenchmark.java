@@ -0,0 +1,69 @@
+package travelbooking;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Book-and-cancel throughput with every thread writing, direct against BookingManager versus through
+// ShardedBookingPipeline, for uniform and single-hot-item traffic.
+// Run with e.g.: java -jar benchmarks/target/benchmarks.jar ShardedPipelineBenchmark -p shards=4
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Threads(Threads.MAX)
+public class ShardedPipelineBenchmark {
+    @Param({"10000"})
+    public int catalogSize;
+
+    @Param({"1", "4"})
+    public int shards;
+
+    private BookingManager manager;
+    private ShardedBookingPipeline pipeline;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new BookingManager();
+        ids = SyntheticCatalog.ofSize(catalogSize, 1_000_000, 42).populate(manager);
+        pipeline = new ShardedBookingPipeline(manager, shards, ShardedBookingPipeline.DEFAULT_RING_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.close();
+        manager.close();
+    }
+
+    private String randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    @Benchmark
+    public boolean direct() {
+        Booking booking = manager.book(randomId(), 1);
+        return manager.cancelByReference(booking.getReference());
+    }
+
+    @Benchmark
+    public boolean directHotItem() {
+        Booking booking = manager.book(ids[0], 1);
+        return manager.cancelByReference(booking.getReference());
+    }
+
+    @Benchmark
+    public Booking pipelined() {
+        Booking booking = pipeline.book(randomId(), 1).join();
+        return pipeline.cancelByReference(booking.getReference()).join();
+    }
+
+    @Benchmark
+    public Booking pipelinedHotItem() {
+        Booking booking = pipeline.book(ids[0], 1).join();
+        return pipeline.cancelByReference(booking.getReference()).join();
+    }
+}